@@ -0,0 +1,167 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteResultHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Executor with adaptive timeouts.
+ * <p>
+ * Every command line gets its own {@link ProcessTreeWatchdog} with the timeout from
+ * {@link TimeoutHistory}, synchronous and asynchronous runs alike.
+ * Durations of successful runs are recorded and saved, a run that approaches its timeout is
+ * reported as a warning. Like {@link DefaultExecutor} the executor runs one command at a time.
+ *
+ * @since 1.3.0
+ */
+public class AdaptiveTimeoutExecutor extends DefaultExecutor {
+
+  private static final Logger LOGGER = System.getLogger(AdaptiveTimeoutExecutor.class.getName());
+
+  private final Duration defaultTimeout;
+  private final TimeoutHistory history;
+
+  private Path threadDumpDirectory;
+
+  /**
+   * Create an executor.
+   *
+   * @param history        timeout history
+   * @param defaultTimeout timeout of a command line without history, the hard cap if null
+   */
+  @SuppressWarnings("deprecation")
+  public AdaptiveTimeoutExecutor(@NotNull TimeoutHistory history,
+      @Nullable Duration defaultTimeout) {
+    this.history = history;
+    this.defaultTimeout = defaultTimeout;
+  }
+
+  static String getKey(CommandLine commandLine) {
+    return String.join(" ", commandLine.toStrings());
+  }
+
+  /**
+   * Set the directory of thread dumps that are captured on timeouts, see
+   * {@link ProcessTreeWatchdog#setThreadDumpDirectory(Path)}.
+   *
+   * @param threadDumpDirectory directory of thread dumps, null to disable them
+   */
+  public void setThreadDumpDirectory(@Nullable Path threadDumpDirectory) {
+    this.threadDumpDirectory = threadDumpDirectory;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The duration is recorded before the handler is notified of the successful run.
+   */
+  @Override
+  public void execute(CommandLine command, Map<String, String> environment,
+      ExecuteResultHandler handler) throws ExecuteException, IOException {
+    var key = getKey(command);
+    var timeout = history.getTimeout(key, defaultTimeout);
+    var watchdog = setWatchdog(timeout);
+    var start = System.nanoTime();
+
+    super.execute(command, environment, new ExecuteResultHandler() {
+
+      @Override
+      public void onProcessComplete(int exitValue) {
+        record(key, timeout, start);
+        handler.onProcessComplete(exitValue);
+      }
+
+      @Override
+      public void onProcessFailed(ExecuteException exception) {
+        checkKilled(watchdog, timeout);
+        handler.onProcessFailed(exception);
+      }
+
+    });
+  }
+
+  @Override
+  public int execute(CommandLine command, Map<String, String> environment)
+      throws ExecuteException, IOException {
+    var key = getKey(command);
+    var timeout = history.getTimeout(key, defaultTimeout);
+    var watchdog = setWatchdog(timeout);
+    var start = System.nanoTime();
+
+    try {
+      var exitValue = super.execute(command, environment);
+
+      record(key, timeout, start);
+
+      return exitValue;
+    } catch (ExecuteException exception) {
+      checkKilled(watchdog, timeout);
+      throw exception;
+    }
+  }
+
+  private ProcessTreeWatchdog setWatchdog(Duration timeout) {
+    var watchdog = new ProcessTreeWatchdog(timeout);
+
+    watchdog.setThreadDumpDirectory(threadDumpDirectory);
+    setWatchdog(watchdog);
+
+    return watchdog;
+  }
+
+  private void record(String key, Duration timeout, long start) {
+    var duration = Duration.ofNanos(System.nanoTime() - start);
+
+    if (TimeoutHistory.isCloseToLimit(duration, timeout)) {
+      LOGGER.log(Level.WARNING,
+          () -> String.format("The run took %d ms, it is close to the timeout %d ms",
+              duration.toMillis(), timeout.toMillis()));
+    }
+    history.record(key, duration);
+    save();
+  }
+
+  private void checkKilled(ProcessTreeWatchdog watchdog, Duration timeout) {
+    if (watchdog.killedProcess()) {
+      LOGGER.log(Level.WARNING,
+          () -> String.format("The run was killed by the timeout %d ms", timeout.toMillis()));
+    }
+  }
+
+  private void save() {
+    try {
+      history.save();
+    } catch (IOException exception) {
+      LOGGER.log(Level.WARNING, "Could not save the timeout history", exception);
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Splits HTTP files into batches so that every command line fits the argument length limit of
+ * the platform.
+ */
+final class Batches {
+
+  /**
+   * Overhead of an argument: the terminating {@code NUL} and the pointer in {@code argv} on
+   * Unix-like systems, the separating space and quotes on Windows.
+   */
+  static final int ARGUMENT_OVERHEAD = 9;
+
+  /**
+   * The argument length limit of Windows {@code CreateProcess}, in characters.
+   */
+  static final int WINDOWS_ARGUMENT_LIMIT = 32767;
+
+  /**
+   * A conservative limit of Unix-like systems: arguments and environment share
+   * {@code ARG_MAX}, that is at least 128 KiB on Linux and 256 KiB on macOS.
+   */
+  static final int UNIX_ARGUMENT_LIMIT = 128 * 1024;
+
+  private static final int MINIMAL_ARGUMENT_LIMIT = 4096;
+
+  private Batches() {
+  }
+
+  /**
+   * Default argument length limit of the current platform.
+   *
+   * @return the limit
+   */
+  static int defaultArgumentLimit() {
+    return defaultArgumentLimit(System.getProperty("os.name"), System.getenv());
+  }
+
+  @VisibleForTesting
+  static int defaultArgumentLimit(String osName, Map<String, String> environment) {
+    if (osName.startsWith("Windows")) {
+      return WINDOWS_ARGUMENT_LIMIT;
+    }
+
+    var environmentLength = environment.entrySet().stream()
+        .mapToInt(variable -> length(variable.getKey() + '=' + variable.getValue())).sum();
+
+    return Math.max(UNIX_ARGUMENT_LIMIT - environmentLength, MINIMAL_ARGUMENT_LIMIT);
+  }
+
+  /**
+   * Length of an argument with its overhead.
+   *
+   * @param argument the argument
+   * @return the length
+   */
+  static int length(@NotNull String argument) {
+    return argument.getBytes(StandardCharsets.UTF_8).length + ARGUMENT_OVERHEAD;
+  }
+
+  /**
+   * Splits HTTP files keeping their order. A file that does not fit the limit alone gets its own
+   * batch.
+   *
+   * @param requestFiles HTTP files
+   * @param baseLength   length of the command line without HTTP files
+   * @param limit        the argument length limit
+   * @return batches, at least one
+   */
+  static List<List<Path>> split(@NotNull List<Path> requestFiles, int baseLength, int limit) {
+    var batches = new ArrayList<List<Path>>();
+    var batch = new ArrayList<Path>();
+    var batchLength = baseLength;
+
+    for (Path requestFile : requestFiles) {
+      var fileLength = length(requestFile.toString());
+
+      if (!batch.isEmpty() && batchLength + fileLength > limit) {
+        batches.add(List.copyOf(batch));
+        batch.clear();
+        batchLength = baseLength;
+      }
+      batch.add(requestFile);
+      batchLength += fileLength;
+    }
+    batches.add(List.copyOf(batch));
+
+    return batches;
+  }
+
+}
@@ -0,0 +1,434 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.StandardProtocolFamily;
+import java.net.URISyntaxException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteResultHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Executor that sends command lines to {@link HttpClientDaemon}, a long-lived process that keeps
+ * HTTP Client warm, and streams its output to the {@link #getStreamHandler() stream handler}.
+ * <p>
+ * The daemon is started on demand and stops after the idle timeout. One daemon is shared by all
+ * builds and test JVMs of the user that use the same distribution and main class, requests are
+ * run one by one. The default socket is in the directory of the user in the temporary directory
+ * that is accessible to the owner only, a socket of another user is never used. Start-up is
+ * guarded by the lock file next to the socket.
+ * <p>
+ * The environment and the watchdog are not applied, asynchronous runs use a thread, and Java 24
+ * and later are not supported since the daemon needs the security manager. The daemon has its own
+ * working directory, so request files, environment files and the report directory are resolved
+ * against the {@link #getWorkingDirectory() working directory} before they are sent. The output
+ * of the daemon itself goes to the log file next to the socket.
+ *
+ * @since 1.3.0
+ */
+public class DaemonExecutor extends DefaultExecutor {
+
+  /**
+   * The default idle timeout of the daemon.
+   */
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofHours(3);
+
+  private static final Duration CONNECT_INTERVAL = Duration.ofMillis(100);
+  private static final String DEFAULT_REPORT_PATH = "reports";
+  private static final Logger LOGGER = System.getLogger(DaemonExecutor.class.getName());
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString(
+      "rwx------");
+  private static final Set<String> PATH_OPTIONS = Set.of("--env-file", "--private-env-file",
+      "--report");
+  private static final String REPORT = "--report";
+  private static final Duration START_TIMEOUT = Duration.ofSeconds(30);
+  private static final Set<String> VALUE_OPTIONS = Set.of("--connect-timeout", "--env",
+      "--env-variables", "--log-level", "--private-env-variables", "--proxy", "--socket-timeout");
+
+  private final Path distribution;
+  private final Duration idleTimeout;
+  private final String mainClass;
+  private final Path socket;
+
+  /**
+   * Create an executor with the default socket in the directory of the user in the temporary
+   * directory.
+   *
+   * @param distribution home of the HTTP Client distribution, the directory with {@code lib}
+   * @param mainClass    the main class of HTTP Client, the default one if null
+   * @param idleTimeout  the idle timeout of the daemon, the default one if null
+   */
+  public DaemonExecutor(@NotNull Path distribution, @Nullable String mainClass,
+      @Nullable Duration idleTimeout) {
+    this(null, distribution, mainClass, idleTimeout);
+  }
+
+  /**
+   * Create an executor.
+   *
+   * @param socket       the Unix domain socket of the daemon, the default one if null
+   * @param distribution home of the HTTP Client distribution, the directory with {@code lib}
+   * @param mainClass    the main class of HTTP Client, the default one if null
+   * @param idleTimeout  the idle timeout of the daemon, the default one if null
+   */
+  public DaemonExecutor(@Nullable Path socket, @NotNull Path distribution,
+      @Nullable String mainClass, @Nullable Duration idleTimeout) {
+    this(socket, distribution, mainClass, idleTimeout, null);
+  }
+
+  /**
+   * Create an executor with the working directory, paths of command lines are resolved against
+   * it.
+   *
+   * @param socket           the Unix domain socket of the daemon, the default one if null
+   * @param distribution     home of the HTTP Client distribution, the directory with {@code lib}
+   * @param mainClass        the main class of HTTP Client, the default one if null
+   * @param idleTimeout      the idle timeout of the daemon, the default one if null
+   * @param workingDirectory the working directory, the current one if null
+   */
+  @SuppressWarnings("deprecation")
+  public DaemonExecutor(@Nullable Path socket, @NotNull Path distribution,
+      @Nullable String mainClass, @Nullable Duration idleTimeout,
+      @Nullable Path workingDirectory) {
+    if (nonNull(workingDirectory)) {
+      setWorkingDirectory(workingDirectory.toFile());
+    }
+    this.distribution = distribution.toAbsolutePath().normalize();
+    this.idleTimeout = nonNull(idleTimeout) ? idleTimeout : DEFAULT_IDLE_TIMEOUT;
+    this.mainClass = nonNull(mainClass) ? mainClass : JvmLauncher.DEFAULT_MAIN_CLASS;
+    this.socket = nonNull(socket) ? socket : getDefaultSocket(this.distribution, this.mainClass);
+  }
+
+  /**
+   * The socket of the daemon in the directory of the user in the temporary directory, it depends
+   * on the distribution and the main class.
+   */
+  static Path getDefaultSocket(Path distribution, String mainClass) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(
+          String.join("\n", distribution.toString(), mainClass).getBytes(StandardCharsets.UTF_8));
+
+      return getUserDirectory().resolve(HexFormat.of().formatHex(digest, 0, 8) + ".sock");
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * HTTP Client arguments with request files, environment files and the report directory resolved
+   * against the working directory.
+   */
+  static List<String> resolvePaths(String[] arguments, Path workingDirectory) {
+    var resolved = new ArrayList<String>(arguments.length + 1);
+
+    for (int i = 0; i < arguments.length; i++) {
+      var argument = arguments[i];
+
+      if (PATH_OPTIONS.contains(argument)) {
+        resolved.add(argument);
+        if (i + 1 < arguments.length) {
+          resolved.add(workingDirectory.resolve(arguments[++i]).toString());
+        } else if (REPORT.equals(argument)) {
+          resolved.add(workingDirectory.resolve(DEFAULT_REPORT_PATH).toString());
+        }
+      } else if (VALUE_OPTIONS.contains(argument) && i + 1 < arguments.length) {
+        resolved.add(argument);
+        resolved.add(arguments[++i]);
+      } else if (argument.startsWith("-")) {
+        resolved.add(argument);
+      } else {
+        resolved.add(workingDirectory.resolve(argument).toString());
+      }
+    }
+
+    return resolved;
+  }
+
+  private static Path getUserDirectory() {
+    return Path.of(System.getProperty("java.io.tmpdir"),
+        "ijhttp-" + System.getProperty("user.name"));
+  }
+
+  private static boolean isPosix(Path path) throws IOException {
+    return Files.getFileStore(path).supportsFileAttributeView("posix");
+  }
+
+  /**
+   * Create the directory that is accessible to the owner only or check the existing one.
+   */
+  private static void createPrivateDirectory(Path directory) throws IOException {
+    var parent = directory.getParent();
+
+    Files.createDirectories(parent);
+    if (!isPosix(parent)) {
+      Files.createDirectories(directory);
+      return;
+    }
+    try {
+      Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+      Files.setPosixFilePermissions(directory, OWNER_ONLY);
+    } catch (FileAlreadyExistsException exception) {
+      if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+        throw new IOException("Socket directory is not a directory: " + directory, exception);
+      }
+    }
+    checkOwner(directory);
+    if (!OWNER_ONLY.equals(Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS))) {
+      throw new IOException("Socket directory must be accessible to the owner only: " + directory);
+    }
+  }
+
+  private static void checkOwner(Path path) throws IOException {
+    if (!isPosix(path)) {
+      return;
+    }
+
+    var owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+    var user = path.getFileSystem().getUserPrincipalLookupService()
+        .lookupPrincipalByName(System.getProperty("user.name"));
+
+    if (!owner.equals(user)) {
+      throw new IOException(path + " belongs to " + owner.getName() + ", not to " + user.getName());
+    }
+  }
+
+  private static String getClassPath() throws IOException {
+    var classPath = new LinkedHashSet<String>();
+
+    for (Class<?> type : List.of(DaemonExecutor.class, CommandLine.class)) {
+      var codeSource = type.getProtectionDomain().getCodeSource();
+
+      if (isNull(codeSource)) {
+        throw new IOException("Could not find the class path of " + type.getName());
+      }
+      try {
+        classPath.add(Path.of(codeSource.getLocation().toURI()).toString());
+      } catch (URISyntaxException exception) {
+        throw new IOException("Could not find the class path of " + type.getName(), exception);
+      }
+    }
+
+    return String.join(File.pathSeparator, classPath);
+  }
+
+  /**
+   * The socket of the daemon.
+   */
+  public Path getSocket() {
+    return socket;
+  }
+
+  /**
+   * Send the command line to the daemon by a new thread, the environment is ignored.
+   *
+   * @param command     the command line
+   * @param environment the environment, it is ignored
+   * @param handler     the handler of the result
+   */
+  @Override
+  public void execute(CommandLine command, Map<String, String> environment,
+      ExecuteResultHandler handler) {
+    InProcessExecutor.executeAsync(handler, () -> execute(command, environment));
+  }
+
+  @Override
+  public int execute(CommandLine command, Map<String, String> environment)
+      throws ExecuteException, IOException {
+    // the daemon runs on the same Java
+    InProcessExecutor.checkJavaVersion(Runtime.version());
+    try (var channel = connect()) {
+      var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      var output = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+      DaemonProtocol.writeRequest(output, resolvePaths(command));
+
+      var exitValue = readResponse(input);
+
+      if (isFailure(exitValue)) {
+        throw new ExecuteException("Process exited with an error: " + exitValue, exitValue);
+      }
+
+      return exitValue;
+    }
+  }
+
+  private CommandLine resolvePaths(CommandLine command) {
+    var arguments = new InProcessExecutor(distribution, mainClass).getArguments(command);
+    var resolved = new CommandLine(command.getExecutable());
+
+    resolvePaths(arguments, getWorkingDirectory().toPath().toAbsolutePath().normalize())
+        .forEach(argument -> resolved.addArgument(argument, false));
+
+    return resolved;
+  }
+
+  private SocketChannel connect() throws IOException {
+    if (socket.equals(getDefaultSocket(distribution, mainClass))) {
+      createPrivateDirectory(socket.getParent());
+    } else {
+      Files.createDirectories(socket.toAbsolutePath().getParent());
+    }
+
+    var channel = tryConnect();
+
+    if (nonNull(channel)) {
+      return channel;
+    }
+    // a file lock is held by the JVM, threads are serialized by the monitor
+    synchronized (DaemonExecutor.class) {
+      try (var lockFile = FileChannel.open(getSibling(".lock"), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS); var lock = lockFile.lock()) {
+        channel = tryConnect();
+        if (nonNull(channel)) {
+          return channel;
+        }
+        Files.deleteIfExists(socket);
+
+        return startAndConnect();
+      }
+    }
+  }
+
+  private SocketChannel startAndConnect() throws IOException {
+    var daemon = startDaemon();
+    var deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+
+    while (System.nanoTime() < deadline) {
+      var channel = tryConnect();
+      if (nonNull(channel)) {
+        return channel;
+      }
+      if (!daemon.isAlive() && Files.notExists(socket)) {
+        break;
+      }
+      try {
+        Thread.sleep(CONNECT_INTERVAL.toMillis());
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while the daemon of HTTP Client starts", exception);
+      }
+    }
+    daemon.destroy();
+    throw new IOException("Daemon of HTTP Client did not start, see " + getSibling(".log"));
+  }
+
+  private @Nullable SocketChannel tryConnect() throws IOException {
+    if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+      checkOwner(socket);
+    }
+
+    var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+
+    try {
+      channel.connect(UnixDomainSocketAddress.of(socket));
+
+      return channel;
+    } catch (IOException exception) {
+      channel.close();
+
+      return null;
+    }
+  }
+
+  private Path getSibling(String extension) {
+    var fileName = socket.getFileName().toString();
+    var dot = fileName.lastIndexOf('.');
+
+    return socket.resolveSibling((0 < dot ? fileName.substring(0, dot) : fileName) + extension);
+  }
+
+  private Process startDaemon() throws IOException {
+    var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    var command = List.of(java, "-Djava.security.manager=allow", "-cp", getClassPath(),
+        HttpClientDaemon.class.getName(), socket.toString(), distribution.toString(), mainClass,
+        String.valueOf(idleTimeout.toMillis()));
+
+    LOGGER.log(Level.INFO, () -> "Start the daemon of HTTP Client: " + socket);
+
+    return new ProcessBuilder(command).redirectErrorStream(true)
+        .redirectOutput(Redirect.appendTo(getSibling(".log").toFile())).start();
+  }
+
+  private int readResponse(DataInputStream input) throws IOException {
+    try (var pipes = new StreamHandlerPipes(getStreamHandler())) {
+      while (true) {
+        var type = input.readByte();
+
+        switch (type) {
+          case DaemonProtocol.OUTPUT -> copyFrame(input, pipes.getOutput());
+          case DaemonProtocol.ERROR -> copyFrame(input, pipes.getError());
+          case DaemonProtocol.EXIT -> {
+            return input.readInt();
+          }
+          default -> throw new IOException("Unknown frame of the daemon: " + type);
+        }
+      }
+    } catch (EOFException exception) {
+      throw new IOException("Daemon of HTTP Client closed the connection", exception);
+    }
+  }
+
+  private void copyFrame(DataInputStream input, OutputStream output) throws IOException {
+    var frame = new byte[input.readInt()];
+
+    input.readFully(frame);
+    output.write(frame);
+  }
+
+}
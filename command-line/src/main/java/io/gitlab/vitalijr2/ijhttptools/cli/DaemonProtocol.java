@@ -0,0 +1,134 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.exec.CommandLine;
+
+/**
+ * The protocol between {@link DaemonExecutor} and {@link HttpClientDaemon}.
+ * <p>
+ * A request is the version, the executable and arguments of a command line, every string is
+ * its length and UTF-8 bytes. A response is a sequence of frames: chunks of standard output and
+ * error, then the exit value.
+ */
+final class DaemonProtocol {
+
+  static final byte ERROR = 2;
+  static final byte EXIT = 0;
+  static final byte OUTPUT = 1;
+  static final int VERSION = 2;
+
+  private DaemonProtocol() {
+  }
+
+  static CommandLine readRequest(DataInputStream input) throws IOException {
+    var version = input.readInt();
+
+    if (VERSION != version) {
+      throw new IOException("Unsupported version of the daemon protocol: " + version);
+    }
+
+    var commandLine = new CommandLine(readString(input));
+    var argumentCount = input.readInt();
+
+    for (int i = 0; i < argumentCount; i++) {
+      commandLine.addArgument(readString(input), false);
+    }
+
+    return commandLine;
+  }
+
+  /**
+   * {@link DataInputStream#readUTF()} is limited by 64 KiB, an argument could be longer.
+   */
+  private static String readString(DataInputStream input) throws IOException {
+    var length = input.readInt();
+
+    if (0 > length) {
+      throw new IOException("Wrong length of a string: " + length);
+    }
+
+    var bytes = input.readNBytes(length);
+
+    if (length != bytes.length) {
+      throw new EOFException();
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  static void writeRequest(DataOutputStream output, CommandLine commandLine) throws IOException {
+    var arguments = commandLine.getArguments();
+
+    output.writeInt(VERSION);
+    writeString(output, commandLine.getExecutable());
+    output.writeInt(arguments.length);
+    for (String argument : arguments) {
+      writeString(output, argument);
+    }
+    output.flush();
+  }
+
+  static void writeExit(DataOutputStream output, int exitValue) throws IOException {
+    synchronized (output) {
+      output.writeByte(EXIT);
+      output.writeInt(exitValue);
+      output.flush();
+    }
+  }
+
+  /**
+   * Output stream that writes frames of the type.
+   */
+  static OutputStream frames(DataOutputStream output, byte type) {
+    return new OutputStream() {
+
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        synchronized (output) {
+          output.writeByte(type);
+          output.writeInt(length);
+          output.write(bytes, offset, length);
+          output.flush();
+        }
+      }
+
+    };
+  }
+
+}
@@ -0,0 +1,79 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * HTTP files and subdirectories of a directory, both lists are sorted by name.
+ *
+ * @param requestFiles   names of HTTP files
+ * @param subdirectories names of subdirectories, symbolic links are not followed
+ */
+record DirectoryListing(List<String> requestFiles, List<String> subdirectories) {
+
+  private static final String HTTP_EXTENSION = ".http";
+  private static final String REST_EXTENSION = ".rest";
+
+  static boolean isRequestFileName(@NotNull Path path) {
+    var fileName = path.getFileName();
+
+    return null != fileName && (fileName.toString().endsWith(HTTP_EXTENSION)
+        || fileName.toString().endsWith(REST_EXTENSION));
+  }
+
+  /**
+   * Reads a directory.
+   *
+   * @param directory the directory
+   * @return the listing
+   * @throws IOException if the directory cannot be read
+   */
+  static DirectoryListing read(@NotNull Path directory) throws IOException {
+    var requestFiles = new ArrayList<String>();
+    var subdirectories = new ArrayList<String>();
+
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      for (Path entry : entries) {
+        var attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+
+        if (attributes.isDirectory()) {
+          subdirectories.add(entry.getFileName().toString());
+        } else if (isRequestFileName(entry) && Files.isRegularFile(entry)) {
+          requestFiles.add(entry.getFileName().toString());
+        }
+      }
+    }
+    requestFiles.sort(null);
+    subdirectories.sort(null);
+
+    return new DirectoryListing(List.copyOf(requestFiles), List.copyOf(subdirectories));
+  }
+
+}
@@ -0,0 +1,240 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Persistent index of directory listings.
+ * <p>
+ * Every entry keeps the modification time and the file key (the inode on Unix-like systems) of a
+ * directory together with its HTTP files and subdirectories. A directory is listed again only if
+ * its modification time or file key has changed, so discovery costs one {@code stat} call per
+ * unchanged directory.
+ * <p>
+ * The index is a cache: a missing, unreadable or broken file is ignored and rebuilt, directories
+ * that disappeared are dropped on save. Directories modified less than
+ * {@value #RACY_SECONDS} seconds ago are not cached because later changes could keep the same
+ * modification time.
+ */
+class DiscoveryIndex {
+
+  static final int RACY_SECONDS = 2;
+
+  private static final String DIRECTORY = "D";
+  private static final String HEADER = "# ijhttp discovery index 1";
+  private static final Logger LOGGER = System.getLogger(DiscoveryIndex.class.getName());
+  private static final String REQUEST_FILE = "F";
+  private static final String SUBDIRECTORY = "S";
+  private static final String TAB = "\t";
+
+  private final Map<Path, Entry> entries;
+  private final Path indexFile;
+  private final Map<Path, Entry> updatedEntries = new ConcurrentHashMap<>();
+  private final AtomicInteger upToDate = new AtomicInteger();
+
+  private DiscoveryIndex(Path indexFile, Map<Path, Entry> entries) {
+    this.indexFile = indexFile;
+    this.entries = entries;
+  }
+
+  /**
+   * Loads the index, a missing or broken index file gives an empty index.
+   *
+   * @param indexFile path to the index file
+   * @return the index
+   */
+  static DiscoveryIndex load(@NotNull Path indexFile) {
+    var entries = new ConcurrentHashMap<Path, Entry>();
+
+    try {
+      parse(Files.readAllLines(indexFile, StandardCharsets.UTF_8), entries);
+    } catch (NoSuchFileException exception) {
+      LOGGER.log(Level.DEBUG, () -> "Discovery index not found: " + indexFile);
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.log(Level.DEBUG, () -> "Broken discovery index is ignored: " + indexFile, exception);
+      entries.clear();
+    }
+
+    return new DiscoveryIndex(indexFile, entries);
+  }
+
+  private static void parse(List<String> lines, Map<Path, Entry> entries) {
+    if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+      throw new IllegalArgumentException("unknown format");
+    }
+
+    Path directory = null;
+    Entry entry = null;
+
+    for (String line : lines.subList(1, lines.size())) {
+      var fields = line.split(TAB, 4);
+
+      switch (fields[0]) {
+        case DIRECTORY:
+          if (4 != fields.length) {
+            throw new IllegalArgumentException("wrong directory line: " + line);
+          }
+          directory = Path.of(fields[3]);
+          entry = new Entry(Long.parseLong(fields[1]), fields[2], new ArrayList<>(),
+              new ArrayList<>());
+          entries.put(directory, entry);
+          break;
+        case REQUEST_FILE:
+          Objects.requireNonNull(entry, "file without directory").requestFiles().add(fields[1]);
+          break;
+        case SUBDIRECTORY:
+          Objects.requireNonNull(entry, "subdirectory without directory").subdirectories()
+              .add(fields[1]);
+          break;
+        default:
+          throw new IllegalArgumentException("wrong line: " + line);
+      }
+    }
+  }
+
+  private static boolean isStorable(String name) {
+    return !name.contains(TAB) && !name.contains("\n") && !name.contains("\r");
+  }
+
+  /**
+   * Lists a directory: takes the listing from the index if the directory has not been changed,
+   * otherwise reads the directory.
+   *
+   * @param directory the directory
+   * @return the listing
+   * @throws IOException if the directory cannot be read
+   */
+  DirectoryListing list(@NotNull Path directory) throws IOException {
+    var key = directory.toAbsolutePath().normalize();
+    var attributes = Files.readAttributes(directory, BasicFileAttributes.class,
+        LinkOption.NOFOLLOW_LINKS);
+    var modificationTime = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    var fileKey = isNull(attributes.fileKey()) ? "" : attributes.fileKey().toString();
+    var entry = entries.get(key);
+
+    if (nonNull(entry) && entry.modificationTime() == modificationTime && entry.fileKey()
+        .equals(fileKey)) {
+      upToDate.incrementAndGet();
+      updatedEntries.put(key, entry);
+      return new DirectoryListing(List.copyOf(entry.requestFiles()),
+          List.copyOf(entry.subdirectories()));
+    }
+
+    var listing = DirectoryListing.read(directory);
+    var racy = System.currentTimeMillis() - attributes.lastModifiedTime().toMillis()
+        < Duration.ofSeconds(RACY_SECONDS).toMillis();
+
+    if (!racy && listing.requestFiles().stream().allMatch(DiscoveryIndex::isStorable)
+        && listing.subdirectories().stream().allMatch(DiscoveryIndex::isStorable)
+        && isStorable(key.toString()) && isStorable(fileKey)) {
+      updatedEntries.put(key, new Entry(modificationTime, fileKey, listing.requestFiles(),
+          listing.subdirectories()));
+    }
+
+    return listing;
+  }
+
+  /**
+   * Saves the index. Entries of the walked directory trees that have not been visited are
+   * dropped, entries of other trees are kept.
+   *
+   * @param roots walked directory trees
+   */
+  void save(@NotNull Collection<Path> roots) {
+    var absoluteRoots = roots.stream().map(root -> root.toAbsolutePath().normalize()).toList();
+    var lines = new ArrayList<String>();
+
+    entries.forEach((directory, entry) -> {
+      if (absoluteRoots.stream().noneMatch(directory::startsWith)) {
+        updatedEntries.putIfAbsent(directory, entry);
+      }
+    });
+    lines.add(HEADER);
+    updatedEntries.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(item -> {
+      var entry = item.getValue();
+
+      lines.add(String.join(TAB, DIRECTORY, Long.toString(entry.modificationTime()),
+          entry.fileKey(), item.getKey().toString()));
+      entry.requestFiles().forEach(name -> lines.add(REQUEST_FILE + TAB + name));
+      entry.subdirectories().forEach(name -> lines.add(SUBDIRECTORY + TAB + name));
+    });
+    try {
+      write(lines);
+    } catch (IOException | UncheckedIOException exception) {
+      LOGGER.log(Level.WARNING, () -> "Could not save the discovery index: " + indexFile,
+          exception);
+    }
+    LOGGER.log(Level.DEBUG,
+        () -> String.format("Discovery index: %d of %d directories are up to date",
+            upToDate.get(), updatedEntries.size()));
+  }
+
+  private void write(List<String> lines) throws IOException {
+    var directory = indexFile.toAbsolutePath().getParent();
+
+    Files.createDirectories(directory);
+
+    var temporaryFile = Files.createTempFile(directory, indexFile.getFileName().toString(),
+        ".tmp");
+
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      try {
+        Files.move(temporaryFile, indexFile, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException exception) {
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private record Entry(long modificationTime, String fileKey, List<String> requestFiles,
+                       List<String> subdirectories) {
+
+  }
+
+}
@@ -22,16 +22,29 @@ package io.gitlab.vitalijr2.ijhttptools.cli;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestSuite;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.System.Logger.Level;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.function.BiPredicate;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -57,12 +70,15 @@ import org.jetbrains.annotations.NotNull;
  */
 public class HttpClientCommandLine {
 
-  // Request files
-  private static final String HTTP_EXTENSION = ".http";
-  private static final String REST_EXTENSION = ".rest";
-  private static final BiPredicate<Path, BasicFileAttributes> REQUEST_FILE = ((path, attributes) ->
-      Files.isRegularFile(path) && (path.getFileName().toString().endsWith(HTTP_EXTENSION)
-          || path.getFileName().toString().endsWith(REST_EXTENSION)));
+  /**
+   * The limit of the output of {@link #executeAsync(Executor)}, 1 MiB.
+   */
+  public static final int OUTPUT_LIMIT = 1024 * 1024;
+
+  private static final java.util.concurrent.Executor ASYNC_EXECUTOR = newAsyncExecutor();
+  private static final String BATCH_PREFIX = "batch-";
+  private static final String DEFAULT_REPORT_PATH = "reports";
+  private static final String RERUN_PREFIX = "rerun-";
 
   // Parameters
   private static final String CONNECT_TIMEOUT = "--connect-timeout";
@@ -78,24 +94,67 @@ public class HttpClientCommandLine {
   private static final String REPORT = "--report";
   private static final String SOCKET_TIMEOUT = "--socket-timeout";
 
+  private int argumentLimit;
+  private Path cdsArchive;
   private Integer connectTimeout;
   private Path[] directories = new Path[0];
+  private Path discoveryIndex;
+  private Path distribution;
   private boolean dockerMode;
   private Path environmentFile;
   private List<String> environmentVariables;
   private String environmentName;
+  private String[] excludes = new String[0];
   private String executable = "ijhttp";
   private Path[] files = new Path[0];
+  private String[] includes = new String[0];
   private boolean insecure;
+  private String javaExecutable;
+  private List<String> jvmOptions;
+  private JvmLauncher launcher;
   private LogLevel logLevel = LogLevel.BASIC;
+  private String mainClass;
   private int maxDepth = Integer.MAX_VALUE;
+  private Consumer<HttpClientEvent> outputListener;
+  private boolean parallelDiscovery;
   private Path privateEnvironmentFile;
   private List<String> privateEnvironmentVariables;
   private String proxy;
   private boolean report;
   private Path reportPath;
+  private int rerunFailingCount;
+  private LogLevel rerunLogLevel;
   private Integer socketTimeout;
 
+  /**
+   * The maximum length of a command line, see {@link #getCommandLines()}. Defaults to
+   * <em>32767</em> characters on Windows, on other systems to <em>128 KiB</em> minus the size of
+   * the environment.
+   *
+   * @param argumentLimit the maximum length of a command line
+   * @since 1.3.0
+   */
+  public void argumentLimit(int argumentLimit) {
+    this.argumentLimit = argumentLimit;
+  }
+
+  /**
+   * AppCDS archive of HTTP Client classes in the {@link #distribution(Path) JVM launch mode}, e.g.
+   * {@code ~/.cache/ijhttp/ijhttp.jsa}.
+   * <p>
+   * If the archive exists it is used to cut the startup time of the JVM. Otherwise the JVM dumps
+   * loaded classes at exit, the first complete dump becomes the archive, see
+   * {@link #saveCdsArchive()}. The archive is tied to the JVM and the jars of the distribution:
+   * delete it after their update.
+   *
+   * @param cdsArchive path to the archive
+   * @since 1.3.0
+   */
+  public void cdsArchive(@NotNull Path cdsArchive) {
+    this.cdsArchive = cdsArchive;
+    this.launcher = null;
+  }
+
   /**
    * Number of milliseconds for connection. Defaults to <em>3000</em>.
    *
@@ -116,6 +175,40 @@ public class HttpClientCommandLine {
     this.directories = directories;
   }
 
+  /**
+   * File of the persistent discovery index, e.g. {@code target/ijhttp/discovery.index}.
+   * <p>
+   * The index keeps listings of the directories with their modification time and file key (inode).
+   * On the next run only changed directories are listed again, unchanged ones cost a single
+   * {@code stat} call. The index is a cache: it is safe to delete, a broken file is rebuilt.
+   * Discovery with the index walks directories in the name order.
+   *
+   * @param discoveryIndex path to the index file
+   * @see #directories(Path...)
+   * @since 1.3.0
+   */
+  public void discoveryIndex(@NotNull Path discoveryIndex) {
+    this.discoveryIndex = discoveryIndex;
+  }
+
+  /**
+   * Home of the HTTP Client distribution, the directory with the {@code ijhttp} script and the
+   * {@code lib} directory.
+   * <p>
+   * With the distribution the JVM of HTTP Client is started directly with
+   * {@link #jvmOptions(String...) tuned options} instead of the {@code ijhttp} shell script.
+   *
+   * @param distribution home of the distribution
+   * @see #cdsArchive(Path)
+   * @see #javaExecutable(String)
+   * @see #mainClass(String)
+   * @since 1.3.0
+   */
+  public void distribution(@NotNull Path distribution) {
+    this.distribution = distribution;
+    this.launcher = null;
+  }
+
   /**
    * Enables Docker mode. Treat {@code localhost} as {@code host.docker.internal}. Defaults to
    * <em>false</em>.
@@ -167,6 +260,20 @@ public class HttpClientCommandLine {
     this.environmentName = environmentName;
   }
 
+  /**
+   * Glob patterns of HTTP files to skip, relative to a directory to look up HTTP files, e.g.
+   * {@code **}{@code /target/**}. A directory that matches a pattern ending with {@code /**} is
+   * not traversed at all.
+   *
+   * @param excludes glob patterns
+   * @see #directories(Path...)
+   * @see #includes(String...)
+   * @since 1.3.0
+   */
+  public void excludes(@NotNull String... excludes) {
+    this.excludes = excludes;
+  }
+
   /**
    * The executable. Can be a full path or the name of the executable. Defaults to {@code ijhttp}.
    *
@@ -186,6 +293,19 @@ public class HttpClientCommandLine {
     this.files = files;
   }
 
+  /**
+   * Glob patterns of HTTP files to look up, relative to a directory to look up HTTP files, e.g.
+   * {@code **}{@code /smoke/**}{@code /*.http}. Defaults to all HTTP files.
+   *
+   * @param includes glob patterns
+   * @see #directories(Path...)
+   * @see #excludes(String...)
+   * @since 1.3.0
+   */
+  public void includes(@NotNull String... includes) {
+    this.includes = includes;
+  }
+
   /**
    * Allow insecure SSL connection. Defaults to <em>false</em>.
    *
@@ -195,6 +315,31 @@ public class HttpClientCommandLine {
     this.insecure = insecure;
   }
 
+  /**
+   * The Java executable of the {@link #distribution(Path) JVM launch mode}. Defaults to
+   * {@code java} of the current runtime.
+   *
+   * @param javaExecutable path to {@code java} executable
+   * @since 1.3.0
+   */
+  public void javaExecutable(@NotNull String javaExecutable) {
+    this.javaExecutable = javaExecutable;
+    this.launcher = null;
+  }
+
+  /**
+   * JVM options of the {@link #distribution(Path) JVM launch mode}, e.g. {@code -Xmx256m}.
+   * Defaults to options for short runs: {@code -XX:TieredStopAtLevel=1 -XX:+UseSerialGC
+   * -Xshare:auto}.
+   *
+   * @param jvmOptions JVM options, they replace the default ones
+   * @since 1.3.0
+   */
+  public void jvmOptions(@NotNull String... jvmOptions) {
+    this.jvmOptions = List.of(jvmOptions);
+    this.launcher = null;
+  }
+
   /**
    * Logging level: BASIC, HEADERS, VERBOSE. Defaults to <em>BASIC</em>.
    *
@@ -204,6 +349,19 @@ public class HttpClientCommandLine {
     this.logLevel = logLevel;
   }
 
+  /**
+   * The main class of HTTP Client in the {@link #distribution(Path) JVM launch mode}. Defaults to
+   * {@code com.intellij.httpClient.cli.HttpClientMain}, the main class of the {@code ijhttp}
+   * script.
+   *
+   * @param mainClass main class
+   * @since 1.3.0
+   */
+  public void mainClass(@NotNull String mainClass) {
+    this.mainClass = mainClass;
+    this.launcher = null;
+  }
+
   /**
    * The maximum depth of a directory tree to traverse. Default value {@link Integer#MAX_VALUE}.
    *
@@ -213,6 +371,33 @@ public class HttpClientCommandLine {
     this.maxDepth = maxDepth;
   }
 
+  /**
+   * The listener of events of the console output: requests, responses, assertion results
+   * and statistics. The output of asynchronous runs is parsed while it is captured.
+   *
+   * @param outputListener the listener of events
+   * @see #executeAsync(Executor)
+   * @see HttpClientOutputParser
+   * @since 1.3.0
+   */
+  public void outputListener(@NotNull Consumer<HttpClientEvent> outputListener) {
+    this.outputListener = outputListener;
+  }
+
+  /**
+   * Scans directories concurrently. Found files are sorted to keep the command line stable.
+   * Defaults to <em>false</em>, files are in the order of a directory traversal.
+   * <p>
+   * It helps with deep directory trees and slow file systems, e.g. NFS.
+   *
+   * @param parallelDiscovery set {@code true} to scan directories concurrently
+   * @see #directories(Path...)
+   * @since 1.3.0
+   */
+  public void parallelDiscovery(boolean parallelDiscovery) {
+    this.parallelDiscovery = parallelDiscovery;
+  }
+
   /**
    * Name of the private environment file, e.g. {@code http-client.private.env.json}.
    *
@@ -278,6 +463,33 @@ public class HttpClientCommandLine {
     this.reportPath = reportPath;
   }
 
+  /**
+   * How many times {@link #execute(Executor)} reruns failed HTTP files. Defaults to <em>0</em>.
+   * <p>
+   * With the {@link #report(boolean) report} only failed HTTP files are run again, the report of
+   * the rerun <em>N</em> goes to the subdirectory {@code rerun-N} of the report folder. Without the
+   * report all HTTP files of a failed process are run again.
+   *
+   * @param rerunFailingCount number of reruns
+   * @see #rerunLogLevel(LogLevel)
+   * @since 1.3.0
+   */
+  public void rerunFailingCount(int rerunFailingCount) {
+    this.rerunFailingCount = rerunFailingCount;
+  }
+
+  /**
+   * Logging level of reruns, e.g. {@link LogLevel#VERBOSE} to get diagnostics of failed requests
+   * only. Defaults to the {@link #logLevel(LogLevel) logging level} of the run.
+   *
+   * @param rerunLogLevel logging level of reruns
+   * @see #rerunFailingCount(int)
+   * @since 1.3.0
+   */
+  public void rerunLogLevel(@NotNull LogLevel rerunLogLevel) {
+    this.rerunLogLevel = rerunLogLevel;
+  }
+
   /**
    * Number of milliseconds for socket read. Defaults to <em>10000</em>.
    *
@@ -287,6 +499,47 @@ public class HttpClientCommandLine {
     this.socketTimeout = socketTimeout;
   }
 
+  /**
+   * Saves the {@link #cdsArchive(Path) AppCDS archive}: moves the first complete dump of the
+   * classes of processes that were started by this JVM to the archive. Call it after all
+   * command lines are run, {@link #execute(Executor)} does it itself.
+   *
+   * @return true if the archive is created
+   * @throws IOException if the dump could not be moved
+   * @since 1.3.0
+   */
+  public boolean saveCdsArchive() throws IOException {
+    return nonNull(cdsArchive) && JvmLauncher.saveCdsArchive(cdsArchive);
+  }
+
+  /**
+   * Get HTTP files: the explicitly set files followed by the files found in the directories.
+   *
+   * @return HTTP files
+   * @throws IOException if a directory cannot be traversed
+   * @since 1.3.0
+   */
+  public List<Path> getRequestFiles() throws IOException {
+    var requestFiles = new ArrayList<>(Arrays.asList(files));
+
+    if (0 == directories.length) {
+      return requestFiles;
+    }
+
+    var index = isNull(discoveryIndex) ? null : DiscoveryIndex.load(discoveryIndex);
+    var requestFileFinder = new RequestFileFinder(maxDepth, parallelDiscovery, index,
+        new PathFilter(Arrays.asList(includes), Arrays.asList(excludes)));
+
+    for (Path directory : directories) {
+      requestFiles.addAll(requestFileFinder.find(directory));
+    }
+    if (nonNull(index)) {
+      index.save(Arrays.asList(directories));
+    }
+
+    return requestFiles;
+  }
+
   /**
    * Get command line.
    *
@@ -294,30 +547,341 @@ public class HttpClientCommandLine {
    * @throws IllegalArgumentException if HTTP files are missed
    * @throws IOException              if path to HTTP or environment files or report directory is
    *                                  wrong
+   * @see #getCommandLines()
    */
   public CommandLine getCommandLine() throws IllegalArgumentException, IOException {
-    var commandLine = new CommandLine(executable);
+    checkRequestFiles();
+
+    return getCommandLine(getRequestFiles(), reportPath, logLevel);
+  }
+
+  /**
+   * Get command lines that fit the {@link #argumentLimit(int) argument length limit}.
+   * <p>
+   * HTTP files keep their order. If files do not fit one command line, they are split into
+   * several batches, and the report of the batch <em>N</em> goes to the subdirectory
+   * {@code batch-N} of the report folder. Each command line should be run, the whole run fails if
+   * any of them fails.
+   *
+   * @return command lines, at least one
+   * @throws IllegalArgumentException if HTTP files are missed
+   * @throws IOException              if path to HTTP or environment files or report directory is
+   *                                  wrong
+   * @since 1.3.0
+   */
+  public List<CommandLine> getCommandLines() throws IllegalArgumentException, IOException {
+    checkRequestFiles();
+
+    return getBatches(getRequestFiles(), reportPath, logLevel).stream().map(Batch::commandLine)
+        .toList();
+  }
 
+  /**
+   * Runs all {@link #getCommandLines() command lines} one after another, then
+   * {@link #rerunFailingCount(int) reruns} failed HTTP files.
+   * <pre><code class="language-java">
+   * commandLine.files(orders, products, checkout);
+   * commandLine.report(true);
+   * commandLine.rerunFailingCount(2);
+   * commandLine.rerunLogLevel(LogLevel.VERBOSE);
+   * commandLine.execute(executor);
+   * </code></pre>
+   *
+   * @param executor the executor
+   * @throws ExecuteException         if HTTP files still fail after all reruns, it is the failure
+   *                                  of the last run
+   * @throws IllegalArgumentException if HTTP files are missed
+   * @throws IOException              if path to HTTP or environment files or report directory is
+   *                                  wrong
+   * @since 1.3.0
+   */
+  public void execute(@NotNull Executor executor)
+      throws ExecuteException, IllegalArgumentException, IOException {
+    checkRequestFiles();
+
+    try {
+      executeAndRerun(executor);
+    } finally {
+      saveCdsArchive();
+    }
+  }
+
+  /**
+   * Runs HTTP files like {@link #execute(Executor)} in a background thread. Failed HTTP files do
+   * not complete the future exceptionally: the result has the exit code, the wall time,
+   * the output, test suites of the report and the report path.
+   * <p>
+   * The output is captured by the stream handler that is set to the executor, the result keeps
+   * its last {@link #OUTPUT_LIMIT} bytes. Command lines that run concurrently need their own
+   * executors and report paths. The shared pool runs as many command lines at once as there are
+   * processors, others wait in its queue; use {@link #executeAsync(Executor,
+   * java.util.concurrent.Executor)} to run them by your own pool.
+   *
+   * @param executor the executor
+   * @return the future result, it is completed exceptionally if HTTP files are missed or cannot
+   *     be run
+   * @see #executeAll(List, Supplier)
+   * @since 1.3.0
+   */
+  public CompletableFuture<HttpClientResult> executeAsync(@NotNull Executor executor) {
+    return executeAsync(executor, ASYNC_EXECUTOR);
+  }
+
+  /**
+   * Runs HTTP files like {@link #executeAsync(Executor)} by the thread pool.
+   *
+   * @param executor      the executor
+   * @param asyncExecutor the thread pool
+   * @return the future result
+   * @since 1.3.0
+   */
+  public CompletableFuture<HttpClientResult> executeAsync(@NotNull Executor executor,
+      java.util.concurrent.@NotNull Executor asyncExecutor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return executeForResult(executor);
+      } catch (IOException exception) {
+        throw new CompletionException(exception);
+      }
+    }, asyncExecutor);
+  }
+
+  /**
+   * Runs several command lines concurrently, each one gets its own executor.
+   *
+   * @param commandLines    command lines
+   * @param executorFactory creates an executor for every command line
+   * @return the future results in the order of command lines
+   * @see #executeAsync(Executor)
+   * @since 1.3.0
+   */
+  public static CompletableFuture<List<HttpClientResult>> executeAll(
+      @NotNull List<HttpClientCommandLine> commandLines,
+      @NotNull Supplier<? extends Executor> executorFactory) {
+    var futures = commandLines.stream()
+        .map(commandLine -> commandLine.executeAsync(executorFactory.get())).toList();
+
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+  }
+
+  private static java.util.concurrent.Executor newAsyncExecutor() {
+    var threads = Runtime.getRuntime().availableProcessors();
+    var executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+        new LinkedBlockingQueue<>(), runnable -> {
+      var thread = new Thread(runnable, "ijhttp-async");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+
+    // idle threads stop, the pool does not need to be shut down
+    executor.allowCoreThreadTimeOut(true);
+
+    return executor;
+  }
+
+  private HttpClientResult executeForResult(Executor executor) throws IOException {
+    var output = new TailOutputStream(OUTPUT_LIMIT);
+    var since = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    var start = System.nanoTime();
+    var exitCode = 0;
+
+    try (var outputParser = newOutputParser(output);
+        var errorParser = newOutputParser(output)) {
+      executor.setStreamHandler(nonNull(outputParser)
+          ? new VirtualThreadStreamHandler(outputParser, errorParser)
+          : new VirtualThreadStreamHandler(output));
+      execute(executor);
+    } catch (ExecuteException exception) {
+      exitCode = exception.getExitValue();
+    }
+
+    var wallTime = Duration.ofNanos(System.nanoTime() - start);
+    var runReportPath = report ? getReportPath() : null;
+    var testSuites = report ? readTestSuites(runReportPath, since) : List.<TestSuite>of();
+
+    return new HttpClientResult(exitCode, wallTime, output.toByteArray(), testSuites,
+        runReportPath);
+  }
+
+  /**
+   * Test suites of the final attempt of every HTTP file: suites of a rerun replace suites with
+   * the same name of previous attempts. Reports of reruns are in subdirectories of the report
+   * path, so the first read has them too.
+   */
+  private List<TestSuite> readTestSuites(Path runReportPath, Instant since) throws IOException {
+    var testSuites = new LinkedHashMap<Object, TestSuite>();
+
+    putTestSuites(testSuites, HttpClientReport.read(runReportPath, since));
+    for (int rerun = 1; rerun <= rerunFailingCount; rerun++) {
+      putTestSuites(testSuites,
+          HttpClientReport.read(runReportPath.resolve(RERUN_PREFIX + rerun), since));
+    }
+
+    return List.copyOf(testSuites.values());
+  }
+
+  private void putTestSuites(Map<Object, TestSuite> testSuites, HttpClientReport report) {
+    report.getTestSuites().forEach(testSuite -> testSuites.put(
+        isNull(testSuite.name()) ? new Object() : testSuite.name(), testSuite));
+  }
+
+  /**
+   * The output and the error are pumped by different threads: each stream gets its own parser
+   * while events go to the listener one by one.
+   */
+  private HttpClientOutputParser newOutputParser(OutputStream output) {
+    if (isNull(outputListener)) {
+      return null;
+    }
+
+    var listener = outputListener;
+
+    return new HttpClientOutputParser(output, event -> {
+      synchronized (listener) {
+        listener.accept(event);
+      }
+    });
+  }
+
+  private void executeAndRerun(Executor executor) throws IOException {
+    var requestFiles = getRequestFiles();
+    var runFiles = requestFiles;
+    var runReportPath = reportPath;
+    var runLogLevel = logLevel;
+
+    for (int rerun = 0; ; rerun++) {
+      var failedFiles = new ArrayList<Path>();
+      ExecuteException failure = null;
+
+      for (Batch batch : getBatches(runFiles, runReportPath, runLogLevel)) {
+        var since = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        try {
+          executor.execute(batch.commandLine());
+        } catch (ExecuteException exception) {
+          failure = exception;
+          failedFiles.addAll(getFailedFiles(batch, since));
+        }
+      }
+      if (isNull(failure)) {
+        if (0 < rerun) {
+          logRerun(Level.WARNING, "HTTP files passed on the rerun %d: %s", rerun, runFiles);
+        }
+        return;
+      }
+      if (rerun >= rerunFailingCount) {
+        throw failure;
+      }
+      runFiles = failedFiles;
+      runReportPath = getReportPath().resolve(RERUN_PREFIX + (rerun + 1));
+      runLogLevel = isNull(rerunLogLevel) ? logLevel : rerunLogLevel;
+      logRerun(Level.INFO, "Rerun %d of failed HTTP files: %s", rerun + 1, runFiles);
+    }
+  }
+
+  private void checkRequestFiles() {
     if (0 == files.length && 0 == directories.length) {
       throw new IllegalStateException("files are required");
     }
+  }
+
+  private List<Batch> getBatches(List<Path> requestFiles, Path reportPath, LogLevel logLevel)
+      throws IOException {
+    var limit = (0 < argumentLimit) ? argumentLimit : Batches.defaultArgumentLimit();
+    // reserve the longest report path
+    var baseCommandLine = getCommandLine(List.of(),
+        getBatchReportPath(reportPath, requestFiles.size()), logLevel);
+    var baseLength = Batches.length(baseCommandLine.getExecutable());
+
+    for (String argument : baseCommandLine.getArguments()) {
+      baseLength += Batches.length(argument);
+    }
+
+    var batches = Batches.split(requestFiles, baseLength, limit);
+
+    if (1 == batches.size()) {
+      return List.of(new Batch(requestFiles, reportPath,
+          getCommandLine(requestFiles, reportPath, logLevel)));
+    }
+
+    var result = new ArrayList<Batch>();
+
+    for (int i = 0; i < batches.size(); i++) {
+      var batchReportPath = getBatchReportPath(reportPath, i + 1);
+
+      result.add(new Batch(batches.get(i), batchReportPath,
+          getCommandLine(batches.get(i), batchReportPath, logLevel)));
+    }
+    System.getLogger(getClass().getName()).log(Level.DEBUG,
+        () -> String.format("%d HTTP files are split into %d batches", requestFiles.size(),
+            batches.size()));
+
+    return result;
+  }
+
+  private Path getReportPath() {
+    return isNull(reportPath) ? Path.of(DEFAULT_REPORT_PATH) : reportPath;
+  }
+
+  private Path getBatchReportPath(Path reportPath, int batch) {
+    return (isNull(reportPath) ? Path.of(DEFAULT_REPORT_PATH) : reportPath).resolve(
+        BATCH_PREFIX + batch);
+  }
+
+  /**
+   * Failed HTTP files of a batch: all files without the report or if the report does not show
+   * any failure.
+   */
+  private List<Path> getFailedFiles(Batch batch, Instant since) throws IOException {
+    if (!report) {
+      return batch.requestFiles();
+    }
+
+    var failedFiles = HttpClientReport.read(
+            isNull(batch.reportPath()) ? Path.of(DEFAULT_REPORT_PATH) : batch.reportPath(), since)
+        .getFailedFiles(batch.requestFiles());
+
+    return failedFiles.isEmpty() ? batch.requestFiles() : failedFiles;
+  }
+
+  private void logRerun(Level level, String format, int rerun, List<Path> requestFiles) {
+    System.getLogger(getClass().getName()).log(level,
+        () -> String.format(format, rerun, requestFiles));
+  }
+
+  private CommandLine getCommandLine(List<Path> requestFiles, Path reportPath, LogLevel logLevel)
+      throws IOException {
+    var commandLine = isNull(distribution) ? new CommandLine(executable)
+        : getLauncher().newCommandLine();
+
     flags(commandLine);
-    logLevel(commandLine);
+    logLevel(commandLine, logLevel);
     timeouts(commandLine);
     environmentName(commandLine);
     environment(commandLine);
     privateEnvironment(commandLine);
     proxy(commandLine);
-    requests(commandLine);
+    requestFiles.forEach(requestFile -> commandLine.addArgument(requestFile.toString()));
     // As workaround for IDEA-339395
     // https://youtrack.jetbrains.com/issue/IDEA-339395/HTTP-Client-CLI-order-of-the-parameter-report-interferes-on-interpretation-of-other-parameters
-    report(commandLine);
+    report(commandLine, reportPath);
 
     System.getLogger(getClass().getName()).log(Level.DEBUG, commandLine::toString);
 
     return commandLine;
   }
 
+  private synchronized JvmLauncher getLauncher() {
+    if (isNull(launcher)) {
+      launcher = new JvmLauncher(distribution, javaExecutable, jvmOptions, mainClass, cdsArchive);
+    }
+
+    return launcher;
+  }
+
   private void environment(CommandLine commandLine) {
     if (nonNull(environmentFile)) {
       commandLine.addArgument(ENV_FILE).addArgument(environmentFile.toString());
@@ -343,7 +907,7 @@ public class HttpClientCommandLine {
     }
   }
 
-  private void logLevel(CommandLine commandLine) {
+  private void logLevel(CommandLine commandLine, LogLevel logLevel) {
     switch (logLevel) {
       case HEADERS:
       case VERBOSE:
@@ -370,7 +934,7 @@ public class HttpClientCommandLine {
     }
   }
 
-  private void report(CommandLine commandLine) {
+  private void report(CommandLine commandLine, Path reportPath) {
     if (report) {
       commandLine.addArgument(REPORT);
       if (nonNull(reportPath)) {
@@ -379,19 +943,6 @@ public class HttpClientCommandLine {
     }
   }
 
-  private void requests(CommandLine commandLine) throws IOException {
-    for (Path file : files) {
-      commandLine.addArgument(file.toString());
-    }
-    for (Path directory : directories) {
-      try (Stream<Path> pathStream = Files.find(directory, maxDepth, REQUEST_FILE)) {
-        for (Path path : pathStream.toList()) {
-          commandLine.addArgument(path.toString());
-        }
-      }
-    }
-  }
-
   private void timeouts(CommandLine commandLine) {
     if (nonNull(connectTimeout)) {
       commandLine.addArgument(CONNECT_TIMEOUT).addArgument(connectTimeout.toString());
@@ -401,4 +952,8 @@ public class HttpClientCommandLine {
     }
   }
 
+  private record Batch(List<Path> requestFiles, Path reportPath, CommandLine commandLine) {
+
+  }
+
 }
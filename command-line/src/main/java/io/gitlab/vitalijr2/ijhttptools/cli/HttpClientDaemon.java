@@ -0,0 +1,188 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.nonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.BindException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Long-lived process that keeps HTTP Client warm and runs command lines of
+ * {@link DaemonExecutor}s.
+ * <p>
+ * The daemon listens to a Unix domain socket that is accessible to the owner only, runs requests
+ * one by one in its own JVM and streams output back. It stops and removes the socket
+ * when there are no requests for the idle timeout. A daemon that finds the socket in use by
+ * another one exits at once.
+ * <p>
+ * The socket is bound in a temporary directory that is accessible to the owner only, restricted
+ * and then moved to its place, so it is never accessible to other users.
+ *
+ * @since 1.3.0
+ */
+public class HttpClientDaemon {
+
+  private static final Logger LOGGER = System.getLogger(HttpClientDaemon.class.getName());
+
+  private final Path distribution;
+  private final Duration idleTimeout;
+  private final String mainClass;
+  private final Path socket;
+
+  HttpClientDaemon(@NotNull Path socket, @NotNull Path distribution, @NotNull String mainClass,
+      @NotNull Duration idleTimeout) {
+    this.distribution = distribution;
+    this.idleTimeout = idleTimeout;
+    this.mainClass = mainClass;
+    this.socket = socket;
+  }
+
+  /**
+   * Start the daemon.
+   *
+   * @param args the socket, the distribution, the main class and the idle timeout in milliseconds
+   * @throws IOException if the socket cannot be used
+   */
+  public static void main(String[] args) throws IOException {
+    if (4 != args.length) {
+      throw new IllegalArgumentException(
+          "Usage: HttpClientDaemon <socket> <distribution> <main class> <idle timeout, ms>");
+    }
+    try {
+      new HttpClientDaemon(Path.of(args[0]), Path.of(args[1]), args[2],
+          Duration.ofMillis(Long.parseLong(args[3]))).run();
+    } finally {
+      InProcessExecutor.closeClassLoader();
+    }
+    // threads started by HTTP Client may still run
+    System.exit(0);
+  }
+
+  void run() throws IOException {
+    try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        var selector = Selector.open()) {
+      if (!bind(server)) {
+        LOGGER.log(Level.INFO, () -> "Another daemon listens to " + socket);
+        return;
+      }
+      try {
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        LOGGER.log(Level.INFO, () -> "Daemon of HTTP Client listens to " + socket);
+        while (0 < selector.select(idleTimeout.toMillis())) {
+          selector.selectedKeys().clear();
+
+          SocketChannel channel;
+
+          while (nonNull(channel = server.accept())) {
+            channel.configureBlocking(true);
+            serve(channel);
+          }
+        }
+        LOGGER.log(Level.INFO, "Daemon of HTTP Client is idle, stop it");
+      } finally {
+        Files.deleteIfExists(socket);
+      }
+    }
+  }
+
+  private boolean bind(ServerSocketChannel server) throws IOException {
+    var directory = socket.toAbsolutePath().getParent();
+
+    if (!Files.getFileStore(directory).supportsFileAttributeView("posix")) {
+      try {
+        server.bind(UnixDomainSocketAddress.of(socket));
+
+        return true;
+      } catch (BindException exception) {
+        return false;
+      }
+    }
+
+    var temporaryDirectory = Files.createTempDirectory(directory, ".ijhttp-",
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    var temporarySocket = temporaryDirectory.resolve(socket.getFileName());
+
+    try {
+      server.bind(UnixDomainSocketAddress.of(temporarySocket));
+      Files.setPosixFilePermissions(temporarySocket, PosixFilePermissions.fromString("rw-------"));
+      Files.move(temporarySocket, socket);
+
+      return true;
+    } catch (FileAlreadyExistsException exception) {
+      return false;
+    } finally {
+      Files.deleteIfExists(temporarySocket);
+      Files.delete(temporaryDirectory);
+    }
+  }
+
+  private void serve(SocketChannel channel) {
+    try (channel) {
+      var input = new DataInputStream(Channels.newInputStream(channel));
+      var output = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel)));
+      var commandLine = DaemonProtocol.readRequest(input);
+      var executor = new InProcessExecutor(distribution, mainClass);
+      int exitValue;
+
+      executor.setStreamHandler(
+          new PumpStreamHandler(DaemonProtocol.frames(output, DaemonProtocol.OUTPUT),
+              DaemonProtocol.frames(output, DaemonProtocol.ERROR)));
+      try {
+        exitValue = executor.execute(commandLine);
+      } catch (ExecuteException exception) {
+        exitValue = exception.getExitValue();
+      } catch (IOException exception) {
+        LOGGER.log(Level.WARNING, "Could not run HTTP Client", exception);
+        DaemonProtocol.frames(output, DaemonProtocol.ERROR).write(
+            ("Daemon of HTTP Client: " + exception.getMessage() + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8));
+        exitValue = 1;
+      }
+      DaemonProtocol.writeExit(output, exitValue);
+    } catch (IOException exception) {
+      LOGGER.log(Level.WARNING, "Could not serve a request", exception);
+    }
+  }
+
+}
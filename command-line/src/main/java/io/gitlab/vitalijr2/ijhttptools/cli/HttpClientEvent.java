@@ -0,0 +1,89 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.time.Duration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Event of the console output of HTTP Client, see {@link HttpClientOutputParser}.
+ *
+ * @since 1.3.0
+ */
+public sealed interface HttpClientEvent {
+
+  /**
+   * A request is started: {@code Request 'name' (GET https://example.com/orders)}.
+   *
+   * @param name   name of the request
+   * @param method HTTP method
+   * @param url    URL of the request
+   */
+  record RequestStarted(@NotNull String name, @NotNull String method, @NotNull String url)
+      implements HttpClientEvent {
+
+  }
+
+  /**
+   * A response is received: {@code Response code: 200 (OK); Time: 35ms}.
+   *
+   * @param request    name of the current request, null if no request is started
+   * @param statusCode HTTP status code
+   * @param time       response time if the output has it
+   */
+  record ResponseReceived(@Nullable String request, int statusCode, @Nullable Duration time)
+      implements HttpClientEvent {
+
+  }
+
+  /**
+   * Result of an assertion of a response handler, a line with a check mark or a cross.
+   *
+   * @param request     name of the current request, null if no request is started
+   * @param passed      the assertion passed
+   * @param description description of the assertion
+   */
+  record AssertionResult(@Nullable String request, boolean passed, @NotNull String description)
+      implements HttpClientEvent {
+
+  }
+
+  /**
+   * A request failed: {@code Request 'name' failed}.
+   *
+   * @param name name of the request
+   */
+  record RequestFailed(@NotNull String name) implements HttpClientEvent {
+
+  }
+
+  /**
+   * Execution statistics: {@code Files: 1, requests: 3, failed: 1} or
+   * {@code 3 requests completed, 1 have failed tests}.
+   *
+   * @param requests number of requests
+   * @param failed   number of failed requests
+   */
+  record Statistics(int requests, int failed) implements HttpClientEvent {
+
+  }
+
+}
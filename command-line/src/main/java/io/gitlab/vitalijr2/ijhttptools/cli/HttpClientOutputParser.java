@@ -0,0 +1,247 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.AssertionResult;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.RequestFailed;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.RequestStarted;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.ResponseReceived;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.Statistics;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Streaming parser of the console output of HTTP Client, it emits {@link HttpClientEvent}s.
+ * <p>
+ * The parser is an output stream that passes bytes to the target stream and keeps only the
+ * current line, up to the line limit. A line is decoded only if it starts like a known event:
+ * request and response lines, assertion results and execution statistics. Other lines, e.g. bodies
+ * and headers of the {@code VERBOSE} log level, are skipped without allocations, so the parser
+ * fits huge outputs.
+ * <p>
+ * A parser keeps the current line of one stream and is not thread-safe: the output and the error
+ * of a process are pumped by different threads, so they need different parsers.
+ * <pre><code class="language-java">
+ * var parser = new HttpClientOutputParser(System.out, event -&gt; {
+ *   if (event instanceof HttpClientEvent.ResponseReceived response) {
+ *     timings.add(response.time());
+ *   }
+ * });
+ *
+ * executor.setStreamHandler(new PumpStreamHandler(parser, System.err));
+ * </code></pre>
+ *
+ * @since 1.3.0
+ */
+public class HttpClientOutputParser extends OutputStream {
+
+  /**
+   * The default limit of a line in bytes, the rest of a longer line is ignored.
+   */
+  public static final int DEFAULT_MAX_LINE_LENGTH = 8192;
+
+  private static final byte[] FAILED_MARK = bytes("✗");
+  private static final byte[] FAILED_HEAVY_MARK = bytes("✘");
+  private static final byte[] FILES = bytes("Files: ");
+  private static final byte[] PASSED_MARK = bytes("✓");
+  private static final byte[] PASSED_HEAVY_MARK = bytes("✔");
+  private static final byte[] REQUEST = bytes("Request '");
+  private static final byte[] RESPONSE_CODE = bytes("Response code: ");
+  private static final List<byte[]> PREFIXES = List.of(FAILED_MARK, FAILED_HEAVY_MARK, FILES,
+      PASSED_MARK, PASSED_HEAVY_MARK, REQUEST, RESPONSE_CODE);
+  private static final int DECISION_LENGTH = PREFIXES.stream().mapToInt(prefix -> prefix.length)
+      .max().orElseThrow();
+
+  private final byte[] line;
+  private final Consumer<HttpClientEvent> listener;
+  private final OutputStream target;
+  private final Matcher completedMatcher = Pattern.compile(
+      "(?<requests>\\d+) requests? completed, (?<failed>\\d+) ha(?:s|ve) failed tests?")
+      .matcher("");
+  private final Matcher filesMatcher = Pattern.compile(
+      "Files: \\d+, requests: (?<requests>\\d+), failed: (?<failed>\\d+).*").matcher("");
+  private final Matcher requestFailedMatcher = Pattern.compile(
+      "Request '(?<name>[^']*)'.*\\bfailed\\b.*").matcher("");
+  private final Matcher requestStartedMatcher = Pattern.compile(
+      "Request '(?<name>[^']*)' \\((?<method>[A-Z]+) (?<url>\\S+)\\).*").matcher("");
+  private final Matcher responseMatcher = Pattern.compile(
+      "Response code: (?<code>\\d{3})(?:.*?Time: (?<time>\\d+) ?ms)?.*").matcher("");
+
+  private String currentRequest;
+  private int length;
+  private boolean skipping;
+
+  /**
+   * Create a parser with the default line limit.
+   *
+   * @param target   the stream that gets the output
+   * @param listener the listener of events
+   */
+  public HttpClientOutputParser(@NotNull OutputStream target,
+      @NotNull Consumer<HttpClientEvent> listener) {
+    this(target, listener, DEFAULT_MAX_LINE_LENGTH);
+  }
+
+  /**
+   * Create a parser.
+   *
+   * @param target        the stream that gets the output
+   * @param listener      the listener of events
+   * @param maxLineLength the limit of a line in bytes, the rest of a longer line is ignored
+   */
+  public HttpClientOutputParser(@NotNull OutputStream target,
+      @NotNull Consumer<HttpClientEvent> listener, int maxLineLength) {
+    if (DECISION_LENGTH > maxLineLength) {
+      throw new IllegalArgumentException("max line length is too small: " + maxLineLength);
+    }
+    this.line = new byte[maxLineLength];
+    this.listener = listener;
+    this.target = target;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    target.write(b);
+    append((byte) b);
+  }
+
+  @Override
+  public void write(byte @NotNull [] bytes, int offset, int count) throws IOException {
+    target.write(bytes, offset, count);
+
+    var end = offset + count;
+
+    for (int i = offset; i < end; i++) {
+      if (skipping) {
+        while (i < end && '\n' != bytes[i]) {
+          i++;
+        }
+        if (i == end) {
+          break;
+        }
+      }
+      append(bytes[i]);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    target.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try (target) {
+      endLine();
+    }
+  }
+
+  private void append(byte b) {
+    if ('\n' == b) {
+      endLine();
+    } else if (!skipping && (0 < length || (' ' != b && '\t' != b))) {
+      if (length < line.length) {
+        line[length++] = b;
+      }
+      if (DECISION_LENGTH == length && !isCandidate()) {
+        skipping = true;
+      }
+    }
+  }
+
+  private void endLine() {
+    if (!skipping && 0 < length && isCandidate()) {
+      var end = ('\r' == line[length - 1]) ? length - 1 : length;
+
+      parse(new String(line, 0, end, StandardCharsets.UTF_8));
+    }
+    length = 0;
+    skipping = false;
+  }
+
+  private boolean isCandidate() {
+    if (Character.isDigit(line[0])) {
+      return true;
+    }
+    for (byte[] prefix : PREFIXES) {
+      if (startsWith(prefix)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean startsWith(byte[] prefix) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (prefix[i] != line[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void parse(String text) {
+    if (requestStartedMatcher.reset(text).matches()) {
+      currentRequest = requestStartedMatcher.group("name");
+      listener.accept(new RequestStarted(currentRequest, requestStartedMatcher.group("method"),
+          requestStartedMatcher.group("url")));
+    } else if (requestFailedMatcher.reset(text).matches()) {
+      listener.accept(new RequestFailed(requestFailedMatcher.group("name")));
+    } else if (responseMatcher.reset(text).matches()) {
+      var time = responseMatcher.group("time");
+
+      listener.accept(new ResponseReceived(currentRequest,
+          Integer.parseInt(responseMatcher.group("code")),
+          nonNull(time) ? Duration.ofMillis(Long.parseLong(time)) : null));
+    } else if (filesMatcher.reset(text).matches()) {
+      statistics(filesMatcher);
+    } else if (completedMatcher.reset(text).matches()) {
+      statistics(completedMatcher);
+    } else if (startsWith(PASSED_MARK) || startsWith(PASSED_HEAVY_MARK)) {
+      listener.accept(new AssertionResult(currentRequest, true, text.substring(1).trim()));
+    } else if (startsWith(FAILED_MARK) || startsWith(FAILED_HEAVY_MARK)) {
+      listener.accept(new AssertionResult(currentRequest, false, text.substring(1).trim()));
+    }
+  }
+
+  private void statistics(Matcher matcher) {
+    listener.accept(new Statistics(Integer.parseInt(matcher.group("requests")),
+        Integer.parseInt(matcher.group("failed"))));
+  }
+
+}
@@ -0,0 +1,358 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Report of the HTTP Client in JUnit XML format.
+ * <p>
+ * The HTTP Client writes the report when it runs with {@code --report}, see
+ * {@link HttpClientCommandLine#report(boolean)}. Every HTTP file is a test suite, every request
+ * is a test case.
+ * <pre><code class="language-java">
+ * var report = HttpClientReport.read(Path.of("reports"));
+ *
+ * report.getDuration(Path.of("orders.http"))
+ *     .ifPresent(duration -&gt; System.out.println("orders: " + duration));
+ * </code></pre>
+ *
+ * @since 1.3.0
+ */
+public class HttpClientReport {
+
+  private static final int MAX_DEPTH = 3;
+  private static final String XML_EXTENSION = ".xml";
+
+  private final List<TestSuite> testSuites;
+
+  HttpClientReport(List<TestSuite> testSuites) {
+    this.testSuites = List.copyOf(testSuites);
+  }
+
+  /**
+   * Reads reports from a report folder and its subdirectories, e.g. {@code shard-N} and
+   * {@code batch-N}. A missing folder gives an empty report, broken files are skipped.
+   *
+   * @param reportPath path to the report folder or to a report file
+   * @return the report
+   * @throws IOException if the report folder cannot be read
+   */
+  public static HttpClientReport read(@NotNull Path reportPath) throws IOException {
+    return read(reportPath, null);
+  }
+
+  /**
+   * Reads reports that are written since the moment, e.g. by the current run. Older reports of
+   * previous runs in the same folder are skipped.
+   *
+   * @param reportPath path to the report folder or to a report file
+   * @param since      the earliest modification time of a report file
+   * @return the report
+   * @throws IOException if the report folder cannot be read
+   * @see #read(Path)
+   */
+  public static HttpClientReport read(@NotNull Path reportPath, @Nullable Instant since)
+      throws IOException {
+    var testSuites = new ArrayList<TestSuite>();
+    BiPredicate<Path, BasicFileAttributes> matcher = (path, attributes) ->
+        attributes.isRegularFile() && path.getFileName().toString().endsWith(XML_EXTENSION)
+            && (isNull(since) || !attributes.lastModifiedTime().toInstant().isBefore(since));
+
+    if (Files.isRegularFile(reportPath)) {
+      if (matcher.test(reportPath, Files.readAttributes(reportPath, BasicFileAttributes.class))) {
+        readFile(reportPath, testSuites);
+      }
+    } else if (Files.isDirectory(reportPath)) {
+      List<Path> reportFiles;
+
+      try (Stream<Path> pathStream = Files.find(reportPath, MAX_DEPTH, matcher)) {
+        reportFiles = pathStream.sorted().toList();
+      }
+      for (Path reportFile : reportFiles) {
+        readFile(reportFile, testSuites);
+      }
+    }
+
+    return new HttpClientReport(testSuites);
+  }
+
+  private static void readFile(Path reportFile, List<TestSuite> testSuites) throws IOException {
+    var factory = XMLInputFactory.newFactory();
+
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    try (InputStream inputStream = Files.newInputStream(reportFile)) {
+      var reader = factory.createXMLStreamReader(inputStream);
+
+      try {
+        testSuites.addAll(parse(reader));
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException | RuntimeException exception) {
+      System.getLogger(HttpClientReport.class.getName())
+          .log(System.Logger.Level.DEBUG, () -> "Broken report is skipped: " + reportFile,
+              exception);
+    }
+  }
+
+  private static List<TestSuite> parse(XMLStreamReader reader) throws XMLStreamException {
+    var testSuites = new ArrayList<TestSuite>();
+    var suites = new ArrayDeque<SuiteBuilder>();
+    TestCaseBuilder testCase = null;
+
+    while (reader.hasNext()) {
+      var event = reader.next();
+
+      if (XMLStreamConstants.START_ELEMENT == event) {
+        switch (reader.getLocalName()) {
+          case "testsuite":
+            suites.push(new SuiteBuilder(reader.getAttributeValue(null, "name"),
+                parseTime(reader.getAttributeValue(null, "time"))));
+            break;
+          case "testcase":
+            testCase = new TestCaseBuilder(reader.getAttributeValue(null, "name"),
+                parseTime(reader.getAttributeValue(null, "time")));
+            break;
+          case "failure":
+          case "error":
+            if (nonNull(testCase)) {
+              testCase.failed = true;
+              testCase.message = reader.getAttributeValue(null, "message");
+            }
+            break;
+          default:
+            // ignore
+        }
+      } else if (XMLStreamConstants.END_ELEMENT == event) {
+        if ("testcase".equals(reader.getLocalName()) && nonNull(testCase)) {
+          addTestCase(suites, testCase);
+          testCase = null;
+        } else if ("testsuite".equals(reader.getLocalName()) && !suites.isEmpty()) {
+          testSuites.add(suites.pop().build());
+        }
+      }
+    }
+
+    return testSuites;
+  }
+
+  private static void addTestCase(Deque<SuiteBuilder> suites, TestCaseBuilder testCase) {
+    if (!suites.isEmpty()) {
+      suites.peek().testCases.add(
+          new TestCase(testCase.name, testCase.time, testCase.failed, testCase.message));
+    }
+  }
+
+  private static Duration parseTime(String time) {
+    if (isNull(time) || time.isBlank()) {
+      return null;
+    }
+    try {
+      return Duration.ofNanos(Math.round(Double.parseDouble(time.replace(",", "")) * 1e9));
+    } catch (NumberFormatException exception) {
+      return null;
+    }
+  }
+
+  private static boolean isPath(String testSuiteName) {
+    return 0 <= testSuiteName.indexOf('/');
+  }
+
+  /**
+   * Whether the path ends with the other one by whole names.
+   */
+  private static boolean endsWith(String path, String ending) {
+    return path.equals(ending) || path.endsWith('/' + ending);
+  }
+
+  private static String withoutExtension(String fileName) {
+    var extensionIndex = fileName.lastIndexOf('.');
+
+    return (0 < extensionIndex) ? fileName.substring(0, extensionIndex) : fileName;
+  }
+
+  /**
+   * Test suites, one per HTTP file.
+   *
+   * @return test suites
+   */
+  public List<TestSuite> getTestSuites() {
+    return testSuites;
+  }
+
+  /**
+   * Finds the test suite of an HTTP file. The name of a test suite is compared with the file path
+   * and name, with and without the extension.
+   * <p>
+   * A test suite named by a relative path, e.g. {@code api/login.http}, matches the file with
+   * the same path ending, the most specific one wins. Otherwise the file name must match a single
+   * test suite: files with the same name in different folders cannot be told apart, so there is no
+   * test suite for them.
+   *
+   * @param requestFile the HTTP file
+   * @return the test suite
+   */
+  public Optional<TestSuite> getTestSuite(@NotNull Path requestFile) {
+    var fileName = requestFile.getFileName();
+
+    if (isNull(fileName)) {
+      return Optional.empty();
+    }
+
+    var name = fileName.toString();
+    var path = requestFile.normalize().toString().replace('\\', '/');
+    var pathWithoutExtension = path.substring(0, path.length() - name.length())
+        + withoutExtension(name);
+    var namedTestSuites = testSuites.stream().filter(testSuite -> nonNull(testSuite.name()))
+        .toList();
+    var byPath = namedTestSuites.stream().filter(testSuite -> isPath(testSuite.name()))
+        .filter(testSuite -> endsWith(path, testSuite.name())
+            || endsWith(pathWithoutExtension, testSuite.name()))
+        .max(Comparator.comparingInt(testSuite -> testSuite.name().length()));
+
+    if (byPath.isPresent()) {
+      return byPath;
+    }
+
+    var byName = namedTestSuites.stream()
+        .filter(testSuite -> isPath(testSuite.name())
+            ? endsWith(testSuite.name(), path) || endsWith(testSuite.name(), pathWithoutExtension)
+            : testSuite.name().equals(name) || testSuite.name().equals(withoutExtension(name)))
+        .toList();
+
+    return (1 == byName.size()) ? Optional.of(byName.get(0)) : Optional.empty();
+  }
+
+  /**
+   * HTTP files that failed or are missing in the report, e.g. because the process was killed.
+   *
+   * @param requestFiles HTTP files
+   * @return failed HTTP files in the original order
+   */
+  public List<Path> getFailedFiles(@NotNull List<Path> requestFiles) {
+    return requestFiles.stream()
+        .filter(requestFile -> getTestSuite(requestFile).map(TestSuite::failed).orElse(true))
+        .toList();
+  }
+
+  /**
+   * Duration of an HTTP file.
+   *
+   * @param requestFile the HTTP file
+   * @return the duration if the report has it
+   */
+  public Optional<Duration> getDuration(@NotNull Path requestFile) {
+    return getTestSuite(requestFile).map(TestSuite::time);
+  }
+
+  /**
+   * Test suite, i.e. an HTTP file.
+   *
+   * @param name      name of the test suite
+   * @param time      duration of the test suite
+   * @param testCases test cases
+   */
+  public record TestSuite(@Nullable String name, @NotNull Duration time,
+                          @NotNull List<TestCase> testCases) {
+
+    /**
+     * Checks whether at least one test case failed.
+     *
+     * @return {@code true} if the test suite failed
+     */
+    public boolean failed() {
+      return testCases.stream().anyMatch(TestCase::failed);
+    }
+
+  }
+
+  /**
+   * Test case, i.e. an HTTP request.
+   *
+   * @param name    name of the test case
+   * @param time    duration of the test case
+   * @param failed  the test case failed or has an error
+   * @param message message of the failure or error
+   */
+  public record TestCase(@Nullable String name, @NotNull Duration time, boolean failed,
+                         @Nullable String message) {
+
+  }
+
+  private static class SuiteBuilder {
+
+    private final String name;
+    private final List<TestCase> testCases = new ArrayList<>();
+    private final Duration time;
+
+    SuiteBuilder(String name, Duration time) {
+      this.name = name;
+      this.time = time;
+    }
+
+    TestSuite build() {
+      var suiteTime = isNull(time) ? testCases.stream().map(TestCase::time)
+          .reduce(Duration.ZERO, Duration::plus) : time;
+
+      return new TestSuite(name, suiteTime, List.copyOf(testCases));
+    }
+
+  }
+
+  private static class TestCaseBuilder {
+
+    private final String name;
+    private final Duration time;
+    private boolean failed;
+    private String message;
+
+    TestCaseBuilder(String name, Duration time) {
+      this.name = name;
+      this.time = isNull(time) ? Duration.ZERO : time;
+    }
+
+  }
+
+}
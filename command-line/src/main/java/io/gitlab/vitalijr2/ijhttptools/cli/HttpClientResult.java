@@ -0,0 +1,78 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestCase;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestSuite;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of {@link HttpClientCommandLine#executeAsync(org.apache.commons.exec.Executor)}.
+ *
+ * @param exitCode   the exit code of the last run, reruns included
+ * @param wallTime   wall time of all runs
+ * @param output     standard output and error of all runs, the last
+ *                   {@link HttpClientCommandLine#OUTPUT_LIMIT} bytes
+ * @param testSuites test suites of the final attempt of every HTTP file, empty without
+ *                   the report
+ * @param reportPath the report path, null without the report
+ * @since 1.3.0
+ */
+public record HttpClientResult(int exitCode, @NotNull Duration wallTime, byte @NotNull [] output,
+                               @NotNull List<TestSuite> testSuites, @Nullable Path reportPath) {
+
+  public HttpClientResult {
+    testSuites = List.copyOf(testSuites);
+  }
+
+  /**
+   * Checks whether HTTP Client exited successfully.
+   *
+   * @return {@code true} if the exit code is 0
+   */
+  public boolean succeeded() {
+    return 0 == exitCode;
+  }
+
+  /**
+   * Failed requests of the report.
+   *
+   * @return failed test cases
+   */
+  public List<TestCase> getFailedRequests() {
+    return testSuites.stream().flatMap(testSuite -> testSuite.testCases().stream())
+        .filter(TestCase::failed).toList();
+  }
+
+  /**
+   * Output as UTF-8 text.
+   *
+   * @return the output
+   */
+  public String getOutputAsString() {
+    return new String(output, StandardCharsets.UTF_8);
+  }
+
+}
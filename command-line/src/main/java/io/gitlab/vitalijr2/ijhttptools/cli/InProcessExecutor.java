@@ -0,0 +1,347 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.security.Permission;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteResultHandler;
+import org.apache.commons.exec.Executor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Executor that runs HTTP Client in the current JVM instead of a new process, the engine of
+ * {@link HttpClientDaemon}.
+ * <p>
+ * It is not safe in a shared JVM, e.g. of a build or tests, and must run only in the JVM of the
+ * daemon. {@link System#exit(int)} is trapped by a JVM-wide security manager, and standard output
+ * and error are swapped for the whole JVM: while a run lasts, output of every other thread goes to
+ * the {@link #getStreamHandler() stream handler} too. Threads started by HTTP Client are not
+ * stopped, the daemon exits its JVM to get rid of them.
+ * <p>
+ * Jars of the distribution are loaded into an isolated class loader, its parent is the platform
+ * class loader. The class loader of the last jars is kept, so the second and later runs reuse
+ * loaded and JIT-compiled classes, a class loader of other jars replaces and closes it. Arguments
+ * of a command line are passed to the main class: all of them for the {@code ijhttp} script, or the
+ * ones after the main class for the {@link HttpClientCommandLine#distribution(Path) JVM launch
+ * mode}.
+ * <p>
+ * Runs are serialized. The environment and the watchdog are not applied: a run cannot be killed
+ * without killing the JVM. A working directory is rejected since relative paths would be resolved
+ * against the one of the JVM. Asynchronous runs use a thread instead of a process.
+ * <p>
+ * Trapping of {@link System#exit(int)} needs the security manager: Java 18 to 23 must be started
+ * with {@code -Djava.security.manager=allow}, on Java 24 and later the security manager cannot be
+ * enabled at all (JEP 486) and a run fails at once.
+ */
+class InProcessExecutor extends DefaultExecutor {
+
+  private static final File DEFAULT_WORKING_DIRECTORY = new File(".");
+  private static final Logger LOGGER = System.getLogger(InProcessExecutor.class.getName());
+  private static final String MAIN = "main";
+  private static final ReentrantLock RUN_LOCK = new ReentrantLock();
+  private static final int SECURITY_MANAGER_ALLOWED_BY_DEFAULT = 17;
+  private static final int SECURITY_MANAGER_REMOVED = 24;
+  private static final String THREAD_NAME = "ijhttp-in-process";
+
+  private static List<Path> classLoaderJars;
+  private static URLClassLoader classLoader;
+
+  private final Path distribution;
+  private final String mainClass;
+
+  /**
+   * Create an executor.
+   *
+   * @param distribution home of the HTTP Client distribution, the directory with {@code lib}
+   * @param mainClass    the main class of HTTP Client, the default one if null
+   */
+  @SuppressWarnings("deprecation")
+  InProcessExecutor(@NotNull Path distribution, @Nullable String mainClass) {
+    this.distribution = distribution;
+    this.mainClass = nonNull(mainClass) ? mainClass : JvmLauncher.DEFAULT_MAIN_CLASS;
+  }
+
+  /**
+   * The class loader of the jars, the class loader of other jars is closed.
+   */
+  static synchronized URLClassLoader getClassLoader(List<Path> jars) {
+    if (!jars.equals(classLoaderJars)) {
+      closeClassLoader();
+
+      var urls = jars.stream().map(InProcessExecutor::toUrl).toArray(URL[]::new);
+
+      LOGGER.log(Level.DEBUG, () -> "Create the class loader of HTTP Client: " + jars);
+      classLoader = new URLClassLoader("ijhttp", urls, ClassLoader.getPlatformClassLoader());
+      classLoaderJars = jars;
+    }
+
+    return classLoader;
+  }
+
+  /**
+   * Close the class loader if any.
+   */
+  static synchronized void closeClassLoader() {
+    if (nonNull(classLoader)) {
+      try {
+        classLoader.close();
+      } catch (IOException exception) {
+        LOGGER.log(Level.WARNING, "Could not close the class loader of HTTP Client", exception);
+      }
+      classLoader = null;
+      classLoaderJars = null;
+    }
+  }
+
+  /**
+   * Check that the Java version still supports the security manager.
+   */
+  static void checkJavaVersion(Runtime.Version version) throws IOException {
+    if (SECURITY_MANAGER_REMOVED <= version.feature()) {
+      throw new IOException("System.exit of HTTP Client cannot be trapped on Java "
+          + version.feature() + " since the security manager is removed (JEP 486), "
+          + "run HTTP Client as a process or use Java 23 or earlier");
+    }
+  }
+
+  /**
+   * Check that {@link System#exit(int)} can be trapped in the current JVM.
+   */
+  @SuppressWarnings("removal")
+  static void checkRuntime(Runtime.Version version, @Nullable String securityManager)
+      throws IOException {
+    checkJavaVersion(version);
+    if (SECURITY_MANAGER_ALLOWED_BY_DEFAULT < version.feature()
+        && isNull(System.getSecurityManager()) && !"allow".equals(securityManager)) {
+      throw new IOException(
+          "System.exit cannot be trapped, start the JVM with -Djava.security.manager=allow");
+    }
+  }
+
+  /**
+   * Run a synchronous execution by a new thread and pass its result to the handler.
+   */
+  static void executeAsync(ExecuteResultHandler handler, Execution execution) {
+    var thread = new Thread(() -> {
+      try {
+        handler.onProcessComplete(execution.execute());
+      } catch (ExecuteException exception) {
+        handler.onProcessFailed(exception);
+      } catch (IOException | RuntimeException exception) {
+        handler.onProcessFailed(
+            new ExecuteException("Execution failed", Executor.INVALID_EXITVALUE, exception));
+      }
+    }, THREAD_NAME);
+
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * HTTP Client arguments of a command line without quotes added by {@link CommandLine}.
+   */
+  String[] getArguments(CommandLine command) {
+    var arguments = Arrays.asList(command.getArguments());
+    var mainClassIndex = arguments.indexOf(mainClass);
+
+    if (0 <= mainClassIndex) {
+      arguments = arguments.subList(mainClassIndex + 1, arguments.size());
+    }
+
+    return arguments.stream().map(InProcessExecutor::unquote).toArray(String[]::new);
+  }
+
+  private static URL toUrl(Path jar) {
+    try {
+      return jar.toUri().toURL();
+    } catch (MalformedURLException exception) {
+      throw new IllegalArgumentException(exception);
+    }
+  }
+
+  private static String unquote(String argument) {
+    if (1 < argument.length() && (argument.startsWith("\"") && argument.endsWith("\"")
+        || argument.startsWith("'") && argument.endsWith("'"))) {
+      return argument.substring(1, argument.length() - 1);
+    }
+
+    return argument;
+  }
+
+  /**
+   * Run HTTP Client by a new thread of the current JVM, the environment is ignored.
+   *
+   * @param command     the command line
+   * @param environment the environment, it is ignored
+   * @param handler     the handler of the result
+   */
+  @Override
+  public void execute(CommandLine command, Map<String, String> environment,
+      ExecuteResultHandler handler) {
+    executeAsync(handler, () -> execute(command, environment));
+  }
+
+  @Override
+  public int execute(CommandLine command, Map<String, String> environment)
+      throws ExecuteException, IOException {
+    checkRuntime(Runtime.version(), System.getProperty("java.security.manager"));
+    if (!DEFAULT_WORKING_DIRECTORY.equals(getWorkingDirectory())) {
+      throw new IOException("Working directory is not supported by in-process runs: "
+          + getWorkingDirectory());
+    }
+
+    var arguments = getArguments(command);
+    var jars = JvmLauncher.getJars(distribution);
+
+    RUN_LOCK.lock();
+    try {
+      var exitValue = run(getClassLoader(jars), arguments);
+
+      if (isFailure(exitValue)) {
+        throw new ExecuteException("Process exited with an error: " + exitValue, exitValue);
+      }
+
+      return exitValue;
+    } finally {
+      RUN_LOCK.unlock();
+    }
+  }
+
+  private int run(ClassLoader classLoader, String[] arguments) throws IOException {
+    try (var pipes = new StreamHandlerPipes(getStreamHandler());
+        var output = new PrintStream(pipes.getOutput(), true);
+        var error = new PrintStream(pipes.getError(), true)) {
+      return invokeMain(classLoader, arguments, output, error);
+    }
+  }
+
+  @SuppressWarnings("removal")
+  private int invokeMain(ClassLoader classLoader, String[] arguments, PrintStream output,
+      PrintStream error) throws IOException {
+    var currentThread = Thread.currentThread();
+    var contextClassLoader = currentThread.getContextClassLoader();
+    var securityManager = System.getSecurityManager();
+    var systemError = System.err;
+    var systemOutput = System.out;
+    var exitTrap = new ExitTrap(securityManager);
+
+    try {
+      System.setSecurityManager(exitTrap);
+    } catch (UnsupportedOperationException exception) {
+      throw new IOException(
+          "System.exit cannot be trapped, start the JVM with -Djava.security.manager=allow",
+          exception);
+    }
+    currentThread.setContextClassLoader(classLoader);
+    System.setErr(error);
+    System.setOut(output);
+    try {
+      classLoader.loadClass(mainClass).getMethod(MAIN, String[].class)
+          .invoke(null, (Object) arguments);
+
+      return nonNull(exitTrap.status) ? exitTrap.status : 0;
+    } catch (InvocationTargetException exception) {
+      if (nonNull(exitTrap.status)) {
+        return exitTrap.status;
+      }
+      exception.getCause().printStackTrace(error);
+
+      return 1;
+    } catch (ReflectiveOperationException exception) {
+      throw new IOException("Could not run the main class of HTTP Client: " + mainClass,
+          exception);
+    } finally {
+      System.setOut(systemOutput);
+      System.setErr(systemError);
+      currentThread.setContextClassLoader(contextClassLoader);
+      System.setSecurityManager(securityManager);
+    }
+  }
+
+  /**
+   * A synchronous execution.
+   */
+  @FunctionalInterface
+  interface Execution {
+
+    int execute() throws IOException;
+
+  }
+
+  /**
+   * Turns {@link System#exit(int)} into an exception, other checks are delegated to the previous
+   * security manager if any.
+   */
+  @SuppressWarnings("removal")
+  private static class ExitTrap extends SecurityManager {
+
+    private final SecurityManager delegate;
+
+    private volatile Integer status;
+
+    ExitTrap(@Nullable SecurityManager delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void checkExit(int status) {
+      if (isNull(this.status)) {
+        this.status = status;
+      }
+      throw new SecurityException("System.exit(" + status + ") is trapped");
+    }
+
+    @Override
+    public void checkPermission(Permission permission) {
+      if (nonNull(delegate)) {
+        delegate.checkPermission(permission);
+      }
+    }
+
+    @Override
+    public void checkPermission(Permission permission, Object context) {
+      if (nonNull(delegate)) {
+        delegate.checkPermission(permission, context);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,191 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.nonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.commons.exec.CommandLine;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Starts the JVM of HTTP Client directly instead of the {@code ijhttp} shell script.
+ * <p>
+ * The class path is the sorted list of jars of the {@code lib} directory of the distribution,
+ * the stable order keeps the AppCDS archive valid. Without the archive the JVM dumps loaded
+ * classes at exit into a temporary file of the current process, {@link #saveCdsArchive()} moves a
+ * complete dump to the archive, so concurrent processes never write the archive itself.
+ */
+class JvmLauncher {
+
+  static final String DEFAULT_MAIN_CLASS = "com.intellij.httpClient.cli.HttpClientMain";
+  static final List<String> DEFAULT_JVM_OPTIONS = List.of("-XX:TieredStopAtLevel=1",
+      "-XX:+UseSerialGC", "-Xshare:auto");
+
+  private static final String ARCHIVE_CLASSES_AT_EXIT = "-XX:ArchiveClassesAtExit=";
+  private static final String CLASS_PATH = "-cp";
+  private static final AtomicInteger DUMP_COUNTER = new AtomicInteger();
+  private static final String JAR = ".jar";
+  private static final String LIB = "lib";
+  private static final Logger LOGGER = System.getLogger(JvmLauncher.class.getName());
+  private static final String SHARED_ARCHIVE_FILE = "-XX:SharedArchiveFile=";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+
+  private final Path cdsArchive;
+  private final Path distribution;
+  private final String java;
+  private final List<String> jvmOptions;
+  private final String mainClass;
+
+  private String classPath;
+
+  JvmLauncher(@NotNull Path distribution, @Nullable String java, @Nullable List<String> jvmOptions,
+      @Nullable String mainClass, @Nullable Path cdsArchive) {
+    this.distribution = distribution;
+    this.java = nonNull(java) ? java
+        : Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    this.jvmOptions = nonNull(jvmOptions) ? jvmOptions : DEFAULT_JVM_OPTIONS;
+    this.mainClass = nonNull(mainClass) ? mainClass : DEFAULT_MAIN_CLASS;
+    this.cdsArchive = cdsArchive;
+  }
+
+  /**
+   * Sorted jars of the {@code lib} directory of the distribution.
+   *
+   * @throws NoSuchFileException if the distribution has no jars
+   */
+  static List<Path> getJars(@NotNull Path distribution) throws IOException {
+    var lib = distribution.resolve(LIB);
+    List<Path> jars;
+
+    try (var files = Files.list(lib)) {
+      jars = files.filter(file -> file.getFileName().toString().endsWith(JAR)).sorted().toList();
+    }
+    if (jars.isEmpty()) {
+      throw new NoSuchFileException(lib.toString(), null, "no jars of HTTP Client");
+    }
+
+    return jars;
+  }
+
+  private static String getDumpPrefix(Path cdsArchive) {
+    return cdsArchive.getFileName() + "." + ProcessHandle.current().pid() + ".";
+  }
+
+  /**
+   * Moves the first complete dump of the current process to the AppCDS archive, other dumps are
+   * deleted. The archive is not replaced if it exists.
+   *
+   * @return true if the archive is created
+   */
+  static boolean saveCdsArchive(@NotNull Path cdsArchive) throws IOException {
+    var directory = cdsArchive.toAbsolutePath().getParent();
+
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+
+    var prefix = getDumpPrefix(cdsArchive);
+    List<Path> dumps;
+
+    try (var files = Files.list(directory)) {
+      dumps = files.filter(file -> file.getFileName().toString().startsWith(prefix)
+          && file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)).sorted().toList();
+    }
+
+    var saved = false;
+
+    for (Path dump : dumps) {
+      try {
+        if (!saved && !Files.exists(cdsArchive) && 0 < Files.size(dump)) {
+          move(dump, cdsArchive);
+          saved = true;
+          LOGGER.log(Level.INFO, () -> "AppCDS archive is created: " + cdsArchive);
+        }
+      } finally {
+        Files.deleteIfExists(dump);
+      }
+    }
+
+    return saved;
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException exception) {
+      Files.move(source, target);
+    } catch (FileAlreadyExistsException exception) {
+      // another process has created the archive
+    }
+  }
+
+  /**
+   * Create a command line that starts the JVM, HTTP Client arguments are added to it.
+   *
+   * @return command line
+   * @throws NoSuchFileException if the distribution has no jars
+   */
+  CommandLine newCommandLine() throws IOException {
+    var commandLine = new CommandLine(java);
+
+    jvmOptions.forEach(option -> commandLine.addArgument(option, false));
+    if (nonNull(cdsArchive)) {
+      if (Files.isRegularFile(cdsArchive)) {
+        commandLine.addArgument(SHARED_ARCHIVE_FILE + cdsArchive, false);
+      } else {
+        var dump = cdsArchive.resolveSibling(
+            getDumpPrefix(cdsArchive) + DUMP_COUNTER.incrementAndGet() + TEMPORARY_SUFFIX);
+
+        Files.createDirectories(dump.toAbsolutePath().getParent());
+        commandLine.addArgument(ARCHIVE_CLASSES_AT_EXIT + dump, false);
+      }
+    }
+    commandLine.addArgument(CLASS_PATH).addArgument(getClassPath(), false);
+    commandLine.addArgument(mainClass, false);
+
+    return commandLine;
+  }
+
+  private synchronized String getClassPath() throws IOException {
+    if (nonNull(classPath)) {
+      return classPath;
+    }
+
+    classPath = getJars(distribution).stream().map(Path::toString)
+        .collect(Collectors.joining(File.pathSeparator));
+
+    return classPath;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Include and exclude glob patterns of HTTP files.
+ * <p>
+ * Patterns are matched against paths relative to a directory to look up HTTP files, see
+ * {@link PathMatcher} for the glob syntax. Unlike {@link PathMatcher}, a {@code **}{@code /}
+ * segment matches zero directories too, so {@code **}{@code /target/**} excludes {@code target}
+ * of the top directory as well.
+ * <p>
+ * A directory is pruned, i.e. not traversed at all, if an exclude pattern ends with
+ * {@code /**} and the rest of the pattern matches the directory.
+ */
+class PathFilter {
+
+  static final PathFilter ALL = new PathFilter(List.of(), List.of());
+
+  private static final String ANY_DIRECTORIES = "**/";
+  private static final String ANY_SUBPATH = "/**";
+
+  private final List<PathMatcher> excludes;
+  private final List<PathMatcher> includes;
+  private final List<PathMatcher> prunedDirectories;
+
+  PathFilter(@NotNull List<String> includes, @NotNull List<String> excludes) {
+    var fileSystem = FileSystems.getDefault();
+
+    this.includes = matchers(fileSystem, includes);
+    this.excludes = matchers(fileSystem, excludes);
+    this.prunedDirectories = matchers(fileSystem, excludes.stream()
+        .filter(pattern -> pattern.endsWith(ANY_SUBPATH))
+        .map(pattern -> pattern.substring(0, pattern.length() - ANY_SUBPATH.length()))
+        .filter(pattern -> !pattern.isEmpty())
+        .toList());
+  }
+
+  private static List<PathMatcher> matchers(FileSystem fileSystem, List<String> patterns) {
+    var matchers = new ArrayList<PathMatcher>();
+
+    for (String pattern : patterns) {
+      var variants = new ArrayList<String>();
+
+      expand(pattern, 0, variants);
+      variants.forEach(variant -> matchers.add(fileSystem.getPathMatcher("glob:" + variant)));
+    }
+
+    return List.copyOf(matchers);
+  }
+
+  private static void expand(String pattern, int fromIndex, List<String> variants) {
+    var index = pattern.indexOf(ANY_DIRECTORIES, fromIndex);
+
+    while (0 < index && '/' != pattern.charAt(index - 1)) {
+      index = pattern.indexOf(ANY_DIRECTORIES, index + 1);
+    }
+    if (0 > index) {
+      variants.add(pattern);
+      return;
+    }
+    expand(pattern, index + ANY_DIRECTORIES.length(), variants);
+    expand(pattern.substring(0, index) + pattern.substring(index + ANY_DIRECTORIES.length()),
+        index, variants);
+  }
+
+  private static boolean matches(List<PathMatcher> matchers, Path path) {
+    return matchers.stream().anyMatch(matcher -> matcher.matches(path));
+  }
+
+  /**
+   * Checks an HTTP file.
+   *
+   * @param relativePath path relative to the directory to look up HTTP files
+   * @return {@code true} if the file matches an include pattern, or includes are empty, and does
+   * not match any exclude pattern
+   */
+  boolean accept(@NotNull Path relativePath) {
+    return (includes.isEmpty() || matches(includes, relativePath)) && !matches(excludes,
+        relativePath);
+  }
+
+  /**
+   * Checks a subdirectory.
+   *
+   * @param relativePath path relative to the directory to look up HTTP files
+   * @return {@code true} if nothing in the subdirectory can be accepted
+   */
+  boolean prune(@NotNull Path relativePath) {
+    return matches(prunedDirectories, relativePath);
+  }
+
+}
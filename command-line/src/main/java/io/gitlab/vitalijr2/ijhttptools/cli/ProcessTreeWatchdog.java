@@ -0,0 +1,289 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.Watchdog;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Watchdog that kills the whole process tree.
+ * <p>
+ * {@code ijhttp} is a shell launcher that starts a Java process, {@link ExecuteWatchdog} kills
+ * the launcher only and leaves the client JVM running. This watchdog takes the descendants of the
+ * process before it is killed, then terminates the process and its descendants gracefully and
+ * forcibly kills the processes that are still alive after the grace period.
+ * <p>
+ * With the {@link #setThreadDumpDirectory(Path) thread dump directory} a timeout captures thread
+ * dumps of Java processes of the tree by {@code jcmd} before they are killed, so it is visible
+ * whether the client hangs in DNS, TLS, a response handler or waits for the server. Dumps are
+ * taken concurrently outside the watchdog lock and delay the kill by 10 seconds at most.
+ *
+ * @since 1.3.0
+ */
+public class ProcessTreeWatchdog extends ExecuteWatchdog {
+
+  /**
+   * Default time to wait for graceful termination.
+   */
+  public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofSeconds(5);
+
+  private static final Logger LOGGER = System.getLogger(ProcessTreeWatchdog.class.getName());
+  private static final long POLL_INTERVAL = 50;
+  private static final Duration THREAD_DUMP_BUDGET = Duration.ofSeconds(10);
+  private static final char ZOMBIE = 'Z';
+
+  private final Duration gracePeriod;
+  private final List<Path> threadDumps = new ArrayList<>();
+
+  private Process process;
+  private int reapedCount;
+  private Path threadDumpDirectory;
+
+  /**
+   * Create a watchdog with the default grace period.
+   *
+   * @param timeout timeout of the process, {@link ExecuteWatchdog#INFINITE_TIMEOUT_DURATION} for
+   *                none
+   */
+  public ProcessTreeWatchdog(@NotNull Duration timeout) {
+    this(timeout, DEFAULT_GRACE_PERIOD);
+  }
+
+  /**
+   * Create a watchdog.
+   *
+   * @param timeout     timeout of the process, {@link ExecuteWatchdog#INFINITE_TIMEOUT_DURATION}
+   *                    for none
+   * @param gracePeriod time to wait for graceful termination before processes are killed forcibly
+   */
+  @SuppressWarnings("deprecation")
+  public ProcessTreeWatchdog(@NotNull Duration timeout, @NotNull Duration gracePeriod) {
+    super(timeout.toMillis());
+    this.gracePeriod = gracePeriod;
+  }
+
+  private static boolean awaitExit(List<ProcessHandle> processes, Duration timeout) {
+    var deadline = System.nanoTime() + timeout.toNanos();
+
+    try {
+      while (processes.stream().anyMatch(ProcessTreeWatchdog::isRunning)) {
+        if (0 < System.nanoTime() - deadline) {
+          return false;
+        }
+        Thread.sleep(POLL_INTERVAL);
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * A killed descendant stays a zombie until its new parent reaps it, containers without init do
+   * not do it at all. On Linux zombies are not running.
+   */
+  private static boolean isRunning(ProcessHandle process) {
+    if (!process.isAlive()) {
+      return false;
+    }
+    try {
+      var stat = Files.readString(Path.of("/proc", Long.toString(process.pid()), "stat"));
+
+      return ZOMBIE != stat.charAt(stat.lastIndexOf(')') + 2);
+    } catch (IOException | RuntimeException exception) {
+      return process.isAlive();
+    }
+  }
+
+  private static boolean isJava(ProcessHandle process) {
+    return process.info().command().map(Path::of).map(Path::getFileName).map(Path::toString)
+        .filter(name -> "java".equals(name) || "java.exe".equals(name)).isPresent();
+  }
+
+  /**
+   * Prefer {@code jcmd} of the runtime of the process, the runtime bundled with HTTP Client could
+   * have no tools, then {@code jcmd} of the current runtime.
+   */
+  private static Path getJcmd(ProcessHandle process) {
+    var name = System.getProperty("os.name").startsWith("Windows") ? "jcmd.exe" : "jcmd";
+
+    return process.info().command().map(command -> Path.of(command).resolveSibling(name))
+        .filter(Files::isExecutable)
+        .orElseGet(() -> Path.of(System.getProperty("java.home"), "bin", name));
+  }
+
+  /**
+   * Thread dumps captured before the timeout kill.
+   *
+   * @return files of thread dumps, empty if there was no timeout
+   */
+  public synchronized List<Path> getThreadDumps() {
+    return List.copyOf(threadDumps);
+  }
+
+  /**
+   * Set the directory of thread dumps, they are not captured by default.
+   *
+   * @param threadDumpDirectory directory of thread dumps, null to disable them
+   */
+  public synchronized void setThreadDumpDirectory(@Nullable Path threadDumpDirectory) {
+    this.threadDumpDirectory = threadDumpDirectory;
+  }
+
+  /**
+   * Number of processes of the tree that were terminated by this watchdog.
+   *
+   * @return number of reaped processes, 0 if the process was not killed
+   */
+  public synchronized int getReapedCount() {
+    return reapedCount;
+  }
+
+  @Override
+  public synchronized void start(Process process) {
+    this.process = process;
+    super.start(process);
+  }
+
+  /**
+   * Thread dumps are taken without the lock of the watchdog, so the executor can still stop it
+   * when the process ends meanwhile. The tree is reaped under the lock, the executor waits for it
+   * when it stops the watchdog.
+   */
+  @Override
+  public void timeoutOccured(Watchdog watchdog) {
+    Process root;
+    Path directory;
+
+    synchronized (this) {
+      root = process;
+      directory = threadDumpDirectory;
+    }
+
+    var descendants = nonNull(root) ? root.descendants().toList() : List.<ProcessHandle>of();
+
+    if (nonNull(watchdog) && nonNull(directory) && nonNull(root) && root.isAlive()) {
+      var tree = new ArrayList<ProcessHandle>();
+
+      tree.add(root.toHandle());
+      tree.addAll(descendants);
+      dumpThreads(tree.stream().filter(ProcessTreeWatchdog::isJava).toList(), directory);
+    }
+    synchronized (this) {
+      super.timeoutOccured(watchdog);
+      if (killedProcess() && nonNull(root)) {
+        reap(root.toHandle(), descendants);
+      }
+    }
+  }
+
+  private void dumpThreads(List<ProcessHandle> processes, Path directory) {
+    var deadline = System.nanoTime() + THREAD_DUMP_BUDGET.toNanos();
+    var jcmds = new ArrayList<Process>();
+    var files = new ArrayList<Path>();
+
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException exception) {
+      LOGGER.log(Level.WARNING, () -> "Could not create the thread dump directory " + directory,
+          exception);
+      return;
+    }
+    for (var process : processes) {
+      var threadDump = directory.resolve("thread-dump-" + process.pid() + ".txt");
+
+      try {
+        jcmds.add(new ProcessBuilder(getJcmd(process).toString(), Long.toString(process.pid()),
+            "Thread.print", "-l").redirectErrorStream(true).redirectOutput(threadDump.toFile())
+            .start());
+        files.add(threadDump);
+      } catch (IOException exception) {
+        LOGGER.log(Level.WARNING, () -> "Could not capture the thread dump of the process "
+            + process.pid(), exception);
+      }
+    }
+    for (var i = 0; i < jcmds.size(); i++) {
+      awaitThreadDump(jcmds.get(i), files.get(i), deadline);
+    }
+    synchronized (this) {
+      threadDumps.addAll(files);
+    }
+  }
+
+  private void awaitThreadDump(Process jcmd, Path threadDump, long deadline) {
+    try {
+      if (!jcmd.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+        jcmd.destroyForcibly();
+        LOGGER.log(Level.WARNING, () -> "Thread dump timed out: " + threadDump);
+      } else if (0 != jcmd.exitValue()) {
+        LOGGER.log(Level.WARNING, () -> "Thread dump failed, see " + threadDump);
+      } else {
+        LOGGER.log(Level.WARNING, () -> "Thread dump: " + threadDump);
+      }
+    } catch (InterruptedException exception) {
+      jcmd.destroyForcibly();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void reap(ProcessHandle root, List<ProcessHandle> descendants) {
+    var tree = new ArrayList<ProcessHandle>();
+
+    tree.add(root);
+    tree.addAll(descendants);
+
+    var alive = tree.stream().filter(ProcessTreeWatchdog::isRunning).toList();
+
+    alive.forEach(ProcessHandle::destroy);
+
+    var forcibly = 0;
+
+    if (!awaitExit(alive, gracePeriod)) {
+      var stillAlive = alive.stream().filter(ProcessTreeWatchdog::isRunning).toList();
+
+      stillAlive.forEach(ProcessHandle::destroyForcibly);
+      forcibly = stillAlive.size();
+      awaitExit(stillAlive, gracePeriod);
+    }
+    reapedCount = (int) tree.stream().filter(handle -> !isRunning(handle)).count();
+
+    var forciblyKilled = forcibly;
+
+    LOGGER.log(Level.WARNING,
+        () -> String.format("Reaped %d processes of the process tree %d, %d of them forcibly",
+            reapedCount, root.pid(), forciblyKilled));
+  }
+
+}
@@ -0,0 +1,243 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.SimpleFileVisitor;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Looks up HTTP files in a directory tree.
+ * <p>
+ * The sequential mode uses {@link Files#walkFileTree Files.walkFileTree} and keeps the order of
+ * the file system. The parallel mode scans directories concurrently and sorts found files to keep
+ * the command line stable. Listing a directory blocks, so the scan runs by its own bounded
+ * {@link ForkJoinPool} instead of the common one that parallel streams of the JVM share.
+ * <p>
+ * With a {@link DiscoveryIndex discovery index} unchanged directories are not listed again. The
+ * sequential mode walks directories in the name order then: HTTP files of a directory go before
+ * the ones of its subdirectories.
+ * <p>
+ * A {@link PathFilter path filter} is applied during the walk: excluded subtrees are skipped
+ * instead of being traversed.
+ */
+class RequestFileFinder {
+
+  private static final int MAX_PARALLELISM = 8;
+  private static final ForkJoinPool DISCOVERY_POOL = newDiscoveryPool();
+  private static final BiPredicate<Path, BasicFileAttributes> REQUEST_FILE = ((path, attributes) ->
+      Files.isRegularFile(path) && DirectoryListing.isRequestFileName(path));
+
+  private final DiscoveryIndex discoveryIndex;
+  private final int maxDepth;
+  private final boolean parallel;
+  private final PathFilter pathFilter;
+
+  RequestFileFinder(int maxDepth, boolean parallel) {
+    this(maxDepth, parallel, null, PathFilter.ALL);
+  }
+
+  RequestFileFinder(int maxDepth, boolean parallel, @Nullable DiscoveryIndex discoveryIndex,
+      @NotNull PathFilter pathFilter) {
+    this.maxDepth = maxDepth;
+    this.parallel = parallel;
+    this.discoveryIndex = discoveryIndex;
+    this.pathFilter = pathFilter;
+  }
+
+  /**
+   * I/O-bound tasks, so there are more threads than processors. Workers are daemon threads that
+   * stop when they are idle.
+   */
+  private static ForkJoinPool newDiscoveryPool() {
+    var parallelism = Math.min(MAX_PARALLELISM, 2 * Runtime.getRuntime().availableProcessors());
+
+    return new ForkJoinPool(parallelism, pool -> {
+      var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+      thread.setName("ijhttp-discovery-" + thread.getPoolIndex());
+
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Finds HTTP files.
+   *
+   * @param directory the starting directory
+   * @return HTTP files
+   * @throws IOException if the directory cannot be traversed
+   */
+  List<Path> find(@NotNull Path directory) throws IOException {
+    if (!parallel && isNull(discoveryIndex)) {
+      var visitor = new RequestFileVisitor(directory);
+
+      Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), maxDepth, visitor);
+
+      return visitor.requestFiles;
+    }
+
+    var attributes = Files.readAttributes(directory, BasicFileAttributes.class,
+        LinkOption.NOFOLLOW_LINKS);
+    List<Path> requestFiles;
+
+    if (!attributes.isDirectory()) {
+      return REQUEST_FILE.test(directory, attributes) ? List.of(directory) : List.of();
+    }
+    if (1 > maxDepth) {
+      return List.of();
+    }
+    try {
+      if (parallel) {
+        requestFiles = new ArrayList<>(
+            DISCOVERY_POOL.invoke(new DirectoryTask(directory, directory, 0)));
+        requestFiles.sort(null);
+      } else {
+        requestFiles = new ArrayList<>();
+        walk(directory, directory, 0, requestFiles);
+      }
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    }
+
+    return requestFiles;
+  }
+
+  private DirectoryListing list(Path directory) throws IOException {
+    return isNull(discoveryIndex) ? DirectoryListing.read(directory)
+        : discoveryIndex.list(directory);
+  }
+
+  private void walk(Path root, Path directory, int depth, List<Path> requestFiles)
+      throws IOException {
+    var listing = list(directory);
+
+    addRequestFiles(root, directory, listing, requestFiles);
+    if (depth + 1 < maxDepth) {
+      for (String name : listing.subdirectories()) {
+        var subdirectory = directory.resolve(name);
+
+        if (!pathFilter.prune(root.relativize(subdirectory))) {
+          walk(root, subdirectory, depth + 1, requestFiles);
+        }
+      }
+    }
+  }
+
+  private void addRequestFiles(Path root, Path directory, DirectoryListing listing,
+      List<Path> requestFiles) {
+    for (String name : listing.requestFiles()) {
+      var requestFile = directory.resolve(name);
+
+      if (pathFilter.accept(root.relativize(requestFile))) {
+        requestFiles.add(requestFile);
+      }
+    }
+  }
+
+  private class RequestFileVisitor extends SimpleFileVisitor<Path> {
+
+    private final List<Path> requestFiles = new ArrayList<>();
+    private final Path root;
+
+    RequestFileVisitor(Path root) {
+      this.root = root;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+      if (!directory.equals(root) && pathFilter.prune(root.relativize(directory))) {
+        return FileVisitResult.SKIP_SUBTREE;
+      }
+
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+      if (REQUEST_FILE.test(file, attributes) && (file.equals(root) || pathFilter.accept(
+          root.relativize(file)))) {
+        requestFiles.add(file);
+      }
+
+      return FileVisitResult.CONTINUE;
+    }
+
+  }
+
+  private class DirectoryTask extends RecursiveTask<List<Path>> {
+
+    private final Path directory;
+    private final int depth;
+    private final Path root;
+
+    DirectoryTask(Path root, Path directory, int depth) {
+      this.root = root;
+      this.directory = directory;
+      this.depth = depth;
+    }
+
+    @Override
+    protected List<Path> compute() {
+      var requestFiles = new ArrayList<Path>();
+      var subdirectoryTasks = new ArrayList<DirectoryTask>();
+      DirectoryListing listing;
+
+      try {
+        listing = list(directory);
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+      addRequestFiles(root, directory, listing, requestFiles);
+      if (depth + 1 < maxDepth) {
+        for (String name : listing.subdirectories()) {
+          var subdirectory = directory.resolve(name);
+
+          if (!pathFilter.prune(root.relativize(subdirectory))) {
+            subdirectoryTasks.add(new DirectoryTask(root, subdirectory, depth + 1));
+          }
+        }
+      }
+      for (DirectoryTask subdirectoryTask : invokeAll(subdirectoryTasks)) {
+        requestFiles.addAll(subdirectoryTask.join());
+      }
+
+      return requestFiles;
+    }
+
+  }
+
+}
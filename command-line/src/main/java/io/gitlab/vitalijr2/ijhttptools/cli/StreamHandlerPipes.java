@@ -0,0 +1,83 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import org.apache.commons.exec.ExecuteStreamHandler;
+
+/**
+ * Feeds a stream handler of an executor from output streams instead of a process: what is written
+ * to {@link #getOutput()} and {@link #getError()} goes to the handler like standard output and
+ * error of a process. {@link #close()} closes the streams and waits for the handler.
+ */
+class StreamHandlerPipes implements Closeable {
+
+  private static final Logger LOGGER = System.getLogger(StreamHandlerPipes.class.getName());
+
+  private final OutputStream error;
+  private final OutputStream output;
+  private final ExecuteStreamHandler streamHandler;
+
+  StreamHandlerPipes(ExecuteStreamHandler streamHandler) throws IOException {
+    var errorPipe = Pipe.open();
+    var outputPipe = Pipe.open();
+
+    streamHandler.setProcessInputStream(OutputStream.nullOutputStream());
+    streamHandler.setProcessOutputStream(Channels.newInputStream(outputPipe.source()));
+    streamHandler.setProcessErrorStream(Channels.newInputStream(errorPipe.source()));
+    streamHandler.start();
+    this.error = Channels.newOutputStream(errorPipe.sink());
+    this.output = Channels.newOutputStream(outputPipe.sink());
+    this.streamHandler = streamHandler;
+  }
+
+  OutputStream getError() {
+    return error;
+  }
+
+  OutputStream getOutput() {
+    return output;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try (error; output) {
+      output.flush();
+      error.flush();
+    } finally {
+      stop();
+    }
+  }
+
+  private void stop() {
+    try {
+      streamHandler.stop();
+    } catch (IOException exception) {
+      LOGGER.log(Level.WARNING, "Could not stop the stream handler", exception);
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Output stream that keeps the last bytes written to it. The buffer grows on demand up to the
+ * limit, then the oldest bytes are overwritten.
+ */
+final class TailOutputStream extends OutputStream {
+
+  private static final int INITIAL_CAPACITY = 8192;
+
+  private final int limit;
+
+  private byte[] buffer;
+  private int start;
+  private int size;
+
+  TailOutputStream(int limit) {
+    if (1 > limit) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    this.limit = limit;
+    buffer = new byte[Math.min(limit, INITIAL_CAPACITY)];
+  }
+
+  @Override
+  public synchronized void write(int value) {
+    write(new byte[]{(byte) value}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] bytes, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    if (length > limit) {
+      offset += length - limit;
+      length = limit;
+    }
+    ensureCapacity(size + length);
+
+    var end = (start + size) % buffer.length;
+    var head = Math.min(length, buffer.length - end);
+
+    System.arraycopy(bytes, offset, buffer, end, head);
+    System.arraycopy(bytes, offset + head, buffer, 0, length - head);
+    size += length;
+    if (size > buffer.length) {
+      start = (start + size - buffer.length) % buffer.length;
+      size = buffer.length;
+    }
+  }
+
+  /**
+   * The last bytes written to the stream, at most the limit.
+   *
+   * @return a copy of the tail
+   */
+  synchronized byte[] toByteArray() {
+    var result = new byte[size];
+    var head = Math.min(size, buffer.length - start);
+
+    System.arraycopy(buffer, start, result, 0, head);
+    System.arraycopy(buffer, 0, result, head, size - head);
+
+    return result;
+  }
+
+  /**
+   * The buffer does not wrap until it reaches the limit, so it is grown by a plain copy.
+   */
+  private void ensureCapacity(int capacity) {
+    if (buffer.length < capacity && buffer.length < limit) {
+      var grown = new byte[Math.min(limit, Math.max(capacity, 2 * buffer.length))];
+
+      System.arraycopy(buffer, 0, grown, 0, size);
+      buffer = grown;
+    }
+  }
+
+}
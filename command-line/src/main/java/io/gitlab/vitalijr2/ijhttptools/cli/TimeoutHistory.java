@@ -0,0 +1,270 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Observed run durations per set of HTTP files.
+ * <p>
+ * The history keeps the last {@value #MAX_SAMPLES} successful durations of every key, usually a
+ * command line. The adaptive timeout of a key is the percentile of its durations multiplied by the
+ * safety factor, it never exceeds the hard cap. A key without history gets the default timeout or
+ * the hard cap.
+ * <p>
+ * The history is a cache: a missing or broken file is ignored. Saving rereads the file and
+ * replaces only recorded keys, so several processes can share the same file.
+ *
+ * @since 1.3.0
+ */
+public class TimeoutHistory {
+
+  /**
+   * Default safety factor.
+   */
+  public static final double DEFAULT_FACTOR = 2.0;
+
+  /**
+   * Default hard cap.
+   */
+  public static final Duration DEFAULT_MAX_TIMEOUT = Duration.ofHours(1);
+
+  /**
+   * Default percentile.
+   */
+  public static final int DEFAULT_PERCENTILE = 95;
+
+  /**
+   * A run that takes this part of its timeout is close to the limit.
+   */
+  public static final double WARNING_RATIO = 0.8;
+
+  static final int MAX_SAMPLES = 20;
+
+  private static final String HEADER = "# ijhttp timeout history 1";
+  private static final Logger LOGGER = System.getLogger(TimeoutHistory.class.getName());
+  private static final String SEPARATOR = ",";
+  private static final String TAB = "\t";
+
+  private final double factor;
+  private final Path historyFile;
+  private final Duration maxTimeout;
+  private final int percentile;
+  private final Map<String, Deque<Long>> recorded = new TreeMap<>();
+  private final Map<String, Deque<Long>> samples;
+
+  private TimeoutHistory(Path historyFile, Map<String, Deque<Long>> samples, int percentile,
+      double factor, Duration maxTimeout) {
+    this.historyFile = historyFile;
+    this.samples = samples;
+    this.percentile = percentile;
+    this.factor = factor;
+    this.maxTimeout = maxTimeout;
+  }
+
+  /**
+   * Load the history with default settings.
+   *
+   * @param historyFile history file
+   * @return timeout history
+   */
+  public static TimeoutHistory load(@NotNull Path historyFile) {
+    return load(historyFile, DEFAULT_PERCENTILE, DEFAULT_FACTOR, DEFAULT_MAX_TIMEOUT);
+  }
+
+  /**
+   * Load the history.
+   *
+   * @param historyFile history file
+   * @param percentile  percentile of observed durations, from 1 to 100
+   * @param factor      safety factor, not less than 1
+   * @param maxTimeout  hard cap of timeouts
+   * @return timeout history
+   */
+  public static TimeoutHistory load(@NotNull Path historyFile, int percentile, double factor,
+      @NotNull Duration maxTimeout) {
+    if (1 > percentile || 100 < percentile) {
+      throw new IllegalArgumentException("percentile must be from 1 to 100: " + percentile);
+    }
+    if (!(1 <= factor)) {
+      throw new IllegalArgumentException("factor must not be less than 1: " + factor);
+    }
+    if (maxTimeout.isNegative() || maxTimeout.isZero()) {
+      throw new IllegalArgumentException("max timeout must be positive: " + maxTimeout);
+    }
+
+    return new TimeoutHistory(historyFile, read(historyFile), percentile, factor, maxTimeout);
+  }
+
+  /**
+   * Check if a run is close to its timeout.
+   *
+   * @param duration duration of the run
+   * @param timeout  timeout of the run
+   * @return true if the run took {@value #WARNING_RATIO} of the timeout or more
+   */
+  public static boolean isCloseToLimit(@NotNull Duration duration, @NotNull Duration timeout) {
+    return duration.toMillis() >= timeout.toMillis() * WARNING_RATIO;
+  }
+
+  private static String hash(String key) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+          .digest(key.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private static Map<String, Deque<Long>> read(Path historyFile) {
+    var samples = new TreeMap<String, Deque<Long>>();
+
+    try {
+      parse(Files.readAllLines(historyFile, StandardCharsets.UTF_8), samples);
+    } catch (NoSuchFileException exception) {
+      LOGGER.log(Level.DEBUG, () -> "Timeout history not found: " + historyFile);
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.log(Level.DEBUG, () -> "Broken timeout history is ignored: " + historyFile,
+          exception);
+      samples.clear();
+    }
+
+    return samples;
+  }
+
+  private static void parse(List<String> lines, Map<String, Deque<Long>> samples) {
+    if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+      throw new IllegalArgumentException("unknown format");
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      var fields = line.split(TAB);
+
+      if (2 != fields.length) {
+        throw new IllegalArgumentException("wrong line: " + line);
+      }
+      samples.put(fields[0], new ArrayDeque<>(
+          Arrays.stream(fields[1].split(SEPARATOR)).map(Long::valueOf).toList()));
+    }
+  }
+
+  /**
+   * Get the timeout of a key.
+   *
+   * @param key            key, usually a command line
+   * @param defaultTimeout timeout of a key without history, the hard cap if null
+   * @return adaptive timeout
+   */
+  public synchronized Duration getTimeout(@NotNull String key, @Nullable Duration defaultTimeout) {
+    var durations = samples.get(hash(key));
+
+    if (isNull(durations) || durations.isEmpty()) {
+      return (nonNull(defaultTimeout) && 0 > defaultTimeout.compareTo(maxTimeout)) ? defaultTimeout
+          : maxTimeout;
+    }
+
+    var sorted = durations.stream().mapToLong(Long::longValue).sorted().toArray();
+    var rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    var timeout = (long) Math.ceil(sorted[Math.max(rank, 0)] * factor);
+
+    return Duration.ofMillis(Math.max(1, Math.min(timeout, maxTimeout.toMillis())));
+  }
+
+  /**
+   * Record the duration of a successful run.
+   *
+   * @param key      key, usually a command line
+   * @param duration duration of the run
+   */
+  public synchronized void record(@NotNull String key, @NotNull Duration duration) {
+    var durations = samples.computeIfAbsent(hash(key), hash -> new ArrayDeque<>());
+
+    durations.addLast(duration.toMillis());
+    while (MAX_SAMPLES < durations.size()) {
+      durations.removeFirst();
+    }
+    recorded.put(hash(key), durations);
+  }
+
+  /**
+   * Save recorded durations, the file is replaced atomically.
+   *
+   * @throws IOException if the history could not be written
+   */
+  public synchronized void save() throws IOException {
+    if (recorded.isEmpty()) {
+      return;
+    }
+
+    var merged = read(historyFile);
+    var lines = new ArrayList<String>();
+
+    merged.putAll(recorded);
+    lines.add(HEADER);
+    merged.forEach((hash, durations) -> lines.add(hash + TAB + String.join(SEPARATOR,
+        durations.stream().map(String::valueOf).toList())));
+    write(lines);
+  }
+
+  private void write(List<String> lines) throws IOException {
+    var directory = historyFile.toAbsolutePath().getParent();
+
+    Files.createDirectories(directory);
+
+    var temporaryFile = Files.createTempFile(directory, historyFile.getFileName().toString(),
+        ".tmp");
+
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      try {
+        Files.move(temporaryFile, historyFile, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException exception) {
+        Files.move(temporaryFile, historyFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.StreamPumper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Stream handler that pumps the output and the error of a process by named daemon threads.
+ * <p>
+ * Pumps are virtual threads on Java 21 and later, they are found by reflection since the library
+ * targets Java 17. On older Java pumps run by daemon platform threads like
+ * {@link PumpStreamHandler} does.
+ * <p>
+ * The handler does not save platform threads: pipes of a process are read by blocking file I/O,
+ * a virtual thread that waits on it holds its carrier and the scheduler compensates it with
+ * another one. Every running process still costs up to two platform threads, they are released
+ * when the process ends. Pumps never keep the JVM alive and are easy to find in a thread dump.
+ *
+ * @since 1.3.0
+ */
+public class VirtualThreadStreamHandler extends PumpStreamHandler {
+
+  private static final Logger LOGGER = System.getLogger(VirtualThreadStreamHandler.class.getName());
+  private static final String THREAD_NAME = "ijhttp-pump-";
+  private static final ThreadFactory THREAD_FACTORY = getThreadFactory();
+
+  /**
+   * Create a handler that copies the output and the error of a process to the same stream.
+   *
+   * @param outputStream the output stream
+   */
+  public VirtualThreadStreamHandler(@NotNull OutputStream outputStream) {
+    super(outputStream);
+  }
+
+  /**
+   * Create a handler.
+   *
+   * @param outputStream      the output stream
+   * @param errorOutputStream the error output stream
+   */
+  public VirtualThreadStreamHandler(@NotNull OutputStream outputStream,
+      @NotNull OutputStream errorOutputStream) {
+    super(outputStream, errorOutputStream);
+  }
+
+  /**
+   * Check if pumps run by virtual threads.
+   *
+   * @return {@code true} on Java 21 and later
+   */
+  public static boolean isVirtual() {
+    return !(THREAD_FACTORY instanceof PlatformThreadFactory);
+  }
+
+  @VisibleForTesting
+  static ThreadFactory getThreadFactory() {
+    try {
+      var builderClass = Class.forName("java.lang.Thread$Builder");
+      var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, THREAD_NAME, 0L);
+
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      LOGGER.log(Level.DEBUG, "Virtual threads are not available, pumps use platform threads");
+
+      return new PlatformThreadFactory();
+    }
+  }
+
+  @Override
+  protected Thread createPump(InputStream inputStream, OutputStream outputStream,
+      boolean closeWhenExhausted) {
+    return THREAD_FACTORY.newThread(
+        new StreamPumper(inputStream, outputStream, closeWhenExhausted));
+  }
+
+  private static class PlatformThreadFactory implements ThreadFactory {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public Thread newThread(@NotNull Runnable runnable) {
+      var thread = new Thread(runnable, THREAD_NAME + counter.getAndIncrement());
+
+      thread.setDaemon(true);
+
+      return thread;
+    }
+
+  }
+
+}
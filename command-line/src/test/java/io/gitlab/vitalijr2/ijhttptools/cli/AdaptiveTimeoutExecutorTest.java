@@ -0,0 +1,133 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisabledOnOs(OS.WINDOWS)
+@Tag("fast")
+class AdaptiveTimeoutExecutorTest {
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("Duration of a successful run is recorded and saved")
+  @Test
+  void recordSuccessfulRun() throws IOException {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+    var commandLine = new CommandLine("true");
+    var executor = new AdaptiveTimeoutExecutor(TimeoutHistory.load(historyFile), null);
+
+    // when
+    var exitValue = executor.execute(commandLine);
+
+    // then
+    var timeout = TimeoutHistory.load(historyFile)
+        .getTimeout(AdaptiveTimeoutExecutor.getKey(commandLine), null);
+
+    assertAll("Successful run",
+        () -> assertThat(exitValue, equalTo(0)),
+        () -> assertTrue(Files.exists(historyFile)),
+        () -> assertTrue(Duration.ofSeconds(10).compareTo(timeout) > 0, "adaptive timeout"));
+  }
+
+  @DisplayName("A failed run is not recorded")
+  @Test
+  void failedRun() {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+    var executor = new AdaptiveTimeoutExecutor(TimeoutHistory.load(historyFile), null);
+
+    // when
+    assertThrows(ExecuteException.class, () -> executor.execute(new CommandLine("false")));
+
+    // then
+    assertTrue(Files.notExists(historyFile));
+  }
+
+  @DisplayName("A run is killed by the default timeout")
+  @Test
+  void killedRun() {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+    var commandLine = new CommandLine("sleep").addArgument("30");
+    var executor = new AdaptiveTimeoutExecutor(TimeoutHistory.load(historyFile),
+        Duration.ofMillis(200));
+
+    // when
+    var start = System.nanoTime();
+
+    assertThrows(ExecuteException.class, () -> executor.execute(commandLine));
+
+    // then
+    assertAll("Killed run",
+        () -> assertTrue(executor.getWatchdog().killedProcess(), "killed"),
+        () -> assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 20,
+            "duration"),
+        () -> assertTrue(Files.notExists(historyFile)));
+  }
+
+  @DisplayName("Duration of a successful asynchronous run is recorded before notification")
+  @Test
+  void recordSuccessfulAsyncRun() throws IOException, InterruptedException {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+    var commandLine = new CommandLine("true");
+    var executor = new AdaptiveTimeoutExecutor(TimeoutHistory.load(historyFile), null);
+    var handler = new DefaultExecuteResultHandler();
+
+    // when
+    executor.execute(commandLine, handler);
+    handler.waitFor();
+
+    // then
+    assertAll("Successful asynchronous run",
+        () -> assertThat(handler.getExitValue(), equalTo(0)),
+        () -> assertTrue(Files.exists(historyFile)),
+        () -> assertTrue(executor.getWatchdog() instanceof ProcessTreeWatchdog, "watchdog"));
+  }
+
+  @DisplayName("An asynchronous run is killed by the default timeout")
+  @Test
+  void killedAsyncRun() throws IOException, InterruptedException {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+    var commandLine = new CommandLine("sleep").addArgument("30");
+    var executor = new AdaptiveTimeoutExecutor(TimeoutHistory.load(historyFile),
+        Duration.ofMillis(200));
+    var handler = new DefaultExecuteResultHandler();
+
+    // when
+    var start = System.nanoTime();
+
+    executor.execute(commandLine, handler);
+    handler.waitFor();
+
+    // then
+    assertAll("Killed asynchronous run",
+        () -> assertNotNull(handler.getException(), "exception"),
+        () -> assertTrue(executor.getWatchdog().killedProcess(), "killed"),
+        () -> assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 20,
+            "duration"),
+        () -> assertTrue(Files.notExists(historyFile)));
+  }
+
+}
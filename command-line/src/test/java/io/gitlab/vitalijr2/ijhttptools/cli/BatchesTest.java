@@ -0,0 +1,84 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("fast")
+class BatchesTest {
+
+  private static final Path A = Path.of("a.http");
+  private static final Path B = Path.of("b.http");
+  private static final Path C = Path.of("c.http");
+
+  @DisplayName("All files fit one batch")
+  @Test
+  void oneBatch() {
+    // when
+    var batches = Batches.split(List.of(A, B, C), 10, 10 + 3 * Batches.length("a.http"));
+
+    // then
+    assertThat(batches, contains(List.of(A, B, C)));
+  }
+
+  @DisplayName("Files are split keeping their order")
+  @Test
+  void severalBatches() {
+    // when
+    var batches = Batches.split(List.of(A, B, C), 10, 10 + 2 * Batches.length("a.http"));
+
+    // then
+    assertThat(batches, contains(List.of(A, B), List.of(C)));
+  }
+
+  @DisplayName("A file that does not fit the limit gets its own batch")
+  @Test
+  void tooLongFile() {
+    // when
+    var batches = Batches.split(List.of(A, B), 10, 10);
+
+    // then
+    assertThat(batches, contains(List.of(A), List.of(B)));
+  }
+
+  @DisplayName("No files")
+  @Test
+  void noFiles() {
+    // when
+    var batches = Batches.split(List.of(), 10, 10);
+
+    // then
+    assertThat(batches, contains(List.<Path>of()));
+  }
+
+  @DisplayName("Default limit on Windows")
+  @Test
+  void windows() {
+    // when and then
+    assertEquals(32767, Batches.defaultArgumentLimit("Windows 11", Map.of("PATH", "C:\\")));
+  }
+
+  @DisplayName("Default limit on Unix-like systems depends on the environment")
+  @Test
+  void unix() {
+    // when and then
+    assertEquals(128 * 1024 - Batches.length("PATH=/bin"),
+        Batches.defaultArgumentLimit("Linux", Map.of("PATH", "/bin")));
+  }
+
+  @DisplayName("Default limit is not too small with a huge environment")
+  @Test
+  void hugeEnvironment() {
+    // when and then
+    assertEquals(4096,
+        Batches.defaultArgumentLimit("Mac OS X", Map.of("HUGE", "x".repeat(200 * 1024))));
+  }
+
+}
@@ -0,0 +1,213 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class DaemonExecutorTest {
+
+  @TempDir
+  private Path directory;
+
+  private Path distribution;
+  private ByteArrayOutputStream error;
+  private ByteArrayOutputStream output;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    var lib = Files.createDirectories(directory.resolve("ijhttp/lib"));
+
+    try (var jar = new JarOutputStream(Files.newOutputStream(lib.resolve("client.jar")));
+        var main = getClass().getResourceAsStream("DaemonExecutorTest$Client.class")) {
+      jar.putNextEntry(new JarEntry(getClass().getPackageName().replace('.', '/')
+          + "/DaemonExecutorTest$Client.class"));
+      main.transferTo(jar);
+    }
+    distribution = lib.getParent();
+    error = new ByteArrayOutputStream();
+    output = new ByteArrayOutputStream();
+  }
+
+  @DisplayName("The daemon is started once and keeps HTTP Client warm")
+  @Test
+  void warmDaemon() throws IOException {
+    // given
+    var executor = newExecutor(distribution, Duration.ofSeconds(2), directory);
+    var commandLine = new CommandLine("ijhttp").addArgument("orders file.http");
+
+    // when
+    executor.execute(commandLine);
+    executor.execute(commandLine);
+
+    var exception = assertThrows(ExecuteException.class,
+        () -> executor.execute(new CommandLine("ijhttp").addArgument("exit=3")));
+
+    // then
+    var requestFile = directory.resolve("orders file.http");
+
+    assertAll("Daemon runs",
+        () -> assertEquals("run 1: " + requestFile + "\nrun 2: " + requestFile + "\n",
+            output.toString(StandardCharsets.UTF_8)),
+        () -> assertEquals(3, exception.getExitValue()),
+        () -> assertEquals(PosixFilePermissions.fromString("rw-------"),
+            Files.getPosixFilePermissions(executor.getSocket())));
+  }
+
+  @DisplayName("An asynchronous run uses a thread, not a process")
+  @Test
+  void async() throws IOException, InterruptedException {
+    // given
+    var executor = newExecutor(distribution, Duration.ofMillis(500));
+    var handler = new DefaultExecuteResultHandler();
+
+    // when
+    executor.execute(new CommandLine("ijhttp").addArgument("exit=3"), handler);
+    handler.waitFor();
+
+    // then
+    assertEquals(3, handler.getExitValue());
+  }
+
+  @DisplayName("The daemon stops and removes the socket when it is idle")
+  @Test
+  void idleShutdown() throws IOException, InterruptedException {
+    // given
+    var executor = newExecutor(distribution, Duration.ofMillis(500));
+
+    // when
+    executor.execute(new CommandLine("ijhttp").addArgument("orders.http"));
+
+    var deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+
+    while (Files.exists(executor.getSocket()) && System.nanoTime() < deadline) {
+      Thread.sleep(100);
+    }
+
+    // then
+    assertFalse(Files.exists(executor.getSocket()), "socket");
+  }
+
+  @DisplayName("A failure of the daemon is reported by the error output")
+  @Test
+  void noJars() throws IOException {
+    // given
+    var executor = newExecutor(Files.createDirectories(directory.resolve("empty/lib")).getParent(),
+        Duration.ofMillis(500));
+
+    // when
+    var exception = assertThrows(ExecuteException.class,
+        () -> executor.execute(new CommandLine("ijhttp").addArgument("orders.http")));
+
+    // then
+    assertAll("Failure",
+        () -> assertEquals(1, exception.getExitValue()),
+        () -> assertThat(error.toString(StandardCharsets.UTF_8),
+            startsWith("Daemon of HTTP Client: ")),
+        () -> assertThat(error.toString(StandardCharsets.UTF_8),
+            containsString("no jars of HTTP Client")));
+  }
+
+  @DisplayName("The default socket depends on the distribution")
+  @Test
+  void defaultSocket() {
+    // when
+    var socket = DaemonExecutor.getDefaultSocket(Path.of("/opt/ijhttp"), "Main");
+
+    // then
+    assertAll("Default socket",
+        () -> assertEquals(Path.of(System.getProperty("java.io.tmpdir"),
+            "ijhttp-" + System.getProperty("user.name")), socket.getParent()),
+        () -> assertEquals(socket, DaemonExecutor.getDefaultSocket(Path.of("/opt/ijhttp"), "Main")),
+        () -> assertFalse(
+            socket.equals(DaemonExecutor.getDefaultSocket(Path.of("/opt/ijhttp-2"), "Main"))));
+  }
+
+  @DisplayName("Request files, environment files and the report directory are resolved")
+  @Test
+  void resolvePaths() {
+    // given
+    var workingDirectory = Path.of("/home/user/project");
+    var arguments = new String[]{"--env-file", "http-client.env.json", "--env", "dev",
+        "--private-env-variables", "token=secret", "--insecure", "orders.http", "/tmp/users.http",
+        "--report"};
+
+    // when
+    var resolved = DaemonExecutor.resolvePaths(arguments, workingDirectory);
+
+    // then
+    assertEquals(List.of("--env-file", workingDirectory.resolve("http-client.env.json").toString(),
+        "--env", "dev", "--private-env-variables", "token=secret", "--insecure",
+        workingDirectory.resolve("orders.http").toString(), "/tmp/users.http", "--report",
+        workingDirectory.resolve("reports").toString()), resolved);
+  }
+
+  @DisplayName("The report path is resolved")
+  @Test
+  void resolveReportPath() {
+    // given
+    var workingDirectory = Path.of("/home/user/project");
+
+    // when
+    var resolved = DaemonExecutor.resolvePaths(new String[]{"orders.http", "--report", "out"},
+        workingDirectory);
+
+    // then
+    assertEquals(List.of(workingDirectory.resolve("orders.http").toString(), "--report",
+        workingDirectory.resolve("out").toString()), resolved);
+  }
+
+  private DaemonExecutor newExecutor(Path distribution, Duration idleTimeout) {
+    return newExecutor(distribution, idleTimeout, null);
+  }
+
+  private DaemonExecutor newExecutor(Path distribution, Duration idleTimeout,
+      Path workingDirectory) {
+    var executor = new DaemonExecutor(directory.resolve(distribution.getFileName() + ".sock"),
+        distribution, Client.class.getName(), idleTimeout, workingDirectory);
+
+    executor.setStreamHandler(new PumpStreamHandler(output, error));
+
+    return executor;
+  }
+
+  public static class Client {
+
+    private static int runs;
+
+    public static void main(String[] args) {
+      var fileName = Path.of(args[0]).getFileName().toString();
+
+      if (fileName.startsWith("exit=")) {
+        System.exit(Integer.parseInt(fileName.substring(5)));
+      }
+      System.out.println("run " + ++runs + ": " + String.join("|", args));
+    }
+
+  }
+
+}
@@ -0,0 +1,77 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.commons.exec.CommandLine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("fast")
+class DaemonProtocolTest {
+
+  @DisplayName("A request with an argument longer than 64 KiB is passed as is")
+  @Test
+  void longArgument() throws IOException {
+    // given
+    var bytes = new ByteArrayOutputStream();
+    var longArgument = "é".repeat(70 * 1024);
+
+    DaemonProtocol.writeRequest(new DataOutputStream(bytes),
+        new CommandLine("ijhttp").addArgument(longArgument, false).addArgument("orders.http"));
+
+    // when
+    var commandLine = DaemonProtocol.readRequest(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    // then
+    assertAll("Request", () -> assertEquals("ijhttp", commandLine.getExecutable()),
+        () -> assertThat(commandLine.getArguments(),
+            arrayContaining(equalTo(longArgument), equalTo("orders.http"))));
+  }
+
+  @DisplayName("A truncated request fails")
+  @Test
+  void truncatedRequest() throws IOException {
+    // given
+    var bytes = new ByteArrayOutputStream();
+
+    DaemonProtocol.writeRequest(new DataOutputStream(bytes),
+        new CommandLine("ijhttp").addArgument("orders.http"));
+
+    var truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+
+    // when and then
+    assertThrows(EOFException.class, () -> DaemonProtocol.readRequest(
+        new DataInputStream(new ByteArrayInputStream(truncated))));
+  }
+
+  @DisplayName("A request of another version fails")
+  @Test
+  void wrongVersion() throws IOException {
+    // given
+    var bytes = new ByteArrayOutputStream();
+
+    new DataOutputStream(bytes).writeInt(1);
+
+    // when
+    var exception = assertThrows(IOException.class, () -> DaemonProtocol.readRequest(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+    // then
+    assertEquals("Unsupported version of the daemon protocol: 1", exception.getMessage());
+  }
+
+}
@@ -0,0 +1,156 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class DiscoveryIndexTest {
+
+  private static final FileTime PAST = FileTime.from(Instant.parse("2025-01-01T00:00:00Z"));
+
+  @TempDir
+  private Path directory;
+
+  private Path indexFile;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(directory.resolve("requests/a"));
+    Files.createFile(directory.resolve("requests/z.http"));
+    Files.createFile(directory.resolve("requests/readme.md"));
+    Files.createFile(directory.resolve("requests/a/y.rest"));
+    Files.setLastModifiedTime(directory.resolve("requests/a"), PAST);
+    Files.setLastModifiedTime(directory.resolve("requests"), PAST);
+    indexFile = directory.resolve("state/discovery.index");
+  }
+
+  @DisplayName("Unchanged directory is not listed again")
+  @Test
+  void unchangedDirectory() throws IOException {
+    // given
+    var requests = directory.resolve("requests");
+    var index = DiscoveryIndex.load(indexFile);
+
+    index.list(requests);
+    index.save(List.of(requests));
+    Files.createFile(requests.resolve("x.http"));
+    Files.setLastModifiedTime(requests, PAST);
+
+    // when
+    var listing = DiscoveryIndex.load(indexFile).list(requests);
+
+    // then
+    assertThat(listing.requestFiles(), contains("z.http"));
+    assertThat(listing.subdirectories(), contains("a"));
+  }
+
+  @DisplayName("Changed directory is listed again")
+  @Test
+  void changedDirectory() throws IOException {
+    // given
+    var requests = directory.resolve("requests");
+    var index = DiscoveryIndex.load(indexFile);
+
+    index.list(requests);
+    index.save(List.of(requests));
+    Files.createFile(requests.resolve("x.http"));
+    Files.setLastModifiedTime(requests, FileTime.from(PAST.toInstant().plusSeconds(1)));
+
+    // when
+    var listing = DiscoveryIndex.load(indexFile).list(requests);
+
+    // then
+    assertThat(listing.requestFiles(), contains("x.http", "z.http"));
+  }
+
+  @DisplayName("Recently modified directory is not cached")
+  @Test
+  void racyDirectory() throws IOException {
+    // given
+    var requests = directory.resolve("requests");
+    var index = DiscoveryIndex.load(indexFile);
+
+    Files.setLastModifiedTime(requests, FileTime.from(Instant.now()));
+
+    // when
+    index.list(requests);
+    index.save(List.of(requests));
+
+    // then
+    assertThat(Files.readString(indexFile), not(containsString("z.http")));
+  }
+
+  @DisplayName("Broken index is rebuilt")
+  @Test
+  void brokenIndex() throws IOException {
+    // given
+    var requests = directory.resolve("requests");
+
+    Files.createDirectories(indexFile.getParent());
+    Files.writeString(indexFile, "D\tnot a number");
+
+    var index = DiscoveryIndex.load(indexFile);
+
+    // when
+    var listing = index.list(requests);
+    index.save(List.of(requests));
+
+    // then
+    assertThat(listing.requestFiles(), contains("z.http"));
+    assertThat(Files.readString(indexFile), startsWith("# ijhttp discovery index 1"));
+    assertThat(Files.readString(indexFile), containsString("z.http"));
+  }
+
+  @DisplayName("Entries of other directory trees are kept, missed ones are dropped")
+  @Test
+  void save() throws IOException {
+    // given
+    var requests = directory.resolve("requests");
+    var subdirectory = requests.resolve("a");
+    var index = DiscoveryIndex.load(indexFile);
+
+    index.list(requests);
+    index.list(subdirectory);
+    index.save(List.of(requests));
+
+    var secondIndex = DiscoveryIndex.load(indexFile);
+
+    // when
+    secondIndex.list(subdirectory);
+    secondIndex.save(List.of(subdirectory));
+
+    // then
+    var lines = Files.readAllLines(indexFile);
+
+    assertThat(lines.stream().filter(line -> line.startsWith("D\t")).count(), equalTo(2L));
+
+    // when
+    var thirdIndex = DiscoveryIndex.load(indexFile);
+
+    thirdIndex.list(requests);
+    thirdIndex.save(List.of(requests));
+
+    // then
+    assertThat(Files.readAllLines(indexFile).stream().filter(line -> line.startsWith("D\t"))
+        .filter(line -> line.endsWith(subdirectory.toAbsolutePath().toString())).toList(),
+        empty());
+  }
+
+}
@@ -3,17 +3,43 @@ package io.gitlab.vitalijr2.ijhttptools.cli;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.ArrayMatching.arrayContaining;
 import static org.hamcrest.collection.ArrayMatching.arrayContainingInAnyOrder;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.object.HasToString.hasToString;
+import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringEndsWith.endsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 
 @Tag("fast")
 public class HttpClientCommandLineSmokeTest {
@@ -83,4 +109,313 @@ public class HttpClientCommandLineSmokeTest {
     assertThat(commandLine.getArguments(), arrayContaining(endsWith("testportal.http")));
   }
 
+  @DisplayName("Parallel discovery")
+  @Test
+  void parallelDiscovery() {
+    // given
+    var folder = Paths.get("src/test/resources/folder");
+    var directoryWithSubdirectory = Paths.get("src/test/resources/directory");
+
+    builder.directories(folder, directoryWithSubdirectory);
+    builder.parallelDiscovery(true);
+
+    // when
+    var commandLine = assertDoesNotThrow(builder::getCommandLine);
+
+    // then
+    assertThat(commandLine.getArguments(),
+        arrayContaining(endsWith("google.http"), endsWith("bing.rest"),
+            endsWith("testportal.http")));
+  }
+
+  @DisplayName("Request files")
+  @Test
+  void requestFiles() throws IOException {
+    // given
+    var file = Paths.get("orders.http");
+    var folder = Paths.get("src/test/resources/folder");
+
+    builder.files(file);
+    builder.directories(folder);
+
+    // when
+    var requestFiles = builder.getRequestFiles();
+
+    // then
+    assertThat(requestFiles,
+        contains(hasToString("orders.http"), hasToString(endsWith("google.http"))));
+  }
+
+  @DisplayName("Command lines: all files fit one command line")
+  @Test
+  void oneCommandLine() throws IOException {
+    // given
+    var folder = Paths.get("src/test/resources/folder");
+    var directoryWithSubdirectory = Paths.get("src/test/resources/directory");
+
+    builder.directories(folder, directoryWithSubdirectory);
+    builder.report(true);
+
+    // when
+    var commandLines = builder.getCommandLines();
+
+    // then
+    assertThat(commandLines, hasSize(1));
+    assertThat(commandLines.get(0).getArguments(),
+        arrayContainingInAnyOrder(endsWith("bing.rest"), endsWith("google.http"),
+            endsWith("testportal.http"), equalTo("--report")));
+  }
+
+  @DisplayName("Command lines: files are split into batches")
+  @Test
+  void batches() throws IOException {
+    // given
+    var file = Paths.get("orders.http");
+
+    builder.files(file, file, file);
+    builder.report(true);
+    builder.reportPath(Paths.get("target"));
+    builder.argumentLimit(Batches.length("ijhttp") + Batches.length("--report")
+        + Batches.length("target/batch-3") + 2 * Batches.length("orders.http"));
+
+    // when
+    var commandLines = builder.getCommandLines();
+
+    // then
+    assertThat(commandLines, hasSize(2));
+    assertThat(commandLines.get(0).getArguments(),
+        arrayContaining(equalTo("orders.http"), equalTo("orders.http"), equalTo("--report"),
+            hasToString(Paths.get("target", "batch-1").toString())));
+    assertThat(commandLines.get(1).getArguments(),
+        arrayContaining(equalTo("orders.http"), equalTo("--report"),
+            hasToString(Paths.get("target", "batch-2").toString())));
+  }
+
+  @DisplayName("Execute: only failed files are rerun with the rerun log level")
+  @Test
+  void rerunFailedFiles(@TempDir Path reportPath) throws IOException {
+    // given
+    var executor = mock(Executor.class);
+    var commandLineCaptor = ArgumentCaptor.forClass(CommandLine.class);
+
+    builder.files(Paths.get("orders.http"), Paths.get("checkout.http"));
+    builder.report(true);
+    builder.reportPath(reportPath);
+    builder.rerunFailingCount(2);
+    builder.rerunLogLevel(LogLevel.VERBOSE);
+    when(executor.execute(isA(CommandLine.class))).thenAnswer(invocationOnMock -> {
+      Files.writeString(reportPath.resolve("report.xml"), """
+          <testsuites>
+            <testsuite name="orders.http"><testcase name="Get orders"/></testsuite>
+            <testsuite name="checkout.http">
+              <testcase name="Checkout"><failure message="Connection reset"/></testcase>
+            </testsuite>
+          </testsuites>
+          """);
+      throw new ExecuteException("test execute exception", 1);
+    }).thenReturn(0);
+
+    // when
+    builder.execute(executor);
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+    assertThat(commandLineCaptor.getAllValues().get(1).getArguments(),
+        arrayContaining(equalTo("--log-level"), equalTo("VERBOSE"), equalTo("checkout.http"),
+            equalTo("--report"), equalTo(reportPath.resolve("rerun-1").toString())));
+  }
+
+  @DisplayName("Execute: without the report all files are rerun, the last failure is thrown")
+  @Test
+  void rerunWithoutReport() throws IOException {
+    // given
+    var executor = mock(Executor.class);
+    var commandLineCaptor = ArgumentCaptor.forClass(CommandLine.class);
+
+    builder.files(Paths.get("orders.http"), Paths.get("checkout.http"));
+    builder.rerunFailingCount(1);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("first", 1), new ExecuteException("second", 1));
+
+    // when
+    var exception = assertThrows(ExecuteException.class, () -> builder.execute(executor));
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+    assertAll("Reruns", () -> assertEquals("second (Exit value: 1)", exception.getMessage()),
+        () -> assertThat(commandLineCaptor.getAllValues().get(1).getArguments(),
+            arrayContaining("orders.http", "checkout.http")));
+  }
+
+  @DisplayName("Execute async: the output, the exit code and the wall time")
+  @Test
+  void executeAsync() {
+    // given
+    builder.executable("echo");
+    builder.files(Paths.get("orders.http"));
+
+    // when
+    var result = builder.executeAsync(DefaultExecutor.builder().get()).join();
+
+    // then
+    assertAll("Result", () -> assertTrue(result.succeeded(), "succeeded"),
+        () -> assertEquals("orders.http\n", result.getOutputAsString()),
+        () -> assertFalse(result.wallTime().isNegative(), "wall time"),
+        () -> assertNull(result.reportPath(), "report path"),
+        () -> assertThat(result.testSuites(), hasSize(0)));
+  }
+
+  @DisplayName("Execute async: failed requests do not complete the future exceptionally")
+  @Test
+  void executeAsyncWithFailure(@TempDir Path reportPath) throws IOException {
+    // given
+    var executor = mock(Executor.class);
+
+    builder.files(Paths.get("orders.http"), Paths.get("checkout.http"));
+    builder.report(true);
+    builder.reportPath(reportPath);
+    when(executor.execute(isA(CommandLine.class))).thenAnswer(invocationOnMock -> {
+      Files.writeString(reportPath.resolve("report.xml"), """
+          <testsuites>
+            <testsuite name="orders.http"><testcase name="Get orders"/></testsuite>
+            <testsuite name="checkout.http">
+              <testcase name="Checkout"><failure message="Connection reset"/></testcase>
+            </testsuite>
+          </testsuites>
+          """);
+      throw new ExecuteException("test execute exception", 1);
+    });
+
+    // when
+    var result = builder.executeAsync(executor).join();
+
+    // then
+    assertAll("Result", () -> assertEquals(1, result.exitCode()),
+        () -> assertEquals(reportPath, result.reportPath()),
+        () -> assertThat(result.testSuites(), hasSize(2)),
+        () -> assertThat(result.getFailedRequests(), hasSize(1)),
+        () -> assertEquals("Checkout", result.getFailedRequests().get(0).name()));
+  }
+
+  @DisplayName("Execute async: test suites of a passed rerun replace the failed ones")
+  @Test
+  void executeAsyncWithRerun(@TempDir Path reportPath) throws IOException {
+    // given
+    var executor = mock(Executor.class);
+
+    builder.files(Paths.get("orders.http"), Paths.get("checkout.http"));
+    builder.report(true);
+    builder.reportPath(reportPath);
+    builder.rerunFailingCount(1);
+    when(executor.execute(isA(CommandLine.class))).thenAnswer(invocationOnMock -> {
+      Files.writeString(reportPath.resolve("report.xml"), """
+          <testsuites>
+            <testsuite name="orders.http"><testcase name="Get orders"/></testsuite>
+            <testsuite name="checkout.http">
+              <testcase name="Checkout"><failure message="Connection reset"/></testcase>
+            </testsuite>
+          </testsuites>
+          """);
+      throw new ExecuteException("test execute exception", 1);
+    }).thenAnswer(invocationOnMock -> {
+      Files.createDirectories(reportPath.resolve("rerun-1"));
+      Files.writeString(reportPath.resolve("rerun-1").resolve("report.xml"), """
+          <testsuites>
+            <testsuite name="checkout.http"><testcase name="Checkout"/></testsuite>
+          </testsuites>
+          """);
+      return 0;
+    });
+
+    // when
+    var result = builder.executeAsync(executor).join();
+
+    // then
+    assertAll("Result", () -> assertTrue(result.succeeded(), "succeeded"),
+        () -> assertThat(result.testSuites(), hasSize(2)),
+        () -> assertThat(result.getFailedRequests(), hasSize(0)));
+  }
+
+  @DisplayName("Execute async: missing files complete the future exceptionally")
+  @Test
+  void executeAsyncWithoutFiles() {
+    // when
+    var future = builder.executeAsync(DefaultExecutor.builder().get());
+
+    // then
+    var exception = assertThrows(CompletionException.class, future::join);
+
+    assertInstanceOf(IllegalStateException.class, exception.getCause());
+  }
+
+  @DisplayName("Execute async: the output listener gets events while the output is captured")
+  @Test
+  void executeAsyncWithOutputListener(@TempDir Path directory) throws IOException {
+    // given
+    var events = new ArrayList<HttpClientEvent>();
+    var output = Files.writeString(directory.resolve("output.txt"),
+        "Response code: 200 (OK); Time: 12ms\n");
+
+    builder.executable("cat");
+    builder.files(output);
+    builder.outputListener(events::add);
+
+    // when
+    var result = builder.executeAsync(DefaultExecutor.builder().get()).join();
+
+    // then
+    assertAll("Result",
+        () -> assertEquals("Response code: 200 (OK); Time: 12ms\n", result.getOutputAsString()),
+        () -> assertThat(events, contains(
+            new HttpClientEvent.ResponseReceived(null, 200, Duration.ofMillis(12)))));
+  }
+
+  @DisplayName("Execute async: the output and the error are parsed separately")
+  @Test
+  void executeAsyncWithOutputAndErrorListener(@TempDir Path directory) throws IOException {
+    // given
+    var events = new ArrayList<HttpClientEvent>();
+    var script = Files.writeString(directory.resolve("output.sh"), """
+        for i in $(seq 500); do echo 'Response code: 200 (OK); Time: 12ms'; done &
+        for i in $(seq 500); do echo 'Response code: 500 (Internal Server Error)' >&2; done
+        wait
+        """);
+
+    builder.executable("sh");
+    builder.files(script);
+    builder.outputListener(events::add);
+
+    // when
+    builder.executeAsync(DefaultExecutor.builder().get()).join();
+
+    // then
+    var succeeded = new HttpClientEvent.ResponseReceived(null, 200, Duration.ofMillis(12));
+    var failed = new HttpClientEvent.ResponseReceived(null, 500, null);
+
+    assertAll("Events",
+        () -> assertEquals(500, events.stream().filter(succeeded::equals).count()),
+        () -> assertEquals(500, events.stream().filter(failed::equals).count()),
+        () -> assertEquals(1000, events.size()));
+  }
+
+  @DisplayName("Execute all: command lines run concurrently, results keep the order")
+  @Test
+  void executeAll() {
+    // given
+    var failed = new HttpClientCommandLine();
+
+    builder.executable("echo");
+    builder.files(Paths.get("orders.http"));
+    failed.executable("false");
+    failed.files(Paths.get("checkout.http"));
+
+    // when
+    var results = HttpClientCommandLine.executeAll(List.of(builder, failed),
+        () -> DefaultExecutor.builder().get()).join();
+
+    // then
+    assertAll("Results", () -> assertEquals("orders.http\n", results.get(0).getOutputAsString()),
+        () -> assertEquals(1, results.get(1).exitCode()));
+  }
+
 }
@@ -0,0 +1,137 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.AssertionResult;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.RequestFailed;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.RequestStarted;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.ResponseReceived;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientEvent.Statistics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Tag("fast")
+class HttpClientOutputParserTest {
+
+  private static final byte[] OUTPUT = """
+      ┌─────────────────────────────┐
+      │   Running IntelliJ HTTP Client with   │
+      ├─────────────────────────────┤
+      │        Files names:         │
+      │          orders.http        │
+      └─────────────────────────────┘
+      Request 'Get orders' (GET http://localhost:8080/orders)
+      Response code: 200 (OK); Time: 35ms (35 ms); Content length: 20 bytes (20 B)
+        {"orders": [1, 2, 3]}
+        ✓ Response status is 200
+      Request 'Create order' (POST http://localhost:8080/orders)\r
+      Response code: 500 (Internal Server Error); Time: 7ms (7 ms)\r
+        ✗ Response status is 201\r
+      Request 'Create order' failed
+      Request 'Get users' (GET http://localhost:8080/users)
+      Request 'Get users' failed
+      Files: 1, requests: 3, failed: 2
+      3 requests completed, 2 have failed tests
+      """.getBytes(StandardCharsets.UTF_8);
+
+  private List<HttpClientEvent> events;
+
+  @BeforeEach
+  void setUp() {
+    events = new ArrayList<>();
+  }
+
+  @DisplayName("Events of requests, responses, assertions and statistics")
+  @ParameterizedTest(name = "chunk size {0}")
+  @ValueSource(ints = {1, 3, 64, Integer.MAX_VALUE})
+  void events(int chunkSize) throws IOException {
+    // given
+    var target = new ByteArrayOutputStream();
+
+    // when
+    try (var parser = new HttpClientOutputParser(target, events::add)) {
+      for (int offset = 0; offset < OUTPUT.length; offset += chunkSize) {
+        var count = Math.min(chunkSize, OUTPUT.length - offset);
+
+        if (1 == count) {
+          parser.write(OUTPUT[offset]);
+        } else {
+          parser.write(OUTPUT, offset, count);
+        }
+      }
+    }
+
+    // then
+    assertAll("Events",
+        () -> assertArrayEquals(OUTPUT, target.toByteArray(), "output"),
+        () -> assertThat(events, contains(
+            equalTo(new RequestStarted("Get orders", "GET", "http://localhost:8080/orders")),
+            equalTo(new ResponseReceived("Get orders", 200, Duration.ofMillis(35))),
+            equalTo(new AssertionResult("Get orders", true, "Response status is 200")),
+            equalTo(new RequestStarted("Create order", "POST", "http://localhost:8080/orders")),
+            equalTo(new ResponseReceived("Create order", 500, Duration.ofMillis(7))),
+            equalTo(new AssertionResult("Create order", false, "Response status is 201")),
+            equalTo(new RequestFailed("Create order")),
+            equalTo(new RequestStarted("Get users", "GET", "http://localhost:8080/users")),
+            equalTo(new RequestFailed("Get users")),
+            equalTo(new Statistics(3, 2)),
+            equalTo(new Statistics(3, 2)))));
+  }
+
+  @DisplayName("The last line without the line break is parsed on close")
+  @Test
+  void lastLine() throws IOException {
+    // when
+    try (var parser = new HttpClientOutputParser(OutputStream.nullOutputStream(), events::add)) {
+      parser.write("Response code: 404".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertThat(events, contains(equalTo(new ResponseReceived(null, 404, null))));
+  }
+
+  @DisplayName("A line longer than the limit is truncated")
+  @Test
+  void longLine() throws IOException {
+    // given
+    var line = "Request 'Get orders' (GET http://localhost:8080/orders?filter=" + "a".repeat(100)
+        + ")\nResponse code: 200\n";
+
+    // when
+    try (var parser = new HttpClientOutputParser(OutputStream.nullOutputStream(), events::add,
+        32)) {
+      parser.write(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertThat(events, contains(equalTo(new ResponseReceived(null, 200, null))));
+  }
+
+  @DisplayName("The line limit is not less than the longest prefix")
+  @Test
+  void smallLineLimit() {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> new HttpClientOutputParser(OutputStream.nullOutputStream(), events::add, 8));
+
+    // then
+    assertThat(exception.getMessage(), equalTo("max line length is too small: 8"));
+  }
+
+}
@@ -0,0 +1,159 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class HttpClientReportTest {
+
+  @DisplayName("Read reports of a folder and its subdirectories")
+  @Test
+  void read() throws IOException {
+    // when
+    var report = HttpClientReport.read(Path.of("src/test/resources/reports"));
+
+    // then
+    var google = report.getTestSuite(Path.of("folder/google.http")).orElseThrow();
+    var bing = report.getTestSuite(Path.of("bing.rest")).orElseThrow();
+
+    assertAll("Report", () -> assertThat(report.getTestSuites(), hasSize(2)),
+        () -> assertEquals(Duration.ofMillis(1500), google.time()),
+        () -> assertFalse(google.failed()),
+        () -> assertEquals(Duration.ofMillis(2500), bing.time(), "sum of test cases"),
+        () -> assertTrue(bing.failed()),
+        () -> assertEquals("Expected status 200 but was 500", bing.testCases().get(1).message()));
+  }
+
+  @DisplayName("Duration of an HTTP file")
+  @Test
+  void duration() throws IOException {
+    // given
+    var report = HttpClientReport.read(Path.of("src/test/resources/reports/report.xml"));
+
+    // when and then
+    assertAll("Durations",
+        () -> assertEquals(Optional.of(Duration.ofMillis(1500)),
+            report.getDuration(Path.of("google.http"))),
+        () -> assertEquals(Optional.empty(), report.getDuration(Path.of("bing.rest"))));
+  }
+
+  @DisplayName("Files with the same name are matched by the relative path")
+  @Test
+  void sameFileNames(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("report.xml"), """
+        <testsuites>
+          <testsuite name="api/login.http" time="1"/>
+          <testsuite name="admin/login.http" time="2"/>
+          <testsuite name="orders" time="3"/>
+        </testsuites>
+        """);
+
+    // when
+    var report = HttpClientReport.read(directory);
+
+    // then
+    assertAll("Durations",
+        () -> assertEquals(Optional.of(Duration.ofSeconds(1)),
+            report.getDuration(Path.of("/project/api/login.http"))),
+        () -> assertEquals(Optional.of(Duration.ofSeconds(2)),
+            report.getDuration(Path.of("admin", "login.http"))),
+        () -> assertEquals(Optional.empty(), report.getDuration(Path.of("login.http")),
+            "ambiguous file name"),
+        () -> assertEquals(Optional.empty(), report.getDuration(Path.of("users/login.http")),
+            "other folder"),
+        () -> assertEquals(Optional.of(Duration.ofSeconds(3)),
+            report.getDuration(Path.of("/project/orders.http"))));
+  }
+
+  @DisplayName("A file name that matches several test suites is ambiguous")
+  @Test
+  void ambiguousFileName(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("report.xml"), """
+        <testsuites>
+          <testsuite name="login.http" time="1"/>
+          <testsuite name="login" time="2"/>
+        </testsuites>
+        """);
+
+    // when
+    var report = HttpClientReport.read(directory);
+
+    // then
+    assertEquals(Optional.empty(), report.getTestSuite(Path.of("/project/api/login.http")));
+  }
+
+  @DisplayName("Missing folder gives an empty report")
+  @Test
+  void missingFolder(@TempDir Path directory) throws IOException {
+    // when
+    var report = HttpClientReport.read(directory.resolve("missing"));
+
+    // then
+    assertThat(report.getTestSuites(), empty());
+  }
+
+  @DisplayName("Broken file is skipped")
+  @Test
+  void brokenFile(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("report.xml"), "<testsuites><testsuite name=");
+
+    // when
+    var report = HttpClientReport.read(directory);
+
+    // then
+    assertThat(report.getTestSuites(), empty());
+  }
+
+  @DisplayName("Failed HTTP files: failed and missing test suites")
+  @Test
+  void failedFiles() throws IOException {
+    // given
+    var report = HttpClientReport.read(Path.of("src/test/resources/reports"));
+
+    // when
+    var failedFiles = report.getFailedFiles(
+        List.of(Path.of("google.http"), Path.of("bing.rest"), Path.of("missing.http")));
+
+    // then
+    assertThat(failedFiles, contains(Path.of("bing.rest"), Path.of("missing.http")));
+  }
+
+  @DisplayName("Reports of previous runs are skipped")
+  @Test
+  void since(@TempDir Path directory) throws IOException {
+    // given
+    var reportFile = Files.writeString(directory.resolve("report.xml"),
+        "<testsuites><testsuite name=\"google.http\"/></testsuites>");
+
+    Files.setLastModifiedTime(reportFile, FileTime.from(Instant.now().minusSeconds(60)));
+
+    // when
+    var report = HttpClientReport.read(directory, Instant.now().minusSeconds(30));
+
+    // then
+    assertThat(report.getTestSuites(), empty());
+  }
+
+}
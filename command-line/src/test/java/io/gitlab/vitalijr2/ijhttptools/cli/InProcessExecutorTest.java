@@ -0,0 +1,230 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class InProcessExecutorTest {
+
+  @TempDir
+  private Path distribution;
+
+  private ByteArrayOutputStream error;
+  private InProcessExecutor executor;
+  private ByteArrayOutputStream output;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    var lib = Files.createDirectories(distribution.resolve("lib"));
+
+    try (var jar = new JarOutputStream(Files.newOutputStream(lib.resolve("client.jar")));
+        var main = getClass().getResourceAsStream("InProcessExecutorTest$Client.class")) {
+      jar.putNextEntry(new JarEntry(getClass().getPackageName().replace('.', '/')
+          + "/InProcessExecutorTest$Client.class"));
+      main.transferTo(jar);
+    }
+    error = new ByteArrayOutputStream();
+    executor = new InProcessExecutor(distribution, Client.class.getName());
+    output = new ByteArrayOutputStream();
+    executor.setStreamHandler(new PumpStreamHandler(output, error));
+  }
+
+  @DisplayName("Output is captured, the class loader is reused by the next run")
+  @Test
+  void output() throws IOException {
+    // given
+    var commandLine = new CommandLine("ijhttp").addArgument("orders file.http")
+        .addArgument("--report");
+    var systemOutput = System.out;
+
+    // when
+    executor.execute(commandLine);
+    executor.execute(commandLine);
+
+    // then
+    assertAll("In-process runs",
+        () -> assertEquals("run 1: orders file.http|--report\nrun 2: orders file.http|--report\n",
+            output.toString(StandardCharsets.UTF_8)),
+        () -> assertSame(systemOutput, System.out));
+  }
+
+  @DisplayName("Classes of HTTP Client are isolated from the current class loader")
+  @Test
+  void isolation() throws IOException, ReflectiveOperationException {
+    // when
+    var classLoader = InProcessExecutor.getClassLoader(JvmLauncher.getJars(distribution));
+
+    // then
+    assertAll("Isolated class loader",
+        () -> assertNotSame(Client.class, classLoader.loadClass(Client.class.getName())),
+        () -> assertSame(classLoader,
+            InProcessExecutor.getClassLoader(JvmLauncher.getJars(distribution))));
+  }
+
+  @DisplayName("The class loader of other jars replaces and closes the previous one")
+  @Test
+  void closeClassLoader(@TempDir Path otherDistribution) throws IOException {
+    // given
+    var classLoader = InProcessExecutor.getClassLoader(JvmLauncher.getJars(distribution));
+    var resource = Client.class.getName().replace('.', '/') + ".class";
+
+    Files.copy(distribution.resolve("lib/client.jar"),
+        Files.createDirectories(otherDistribution.resolve("lib")).resolve("client.jar"));
+
+    // when
+    var otherClassLoader = InProcessExecutor.getClassLoader(
+        JvmLauncher.getJars(otherDistribution));
+
+    // then
+    assertAll("Replaced class loader",
+        () -> assertNotSame(classLoader, otherClassLoader),
+        () -> assertNull(classLoader.findResource(resource), "closed"),
+        () -> assertNotNull(otherClassLoader.findResource(resource), "open"));
+  }
+
+  @DisplayName("A working directory is rejected")
+  @SuppressWarnings("deprecation")
+  @Test
+  void workingDirectory() {
+    // given
+    executor.setWorkingDirectory(distribution.toFile());
+
+    // when
+    var exception = assertThrows(IOException.class,
+        () -> executor.execute(new CommandLine("ijhttp").addArgument("orders.http")));
+
+    // then
+    assertThat(exception.getMessage(), startsWith("Working directory is not supported"));
+  }
+
+  @DisplayName("System.exit is trapped and becomes the exit value")
+  @Test
+  void exit() {
+    // given
+    var commandLine = new CommandLine("ijhttp").addArgument("exit=3");
+
+    // when
+    var exception = assertThrows(ExecuteException.class, () -> executor.execute(commandLine));
+
+    // then
+    assertEquals(3, exception.getExitValue());
+  }
+
+  @DisplayName("An exception of the main class is printed, the exit value is 1")
+  @Test
+  void failure() {
+    // given
+    var commandLine = new CommandLine("ijhttp").addArgument("fail");
+
+    // when
+    var exception = assertThrows(ExecuteException.class, () -> executor.execute(commandLine));
+
+    // then
+    assertAll("Failure",
+        () -> assertEquals(1, exception.getExitValue()),
+        () -> assertThat(error.toString(StandardCharsets.UTF_8),
+            containsString("IllegalStateException: client failure")));
+  }
+
+  @DisplayName("An asynchronous run uses a thread, not a process")
+  @Test
+  void async() throws IOException, InterruptedException {
+    // given
+    var handler = new DefaultExecuteResultHandler();
+
+    // when
+    executor.execute(new CommandLine("ijhttp").addArgument("exit=3"), handler);
+    handler.waitFor();
+
+    // then
+    assertAll("Asynchronous run",
+        () -> assertEquals(3, handler.getExitValue()),
+        () -> assertEquals(3, handler.getException().getExitValue()));
+  }
+
+  @DisplayName("Java 24 and later fail at once, the security manager is removed")
+  @Test
+  void unsupportedJava() {
+    // when
+    var exception = assertThrows(IOException.class,
+        () -> InProcessExecutor.checkRuntime(Runtime.Version.parse("24"), "allow"));
+
+    // then
+    assertThat(exception.getMessage(), containsString("JEP 486"));
+  }
+
+  @DisplayName("Java 18 and later need the security manager to be allowed")
+  @Test
+  void securityManagerNotAllowed() {
+    // when
+    var exception = assertThrows(IOException.class,
+        () -> InProcessExecutor.checkRuntime(Runtime.Version.parse("21"), null));
+
+    // then
+    assertAll("Security manager",
+        () -> assertThat(exception.getMessage(), containsString("-Djava.security.manager=allow")),
+        () -> assertDoesNotThrow(
+            () -> InProcessExecutor.checkRuntime(Runtime.Version.parse("21"), "allow")),
+        () -> assertDoesNotThrow(
+            () -> InProcessExecutor.checkRuntime(Runtime.Version.parse("17"), null)));
+  }
+
+  @DisplayName("Arguments of the JVM launch mode follow the main class")
+  @Test
+  void jvmLaunchMode() {
+    // given
+    var commandLine = new CommandLine("java").addArgument("-cp").addArgument("client.jar")
+        .addArgument(Client.class.getName()).addArgument("--env").addArgument("dev");
+
+    // when
+    var arguments = executor.getArguments(commandLine);
+
+    // then
+    assertThat(arguments, arrayContaining(equalTo("--env"), equalTo("dev")));
+  }
+
+  public static class Client {
+
+    private static int runs;
+
+    public static void main(String[] args) {
+      if ("fail".equals(args[0])) {
+        throw new IllegalStateException("client failure");
+      }
+      if (args[0].startsWith("exit=")) {
+        System.exit(Integer.parseInt(args[0].substring(5)));
+      }
+      System.out.println("run " + ++runs + ": " + String.join("|", args));
+    }
+
+  }
+
+}
@@ -0,0 +1,167 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.apache.commons.exec.DefaultExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class JvmLauncherTest {
+
+  @TempDir
+  private Path directory;
+
+  private Path distribution;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    distribution = Files.createDirectories(directory.resolve("ijhttp/lib"));
+    Files.createFile(distribution.resolve("b.jar"));
+    Files.createFile(distribution.resolve("a.jar"));
+    Files.createFile(distribution.resolve("readme.txt"));
+    distribution = distribution.getParent();
+  }
+
+  @DisplayName("Java, JVM options, sorted jars and the main class")
+  @Test
+  void commandLine() throws IOException {
+    // given
+    var launcher = new JvmLauncher(distribution, "java", null, null, null);
+
+    // when
+    var commandLine = launcher.newCommandLine();
+
+    // then
+    assertAll("JVM command line",
+        () -> assertEquals("java", commandLine.getExecutable()),
+        () -> assertThat(commandLine.getArguments(),
+            arrayContaining(equalTo("-XX:TieredStopAtLevel=1"), equalTo("-XX:+UseSerialGC"),
+                equalTo("-Xshare:auto"), equalTo("-cp"),
+                equalTo(distribution.resolve("lib/a.jar") + File.pathSeparator
+                    + distribution.resolve("lib/b.jar")),
+                equalTo(JvmLauncher.DEFAULT_MAIN_CLASS))));
+  }
+
+  @DisplayName("AppCDS: dump to a temporary file, then use the archive")
+  @Test
+  void cdsArchive() throws IOException {
+    // given
+    var cdsArchive = directory.resolve("cache/ijhttp.jsa");
+    var launcher = new JvmLauncher(distribution, "java", List.of("-Xmx64m"), "Main", cdsArchive);
+
+    // when
+    var dumpArguments = launcher.newCommandLine().getArguments();
+
+    Files.createFile(cdsArchive);
+
+    var archiveArguments = launcher.newCommandLine().getArguments();
+
+    // then
+    assertAll("AppCDS",
+        () -> assertThat(dumpArguments[1], startsWith(
+            "-XX:ArchiveClassesAtExit=" + cdsArchive.resolveSibling("ijhttp.jsa."
+                + ProcessHandle.current().pid() + "."))),
+        () -> assertEquals("-XX:SharedArchiveFile=" + cdsArchive, archiveArguments[1]),
+        () -> assertEquals("Main", archiveArguments[4]));
+  }
+
+  @DisplayName("AppCDS: the first complete dump becomes the archive, other dumps are deleted")
+  @Test
+  void saveCdsArchive() throws IOException {
+    // given
+    var cdsArchive = directory.resolve("ijhttp.jsa");
+    var prefix = "ijhttp.jsa." + ProcessHandle.current().pid() + ".";
+
+    Files.createFile(directory.resolve(prefix + "1.tmp"));
+    Files.writeString(directory.resolve(prefix + "2.tmp"), "second");
+    Files.writeString(directory.resolve(prefix + "3.tmp"), "third");
+    Files.writeString(directory.resolve("ijhttp.jsa.1.1.tmp"), "another process");
+
+    // when
+    var saved = JvmLauncher.saveCdsArchive(cdsArchive);
+
+    // then
+    assertAll("Saved archive",
+        () -> assertTrue(saved),
+        () -> assertEquals("second", Files.readString(cdsArchive)),
+        () -> assertFalse(Files.exists(directory.resolve(prefix + "3.tmp"))),
+        () -> assertTrue(Files.exists(directory.resolve("ijhttp.jsa.1.1.tmp"))));
+  }
+
+  @DisplayName("Distribution without jars")
+  @Test
+  void noJars() {
+    // given
+    var launcher = new JvmLauncher(directory, "java", null, null, null);
+
+    // when and then
+    assertThrows(NoSuchFileException.class, launcher::newCommandLine);
+  }
+
+  @DisplayName("AppCDS archive is created by the first run and used by the next one")
+  @Test
+  void appCds() throws IOException {
+    // given
+    var lib = Files.createDirectories(directory.resolve("client/lib"));
+    var cdsArchive = directory.resolve("client.jsa");
+    var commandLine = new HttpClientCommandLine();
+
+    try (var jar = new JarOutputStream(Files.newOutputStream(lib.resolve("client.jar")));
+        var main = getClass().getResourceAsStream("JvmLauncherTest$Client.class")) {
+      jar.putNextEntry(new JarEntry(getClass().getPackageName().replace('.', '/')
+          + "/JvmLauncherTest$Client.class"));
+      main.transferTo(jar);
+    }
+    commandLine.distribution(lib.getParent());
+    commandLine.cdsArchive(cdsArchive);
+    commandLine.mainClass(Client.class.getName());
+    commandLine.files(Path.of("orders.http"));
+
+    var executor = DefaultExecutor.builder().get();
+
+    // when
+    commandLine.execute(executor);
+
+    var created = Files.exists(cdsArchive);
+    var nextRun = commandLine.getCommandLine();
+
+    executor.execute(nextRun);
+
+    // then
+    assertAll("AppCDS",
+        () -> assertTrue(created, "archive"),
+        () -> assertThat(nextRun.getArguments()[3],
+            equalTo("-XX:SharedArchiveFile=" + cdsArchive)));
+  }
+
+  static class Client {
+
+    public static void main(String[] args) {
+      if (1 != args.length) {
+        System.exit(2);
+      }
+    }
+
+  }
+
+}
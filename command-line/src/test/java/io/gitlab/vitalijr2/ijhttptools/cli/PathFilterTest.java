@@ -0,0 +1,50 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@Tag("fast")
+class PathFilterTest {
+
+  @DisplayName("Accept a file")
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({"orders.http, true", "smoke/orders.http, true", "a/smoke/b/orders.http, true",
+      "a/orders.http, false", "target/smoke/orders.http, false",
+      "a/target/smoke/orders.http, false", "smoke/orders.rest, false"})
+  void accept(String relativePath, boolean expected) {
+    // given
+    var pathFilter = new PathFilter(List.of("*.http", "**/smoke/**/*.http"),
+        List.of("**/target/**"));
+
+    // when and then
+    assertEquals(expected, pathFilter.accept(Path.of(relativePath)));
+  }
+
+  @DisplayName("All files are accepted without patterns")
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({"orders.http", "a/b/orders.rest"})
+  void acceptAll(String relativePath) {
+    // when and then
+    assertEquals(true, PathFilter.ALL.accept(Path.of(relativePath)));
+  }
+
+  @DisplayName("Prune a directory")
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({"target, true", "a/target, true", "a/target/b, false", "node_modules, true",
+      "a/node_modules, false", "generated, false", "a, false"})
+  void prune(String relativePath, boolean expected) {
+    // given
+    var pathFilter = new PathFilter(List.of(),
+        List.of("**/target/**", "node_modules/**", "**/generated"));
+
+    // when and then
+    assertEquals(expected, pathFilter.prune(Path.of(relativePath)));
+  }
+
+}
@@ -0,0 +1,133 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisabledOnOs(OS.WINDOWS)
+@Tag("fast")
+class ProcessTreeWatchdogTest {
+
+  @DisplayName("The launcher and its children are reaped, also if they ignore SIGTERM")
+  @ParameterizedTest
+  @ValueSource(strings = {"sleep 30 & wait", "trap '' TERM; sleep 30 & wait"})
+  void reapProcessTree(String script) {
+    // given
+    var commandLine = new CommandLine("sh").addArgument("-c").addArgument(script, false);
+    var executor = DefaultExecutor.builder().get();
+    var watchdog = new ProcessTreeWatchdog(Duration.ofMillis(300), Duration.ofMillis(300));
+
+    executor.setWatchdog(watchdog);
+
+    // when
+    var start = System.nanoTime();
+
+    assertThrows(ExecuteException.class, () -> executor.execute(commandLine));
+
+    // then
+    assertAll("Reaped process tree",
+        () -> assertTrue(watchdog.killedProcess(), "killed"),
+        () -> assertEquals(2, watchdog.getReapedCount(), "reaped"),
+        () -> assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 20,
+            "duration"));
+  }
+
+  @DisplayName("Nothing is reaped if the process completes in time")
+  @Test
+  void completedProcess() throws IOException {
+    // given
+    var executor = DefaultExecutor.builder().get();
+    var watchdog = new ProcessTreeWatchdog(Duration.ofSeconds(10));
+
+    executor.setWatchdog(watchdog);
+
+    // when
+    executor.execute(new CommandLine("true"));
+
+    // then
+    assertEquals(0, watchdog.getReapedCount());
+  }
+
+  @DisplayName("Thread dump of the client JVM is captured before the timeout kill")
+  @Test
+  void threadDump(@TempDir Path directory) throws IOException {
+    // given
+    var sleeper = Files.writeString(directory.resolve("Sleeper.java"),
+        "class Sleeper { public static void main(String[] args) throws Exception { "
+            + "Thread.sleep(60000); } }");
+    var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    var commandLine = new CommandLine("sh").addArgument("-c")
+        .addArgument(java + " " + sleeper + " & wait", false);
+    var executor = DefaultExecutor.builder().get();
+    var watchdog = new ProcessTreeWatchdog(Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    watchdog.setThreadDumpDirectory(directory.resolve("reports"));
+    executor.setWatchdog(watchdog);
+
+    // when
+    assertThrows(ExecuteException.class, () -> executor.execute(commandLine));
+
+    // then
+    var threadDumps = watchdog.getThreadDumps();
+
+    assertAll("Thread dump",
+        () -> assertThat(threadDumps, hasSize(1)),
+        () -> assertThat(Files.readString(threadDumps.get(0)), containsString("Sleeper.main")),
+        () -> assertEquals(2, watchdog.getReapedCount(), "reaped"));
+  }
+
+  @DisplayName("The watchdog is not locked while thread dumps are taken")
+  @Test
+  void threadDumpWithoutLock(@TempDir Path directory) throws IOException, InterruptedException {
+    // given
+    var sleeper = Files.writeString(directory.resolve("Sleeper.java"),
+        "class Sleeper { public static void main(String[] args) throws Exception { "
+            + "Thread.sleep(60000); } }");
+    var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    var commandLine = new CommandLine(java).addArgument(sleeper.toString());
+    var executor = DefaultExecutor.builder().get();
+    var handler = new DefaultExecuteResultHandler();
+    var reports = directory.resolve("reports");
+    var watchdog = new ProcessTreeWatchdog(Duration.ofSeconds(3), Duration.ofSeconds(1));
+
+    watchdog.setThreadDumpDirectory(reports);
+    executor.setWatchdog(watchdog);
+    executor.execute(commandLine, handler);
+    while (Files.notExists(reports) && !handler.hasResult()) {
+      Thread.sleep(10L);
+    }
+
+    // when
+    var watching = watchdog.isWatching();
+
+    handler.waitFor();
+
+    // then
+    assertAll("Thread dump without lock",
+        () -> assertTrue(watching, "watching while thread dumps are taken"),
+        () -> assertThat(watchdog.getThreadDumps(), hasSize(1)),
+        () -> assertTrue(watchdog.killedProcess(), "killed"));
+  }
+
+}
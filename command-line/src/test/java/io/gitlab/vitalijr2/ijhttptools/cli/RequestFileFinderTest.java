@@ -0,0 +1,184 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.Every.everyItem;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Tag("fast")
+class RequestFileFinderTest {
+
+  @TempDir
+  private Path directory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.createDirectories(directory.resolve("b/c"));
+    Files.createDirectories(directory.resolve("a"));
+    Files.createFile(directory.resolve("z.http"));
+    Files.createFile(directory.resolve("readme.md"));
+    Files.createFile(directory.resolve("b/y.rest"));
+    Files.createFile(directory.resolve("b/c/x.http"));
+    Files.createFile(directory.resolve("a/w.http"));
+  }
+
+  @DisplayName("Sequential and parallel modes find the same files")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void findFiles(boolean parallel) throws IOException {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, parallel);
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles,
+        containsInAnyOrder(directory.resolve("z.http"), directory.resolve("b/y.rest"),
+            directory.resolve("b/c/x.http"), directory.resolve("a/w.http")));
+  }
+
+  @DisplayName("Parallel mode lists directories by its own pool")
+  @Test
+  void discoveryPool() throws IOException {
+    // given
+    var discoveryIndex = mock(DiscoveryIndex.class);
+    var threadNames = ConcurrentHashMap.<String>newKeySet();
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, true, discoveryIndex, PathFilter.ALL);
+
+    when(discoveryIndex.list(any())).thenAnswer(invocationOnMock -> {
+      threadNames.add(Thread.currentThread().getName());
+      return DirectoryListing.read(invocationOnMock.getArgument(0));
+    });
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles, hasSize(4));
+    assertThat(threadNames, everyItem(startsWith("ijhttp-discovery-")));
+  }
+
+  @DisplayName("Parallel mode sorts files")
+  @Test
+  void sortedFiles() throws IOException {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, true);
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles,
+        contains(directory.resolve("a/w.http"), directory.resolve("b/c/x.http"),
+            directory.resolve("b/y.rest"), directory.resolve("z.http")));
+  }
+
+  @DisplayName("Sequential mode with discovery index walks directories in the name order")
+  @Test
+  void discoveryIndex() throws IOException {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, false,
+        DiscoveryIndex.load(directory.resolve("discovery.index")), PathFilter.ALL);
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles,
+        contains(directory.resolve("z.http"), directory.resolve("a/w.http"),
+            directory.resolve("b/y.rest"), directory.resolve("b/c/x.http")));
+  }
+
+  @DisplayName("Excluded directories are not traversed")
+  @ParameterizedTest
+  @CsvSource({"true, false", "false, false", "true, true", "false, true"})
+  void pathFilter(boolean parallel, boolean withIndex) throws IOException {
+    // given
+    var discoveryIndex = withIndex ? DiscoveryIndex.load(directory.resolve("discovery.index"))
+        : null;
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, parallel, discoveryIndex,
+        new PathFilter(List.of(), List.of("b/**")));
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles,
+        containsInAnyOrder(directory.resolve("z.http"), directory.resolve("a/w.http")));
+  }
+
+  @DisplayName("Max-depth")
+  @ParameterizedTest
+  @CsvSource({"true, 0, 0", "false, 0, 0", "true, 1, 1", "false, 1, 1", "true, 2, 3",
+      "false, 2, 3", "true, 3, 4", "false, 3, 4"})
+  void maxDepth(boolean parallel, int maxDepth, int expectedCount) throws IOException {
+    // given
+    var finder = new RequestFileFinder(maxDepth, parallel);
+
+    // when
+    var requestFiles = finder.find(directory);
+
+    // then
+    assertThat(requestFiles, hasSize(expectedCount));
+  }
+
+  @DisplayName("Start from a file")
+  @ParameterizedTest
+  @CsvSource({"true, z.http, 1", "false, z.http, 1", "true, readme.md, 0", "false, readme.md, 0"})
+  void file(boolean parallel, String fileName, int expectedCount) throws IOException {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, parallel);
+
+    // when
+    var requestFiles = finder.find(directory.resolve(fileName));
+
+    // then
+    assertThat(requestFiles, hasSize(expectedCount));
+  }
+
+  @DisplayName("Directory does not exist")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void missingDirectory(boolean parallel) {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, parallel);
+
+    // when and then
+    assertThrows(NoSuchFileException.class, () -> finder.find(directory.resolve("missing")));
+  }
+
+  @DisplayName("Empty directory")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void emptyDirectory(boolean parallel) throws IOException {
+    // given
+    var finder = new RequestFileFinder(Integer.MAX_VALUE, parallel);
+
+    // when and then
+    assertThat(finder.find(Files.createDirectory(directory.resolve("empty"))), empty());
+  }
+
+}
@@ -0,0 +1,81 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@Tag("fast")
+class TailOutputStreamTest {
+
+  @DisplayName("The last bytes are kept")
+  @ParameterizedTest
+  @CsvSource({"100,abcdefghij,abcdefghij", "10,abcdefghij,abcdefghij", "4,abcdefghij,ghij",
+      "1,abcdefghij,j"})
+  void tail(int limit, String text, String expected) {
+    // given
+    var output = new TailOutputStream(limit);
+
+    // when
+    for (var i = 0; i < text.length(); i += 3) {
+      var chunk = text.substring(i, Math.min(text.length(), i + 3))
+          .getBytes(StandardCharsets.UTF_8);
+
+      output.write(chunk, 0, chunk.length);
+    }
+
+    // then
+    assertEquals(expected, new String(output.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @DisplayName("A chunk that is longer than the limit keeps its end")
+  @Test
+  void longChunk() {
+    // given
+    var output = new TailOutputStream(4);
+
+    output.write('x');
+
+    // when
+    output.write("abcdefghij".getBytes(StandardCharsets.UTF_8), 2, 7);
+
+    // then
+    assertEquals("fghi", new String(output.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @DisplayName("The buffer grows beyond the initial capacity up to the limit")
+  @Test
+  void grow() {
+    // given
+    var output = new TailOutputStream(20000);
+    var chunk = new byte[7000];
+
+    // when
+    for (var i = 0; i < 4; i++) {
+      Arrays.fill(chunk, (byte) ('a' + i));
+      output.write(chunk, 0, chunk.length);
+    }
+
+    // then
+    var tail = output.toByteArray();
+
+    assertEquals(20000, tail.length);
+    assertEquals('b', tail[0]);
+    assertEquals('b', tail[5999]);
+    assertEquals('c', tail[6000]);
+    assertEquals('d', tail[19999]);
+  }
+
+  @DisplayName("The limit must be positive")
+  @Test
+  void wrongLimit() {
+    assertThrows(IllegalArgumentException.class, () -> new TailOutputStream(0));
+  }
+
+}
@@ -0,0 +1,151 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@Tag("fast")
+class TimeoutHistoryTest {
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("Without history the default timeout is used, it is capped")
+  @ParameterizedTest
+  @CsvSource({"1000, 1000", "5000, 3000", ", 3000"})
+  void defaultTimeout(Long defaultTimeout, long expectedTimeout) {
+    // given
+    var history = TimeoutHistory.load(directory.resolve("timeouts.history"), 95, 2.0,
+        Duration.ofSeconds(3));
+
+    // when
+    var timeout = history.getTimeout("a b",
+        (null == defaultTimeout) ? null : Duration.ofMillis(defaultTimeout));
+
+    // then
+    assertThat(timeout, equalTo(Duration.ofMillis(expectedTimeout)));
+  }
+
+  @DisplayName("Percentile of durations multiplied by the factor, capped")
+  @ParameterizedTest
+  @CsvSource({"50, 2.0, 1000", "90, 2.0, 1800", "100, 1.5, 1500", "100, 10.0, 5000"})
+  void adaptiveTimeout(int percentile, double factor, long expectedTimeout) {
+    // given
+    var history = TimeoutHistory.load(directory.resolve("timeouts.history"), percentile, factor,
+        Duration.ofSeconds(5));
+
+    for (int i = 10; 0 < i; i--) {
+      history.record("a b", Duration.ofMillis(i * 100));
+    }
+
+    // when
+    var timeout = history.getTimeout("a b", Duration.ofMillis(1));
+
+    // then
+    assertThat(timeout, equalTo(Duration.ofMillis(expectedTimeout)));
+  }
+
+  @DisplayName("Only the last samples are kept")
+  @Test
+  void lastSamples() {
+    // given
+    var history = TimeoutHistory.load(directory.resolve("timeouts.history"), 100, 1.0,
+        Duration.ofHours(1));
+
+    history.record("a b", Duration.ofMinutes(30));
+    for (int i = 0; TimeoutHistory.MAX_SAMPLES > i; i++) {
+      history.record("a b", Duration.ofSeconds(1));
+    }
+
+    // when
+    var timeout = history.getTimeout("a b", null);
+
+    // then
+    assertThat(timeout, equalTo(Duration.ofSeconds(1)));
+  }
+
+  @DisplayName("Saved history is loaded, other keys of the file are kept")
+  @Test
+  void saveAndLoad() throws IOException {
+    // given
+    var historyFile = directory.resolve("state/timeouts.history");
+    var first = TimeoutHistory.load(historyFile);
+    var second = TimeoutHistory.load(historyFile);
+
+    first.record("a", Duration.ofSeconds(1));
+    second.record("b", Duration.ofSeconds(2));
+
+    // when
+    first.save();
+    second.save();
+
+    // then
+    var history = TimeoutHistory.load(historyFile);
+    var lines = Files.readAllLines(historyFile);
+
+    assertAll("Saved history",
+        () -> assertThat(history.getTimeout("a", null), equalTo(Duration.ofSeconds(2))),
+        () -> assertThat(history.getTimeout("b", null), equalTo(Duration.ofSeconds(4))),
+        () -> assertThat(lines.get(0), equalTo("# ijhttp timeout history 1")),
+        () -> assertThat(lines, hasSize(3)));
+  }
+
+  @DisplayName("Broken history is ignored")
+  @Test
+  void brokenHistory() throws IOException {
+    // given
+    var historyFile = directory.resolve("timeouts.history");
+
+    Files.write(historyFile, List.of("# ijhttp timeout history 1", "broken line"));
+
+    // when
+    var history = TimeoutHistory.load(historyFile);
+
+    // then
+    assertThat(history.getTimeout("a", Duration.ofSeconds(7)), equalTo(Duration.ofSeconds(7)));
+  }
+
+  @DisplayName("Wrong settings")
+  @ParameterizedTest
+  @CsvSource({"0, 2.0, 1000, percentile must be from 1 to 100: 0",
+      "101, 2.0, 1000, percentile must be from 1 to 100: 101",
+      "95, 0.5, 1000, factor must not be less than 1: 0.5",
+      "95, 2.0, 0, max timeout must be positive: PT0S"})
+  void wrongSettings(int percentile, double factor, long maxTimeout, String expectedMessage) {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> TimeoutHistory.load(directory.resolve("timeouts.history"), percentile, factor,
+            Duration.ofMillis(maxTimeout)));
+
+    // then
+    assertThat(exception.getMessage(), equalTo(expectedMessage));
+  }
+
+  @DisplayName("Close to the limit")
+  @Test
+  void closeToLimit() {
+    // when and then
+    assertAll("Close to the limit",
+        () -> assertTrue(
+            TimeoutHistory.isCloseToLimit(Duration.ofMillis(800), Duration.ofSeconds(1))),
+        () -> assertFalse(
+            TimeoutHistory.isCloseToLimit(Duration.ofMillis(799), Duration.ofSeconds(1))));
+  }
+
+}
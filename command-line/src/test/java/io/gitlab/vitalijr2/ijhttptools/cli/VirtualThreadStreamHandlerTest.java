@@ -0,0 +1,105 @@
+package io.gitlab.vitalijr2.ijhttptools.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("fast")
+class VirtualThreadStreamHandlerTest {
+
+  @DisplayName("The output of a process is pumped by daemon threads of the handler")
+  @Test
+  void pump() throws IOException {
+    // given
+    var executor = DefaultExecutor.builder().get();
+    var pumpThread = new AtomicReference<Thread>();
+    var output = new ByteArrayOutputStream() {
+
+      @Override
+      public synchronized void write(byte[] bytes, int offset, int length) {
+        pumpThread.compareAndSet(null, Thread.currentThread());
+        super.write(bytes, offset, length);
+      }
+
+    };
+
+    executor.setStreamHandler(new VirtualThreadStreamHandler(output));
+
+    // when
+    executor.execute(new CommandLine("echo").addArgument("orders.http"));
+
+    // then
+    assertAll("Pump",
+        () -> assertEquals("orders.http\n", output.toString(StandardCharsets.UTF_8)),
+        () -> assertThat(pumpThread.get().getName(), startsWith("ijhttp-pump-")),
+        () -> assertTrue(pumpThread.get().isDaemon(), "daemon"),
+        () -> assertEquals(VirtualThreadStreamHandler.isVirtual(),
+            Runtime.version().feature() >= 21, "virtual threads"));
+  }
+
+  @DisplayName("Every running process costs up to two platform threads, they are released after")
+  @Test
+  void platformThreads() throws IOException, InterruptedException {
+    // given
+    var threads = ManagementFactory.getThreadMXBean();
+    var processCount = 8;
+    var processes = new ArrayList<Process>();
+    var handlers = new ArrayList<VirtualThreadStreamHandler>();
+
+    for (var i = 0; i < processCount; i++) {
+      processes.add(new ProcessBuilder("cat").start());
+    }
+    Thread.sleep(200L);
+
+    var before = threads.getThreadCount();
+
+    // when
+    for (var process : processes) {
+      var handler = new VirtualThreadStreamHandler(OutputStream.nullOutputStream());
+
+      handler.setProcessOutputStream(process.getInputStream());
+      handler.setProcessErrorStream(process.getErrorStream());
+      handler.start();
+      handlers.add(handler);
+    }
+    Thread.sleep(200L);
+
+    var running = threads.getThreadCount() - before;
+
+    for (var i = 0; i < processCount; i++) {
+      processes.get(i).getOutputStream().close();
+      processes.get(i).waitFor();
+      handlers.get(i).stop();
+    }
+
+    // then
+    var pumps = Thread.getAllStackTraces().keySet().stream().map(Thread::getName)
+        .filter(name -> name.startsWith("ijhttp-pump-")).collect(Collectors.toList());
+
+    assertAll("Platform threads",
+        () -> assertThat("while processes run", running,
+            lessThanOrEqualTo(2 * processCount + 2)),
+        () -> assertTrue(VirtualThreadStreamHandler.isVirtual() || running >= 2 * processCount,
+            "two platform pumps per process"),
+        () -> assertThat("platform pumps after processes", pumps, empty()));
+  }
+
+}
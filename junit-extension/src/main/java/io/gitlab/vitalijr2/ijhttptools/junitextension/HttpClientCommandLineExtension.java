@@ -19,19 +19,54 @@
  */
 package io.gitlab.vitalijr2.ijhttptools.junitextension;
 
+import static java.util.Objects.nonNull;
+
 import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
 import io.gitlab.vitalijr2.ijhttptools.cli.LogLevel;
+import java.io.IOException;
+import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.engine.UniqueId;
 
+/**
+ * Resolves parameters of the type {@link HttpClientCommandLine} annotated with
+ * {@link HttpClientCommandLineParameters}.
+ * <p>
+ * Every parameter gets its own command line, but HTTP files found in directories are cached
+ * in the root store of the extension context by annotation values. Tests that share
+ * the configuration walk directories once per test run, a failed or empty discovery fails
+ * all of them without another walk.
+ * <p>
+ * With the report every test gets its own report subdirectory, so tests can run concurrently,
+ * see {@link #MERGE_REPORTS} and {@link HttpClientCommandLineParameters#sharedReport()}.
+ */
 public class HttpClientCommandLineExtension implements ParameterResolver {
 
+  /**
+   * Configuration parameter to merge reports of tests into <em>report.xml</em> of the report
+   * folder when the test run is finished. Defaults to <em>false</em>.
+   *
+   * @since 1.3.0
+   */
+  public static final String MERGE_REPORTS = "ijhttp.report.merge";
+
+  private static final Logger LOGGER = System.getLogger(
+      HttpClientCommandLineExtension.class.getName());
+  private static final Namespace NAMESPACE = Namespace.create(
+      HttpClientCommandLineExtension.class);
+  private static final Pattern UNSAFE_CHARACTERS = Pattern.compile("[^\\w.-]");
+
   private static void copyBooleanParametersAndLogLevelAndExecutable(
       HttpClientCommandLineParameters parameters, HttpClientCommandLine httpClientCommandLine) {
     httpClientCommandLine.dockerMode(parameters.dockerMode());
@@ -39,6 +74,10 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
     httpClientCommandLine.insecure(parameters.insecure());
     httpClientCommandLine.logLevel(LogLevel.valueOf(parameters.logLevel()));
     httpClientCommandLine.report(parameters.report());
+    httpClientCommandLine.rerunFailingCount(parameters.rerunFailingCount());
+    if (!parameters.rerunLogLevel().isEmpty()) {
+      httpClientCommandLine.rerunLogLevel(LogLevel.valueOf(parameters.rerunLogLevel()));
+    }
   }
 
   private static void handleEnvironment(HttpClientCommandLineParameters parameters,
@@ -61,7 +100,39 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
     }
   }
 
+  private static Discovery discover(HttpClientCommandLineParameters parameters) {
+    var httpClientCommandLine = new HttpClientCommandLine();
+
+    handleRequestFiles(parameters, httpClientCommandLine);
+    try {
+      return new Discovery(List.copyOf(httpClientCommandLine.getRequestFiles()), null);
+    } catch (IOException exception) {
+      return new Discovery(List.of(), exception);
+    }
+  }
+
   private static void handleFileParameters(HttpClientCommandLineParameters parameters,
+      HttpClientCommandLine httpClientCommandLine, ExtensionContext extensionContext) {
+    if (0 < parameters.directories().length) {
+      var discovery = extensionContext.getRoot().getStore(NAMESPACE)
+          .computeIfAbsent(parameters, HttpClientCommandLineExtension::discover, Discovery.class);
+
+      if (nonNull(discovery.failure())) {
+        throw new ParameterResolutionException(
+            "could not discover HTTP files: " + discovery.failure().getMessage(),
+            discovery.failure());
+      }
+      if (discovery.requestFiles().isEmpty()) {
+        throw new ParameterResolutionException(
+            "no HTTP files in the directories " + Arrays.toString(parameters.directories()));
+      }
+      httpClientCommandLine.files(discovery.requestFiles().toArray(Path[]::new));
+    } else if (0 < parameters.files().length) {
+      httpClientCommandLine.files(Stream.of(parameters.files()).map(Path::of).toArray(Path[]::new));
+    }
+  }
+
+  private static void handleRequestFiles(HttpClientCommandLineParameters parameters,
       HttpClientCommandLine httpClientCommandLine) {
     if (0 < parameters.files().length) {
       httpClientCommandLine.files(Stream.of(parameters.files()).map(Path::of).toArray(Path[]::new));
@@ -69,9 +140,32 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
     if (0 < parameters.directories().length) {
       httpClientCommandLine.directories(
           Stream.of(parameters.directories()).map(Path::of).toArray(Path[]::new));
+      httpClientCommandLine.parallelDiscovery(parameters.parallelDiscovery());
+      httpClientCommandLine.includes(parameters.includes());
+      httpClientCommandLine.excludes(parameters.excludes());
     }
-    if (!parameters.reportPath().isEmpty()) {
-      httpClientCommandLine.reportPath(Path.of(parameters.reportPath()));
+  }
+
+  private static void handleReport(HttpClientCommandLineParameters parameters,
+      HttpClientCommandLine httpClientCommandLine, ExtensionContext extensionContext) {
+    if (!parameters.report() || parameters.sharedReport()) {
+      if (!parameters.reportPath().isEmpty()) {
+        httpClientCommandLine.reportPath(Path.of(parameters.reportPath()));
+      }
+      return;
+    }
+
+    var reportPath = HttpClientReportLocks.getReportPath(parameters).toAbsolutePath().normalize();
+    var reportDirectories = extensionContext.getRoot().getStore(NAMESPACE).computeIfAbsent(
+        new ReportKey(reportPath), key -> new ReportDirectories(key.reportPath(),
+            extensionContext.getConfigurationParameter(MERGE_REPORTS).map(Boolean::parseBoolean)
+                .orElse(false)), ReportDirectories.class);
+
+    try {
+      httpClientCommandLine.reportPath(reportDirectories.allocate(getTestName(extensionContext)));
+    } catch (IOException exception) {
+      throw new ParameterResolutionException(
+          "could not clean the report directory: " + exception.getMessage(), exception);
     }
   }
 
@@ -92,16 +186,33 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
     }
   }
 
+  /**
+   * Name of the report subdirectory: the test class, the test method and the index of
+   * the invocation of a parameterized or repeated test, e.g. <em>OrdersTest.orders-2</em>.
+   */
+  private static String getTestName(ExtensionContext extensionContext) {
+    var name = new StringBuilder(extensionContext.getTestClass().map(Class::getSimpleName)
+        .orElse("test"));
+
+    extensionContext.getTestMethod().ifPresent(method -> name.append('.').append(method.getName()));
+    Optional.ofNullable(extensionContext.getUniqueId()).map(UniqueId::parse)
+        .map(UniqueId::getLastSegment)
+        .filter(segment -> segment.getType().endsWith("invocation"))
+        .ifPresent(segment -> name.append('-').append(segment.getValue().replace("#", "")));
+
+    return UNSAFE_CHARACTERS.matcher(name).replaceAll("_");
+  }
+
   private static HttpClientCommandLine httpClientCommandLine(
-      HttpClientCommandLineParameters parameters) {
-    System.getLogger(HttpClientCommandLineExtension.class.getName())
-        .log(Level.DEBUG, () -> String.format("HTTP Client parameters %s", parameters));
+      HttpClientCommandLineParameters parameters, ExtensionContext extensionContext) {
+    LOGGER.log(Level.DEBUG, () -> String.format("HTTP Client parameters %s", parameters));
 
     var httpClientCommandLine = new HttpClientCommandLine();
 
     copyBooleanParametersAndLogLevelAndExecutable(parameters, httpClientCommandLine);
     handleEnvironment(parameters, httpClientCommandLine);
-    handleFileParameters(parameters, httpClientCommandLine);
+    handleFileParameters(parameters, httpClientCommandLine, extensionContext);
+    handleReport(parameters, httpClientCommandLine, extensionContext);
     handleProxy(parameters, httpClientCommandLine);
     handleTimeout(parameters, httpClientCommandLine);
 
@@ -114,7 +225,7 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
     var parameters = parameterContext.getAnnotatedElement()
         .getAnnotation(HttpClientCommandLineParameters.class);
 
-    return httpClientCommandLine(parameters);
+    return httpClientCommandLine(parameters, extensionContext);
   }
 
   @Override
@@ -124,4 +235,24 @@ public class HttpClientCommandLineExtension implements ParameterResolver {
         && parameterContext.isAnnotated(HttpClientCommandLineParameters.class);
   }
 
+  /**
+   * HTTP files found by the configuration: the explicitly set files followed by the files found
+   * in the directories.
+   *
+   * @param requestFiles HTTP files, empty if discovery failed
+   * @param failure      the failure of discovery, null if it succeeded
+   */
+  private record Discovery(List<Path> requestFiles, IOException failure) {
+
+  }
+
+  /**
+   * The key of report subdirectories in the store.
+   *
+   * @param reportPath absolute path of the report folder
+   */
+  private record ReportKey(Path reportPath) {
+
+  }
+
 }
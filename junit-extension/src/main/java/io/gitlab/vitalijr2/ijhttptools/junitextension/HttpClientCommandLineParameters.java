@@ -71,6 +71,12 @@ public @interface HttpClientCommandLineParameters {
    */
   String environmentName() default "";
 
+  /**
+   * Glob patterns of HTTP files to skip, relative to a directory. A directory that matches a
+   * pattern ending with <em>/**</em> is not traversed at all.
+   */
+  String[] excludes() default {};
+
   /**
    * The executable. Can be a full path or the name of the executable. Defaults to
    * <em>ijhttp</em>.
@@ -82,6 +88,11 @@ public @interface HttpClientCommandLineParameters {
    */
   String[] files() default {};
 
+  /**
+   * Glob patterns of HTTP files to look up, relative to a directory. Defaults to all HTTP files.
+   */
+  String[] includes() default {};
+
   /**
    * Allow insecure SSL connection. Defaults to <em>false</em>.
    */
@@ -92,6 +103,12 @@ public @interface HttpClientCommandLineParameters {
    */
   String logLevel() default "BASIC";
 
+  /**
+   * Scans directories concurrently. Found files are sorted to keep the command line stable.
+   * Defaults to <em>false</em>.
+   */
+  boolean parallelDiscovery() default false;
+
   /**
    * Name of the private environment file, e.g. <em>http-client.private.env.json</em>.
    */
@@ -117,9 +134,38 @@ public @interface HttpClientCommandLineParameters {
 
   /**
    * Path to a report folder. Default value <em>reports</em> in the current directory.
+   * <p>
+   * Every test writes its report to its own subdirectory, named by the test class and the test
+   * method, so tests can run concurrently. Reports of the test run are merged into
+   * <em>report.xml</em> of the folder with the configuration parameter
+   * <em>ijhttp.report.merge=true</em>.
+   *
+   * @see #sharedReport()
    */
   String reportPath() default "";
 
+  /**
+   * How many times to rerun failed HTTP files by {@code HttpClientCommandLine.execute(Executor)}.
+   * Defaults to <em>0</em>.
+   */
+  int rerunFailingCount() default 0;
+
+  /**
+   * Logging level of reruns: BASIC, HEADERS, VERBOSE. Defaults to the logging level of the run.
+   */
+  String rerunLogLevel() default "";
+
+  /**
+   * Writes the report to the report folder itself instead of the subdirectory of the test.
+   * Defaults to <em>false</em>.
+   * <p>
+   * Tests that share the folder must not run concurrently: declare
+   * {@code @ResourceLock(providers = HttpClientReportLocks.class)} on the test class.
+   *
+   * @see HttpClientReportLocks
+   */
+  boolean sharedReport() default false;
+
   /**
    * Number of milliseconds for socket read. Defaults to <em>10000</em>.
    */
@@ -39,10 +39,60 @@ import org.junit.jupiter.api.extension.ExtendWith;
 @ExtendWith(HttpClientExecutorExtension.class)
 public @interface HttpClientExecutor {
 
+  /**
+   * Derive the timeout of every command line from durations of its previous successful runs: the
+   * percentile of durations multiplied by the safety factor, but not more than the hard cap.
+   * A command line without history gets the timeout or the hard cap. Defaults to <em>false</em>.
+   */
+  boolean adaptiveTimeout() default false;
+
+  /**
+   * Send command lines to a long-lived daemon that keeps HTTP Client warm and is shared by test
+   * JVMs, it is started on demand and stops after three idle hours. It needs the
+   * {@link #distribution() distribution}, the timeout is not applied. Defaults to <em>false</em>.
+   *
+   * @see io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor
+   */
+  boolean daemon() default false;
+
+  /**
+   * Home of the HTTP Client distribution, the directory with {@code lib}. It is required by the
+   * {@link #daemon() daemon} mode.
+   */
+  String distribution() default "";
+
+  /**
+   * The hard cap of adaptive timeouts in milliseconds. Defaults to <em>1 hour</em>.
+   */
+  int maxTimeout() default 0;
+
   /**
    * The timeout for the process in milliseconds. If the timeout parameter is greater than 0 then a
    * watchdog will be added to an executor.
    */
   int timeout() default -1;
 
+  /**
+   * The directory of thread dumps, they are captured by {@code jcmd} before the client JVM is
+   * killed by the timeout and delay the kill by up to 10 seconds. Thread dumps are disabled by
+   * default.
+   */
+  String threadDumpDirectory() default "";
+
+  /**
+   * The safety factor of adaptive timeouts, not less than 1. Defaults to <em>2.0</em>.
+   */
+  double timeoutFactor() default 0;
+
+  /**
+   * The file of observed durations. Defaults to <em>target/ijhttp/timeouts.history</em>.
+   */
+  String timeoutHistory() default "";
+
+  /**
+   * The percentile of observed durations for adaptive timeouts, from 1 to 100. Defaults to
+   * <em>95</em>.
+   */
+  int timeoutPercentile() default 0;
+
 }
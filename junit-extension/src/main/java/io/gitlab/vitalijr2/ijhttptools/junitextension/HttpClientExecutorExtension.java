@@ -21,23 +21,37 @@ package io.gitlab.vitalijr2.ijhttptools.junitextension;
 
 import static java.util.Objects.nonNull;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.AdaptiveTimeoutExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
+import io.gitlab.vitalijr2.ijhttptools.cli.TimeoutHistory;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
+import java.nio.file.Path;
 import java.time.Duration;
 import org.apache.commons.exec.DefaultExecutor;
-import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
 
+/**
+ * Resolves parameters of the type {@link Executor} annotated with {@link HttpClientExecutor}.
+ * <p>
+ * Executors keep a stream handler and a watchdog of a test, so every parameter gets its own
+ * executor. Timeout histories of the adaptive timeout are loaded once per test run
+ * and shared by tests via the root store of the extension context.
+ */
 public class HttpClientExecutorExtension implements ParameterResolver {
 
+  private static final String DEFAULT_TIMEOUT_HISTORY = "target/ijhttp/timeouts.history";
   private static final Logger LOGGER = System.getLogger(
       HttpClientCommandLineExtension.class.getName());
+  private static final Namespace NAMESPACE = Namespace.create(HttpClientExecutorExtension.class);
 
   private static DefaultExecutor getExecutor() {
     return DefaultExecutor.builder().get();
@@ -46,14 +60,26 @@ public class HttpClientExecutorExtension implements ParameterResolver {
   @Override
   public Object resolveParameter(@NotNull ParameterContext parameterContext,
       @NotNull ExtensionContext extensionContext) throws ParameterResolutionException {
-    var annotationTimeout = parameterContext.getAnnotatedElement()
-        .getAnnotation(HttpClientExecutor.class).timeout();
-    var executor = getExecutor();
+    var annotation = parameterContext.getAnnotatedElement()
+        .getAnnotation(HttpClientExecutor.class);
+    var annotationTimeout = annotation.timeout();
     var duration = getDuration(annotationTimeout);
 
+    if (annotation.daemon()) {
+      return getDaemonExecutor(annotation);
+    }
+    if (annotation.adaptiveTimeout()) {
+      return getAdaptiveTimeoutExecutor(annotation, duration, extensionContext);
+    }
+
+    var executor = getExecutor();
+
     if (nonNull(duration)) {
+      var watchdog = new ProcessTreeWatchdog(duration);
+
       LOGGER.log(Level.DEBUG, String.format("Set the watchdog (%s) s", duration.getSeconds()));
-      executor.setWatchdog(ExecuteWatchdog.builder().setTimeout(duration).get());
+      watchdog.setThreadDumpDirectory(getThreadDumpDirectory(annotation));
+      executor.setWatchdog(watchdog);
     }
 
     return executor;
@@ -66,6 +92,49 @@ public class HttpClientExecutorExtension implements ParameterResolver {
         && parameterContext.isAnnotated(HttpClientExecutor.class);
   }
 
+  @VisibleForTesting
+  AdaptiveTimeoutExecutor getAdaptiveTimeoutExecutor(HttpClientExecutor annotation,
+      Duration duration, ExtensionContext extensionContext) {
+    var historySettings = new HistorySettings(
+        Path.of(annotation.timeoutHistory().isBlank() ? DEFAULT_TIMEOUT_HISTORY
+            : annotation.timeoutHistory()).toAbsolutePath().normalize(),
+        (0 < annotation.timeoutPercentile()) ? annotation.timeoutPercentile()
+            : TimeoutHistory.DEFAULT_PERCENTILE,
+        (0 < annotation.timeoutFactor()) ? annotation.timeoutFactor()
+            : TimeoutHistory.DEFAULT_FACTOR,
+        (0 < annotation.maxTimeout()) ? Duration.ofMillis(annotation.maxTimeout())
+            : TimeoutHistory.DEFAULT_MAX_TIMEOUT);
+
+    try {
+      var history = extensionContext.getRoot().getStore(NAMESPACE)
+          .computeIfAbsent(historySettings, HistorySettings::load, TimeoutHistory.class);
+      var executor = new AdaptiveTimeoutExecutor(history, duration);
+
+      LOGGER.log(Level.DEBUG, "Set the adaptive watchdog");
+      executor.setThreadDumpDirectory(getThreadDumpDirectory(annotation));
+
+      return executor;
+    } catch (IllegalArgumentException exception) {
+      throw new ParameterResolutionException(exception.getMessage(), exception);
+    }
+  }
+
+  @VisibleForTesting
+  DaemonExecutor getDaemonExecutor(HttpClientExecutor annotation) {
+    if (annotation.distribution().isBlank()) {
+      throw new ParameterResolutionException("the daemon mode needs the distribution");
+    }
+    LOGGER.log(Level.DEBUG, "Run HTTP Client by the daemon");
+
+    return new DaemonExecutor(Path.of(annotation.distribution()), null, null);
+  }
+
+  @VisibleForTesting
+  Path getThreadDumpDirectory(HttpClientExecutor annotation) {
+    return annotation.threadDumpDirectory().isBlank() ? null
+        : Path.of(annotation.threadDumpDirectory());
+  }
+
   @VisibleForTesting
   Duration getDuration(int annotationTimeout) {
     Duration duration = null;
@@ -77,4 +146,16 @@ public class HttpClientExecutorExtension implements ParameterResolver {
     return duration;
   }
 
+  /**
+   * Settings of a timeout history, the key of the loaded history in the store.
+   */
+  private record HistorySettings(Path historyFile, int percentile, double factor,
+                                 Duration maxTimeout) {
+
+    TimeoutHistory load() {
+      return TimeoutHistory.load(historyFile, percentile, factor, maxTimeout);
+    }
+
+  }
+
 }
@@ -0,0 +1,100 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static java.util.Objects.nonNull;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider;
+
+/**
+ * Resource locks of shared report folders.
+ * <p>
+ * A test that writes the report to the
+ * {@link HttpClientCommandLineParameters#sharedReport() shared folder} gets the exclusive lock of
+ * the folder, so tests that share the folder do not run concurrently while other tests still do.
+ * Tests with their own report subdirectories do not need locks.
+ * <pre><code class="language-java">
+ * &#64;ResourceLock(providers = HttpClientReportLocks.class)
+ * class OrdersTest {
+ *
+ *   &#64;Test
+ *   void orders(&#64;HttpClientExecutor Executor executor,
+ *       &#64;HttpClientCommandLineParameters(files = "orders.http", report = true,
+ *           sharedReport = true) HttpClientCommandLine commandLine) throws IOException {
+ *     executor.execute(commandLine.getCommandLine());
+ *   }
+ *
+ * }
+ * </code></pre>
+ *
+ * @since 1.3.0
+ */
+public class HttpClientReportLocks implements ResourceLocksProvider {
+
+  /**
+   * Prefix of lock keys, the key is followed by the absolute path of the report folder.
+   */
+  public static final String LOCK_PREFIX = "ijhttp.report:";
+
+  private static final String DEFAULT_REPORT_PATH = "reports";
+
+  @Override
+  public Set<Lock> provideForClass(Class<?> testClass) {
+    return getLocks(Stream.of(testClass.getDeclaredConstructors()));
+  }
+
+  @Override
+  public Set<Lock> provideForNestedClass(List<Class<?>> enclosingInstanceTypes,
+      Class<?> testClass) {
+    return provideForClass(testClass);
+  }
+
+  @Override
+  public Set<Lock> provideForMethod(List<Class<?>> enclosingInstanceTypes, Class<?> testClass,
+      Method testMethod) {
+    return getLocks(Stream.of(testMethod));
+  }
+
+  static Path getReportPath(HttpClientCommandLineParameters parameters) {
+    return Path.of(parameters.reportPath().isEmpty() ? DEFAULT_REPORT_PATH
+        : parameters.reportPath());
+  }
+
+  private static Set<Lock> getLocks(Stream<? extends Executable> executables) {
+    return executables.map(Executable::getParameters).flatMap(Arrays::stream)
+        .map(parameter -> parameter.getAnnotation(HttpClientCommandLineParameters.class))
+        .filter(parameters -> nonNull(parameters) && parameters.report()
+            && parameters.sharedReport())
+        .map(parameters -> new Lock(
+            LOCK_PREFIX + getReportPath(parameters).toAbsolutePath().normalize(),
+            ResourceAccessMode.READ_WRITE))
+        .collect(Collectors.toSet());
+  }
+
+}
@@ -0,0 +1,339 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
+import io.gitlab.vitalijr2.ijhttptools.junitextension.HttpFileParser.HttpRequest;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.EngineDiscoveryRequest;
+import org.junit.platform.engine.ExecutionRequest;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.discovery.ClasspathResourceSelector;
+import org.junit.platform.engine.discovery.ClasspathRootSelector;
+import org.junit.platform.engine.discovery.DirectorySelector;
+import org.junit.platform.engine.discovery.FilePosition;
+import org.junit.platform.engine.discovery.FileSelector;
+import org.junit.platform.engine.discovery.UniqueIdSelector;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestEngine;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+
+/**
+ * JUnit Platform engine that runs HTTP files as native tests.
+ * <p>
+ * HTTP files ({@code .http} and {@code .rest}) are containers, their requests are tests.
+ * Files are selected by file, directory, classpath resource and classpath root selectors,
+ * requests are selected by unique IDs and file positions, e.g. by an IDE. HTTP Client runs
+ * a file once with the report, the result and the time of every request are taken from
+ * the report. If a part of requests is selected, the whole file is run anyway.
+ * <p>
+ * The engine is disabled by default, so the HTTP files of tests with the jUnit extension are not
+ * run twice: set the configuration parameter {@code ijhttp.engine.enabled=true} to enable it.
+ * <p>
+ * Configuration parameters:
+ * <ul>
+ *   <li>{@code ijhttp.executable}, {@code ijhttp.environment-file},
+ *   {@code ijhttp.environment-name}, {@code ijhttp.private-environment-file} and
+ *   {@code ijhttp.log-level} configure HTTP Client</li>
+ *   <li>{@code ijhttp.report-path} is the folder of reports, defaults to
+ *   {@code target/ijhttp/engine}</li>
+ *   <li>{@code ijhttp.filter.name} is the regular expression of request names to run</li>
+ *   <li>{@code ijhttp.execution.parallel.enabled} runs files concurrently, the pool is configured
+ *   by {@code ijhttp.execution.parallel.config.*} like Jupiter's
+ *   {@code junit.jupiter.execution.parallel.config.*}</li>
+ * </ul>
+ *
+ * @since 1.3.0
+ */
+public class HttpClientTestEngine extends HierarchicalTestEngine<HttpClientExecutionContext> {
+
+  /**
+   * The ID of the engine.
+   */
+  public static final String ENGINE_ID = "ijhttp";
+
+  /**
+   * Enables the engine. Defaults to <em>false</em>.
+   */
+  public static final String ENABLED = "ijhttp.engine.enabled";
+
+  /**
+   * The public environment file.
+   */
+  public static final String ENVIRONMENT_FILE = "ijhttp.environment-file";
+  /**
+   * The name of the environment.
+   */
+  public static final String ENVIRONMENT_NAME = "ijhttp.environment-name";
+  /**
+   * The path to the HTTP Client executable, defaults to {@code ijhttp}.
+   */
+  public static final String EXECUTABLE = "ijhttp.executable";
+  /**
+   * The regular expression of request names to run.
+   */
+  public static final String FILTER_NAME = "ijhttp.filter.name";
+  /**
+   * The logging level of HTTP Client.
+   */
+  public static final String LOG_LEVEL = "ijhttp.log-level";
+  /**
+   * The prefix of the configuration of the parallel execution.
+   */
+  public static final String PARALLEL_CONFIG_PREFIX = "ijhttp.execution.parallel.config.";
+  /**
+   * Runs HTTP files concurrently.
+   */
+  public static final String PARALLEL_EXECUTION_ENABLED = "ijhttp.execution.parallel.enabled";
+  /**
+   * The private environment file.
+   */
+  public static final String PRIVATE_ENVIRONMENT_FILE = "ijhttp.private-environment-file";
+  /**
+   * The folder of reports, defaults to {@code target/ijhttp/engine}.
+   */
+  public static final String REPORT_PATH = "ijhttp.report-path";
+
+  private static final String DEFAULT_REPORT_PATH = "target/ijhttp/engine";
+  private static final Logger LOGGER = System.getLogger(HttpClientTestEngine.class.getName());
+
+  @Override
+  public String getId() {
+    return ENGINE_ID;
+  }
+
+  @Override
+  public Optional<String> getGroupId() {
+    return Optional.of("io.gitlab.vitalijr2.ijhttp-tools");
+  }
+
+  @Override
+  public Optional<String> getArtifactId() {
+    return Optional.of("ijhttp-junit-extension");
+  }
+
+  @Override
+  public TestDescriptor discover(EngineDiscoveryRequest discoveryRequest, UniqueId uniqueId) {
+    var engine = new EngineDescriptor(uniqueId, "IntelliJ HTTP Client");
+    var configuration = discoveryRequest.getConfigurationParameters();
+
+    if (!configuration.getBoolean(ENABLED).orElse(false)) {
+      return engine;
+    }
+
+    var selections = new LinkedHashMap<Path, Selection>();
+
+    discoveryRequest.getSelectorsByType(ClasspathRootSelector.class).forEach(
+        selector -> selectUri(selector.getClasspathRoot(), null, selections));
+    discoveryRequest.getSelectorsByType(ClasspathResourceSelector.class).forEach(
+        selector -> selector.getResources().forEach(resource -> selectUri(resource.getUri(),
+            selector.getPosition().orElse(null), selections)));
+    discoveryRequest.getSelectorsByType(DirectorySelector.class).forEach(
+        selector -> selectDirectory(selector.getPath(), selections));
+    discoveryRequest.getSelectorsByType(FileSelector.class).forEach(
+        selector -> selectFile(selector.getPath(), selector.getPosition().orElse(null),
+            selections));
+    discoveryRequest.getSelectorsByType(UniqueIdSelector.class).forEach(
+        selector -> selectUniqueId(selector.getUniqueId(), uniqueId, selections));
+
+    var reportPath = Path.of(configuration.get(REPORT_PATH).orElse(DEFAULT_REPORT_PATH));
+    var nameFilter = getNameFilter(configuration);
+
+    for (Map.Entry<Path, Selection> entry : selections.entrySet()) {
+      var file = entry.getKey();
+      List<HttpRequest> requests;
+
+      try {
+        requests = HttpFileParser.parse(file);
+      } catch (IOException exception) {
+        LOGGER.log(Level.WARNING, "Could not read the HTTP file " + file, exception);
+        continue;
+      }
+
+      var selection = entry.getValue();
+      var selectedRequests = requests.stream()
+          .filter(request -> selection.includes(request, requests)).filter(nameFilter).toList();
+
+      if (selectedRequests.isEmpty()) {
+        continue;
+      }
+
+      var fileDescriptor = new HttpFileDescriptor(
+          uniqueId.append(HttpFileDescriptor.SEGMENT_TYPE, file.toString()), file,
+          reportPath.resolve((engine.getChildren().size() + 1) + "-" + file.getFileName()));
+
+      selectedRequests.forEach(request -> fileDescriptor.addChild(new HttpRequestDescriptor(
+          fileDescriptor.getUniqueId()
+              .append(HttpRequestDescriptor.SEGMENT_TYPE, String.valueOf(request.index())),
+          fileDescriptor, request)));
+      engine.addChild(fileDescriptor);
+    }
+
+    return engine;
+  }
+
+  @Override
+  protected HttpClientExecutionContext createExecutionContext(ExecutionRequest request) {
+    return new HttpClientExecutionContext(request.getConfigurationParameters(),
+        request.getEngineExecutionListener());
+  }
+
+  @Override
+  protected HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+    var configuration = request.getConfigurationParameters();
+
+    if (configuration.getBoolean(PARALLEL_EXECUTION_ENABLED).orElse(false)) {
+      return new ForkJoinPoolHierarchicalTestExecutorService(
+          new PrefixedConfigurationParameters(configuration, PARALLEL_CONFIG_PREFIX));
+    }
+
+    return super.createExecutorService(request);
+  }
+
+  private static Predicate<HttpRequest> getNameFilter(ConfigurationParameters configuration) {
+    return configuration.get(FILTER_NAME).map(Pattern::compile)
+        .<Predicate<HttpRequest>>map(pattern -> request -> pattern.matcher(request.name()).find())
+        .orElse(request -> true);
+  }
+
+  private static void selectUri(URI uri, FilePosition position, Map<Path, Selection> selections) {
+    if (!"file".equals(uri.getScheme())) {
+      return;
+    }
+
+    var path = Path.of(uri);
+
+    if (Files.isDirectory(path)) {
+      selectDirectory(path, selections);
+    } else {
+      selectFile(path, position, selections);
+    }
+  }
+
+  private static void selectDirectory(Path directory, Map<Path, Selection> selections) {
+    var commandLine = new HttpClientCommandLine();
+
+    commandLine.directories(directory);
+    try {
+      commandLine.getRequestFiles().forEach(file -> selectFile(file, null, selections));
+    } catch (IOException exception) {
+      LOGGER.log(Level.WARNING, "Could not read the directory " + directory, exception);
+    }
+  }
+
+  private static void selectFile(Path file, FilePosition position,
+      Map<Path, Selection> selections) {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+
+    var selection = selections.computeIfAbsent(file.toAbsolutePath().normalize(),
+        key -> new Selection());
+
+    if (null == position) {
+      selection.all = true;
+    } else {
+      selection.lines.add(position.getLine());
+    }
+  }
+
+  private static void selectUniqueId(UniqueId selectedId, UniqueId engineId,
+      Map<Path, Selection> selections) {
+    if (!selectedId.hasPrefix(engineId)) {
+      return;
+    }
+
+    Path file = null;
+    Integer index = null;
+
+    for (UniqueId.Segment segment : selectedId.getSegments()) {
+      if (HttpFileDescriptor.SEGMENT_TYPE.equals(segment.getType())) {
+        file = Path.of(segment.getValue());
+      } else if (HttpRequestDescriptor.SEGMENT_TYPE.equals(segment.getType())) {
+        try {
+          index = Integer.valueOf(segment.getValue());
+        } catch (NumberFormatException exception) {
+          return;
+        }
+      }
+    }
+    if (null == file || !Files.isRegularFile(file)) {
+      return;
+    }
+
+    var selection = selections.computeIfAbsent(file.toAbsolutePath().normalize(),
+        key -> new Selection());
+
+    if (null == index) {
+      selection.all = true;
+    } else {
+      selection.indexes.add(index);
+    }
+  }
+
+  /**
+   * Selected requests of an HTTP file: all of them, by positions or by lines.
+   */
+  private static class Selection {
+
+    private final Set<Integer> indexes = new HashSet<>();
+    private final Set<Integer> lines = new HashSet<>();
+    private boolean all;
+
+    boolean includes(HttpRequest request, List<HttpRequest> requests) {
+      return all || indexes.contains(request.index()) || lines.stream()
+          .anyMatch(line -> request.equals(getRequestAt(line, requests)));
+    }
+
+    /**
+     * The last request that starts at the line or before it, otherwise the first request.
+     */
+    private static HttpRequest getRequestAt(int line, List<HttpRequest> requests) {
+      var found = requests.get(0);
+
+      for (HttpRequest request : requests) {
+        if (request.line() <= line) {
+          found = request;
+        }
+      }
+
+      return found;
+    }
+
+  }
+
+}
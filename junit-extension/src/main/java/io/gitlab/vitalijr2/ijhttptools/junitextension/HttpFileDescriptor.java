@@ -0,0 +1,155 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestCase;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestSuite;
+import io.gitlab.vitalijr2.ijhttptools.cli.LogLevel;
+import io.gitlab.vitalijr2.ijhttptools.cli.VirtualThreadStreamHandler;
+import io.gitlab.vitalijr2.ijhttptools.junitextension.HttpFileParser.HttpRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.junit.platform.engine.support.hierarchical.Node;
+
+/**
+ * An HTTP file, it is run by HTTP Client once for all its requests.
+ */
+class HttpFileDescriptor extends AbstractTestDescriptor implements
+    Node<HttpClientExecutionContext> {
+
+  static final String OUTPUT_ENTRY = "ijhttp.output";
+  static final String SEGMENT_TYPE = "file";
+
+  private final Path file;
+  private final Path reportPath;
+
+  private volatile TestSuite testSuite;
+
+  HttpFileDescriptor(UniqueId uniqueId, Path file, Path reportPath) {
+    super(uniqueId, String.valueOf(file.getFileName()), FileSource.from(file.toFile()));
+    this.file = file;
+    this.reportPath = reportPath;
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.CONTAINER;
+  }
+
+  @Override
+  public ExecutionMode getExecutionMode() {
+    return ExecutionMode.CONCURRENT;
+  }
+
+  @Override
+  public HttpClientExecutionContext execute(HttpClientExecutionContext context,
+      DynamicTestExecutor dynamicTestExecutor) throws IOException {
+    var commandLine = getCommandLine(context.configuration());
+    var executor = DefaultExecutor.builder().get();
+    var output = new ByteArrayOutputStream();
+    var since = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    ExecuteException failure = null;
+
+    executor.setStreamHandler(new VirtualThreadStreamHandler(output));
+    try {
+      commandLine.execute(executor);
+    } catch (ExecuteException exception) {
+      failure = exception;
+    }
+    if (0 < output.size()) {
+      context.listener().reportingEntryPublished(this,
+          ReportEntry.from(OUTPUT_ENTRY, output.toString(StandardCharsets.UTF_8)));
+    }
+
+    var report = HttpClientReport.read(reportPath, since);
+
+    testSuite = (1 == report.getTestSuites().size()) ? report.getTestSuites().get(0)
+        : report.getTestSuite(file).orElse(null);
+    if (isNull(testSuite) && nonNull(failure)) {
+      throw failure;
+    }
+
+    return context;
+  }
+
+  /**
+   * Finds the result of a request by its name, otherwise by its position.
+   *
+   * @param request the request
+   * @return the result if the report has it
+   */
+  Optional<TestCase> getTestCase(HttpRequest request) {
+    if (isNull(testSuite)) {
+      return Optional.empty();
+    }
+
+    List<TestCase> testCases = testSuite.testCases();
+    var testCase = testCases.stream().filter(candidate -> request.name().equals(candidate.name()))
+        .findFirst();
+
+    if (testCase.isEmpty() && request.index() <= testCases.size()) {
+      testCase = Optional.of(testCases.get(request.index() - 1));
+    }
+
+    return testCase;
+  }
+
+  private HttpClientCommandLine getCommandLine(ConfigurationParameters configuration) {
+    var commandLine = new HttpClientCommandLine();
+
+    configuration.get(HttpClientTestEngine.EXECUTABLE).ifPresent(commandLine::executable);
+    configuration.get(HttpClientTestEngine.ENVIRONMENT_FILE).map(Path::of)
+        .ifPresent(commandLine::environmentFile);
+    configuration.get(HttpClientTestEngine.ENVIRONMENT_NAME)
+        .ifPresent(commandLine::environmentName);
+    configuration.get(HttpClientTestEngine.LOG_LEVEL).map(LogLevel::valueOf)
+        .ifPresent(commandLine::logLevel);
+    configuration.get(HttpClientTestEngine.PRIVATE_ENVIRONMENT_FILE).map(Path::of)
+        .ifPresent(commandLine::privateEnvironmentFile);
+    commandLine.files(file);
+    commandLine.report(true);
+    commandLine.reportPath(reportPath);
+
+    return commandLine;
+  }
+
+}
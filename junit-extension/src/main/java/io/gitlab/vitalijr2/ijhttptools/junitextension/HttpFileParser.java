@@ -0,0 +1,120 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Finds requests of an HTTP file.
+ * <p>
+ * Requests are separated by lines {@code ###}, the text after the separator is the name of
+ * the request. The comment {@code # @name} overrides it. The first line of a request that is not
+ * blank, a comment, a variable or a pre-request script is the request line, e.g.
+ * {@code GET https://example.com}. Pre-request scripts start with {@code <}: a script file or
+ * a {@code {% %}} block that may span several lines. An unnamed request is named by its request
+ * line without the HTTP version.
+ */
+final class HttpFileParser {
+
+  private static final Pattern HTTP_VERSION = Pattern.compile("\\s+HTTP/\\d(?:\\.\\d)?$");
+  private static final Pattern NAME_COMMENT = Pattern.compile(
+      "^(?:#+|//)\\s*@name(?:\\s*=\\s*|\\s+)(?<name>.+)$");
+  private static final String SCRIPT = "<";
+  private static final String SCRIPT_END = "%}";
+  private static final String SCRIPT_START = "{%";
+  private static final String SEPARATOR = "###";
+
+  private HttpFileParser() {
+  }
+
+  /**
+   * Parses an HTTP file.
+   *
+   * @param file the HTTP file
+   * @return requests in the order of the file
+   * @throws IOException if the file cannot be read
+   */
+  static List<HttpRequest> parse(@NotNull Path file) throws IOException {
+    var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    var requests = new ArrayList<HttpRequest>();
+    String name = null;
+    var requestFound = false;
+    var script = false;
+
+    for (int i = 0; i < lines.size(); i++) {
+      var line = lines.get(i).strip();
+
+      if (script) {
+        script = !line.contains(SCRIPT_END);
+        continue;
+      }
+      if (line.startsWith(SEPARATOR)) {
+        name = line.substring(SEPARATOR.length()).strip();
+        requestFound = false;
+        continue;
+      }
+      if (requestFound || line.isEmpty() || line.startsWith("@")) {
+        continue;
+      }
+      if (line.startsWith(SCRIPT)) {
+        var scriptStart = line.indexOf(SCRIPT_START);
+
+        script = 0 <= scriptStart && !line.substring(scriptStart).contains(SCRIPT_END);
+        continue;
+      }
+      if (line.startsWith("#") || line.startsWith("//")) {
+        var matcher = NAME_COMMENT.matcher(line);
+
+        if (matcher.matches()) {
+          name = matcher.group("name").strip();
+        }
+        continue;
+      }
+      requestFound = true;
+      requests.add(new HttpRequest(requests.size() + 1,
+          (nonNull(name) && !name.isEmpty()) ? name : HTTP_VERSION.matcher(line).replaceFirst(""),
+          i + 1));
+      name = null;
+    }
+
+    return requests;
+  }
+
+  /**
+   * Request of an HTTP file.
+   *
+   * @param index the position of the request in the file, starts from 1
+   * @param name  the name of the request
+   * @param line  the line of the request line, starts from 1
+   */
+  record HttpRequest(int index, String name, int line) {
+
+  }
+
+}
@@ -0,0 +1,76 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.junitextension.HttpFileParser.HttpRequest;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.FilePosition;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.junit.platform.engine.support.hierarchical.Node;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * A request of an HTTP file, its result is taken from the report of the file run.
+ */
+class HttpRequestDescriptor extends AbstractTestDescriptor implements
+    Node<HttpClientExecutionContext> {
+
+  static final String SEGMENT_TYPE = "request";
+  static final String TIME_ENTRY = "ijhttp.time";
+
+  private final HttpRequest request;
+
+  HttpRequestDescriptor(UniqueId uniqueId, HttpFileDescriptor file, HttpRequest request) {
+    super(uniqueId, request.name(),
+        FileSource.from(file.getFile().toFile(), FilePosition.from(request.line())));
+    this.request = request;
+  }
+
+  HttpRequest getRequest() {
+    return request;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.TEST;
+  }
+
+  @Override
+  public HttpClientExecutionContext execute(HttpClientExecutionContext context,
+      DynamicTestExecutor dynamicTestExecutor) {
+    var file = (HttpFileDescriptor) getParent().orElseThrow();
+    var testCase = file.getTestCase(request).orElseThrow(
+        () -> new AssertionFailedError("The request is missing in the report of HTTP Client"));
+
+    context.listener().reportingEntryPublished(this,
+        ReportEntry.from(TIME_ENTRY, testCase.time().toMillis() + " ms"));
+    if (testCase.failed()) {
+      throw new AssertionFailedError(nonNull(testCase.message()) ? testCase.message()
+          : "The request failed");
+    }
+
+    return context;
+  }
+
+}
@@ -0,0 +1,176 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestCase;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestSuite;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Report subdirectories of tests that share the report folder.
+ * <p>
+ * Every test gets its own subdirectory, a stale subdirectory of the previous run is cleaned. When
+ * the test run is finished, reports of subdirectories can be merged into <em>report.xml</em> of
+ * the report folder.
+ */
+final class ReportDirectories implements AutoCloseable {
+
+  static final String MERGED_REPORT = "report.xml";
+
+  private static final Logger LOGGER = System.getLogger(ReportDirectories.class.getName());
+
+  private final Map<String, Path> directories = new LinkedHashMap<>();
+  private final boolean merge;
+  private final Path reportPath;
+
+  ReportDirectories(Path reportPath, boolean merge) {
+    this.merge = merge;
+    this.reportPath = reportPath;
+  }
+
+  /**
+   * Allocates the subdirectory of a test. A name that is already taken gets a numeric suffix.
+   *
+   * @param name name of the test
+   * @return the empty report subdirectory
+   * @throws IOException if the stale subdirectory cannot be cleaned
+   */
+  synchronized Path allocate(String name) throws IOException {
+    var uniqueName = name;
+
+    for (int i = 2; directories.containsKey(uniqueName); i++) {
+      uniqueName = name + '-' + i;
+    }
+
+    var directory = reportPath.resolve(uniqueName);
+
+    delete(directory);
+    directories.put(uniqueName, directory);
+
+    return directory;
+  }
+
+  /**
+   * Merges reports of subdirectories if it is enabled.
+   *
+   * @throws IOException if reports cannot be read or the merged report cannot be written
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!merge || directories.isEmpty()) {
+      return;
+    }
+
+    var testSuites = new ArrayList<TestSuite>();
+
+    for (Path directory : directories.values()) {
+      if (Files.isDirectory(directory)) {
+        testSuites.addAll(HttpClientReport.read(directory).getTestSuites());
+      }
+    }
+    LOGGER.log(Level.DEBUG, () -> String.format("Merge %d test suites of %d tests into %s",
+        testSuites.size(), directories.size(), reportPath));
+    Files.createDirectories(reportPath);
+    try (var writer = Files.newBufferedWriter(reportPath.resolve(MERGED_REPORT))) {
+      var xmlWriter = XMLOutputFactory.newFactory().createXMLStreamWriter(writer);
+
+      write(xmlWriter, testSuites);
+      xmlWriter.close();
+    } catch (XMLStreamException exception) {
+      throw new IOException("could not write the merged report: " + exception.getMessage(),
+          exception);
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    try (var paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch (NoSuchFileException exception) {
+          // already deleted
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      });
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    }
+  }
+
+  private static String seconds(Duration time) {
+    return String.valueOf(time.toNanos() / 1_000_000_000.0);
+  }
+
+  private static void write(XMLStreamWriter writer, List<TestSuite> testSuites)
+      throws XMLStreamException {
+    writer.writeStartDocument("UTF-8", "1.0");
+    writer.writeStartElement("testsuites");
+    for (TestSuite testSuite : testSuites) {
+      writer.writeStartElement("testsuite");
+      if (nonNull(testSuite.name())) {
+        writer.writeAttribute("name", testSuite.name());
+      }
+      writer.writeAttribute("tests", String.valueOf(testSuite.testCases().size()));
+      writer.writeAttribute("failures",
+          String.valueOf(testSuite.testCases().stream().filter(TestCase::failed).count()));
+      writer.writeAttribute("time", seconds(testSuite.time()));
+      for (TestCase testCase : testSuite.testCases()) {
+        writer.writeStartElement("testcase");
+        if (nonNull(testCase.name())) {
+          writer.writeAttribute("name", testCase.name());
+        }
+        writer.writeAttribute("time", seconds(testCase.time()));
+        if (testCase.failed()) {
+          writer.writeEmptyElement("failure");
+          if (nonNull(testCase.message())) {
+            writer.writeAttribute("message", testCase.message());
+          }
+        }
+        writer.writeEndElement();
+      }
+      writer.writeEndElement();
+    }
+    writer.writeEndElement();
+    writer.writeEndDocument();
+  }
+
+}
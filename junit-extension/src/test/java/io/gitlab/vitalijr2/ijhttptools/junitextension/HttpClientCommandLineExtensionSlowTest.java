@@ -2,11 +2,17 @@ package io.gitlab.vitalijr2.ijhttptools.junitextension;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+import static org.hamcrest.collection.ArrayMatching.hasItemInArray;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringEndsWith.endsWith;
+import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -14,15 +20,25 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
+import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Parameter;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
 import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -40,12 +56,16 @@ class HttpClientCommandLineExtensionSlowTest {
   private Parameter parameter;
   @Mock
   private ParameterContext parameterContext;
+  @Mock
+  private Store store;
 
   private HttpClientCommandLineExtension resolver;
+  private Map<Object, Object> storedValues;
 
   @BeforeEach
   void setUp() {
     resolver = new HttpClientCommandLineExtension();
+    storedValues = new HashMap<>();
   }
 
   @DisplayName("Resolve parameter")
@@ -69,6 +89,8 @@ class HttpClientCommandLineExtensionSlowTest {
     when(annotation.proxy()).thenReturn("");
     when(annotation.report()).thenReturn(false);
     when(annotation.reportPath()).thenReturn("");
+    when(annotation.rerunFailingCount()).thenReturn(0);
+    when(annotation.rerunLogLevel()).thenReturn("");
     when(annotation.socketTimeout()).thenReturn(-1);
     // test values
     when(annotation.files()).thenReturn(new String[]{"*"});
@@ -103,15 +125,22 @@ class HttpClientCommandLineExtensionSlowTest {
     when(annotation.environmentFile()).thenReturn("env.file");
     when(annotation.environmentName()).thenReturn("test");
     when(annotation.environmentVariables()).thenReturn(new String[]{"name=value"});
+    when(annotation.excludes()).thenReturn(new String[]{"**/target/**"});
     when(annotation.executable()).thenReturn("ijhttp.exe");
+    when(annotation.includes()).thenReturn(new String[]{"**/*.http"});
     when(annotation.insecure()).thenReturn(true);
     when(annotation.logLevel()).thenReturn("HEADERS");
+    when(annotation.parallelDiscovery()).thenReturn(true);
     when(annotation.privateEnvironmentFile()).thenReturn("private.file");
     when(annotation.privateEnvironmentVariables()).thenReturn(new String[]{"private=hidden"});
     when(annotation.proxy()).thenReturn("http://127.0.0.1:12345");
     when(annotation.report()).thenReturn(true);
     when(annotation.reportPath()).thenReturn("report.dir");
+    when(annotation.rerunFailingCount()).thenReturn(2);
+    when(annotation.rerunLogLevel()).thenReturn("VERBOSE");
+    when(annotation.sharedReport()).thenReturn(true);
     when(annotation.socketTimeout()).thenReturn(987);
+    givenRootStore();
 
     var spiedResolver = spy(resolver);
 
@@ -119,7 +148,7 @@ class HttpClientCommandLineExtensionSlowTest {
     var commandLine = (HttpClientCommandLine) spiedResolver.resolveParameter(parameterContext,
         extensionContext);
 
-    verifyNoInteractions(extensionContext);
+    verify(extensionContext).getRoot();
     verify(annotatedElement).getAnnotation(HttpClientCommandLineParameters.class);
     verify(parameterContext).getAnnotatedElement();
 
@@ -136,4 +165,148 @@ class HttpClientCommandLineExtensionSlowTest {
                 endsWith("report.dir"))));
   }
 
+  @DisplayName("Tests with the same configuration share found HTTP files")
+  @Test
+  void sharedDiscovery() throws IOException {
+    // given
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    when(annotation.directories()).thenReturn(new String[]{"src/test/resources"});
+    when(annotation.environmentFile()).thenReturn("");
+    when(annotation.environmentName()).thenReturn("");
+    when(annotation.environmentVariables()).thenReturn(new String[0]);
+    when(annotation.excludes()).thenReturn(new String[0]);
+    when(annotation.executable()).thenReturn("ijhttp");
+    when(annotation.files()).thenReturn(new String[0]);
+    when(annotation.includes()).thenReturn(new String[0]);
+    when(annotation.logLevel()).thenReturn("BASIC");
+    when(annotation.privateEnvironmentFile()).thenReturn("");
+    when(annotation.privateEnvironmentVariables()).thenReturn(new String[0]);
+    when(annotation.proxy()).thenReturn("");
+    when(annotation.reportPath()).thenReturn("");
+    when(annotation.rerunLogLevel()).thenReturn("");
+    givenRootStore();
+
+    // when
+    var first = (HttpClientCommandLine) resolver.resolveParameter(parameterContext,
+        extensionContext);
+    var second = (HttpClientCommandLine) resolver.resolveParameter(parameterContext,
+        extensionContext);
+
+    // then
+    verify(annotation).parallelDiscovery();
+    assertAll("Shared discovery",
+        () -> assertNotSame(first, second),
+        () -> assertEquals(1, storedValues.size()),
+        () -> assertEquals(first.getRequestFiles(), second.getRequestFiles()),
+        () -> assertThat(second.getRequestFiles().get(0).toString(), endsWith("test.http")));
+  }
+
+  @DisplayName("A failed discovery is cached and fails every test")
+  @Test
+  void failedDiscovery() {
+    // given
+    givenDirectories("target/missing-directory");
+
+    // when
+    var first = assertThrows(ParameterResolutionException.class,
+        () -> resolver.resolveParameter(parameterContext, extensionContext));
+    var second = assertThrows(ParameterResolutionException.class,
+        () -> resolver.resolveParameter(parameterContext, extensionContext));
+
+    // then
+    assertAll("Failed discovery",
+        () -> assertThat(first.getMessage(), startsWith("could not discover HTTP files: ")),
+        () -> assertInstanceOf(NoSuchFileException.class, first.getCause()),
+        () -> assertSame(first.getCause(), second.getCause(), "cached failure"),
+        () -> assertEquals(1, storedValues.size()));
+  }
+
+  @DisplayName("An empty discovery fails the test")
+  @Test
+  void emptyDiscovery(@TempDir Path directory) {
+    // given
+    givenDirectories(directory.toString());
+
+    // when
+    var exception = assertThrows(ParameterResolutionException.class,
+        () -> resolver.resolveParameter(parameterContext, extensionContext));
+
+    // then
+    assertEquals("no HTTP files in the directories [" + directory + "]", exception.getMessage());
+  }
+
+  @DisplayName("Every test writes the report to its own subdirectory")
+  @Test
+  void isolatedReport() throws IOException, NoSuchMethodException {
+    // given
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    when(annotation.directories()).thenReturn(new String[0]);
+    when(annotation.environmentFile()).thenReturn("");
+    when(annotation.environmentName()).thenReturn("");
+    when(annotation.environmentVariables()).thenReturn(new String[0]);
+    when(annotation.executable()).thenReturn("ijhttp");
+    when(annotation.files()).thenReturn(new String[]{"orders.http"});
+    when(annotation.logLevel()).thenReturn("BASIC");
+    when(annotation.privateEnvironmentFile()).thenReturn("");
+    when(annotation.privateEnvironmentVariables()).thenReturn(new String[0]);
+    when(annotation.proxy()).thenReturn("");
+    when(annotation.report()).thenReturn(true);
+    when(annotation.reportPath()).thenReturn("target/isolated-reports");
+    when(annotation.rerunLogLevel()).thenReturn("");
+    when(extensionContext.getTestClass()).thenAnswer(invocation -> Optional.of(getClass()));
+    when(extensionContext.getTestMethod()).thenReturn(
+        Optional.of(getClass().getDeclaredMethod("isolatedReport")));
+    when(extensionContext.getUniqueId()).thenReturn(
+        "[engine:junit-jupiter]/[class:Orders]/[test-template:orders(int)]"
+            + "/[test-template-invocation:#2]", "[engine:junit-jupiter]/[class:Orders]");
+    givenRootStore();
+
+    // when
+    var first = (HttpClientCommandLine) resolver.resolveParameter(parameterContext,
+        extensionContext);
+    var second = (HttpClientCommandLine) resolver.resolveParameter(parameterContext,
+        extensionContext);
+
+    // then
+    var reportPath = Path.of("target/isolated-reports").toAbsolutePath().normalize();
+
+    assertAll("Report subdirectories",
+        () -> assertThat(first.getCommandLine().getArguments(), hasItemInArray(
+            reportPath.resolve("HttpClientCommandLineExtensionSlowTest.isolatedReport-2")
+                .toString())),
+        () -> assertThat(second.getCommandLine().getArguments(), hasItemInArray(
+            reportPath.resolve("HttpClientCommandLineExtensionSlowTest.isolatedReport")
+                .toString())),
+        () -> assertEquals(1, storedValues.size()));
+  }
+
+  private void givenDirectories(String directory) {
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    when(annotation.directories()).thenReturn(new String[]{directory});
+    when(annotation.environmentFile()).thenReturn("");
+    when(annotation.environmentName()).thenReturn("");
+    when(annotation.environmentVariables()).thenReturn(new String[0]);
+    when(annotation.excludes()).thenReturn(new String[0]);
+    when(annotation.executable()).thenReturn("ijhttp");
+    when(annotation.files()).thenReturn(new String[0]);
+    when(annotation.includes()).thenReturn(new String[0]);
+    when(annotation.logLevel()).thenReturn("BASIC");
+    when(annotation.privateEnvironmentFile()).thenReturn("");
+    when(annotation.privateEnvironmentVariables()).thenReturn(new String[0]);
+    when(annotation.rerunLogLevel()).thenReturn("");
+    givenRootStore();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenRootStore() {
+    when(extensionContext.getRoot()).thenReturn(extensionContext);
+    when(extensionContext.getStore(any())).thenReturn(store);
+    when(store.computeIfAbsent(any(), any(), any())).thenAnswer(
+        invocation -> storedValues.computeIfAbsent(invocation.getArgument(0),
+            invocation.<Function<Object, Object>>getArgument(1)));
+  }
+
 }
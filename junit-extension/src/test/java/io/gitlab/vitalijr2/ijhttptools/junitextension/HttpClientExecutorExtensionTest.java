@@ -1,8 +1,14 @@
 package io.gitlab.vitalijr2.ijhttptools.junitextension;
 
+import static java.util.Objects.isNull;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
@@ -11,15 +17,25 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.AdaptiveTimeoutExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.TimeoutHistory;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Parameter;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
 import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -40,12 +56,16 @@ class HttpClientExecutorExtensionTest {
   private Parameter parameter;
   @Mock
   private ParameterContext parameterContext;
+  @Mock
+  private Store store;
 
   private HttpClientExecutorExtension resolver;
+  private Map<Object, Object> storedValues;
 
   @BeforeEach
   void setUp() {
     resolver = new HttpClientExecutorExtension();
+    storedValues = new HashMap<>();
   }
 
   @DisplayName("Unsupported parameter")
@@ -96,6 +116,9 @@ class HttpClientExecutorExtensionTest {
   void resolveParameter(int timeout) {
     // given
     when(annotation.timeout()).thenReturn(timeout);
+    if (0 < timeout) {
+      when(annotation.threadDumpDirectory()).thenReturn("");
+    }
     when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
     when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
 
@@ -111,6 +134,110 @@ class HttpClientExecutorExtensionTest {
     verify(spiedResolver).getDuration(timeout);
   }
 
+  @DisplayName("Adaptive timeout")
+  @Test
+  void adaptiveTimeout(@TempDir Path directory) {
+    // given
+    when(annotation.adaptiveTimeout()).thenReturn(true);
+    when(annotation.threadDumpDirectory()).thenReturn(directory.resolve("reports").toString());
+    when(annotation.timeout()).thenReturn(10000);
+    when(annotation.timeoutHistory()).thenReturn(
+        directory.resolve("timeouts.history").toString());
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    givenRootStore();
+
+    // when and then
+    assertInstanceOf(AdaptiveTimeoutExecutor.class,
+        resolver.resolveParameter(parameterContext, extensionContext));
+  }
+
+  @DisplayName("Thread dumps are disabled by default")
+  @ParameterizedTest
+  @CsvSource(value = {"'',", "reports,reports"})
+  void threadDumpDirectory(String directory, String expected) {
+    // given
+    when(annotation.threadDumpDirectory()).thenReturn(directory);
+
+    // when and then
+    assertEquals(isNull(expected) ? null : Path.of(expected),
+        resolver.getThreadDumpDirectory(annotation));
+  }
+
+  @DisplayName("Adaptive timeout: tests share the history with the same settings")
+  @Test
+  void sharedTimeoutHistory(@TempDir Path directory) {
+    // given
+    when(annotation.adaptiveTimeout()).thenReturn(true);
+    when(annotation.threadDumpDirectory()).thenReturn("");
+    when(annotation.timeoutHistory()).thenReturn(
+        directory.resolve("timeouts.history").toString());
+    when(annotation.timeoutPercentile()).thenReturn(90, 90, 90, 90, 50, 50);
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    givenRootStore();
+
+    // when
+    var first = resolver.resolveParameter(parameterContext, extensionContext);
+    var second = resolver.resolveParameter(parameterContext, extensionContext);
+    var third = resolver.resolveParameter(parameterContext, extensionContext);
+
+    // then
+    assertAll("Shared history",
+        () -> assertNotSame(first, second),
+        () -> assertNotSame(second, third),
+        () -> assertEquals(2, storedValues.size()),
+        () -> assertTrue(storedValues.values().stream()
+            .allMatch(TimeoutHistory.class::isInstance)));
+  }
+
+  @DisplayName("Adaptive timeout: invalid settings")
+  @Test
+  void invalidAdaptiveTimeout() {
+    // given
+    when(annotation.adaptiveTimeout()).thenReturn(true);
+    when(annotation.timeoutHistory()).thenReturn("");
+    when(annotation.timeoutPercentile()).thenReturn(101);
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+    givenRootStore();
+
+    // when
+    var exception = assertThrows(ParameterResolutionException.class,
+        () -> resolver.resolveParameter(parameterContext, extensionContext));
+
+    // then
+    assertEquals("percentile must be from 1 to 100: 101", exception.getMessage());
+  }
+
+  @DisplayName("Daemon mode")
+  @Test
+  void daemon() {
+    // given
+    when(annotation.daemon()).thenReturn(true);
+    when(annotation.distribution()).thenReturn("ijhttp");
+    when(annotatedElement.getAnnotation(any())).thenReturn(annotation);
+    when(parameterContext.getAnnotatedElement()).thenReturn(annotatedElement);
+
+    // when and then
+    assertInstanceOf(DaemonExecutor.class,
+        resolver.resolveParameter(parameterContext, extensionContext));
+  }
+
+  @DisplayName("Daemon mode without the distribution")
+  @Test
+  void daemonWithoutDistribution() {
+    // given
+    when(annotation.distribution()).thenReturn(" ");
+
+    // when
+    var exception = assertThrows(ParameterResolutionException.class,
+        () -> resolver.getDaemonExecutor(annotation));
+
+    // then
+    assertEquals("the daemon mode needs the distribution", exception.getMessage());
+  }
+
   @DisplayName("Default timeout")
   @Test
   void defaultTimeout() {
@@ -118,4 +245,13 @@ class HttpClientExecutorExtensionTest {
     assertNull(resolver.getDuration(-1));
   }
 
+  @SuppressWarnings("unchecked")
+  private void givenRootStore() {
+    when(extensionContext.getRoot()).thenReturn(extensionContext);
+    when(extensionContext.getStore(any())).thenReturn(store);
+    when(store.computeIfAbsent(any(), any(), any())).thenAnswer(
+        invocation -> storedValues.computeIfAbsent(invocation.getArgument(0),
+            invocation.<Function<Object, Object>>getArgument(1)));
+  }
+
 }
@@ -0,0 +1,79 @@
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider.Lock;
+
+@Tag("fast")
+class HttpClientReportLocksTest {
+
+  private final HttpClientReportLocks locks = new HttpClientReportLocks();
+
+  @DisplayName("A shared report folder is locked")
+  @Test
+  void sharedReport() throws NoSuchMethodException {
+    // given
+    var method = Sample.class.getDeclaredMethod("shared", HttpClientCommandLine.class);
+
+    // when
+    var result = locks.provideForMethod(List.of(), Sample.class, method);
+
+    // then
+    assertThat(result, contains(new Lock(HttpClientReportLocks.LOCK_PREFIX
+        + Path.of("target/shared").toAbsolutePath().normalize(), ResourceAccessMode.READ_WRITE)));
+  }
+
+  @DisplayName("A constructor parameter locks the default report folder for the class")
+  @Test
+  void constructor() {
+    // when
+    var result = locks.provideForClass(Sample.class);
+
+    // then
+    assertThat(result, contains(new Lock(HttpClientReportLocks.LOCK_PREFIX
+        + Path.of("reports").toAbsolutePath().normalize(), ResourceAccessMode.READ_WRITE)));
+  }
+
+  @DisplayName("Own report subdirectories do not need locks")
+  @Test
+  void isolatedReport() throws NoSuchMethodException {
+    // given
+    var method = Sample.class.getDeclaredMethod("isolated", HttpClientCommandLine.class,
+        HttpClientCommandLine.class);
+
+    // when
+    var result = locks.provideForMethod(List.of(), Sample.class, method);
+
+    // then
+    assertThat(result, empty());
+  }
+
+  static class Sample {
+
+    Sample(@HttpClientCommandLineParameters(files = "orders.http", report = true,
+        sharedReport = true) HttpClientCommandLine commandLine) {
+    }
+
+    void shared(@HttpClientCommandLineParameters(files = "orders.http", report = true,
+        reportPath = "target/shared", sharedReport = true) HttpClientCommandLine commandLine) {
+    }
+
+    void isolated(
+        @HttpClientCommandLineParameters(files = "orders.http", report = true)
+        HttpClientCommandLine isolated,
+        @HttpClientCommandLineParameters(files = "orders.http", sharedReport = true)
+        HttpClientCommandLine withoutReport) {
+    }
+
+  }
+
+}
@@ -0,0 +1,193 @@
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectDirectory;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectFile;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectUniqueId;
+import static org.junit.platform.testkit.engine.EventConditions.event;
+import static org.junit.platform.testkit.engine.EventConditions.finishedSuccessfully;
+import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.test;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.message;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.discovery.FilePosition;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.junit.platform.testkit.engine.EngineTestKit.Builder;
+
+@Tag("fast")
+class HttpClientTestEngineTest {
+
+  private static final String REQUESTS = """
+      ### Home page
+      GET https://example.com/
+
+      ###
+      # @name Search
+      GET https://example.com/search?q=ijhttp
+
+      ### Broken
+      GET https://example.com/broken
+      """;
+
+  private static final String SCRIPT = """
+      #!/bin/sh
+      while [ "$1" != "--report" ]; do shift; done
+      mkdir -p "$2"
+      cat > "$2/report.xml" <<'XML'
+      <?xml version="1.0" encoding="UTF-8"?>
+      <testsuites>
+        <testsuite name="orders.http" tests="3" failures="1" errors="0" skipped="0" time="1.5">
+          <testcase name="Home page" classname="orders" time="0.25"/>
+          <testcase name="Search" classname="orders" time="1.0"/>
+          <testcase name="Broken" classname="orders" time="0.25">
+            <failure message="Expected 200 but got 500"/>
+          </testcase>
+        </testsuite>
+      </testsuites>
+      XML
+      echo "Request 'Home page'"
+      exit 1
+      """;
+
+  @TempDir
+  private Path directory;
+
+  private Path file;
+  private Path script;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.writeString(directory.resolve("orders.http"), REQUESTS, StandardCharsets.UTF_8);
+    script = Files.writeString(directory.resolve("ijhttp.sh"), SCRIPT);
+    Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwx------"));
+  }
+
+  @DisplayName("Requests of an HTTP file are tests with results of the report")
+  @Test
+  void file() {
+    // when
+    var results = engine().selectors(selectFile(file.toFile())).execute();
+
+    // then
+    results.containerEvents().assertStatistics(stats -> stats.started(2).succeeded(2));
+    results.testEvents().assertStatistics(stats -> stats.started(3).succeeded(2).failed(1))
+        .assertThatEvents().haveExactly(1, event(test("request:3"),
+            finishedWithFailure(message("Expected 200 but got 500"))));
+    assertAll("Reporting entries",
+        () -> assertEquals(3, results.testEvents().reportingEntryPublished().count()),
+        () -> assertThat(results.containerEvents().reportingEntryPublished()
+            .map(event -> event.getRequiredPayload(ReportEntry.class).getKeyValuePairs()
+                .get(HttpFileDescriptor.OUTPUT_ENTRY)).toList(),
+            contains("Request 'Home page'\n")));
+  }
+
+  @DisplayName("The engine is disabled by default")
+  @Test
+  void disabled() {
+    // when
+    var results = EngineTestKit.engine(HttpClientTestEngine.ENGINE_ID)
+        .selectors(selectFile(file.toFile()), selectDirectory(directory.toFile()))
+        .configurationParameter(HttpClientTestEngine.EXECUTABLE, script.toString()).execute();
+
+    // then
+    assertAll("Disabled engine",
+        () -> assertEquals(0, results.testEvents().started().count()),
+        () -> assertEquals(1, results.containerEvents().started().count()));
+  }
+
+  @DisplayName("A directory is scanned for HTTP files")
+  @Test
+  void directory() {
+    // when
+    var results = engine().selectors(selectDirectory(directory.toFile())).execute();
+
+    // then
+    results.testEvents().assertStatistics(stats -> stats.started(3));
+  }
+
+  @DisplayName("A file position selects the request at the line")
+  @Test
+  void position() {
+    // when
+    var results = engine().selectors(selectFile(file.toFile(), FilePosition.from(7))).execute();
+
+    // then
+    results.testEvents().assertStatistics(stats -> stats.started(1).succeeded(1))
+        .assertThatEvents().haveExactly(1, event(test("request:2"), finishedSuccessfully()));
+  }
+
+  @DisplayName("A unique ID selects the request")
+  @Test
+  void uniqueId() {
+    // given
+    var uniqueId = UniqueId.forEngine(HttpClientTestEngine.ENGINE_ID)
+        .append("file", file.toAbsolutePath().normalize().toString()).append("request", "3");
+
+    // when
+    var results = engine().selectors(selectUniqueId(uniqueId)).execute();
+
+    // then
+    results.testEvents().assertStatistics(stats -> stats.started(1).failed(1));
+  }
+
+  @DisplayName("The name filter selects requests")
+  @Test
+  void nameFilter() {
+    // when
+    var results = engine().selectors(selectFile(file.toFile()))
+        .configurationParameter(HttpClientTestEngine.FILTER_NAME, "^(Home|Search)").execute();
+
+    // then
+    var names = results.testEvents().started().map(event -> event.getTestDescriptor()
+        .getDisplayName()).toList();
+
+    assertThat(names, contains("Home page", "Search"));
+  }
+
+  @DisplayName("Files run concurrently with the parallel execution")
+  @Test
+  void parallel() throws IOException {
+    // given
+    var another = directory.resolve("another");
+
+    Files.createDirectories(another);
+    Files.writeString(another.resolve("orders.http"), REQUESTS, StandardCharsets.UTF_8);
+
+    // when
+    var results = engine().selectors(selectDirectory(directory.toFile()))
+        .configurationParameter(HttpClientTestEngine.PARALLEL_EXECUTION_ENABLED, "true")
+        .configurationParameter(HttpClientTestEngine.PARALLEL_CONFIG_PREFIX + "strategy", "fixed")
+        .configurationParameter(HttpClientTestEngine.PARALLEL_CONFIG_PREFIX + "fixed.parallelism",
+            "2")
+        .execute();
+
+    // then
+    assertAll("Parallel execution",
+        () -> assertEquals(6, results.testEvents().started().count()),
+        () -> assertEquals(2, results.testEvents().failed().count()));
+  }
+
+  private Builder engine() {
+    return EngineTestKit.engine(HttpClientTestEngine.ENGINE_ID)
+        .configurationParameter(HttpClientTestEngine.ENABLED, "true")
+        .configurationParameter(HttpClientTestEngine.EXECUTABLE, script.toString())
+        .configurationParameter(HttpClientTestEngine.REPORT_PATH,
+            directory.resolve("reports").toString());
+  }
+
+}
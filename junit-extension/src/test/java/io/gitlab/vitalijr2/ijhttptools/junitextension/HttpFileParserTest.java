@@ -0,0 +1,76 @@
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import io.gitlab.vitalijr2.ijhttptools.junitextension.HttpFileParser.HttpRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class HttpFileParserTest {
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("Requests are named by separators, name tags and request lines")
+  @Test
+  void parse() throws IOException {
+    // given
+    var file = Files.writeString(directory.resolve("orders.http"), """
+        @host = example.com
+        GET https://{{host}}/ HTTP/1.1
+
+        ### Search
+        // a comment
+        GET https://{{host}}/search
+
+        ### Ignored
+        # @name Add an item
+        POST https://{{host}}/add
+        Content-Type: application/json
+
+        {}
+        ###
+        """, StandardCharsets.UTF_8);
+
+    // when
+    var requests = HttpFileParser.parse(file);
+
+    // then
+    assertThat(requests, contains(new HttpRequest(1, "GET https://{{host}}/", 2),
+        new HttpRequest(2, "Search", 6), new HttpRequest(3, "Add an item", 10)));
+  }
+
+  @DisplayName("Pre-request scripts before the request line are skipped")
+  @Test
+  void preRequestScripts() throws IOException {
+    // given
+    var file = Files.writeString(directory.resolve("orders.http"), """
+        < {%
+          request.variables.set("id", "42");
+        %}
+        GET https://example.com/orders/{{id}}
+
+        ### Search
+        < {% request.variables.set("query", "books"); %}
+        < scripts/sign.js
+        GET https://example.com/search?q={{query}}
+        < ./body.json
+        """, StandardCharsets.UTF_8);
+
+    // when
+    var requests = HttpFileParser.parse(file);
+
+    // then
+    assertThat(requests, contains(new HttpRequest(1, "GET https://example.com/orders/{{id}}", 4),
+        new HttpRequest(2, "Search", 9)));
+  }
+
+}
@@ -0,0 +1,90 @@
+package io.gitlab.vitalijr2.ijhttptools.junitextension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport.TestCase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class ReportDirectoriesTest {
+
+  private static final String REPORT = """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <testsuites>
+        <testsuite name="%1$s.http" tests="1" failures="%2$d" time="0.5">
+          <testcase name="%1$s &amp; more" time="0.5">%3$s</testcase>
+        </testsuite>
+      </testsuites>
+      """;
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("Every test gets its own subdirectory, a stale one is cleaned")
+  @Test
+  void allocate() throws IOException {
+    // given
+    var reportDirectories = new ReportDirectories(directory, false);
+    var stale = Files.createDirectories(directory.resolve("OrdersTest.orders/rerun-1"));
+
+    Files.writeString(stale.resolve("report.xml"), "stale");
+
+    // when
+    var first = reportDirectories.allocate("OrdersTest.orders");
+    var second = reportDirectories.allocate("OrdersTest.orders");
+    var third = reportDirectories.allocate("OrdersTest.orders");
+
+    reportDirectories.close();
+
+    // then
+    assertAll("Subdirectories",
+        () -> assertEquals(directory.resolve("OrdersTest.orders"), first),
+        () -> assertEquals(directory.resolve("OrdersTest.orders-2"), second),
+        () -> assertEquals(directory.resolve("OrdersTest.orders-3"), third),
+        () -> assertFalse(Files.exists(first), "stale directory"),
+        () -> assertFalse(Files.exists(directory.resolve(ReportDirectories.MERGED_REPORT)),
+            "merged report"));
+  }
+
+  @DisplayName("Reports of tests are merged when the test run is finished")
+  @Test
+  void merge() throws IOException {
+    // given
+    var reportDirectories = new ReportDirectories(directory, true);
+    var orders = Files.createDirectories(reportDirectories.allocate("OrdersTest.orders"));
+    var catalog = Files.createDirectories(reportDirectories.allocate("CatalogTest.catalog"));
+
+    reportDirectories.allocate("CatalogTest.skipped");
+    Files.writeString(orders.resolve("report.xml"), String.format(REPORT, "orders", 0, ""));
+    Files.writeString(catalog.resolve("report.xml"),
+        String.format(REPORT, "catalog", 1, "<failure message=\"Expected 200\"/>"));
+
+    // when
+    reportDirectories.close();
+
+    // then
+    var merged = Files.createDirectories(directory.resolve("merged"));
+
+    // read the merged report without reports of tests
+    Files.move(directory.resolve(ReportDirectories.MERGED_REPORT), merged.resolve("report.xml"));
+
+    var testSuites = HttpClientReport.read(merged).getTestSuites();
+
+    assertThat(testSuites.stream().flatMap(testSuite -> testSuite.testCases().stream()).toList(),
+        contains(new TestCase("orders & more", Duration.ofMillis(500), false, null),
+            new TestCase("catalog & more", Duration.ofMillis(500), true, "Expected 200")));
+  }
+
+}
@@ -0,0 +1,231 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Forwards lines of a process output to the Maven log by batches.
+ * <p>
+ * Lines of a chunk that the pump has read are collected without locks, then the batch is
+ * forwarded under the lock that is shared by all processes of the execution. Concurrent processes
+ * take the lock once per chunk instead of once per line, and lines of a chunk are not interleaved
+ * with lines of another process.
+ * <p>
+ * The memory is bounded by limits: the rest of a line longer than the line limit is not kept,
+ * and lines of a request after the request limit are not forwarded. Lines that start a request
+ * or show a response code are always forwarded. The whole output is copied as is to the spill
+ * stream. Lines are decoded as UTF-8.
+ */
+final class BatchedLogStream extends OutputStream {
+
+  /**
+   * The limit of a batch, a longer batch is forwarded before the end of the chunk.
+   */
+  static final int MAX_BATCH_SIZE = 256;
+
+  private static final int INITIAL_LINE_SIZE = 132;
+  private static final byte[] REQUEST = "Request '".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] RESPONSE_CODE = "Response code: ".getBytes(StandardCharsets.UTF_8);
+
+  private final List<String> batch = new ArrayList<>();
+  private final int lineLimit;
+  private final String linePrefix;
+  private final Object lock;
+  private final Consumer<String> logger;
+  private final int requestLimit;
+  private final OutputStream spill;
+
+  private byte[] line = new byte[INITIAL_LINE_SIZE];
+  private int length;
+  private long lineLength;
+  private long requestLength;
+  private boolean requestTruncated;
+
+  /**
+   * Create a stream without limits.
+   *
+   * @param lock       the lock that is shared by streams of the execution
+   * @param logger     the logger of lines
+   * @param linePrefix the prefix of lines
+   */
+  BatchedLogStream(@NotNull Object lock, @NotNull Consumer<String> logger,
+      @NotNull String linePrefix) {
+    this(lock, logger, linePrefix, OutputStream.nullOutputStream(), Integer.MAX_VALUE,
+        Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a stream.
+   *
+   * @param lock         the lock that is shared by streams of the execution
+   * @param logger       the logger of lines
+   * @param linePrefix   the prefix of lines
+   * @param spill        the stream that gets the whole output, it is not closed by this stream
+   * @param lineLimit    the limit of a line in bytes
+   * @param requestLimit the limit of output of a request in bytes
+   */
+  BatchedLogStream(@NotNull Object lock, @NotNull Consumer<String> logger,
+      @NotNull String linePrefix, @NotNull OutputStream spill, int lineLimit, int requestLimit) {
+    if (1 > lineLimit || 1 > requestLimit) {
+      throw new IllegalArgumentException("limits must be positive");
+    }
+    this.lineLimit = lineLimit;
+    this.linePrefix = linePrefix;
+    this.lock = lock;
+    this.logger = logger;
+    this.requestLimit = requestLimit;
+    this.spill = spill;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    spill.write(b);
+    append((byte) b);
+    forward();
+  }
+
+  @Override
+  public void write(@NotNull byte[] bytes, int offset, int count) throws IOException {
+    spill.write(bytes, offset, count);
+    for (int i = offset; i < offset + count; i++) {
+      append(bytes[i]);
+    }
+    forward();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    spill.flush();
+    forward();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (0 < lineLength) {
+      endLine();
+    }
+    flush();
+  }
+
+  private void append(byte b) {
+    if ('\n' == b) {
+      endLine();
+      return;
+    }
+    lineLength++;
+    if (length < lineLimit) {
+      if (line.length == length) {
+        line = Arrays.copyOf(line, (int) Math.min(lineLimit, 2L * line.length));
+      }
+      line[length++] = b;
+    }
+  }
+
+  private void endLine() {
+    var end = length;
+
+    if (lineLength == length && 0 < end && '\r' == line[end - 1]) {
+      end--;
+    }
+    if (startsWith(REQUEST)) {
+      requestLength = 0;
+      requestTruncated = false;
+    }
+    requestLength += lineLength;
+    if (requestLength <= requestLimit || startsWith(REQUEST) || startsWith(RESPONSE_CODE)) {
+      addLine(end);
+    } else if (!requestTruncated) {
+      requestTruncated = true;
+      add("[the rest of the request output is truncated]");
+    }
+    length = 0;
+    lineLength = 0;
+  }
+
+  private void addLine(int end) {
+    if (lineLength == length) {
+      add(new String(line, 0, end, StandardCharsets.UTF_8));
+    } else {
+      end = getCharacterBoundary(end);
+      add(new String(line, 0, end, StandardCharsets.UTF_8) + " [truncated " + (lineLength - end)
+          + " bytes]");
+    }
+  }
+
+  /**
+   * Does not split the last UTF-8 character of a truncated line.
+   */
+  private int getCharacterBoundary(int end) {
+    var start = end;
+
+    while (0 < start && 4 > end - start && 0x80 == (line[start - 1] & 0xC0)) {
+      start--;
+    }
+    if (0 < start && 0xC0 == (line[start - 1] & 0xC0)) {
+      var lead = line[start - 1];
+      var size = (0xC0 == (lead & 0xE0)) ? 2 : ((0xE0 == (lead & 0xF0)) ? 3 : 4);
+
+      if (end - start + 1 < size) {
+        return start - 1;
+      }
+    }
+
+    return end;
+  }
+
+  private void add(String text) {
+    batch.add(linePrefix + text);
+    if (MAX_BATCH_SIZE == batch.size()) {
+      forward();
+    }
+  }
+
+  private boolean startsWith(byte[] prefix) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (prefix[i] != line[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void forward() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    synchronized (lock) {
+      batch.forEach(logger);
+    }
+    batch.clear();
+  }
+
+}
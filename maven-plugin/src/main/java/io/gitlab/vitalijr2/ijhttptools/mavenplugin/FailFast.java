@@ -0,0 +1,219 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.LogOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Watches the output of HTTP Client processes for the first failed request, then kills all
+ * processes of the execution.
+ * <p>
+ * A line fails the execution if it matches one of failure patterns. The name of the failed request
+ * is taken from the named group {@code request} of the pattern, otherwise from the last line of
+ * the same stream that mentions a request like {@code Request 'name'}.
+ */
+final class FailFast {
+
+  /**
+   * Failed assertions and connection errors.
+   */
+  static final List<String> DEFAULT_PATTERNS = List.of(
+      "(?i)\\brequest\\s+'(?<request>[^']+)'.*\\bfailed\\b",
+      "(?i)\\b(?:connection refused|connect timed out|connection reset|no route to host"
+          + "|unknownhostexception)\\b");
+
+  private static final String REQUEST_GROUP = "request";
+  private static final Pattern REQUEST_PATTERN = Pattern.compile(
+      "(?i)\\brequest\\s+'(?<request>[^']+)'");
+
+  private final AtomicReference<String> failure = new AtomicReference<>();
+  private final List<Pattern> patterns;
+  private final List<Watchdog> runningWatchdogs = new CopyOnWriteArrayList<>();
+
+  /**
+   * Create a watcher.
+   *
+   * @param patterns failure patterns, regular expressions
+   * @throws IllegalArgumentException if a pattern is not valid
+   */
+  FailFast(@NotNull List<String> patterns) throws IllegalArgumentException {
+    var compiledPatterns = new ArrayList<Pattern>();
+
+    for (String pattern : patterns) {
+      try {
+        compiledPatterns.add(Pattern.compile(pattern));
+      } catch (PatternSyntaxException exception) {
+        throw new IllegalArgumentException("invalid fail-fast pattern: " + pattern, exception);
+      }
+    }
+    this.patterns = List.copyOf(compiledPatterns);
+  }
+
+  /**
+   * The failed request or the line that fails the execution.
+   *
+   * @return the failure if any
+   */
+  Optional<String> getFailure() {
+    return Optional.ofNullable(failure.get());
+  }
+
+  boolean isFailed() {
+    return nonNull(failure.get());
+  }
+
+  /**
+   * Create a watchdog that is killed on the first failure, it is killed at start if the execution
+   * has already failed.
+   * <p>
+   * Only started watchdogs are killed: {@link ExecuteWatchdog#destroyProcess()} waits for
+   * the start, and a watchdog of a skipped batch never starts.
+   *
+   * @param timeout timeout in milliseconds, {@link ExecuteWatchdog#INFINITE_TIMEOUT} for none
+   * @return the watchdog
+   */
+  ProcessTreeWatchdog newWatchdog(long timeout) {
+    return new Watchdog(timeout);
+  }
+
+  /**
+   * Wrap an output stream: bytes go to the target as is and are checked line by line.
+   *
+   * @param target the output stream
+   * @return the watching stream
+   */
+  OutputStream watch(@NotNull OutputStream target) {
+    var lines = new LineWatcher();
+
+    return new FilterOutputStream(target) {
+
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        lines.write(b);
+      }
+
+      @Override
+      public void write(byte @NotNull [] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        lines.write(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        lines.flush();
+        out.flush();
+      }
+
+    };
+  }
+
+  private void fail(String description) {
+    if (failure.compareAndSet(null, description)) {
+      runningWatchdogs.forEach(Watchdog::destroyProcess);
+    }
+  }
+
+  private class LineWatcher extends LogOutputStream {
+
+    private String lastRequest;
+
+    @Override
+    protected void processLine(String line, int logLevel) {
+      var requestMatcher = REQUEST_PATTERN.matcher(line);
+
+      if (requestMatcher.find()) {
+        lastRequest = requestMatcher.group(REQUEST_GROUP);
+      }
+      if (isFailed()) {
+        return;
+      }
+      for (Pattern pattern : patterns) {
+        var matcher = pattern.matcher(line);
+
+        if (matcher.find()) {
+          var request = getRequest(matcher);
+
+          fail(isNull(request) ? line.strip() : "request '" + request + "' failed");
+          return;
+        }
+      }
+    }
+
+    @Nullable
+    private String getRequest(Matcher matcher) {
+      try {
+        var request = matcher.group(REQUEST_GROUP);
+
+        if (nonNull(request)) {
+          return request;
+        }
+      } catch (IllegalArgumentException exception) {
+        // the pattern does not have the group
+      }
+
+      return lastRequest;
+    }
+
+  }
+
+  private class Watchdog extends ProcessTreeWatchdog {
+
+    Watchdog(long timeout) {
+      super(Duration.ofMillis(timeout));
+    }
+
+    @Override
+    public synchronized void start(Process process) {
+      super.start(process);
+      runningWatchdogs.add(this);
+      if (isFailed()) {
+        destroyProcess();
+      }
+    }
+
+    @Override
+    public synchronized void stop() {
+      runningWatchdogs.remove(this);
+      super.stop();
+    }
+
+  }
+
+}
@@ -0,0 +1,133 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.isNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SHA-256 fingerprint of values and file contents.
+ */
+final class Fingerprint {
+
+  private static final String ALGORITHM = "SHA-256";
+  private static final int BUFFER_SIZE = 8192;
+
+  private final MessageDigest digest;
+
+  Fingerprint() {
+    digest = newDigest();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException exception) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * Hash of a file content.
+   *
+   * @param file the file
+   * @return hexadecimal hash
+   * @throws IOException if the file cannot be read
+   */
+  static String hash(@NotNull Path file) throws IOException {
+    var fingerprint = new Fingerprint();
+
+    fingerprint.update(file);
+
+    return fingerprint.hex();
+  }
+
+  /**
+   * Adds a value, {@code null} differs from any string.
+   *
+   * @param value the value
+   * @return this fingerprint
+   */
+  Fingerprint add(@Nullable Object value) {
+    if (isNull(value)) {
+      digest.update((byte) 0);
+    } else {
+      var bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+
+      digest.update((byte) 1);
+      digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) ':');
+      digest.update(bytes);
+    }
+
+    return this;
+  }
+
+  /**
+   * Adds a file content, a missing file differs from any content.
+   *
+   * @param file the file
+   * @return this fingerprint
+   * @throws IOException if the file cannot be read
+   */
+  Fingerprint addFile(@Nullable Path file) throws IOException {
+    if (isNull(file) || !Files.isRegularFile(file)) {
+      return add(null);
+    }
+    digest.update((byte) 2);
+    digest.update(Long.toString(Files.size(file)).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) ':');
+    update(file);
+
+    return this;
+  }
+
+  private void update(Path file) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      var buffer = new byte[BUFFER_SIZE];
+      int count;
+
+      while (-1 != (count = inputStream.read(buffer))) {
+        digest.update(buffer, 0, count);
+      }
+    }
+  }
+
+  /**
+   * Completes the fingerprint. It is reset after that.
+   *
+   * @return hexadecimal hash
+   */
+  String hex() {
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+}
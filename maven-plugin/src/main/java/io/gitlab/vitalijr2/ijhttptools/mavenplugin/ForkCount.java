@@ -0,0 +1,92 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import java.lang.management.ManagementFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Parses the number of concurrent HTTP Client processes.
+ * <p>
+ * The value is either an integer or a number with the {@code C} suffix, e.g. {@code 1C} or
+ * {@code 0.5C}, that is multiplied by the number of processors available to the JVM. The JVM is
+ * container-aware, so the number respects CPU quotas of cgroups. A value with the {@code C}
+ * suffix is also limited by the physical or container memory to reserve
+ * {@value #FORK_MEMORY_MEGABYTES} MiB per process.
+ */
+final class ForkCount {
+
+  static final long FORK_MEMORY_MEGABYTES = 512;
+
+  private static final long FORK_MEMORY = FORK_MEMORY_MEGABYTES * 1024 * 1024;
+
+  private ForkCount() {
+  }
+
+  /**
+   * Parses the fork count with the processors and memory of the current JVM.
+   *
+   * @param value fork count, e.g. {@code 4} or {@code 1C}
+   * @return number of processes, at least one
+   * @throws IllegalArgumentException if the value is not valid
+   */
+  static int parse(@NotNull String value) throws IllegalArgumentException {
+    return parse(value, Runtime.getRuntime().availableProcessors(), getTotalMemory());
+  }
+
+  @VisibleForTesting
+  static int parse(@NotNull String value, int processors, long totalMemory)
+      throws IllegalArgumentException {
+    var trimmedValue = value.trim();
+    int forkCount;
+
+    try {
+      if (trimmedValue.endsWith("C") || trimmedValue.endsWith("c")) {
+        var factor = Double.parseDouble(trimmedValue.substring(0, trimmedValue.length() - 1));
+
+        forkCount = (int) Math.ceil(factor * processors);
+        if (0 < totalMemory) {
+          forkCount = (int) Math.min(forkCount, Math.max(1, totalMemory / FORK_MEMORY));
+        }
+      } else {
+        forkCount = Integer.parseInt(trimmedValue);
+      }
+    } catch (NumberFormatException exception) {
+      throw new IllegalArgumentException("invalid fork count: " + value, exception);
+    }
+    if (1 > forkCount) {
+      throw new IllegalArgumentException("invalid fork count: " + value);
+    }
+
+    return forkCount;
+  }
+
+  private static long getTotalMemory() {
+    var operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+
+    if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) operatingSystem).getTotalMemorySize();
+    }
+
+    return -1;
+  }
+
+}
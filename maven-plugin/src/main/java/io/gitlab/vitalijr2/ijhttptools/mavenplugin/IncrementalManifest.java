@@ -0,0 +1,170 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Content hashes of HTTP files that passed.
+ * <p>
+ * The manifest belongs to a fingerprint of global inputs: the executable, environment files and
+ * variables, and other options that change results. If the fingerprint differs, all HTTP files
+ * are run again.
+ */
+class IncrementalManifest {
+
+  private static final String FINGERPRINT = "G";
+  private static final String HEADER = "# ijhttp incremental manifest 1";
+  private static final String REQUEST_FILE = "F";
+  private static final String TAB = "\t";
+
+  private final Map<String, String> currentHashes = new HashMap<>();
+  private final String fingerprint;
+  private final Path manifestFile;
+  private final Map<String, String> passedHashes;
+
+  private IncrementalManifest(Path manifestFile, String fingerprint,
+      Map<String, String> passedHashes) {
+    this.manifestFile = manifestFile;
+    this.fingerprint = fingerprint;
+    this.passedHashes = passedHashes;
+  }
+
+  /**
+   * Loads the manifest. A missing or broken manifest, or a manifest of another fingerprint, is
+   * empty.
+   *
+   * @param manifestFile path to the manifest file
+   * @param fingerprint  fingerprint of global inputs
+   * @return the manifest
+   */
+  static IncrementalManifest load(@NotNull Path manifestFile, @NotNull String fingerprint) {
+    var passedHashes = new HashMap<String, String>();
+
+    try {
+      var lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+
+      if (2 <= lines.size() && HEADER.equals(lines.get(0)) && lines.get(1)
+          .equals(FINGERPRINT + TAB + fingerprint)) {
+        for (String line : lines.subList(2, lines.size())) {
+          var fields = line.split(TAB, 3);
+
+          if (3 != fields.length || !REQUEST_FILE.equals(fields[0])) {
+            passedHashes.clear();
+            break;
+          }
+          passedHashes.put(fields[2], fields[1]);
+        }
+      }
+    } catch (NoSuchFileException exception) {
+      // the first run
+    } catch (IOException exception) {
+      passedHashes.clear();
+    }
+
+    return new IncrementalManifest(manifestFile, fingerprint, passedHashes);
+  }
+
+  private static String key(Path requestFile) {
+    return requestFile.toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * Selects HTTP files that have been changed or have not passed yet.
+   *
+   * @param requestFiles all HTTP files
+   * @return HTTP files to run, in the original order
+   * @throws IOException if a file cannot be read
+   */
+  List<Path> select(@NotNull List<Path> requestFiles) throws IOException {
+    var selectedFiles = new ArrayList<Path>();
+
+    for (Path requestFile : requestFiles) {
+      var key = key(requestFile);
+      var hash = Fingerprint.hash(requestFile);
+
+      currentHashes.put(key, hash);
+      if (!hash.equals(passedHashes.get(key))) {
+        selectedFiles.add(requestFile);
+      }
+    }
+
+    return selectedFiles;
+  }
+
+  /**
+   * Saves the manifest: unchanged passed files and just passed files, other entries are dropped.
+   *
+   * @param passedFiles HTTP files passed by this run
+   * @throws IOException if the manifest cannot be written
+   */
+  void save(@NotNull Collection<Path> passedFiles) throws IOException {
+    var passedKeys = new HashSet<String>();
+    var lines = new ArrayList<String>();
+
+    passedFiles.forEach(passedFile -> passedKeys.add(key(passedFile)));
+    lines.add(HEADER);
+    lines.add(FINGERPRINT + TAB + fingerprint);
+    currentHashes.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+      var hash = entry.getValue();
+
+      if (passedKeys.contains(entry.getKey()) || hash.equals(passedHashes.get(entry.getKey()))) {
+        lines.add(String.join(TAB, REQUEST_FILE, hash, entry.getKey()));
+      }
+    });
+
+    var directory = manifestFile.toAbsolutePath().getParent();
+
+    if (nonNull(directory)) {
+      Files.createDirectories(directory);
+    }
+
+    var temporaryFile = Files.createTempFile(directory, manifestFile.getFileName().toString(),
+        ".tmp");
+
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      try {
+        Files.move(temporaryFile, manifestFile, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException exception) {
+        Files.move(temporaryFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+}
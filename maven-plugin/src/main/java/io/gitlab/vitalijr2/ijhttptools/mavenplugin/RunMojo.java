@@ -22,23 +22,29 @@ package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
 import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
 import io.gitlab.vitalijr2.ijhttptools.cli.LogLevel;
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
+import io.gitlab.vitalijr2.ijhttptools.cli.TimeoutHistory;
+import io.gitlab.vitalijr2.ijhttptools.cli.VirtualThreadStreamHandler;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
-import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
-import org.apache.commons.exec.LogOutputStream;
-import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -85,29 +91,75 @@ import org.jetbrains.annotations.VisibleForTesting;
 @Mojo(name = "run", defaultPhase = LifecyclePhase.INTEGRATION_TEST, requiresProject = false)
 public class RunMojo extends AbstractMojo {
 
+  private static final String DEFAULT_SPILL_FILE = "output.log";
+  private static final String DEFAULT_STATE_DIRECTORY = "target/ijhttp";
+  private static final String INCREMENTAL_MANIFEST = "incremental.manifest";
+  private static final String TIMEOUT_HISTORY = "timeouts.history";
+  private static final String UP_TO_DATE_FINGERPRINT = "up-to-date.fingerprint";
+
+  private boolean adaptiveTimeout;
+  private File applicationArtifact;
+  private Integer argumentLimit;
+  private File baseDirectory;
+  private File cdsArchive;
   private Integer connectTimeout;
+  private boolean daemon;
+  private Integer daemonIdleTimeout;
   private List<File> directories;
+  private File discoveryIndex;
+  private File distribution;
   private boolean dockerMode;
   private File environmentFile;
   private List<String> environmentVariables;
   private String environmentName;
+  private List<String> excludes;
   private String executable;
+  private boolean failFast;
+  private List<String> failFastPatterns;
   private List<File> files;
+  private boolean forceFullRun;
+  private String forkCount;
+  private List<String> includes;
+  private boolean incremental;
   private boolean insecure;
+  private String javaExecutable;
+  private List<String> jvmOptions;
   private LogLevel logLevel;
+  private Integer logLineLimit;
+  private Integer logRequestLimit;
+  private File logSpillFile;
+  private String mainClass;
+  private Integer maxTimeout;
+  private boolean outputCompression;
   private File outputFile;
+  private Long outputSegmentSize;
+  private boolean parallelDiscovery;
   private File privateEnvironmentFile;
   private List<String> privateEnvironmentVariables;
   private String proxy;
   private boolean quietLogs;
   private boolean report;
   private File reportPath;
+  private Integer rerunFailingCount;
+  private LogLevel rerunLogLevel;
+  private Integer shardCount;
+  private Integer shardIndex;
   private boolean skip;
+  private boolean skipIfUpToDate;
   private Integer socketTimeout;
+  private File stateDirectory;
+  private boolean threadDump;
   private Integer timeout;
+  private Double timeoutFactor;
+  private Integer timeoutPercentile;
   private boolean useMavenLogger;
   private File workingDirectory;
 
+  private final Map<Executor, Long> executorTimeouts = new ConcurrentHashMap<>();
+  private final Object logLock = new Object();
+  private FailFast failFastWatcher;
+  private TimeoutHistory timeoutHistory;
+
   /**
    * Run HTTP requests.
    *
@@ -122,27 +174,51 @@ public class RunMojo extends AbstractMojo {
     }
 
     try {
-      var commandLine = getCommandLine();
-      var executor = getExecutor();
+      failFastWatcher = failFast ? getFailFastWatcher() : null;
+      timeoutHistory = adaptiveTimeout ? getTimeoutHistory() : null;
+      if (daemon && (nonNull(timeout) || adaptiveTimeout)) {
+        getLog().warn("Daemon runs cannot be killed, the timeout is not applied");
+      }
+      if (threadDump && !report) {
+        getLog().warn("Thread dumps go to the report path, they need the report");
+      }
+      if ((nonNull(logLineLimit) && 1 > logLineLimit)
+          || (nonNull(logRequestLimit) && 1 > logRequestLimit)) {
+        throw new MojoExecutionException("log limits must be positive");
+      }
+      if (nonNull(outputSegmentSize) && 1 > outputSegmentSize) {
+        throw new MojoExecutionException("the output segment size must be positive");
+      }
 
-      if (getLog().isDebugEnabled()) {
-        getLog().debug("Executing command line: " + commandLine);
+      var requestFiles = getHttpClientCommandLine(0).getRequestFiles();
+
+      if (requestFiles.isEmpty()) {
+        throw new MojoExecutionException("HTTP files not found");
       }
-      try {
-        runHttpClient(commandLine, executor);
-      } catch (ExecuteException exception) {
-        if (nonNull(executor.getWatchdog()) && executor.getWatchdog().killedProcess()) {
-          var message = "Timeout. Process runs longer that " + timeout + " ms.";
-
-          getLog().error(message);
-          throw new MojoExecutionException(message);
-        } else {
-          var message = "Execution failed: " + exception.getMessage();
-
-          getLog().error(message, exception);
-          throw new MojoExecutionException(message, exception);
+      if (nonNull(shardIndex) || nonNull(shardCount)) {
+        requestFiles = selectShard(requestFiles);
+        if (requestFiles.isEmpty()) {
+          getLog().info(String.format("No HTTP files for the shard %d of %d", shardIndex,
+              shardCount));
+          return;
         }
       }
+
+      var upToDateFingerprint = skipIfUpToDate ? getUpToDateFingerprint(requestFiles) : null;
+
+      if (!forceFullRun && nonNull(upToDateFingerprint)
+          && upToDateFingerprint.equals(readUpToDateFingerprint())) {
+        getLog().info("skipping execute: inputs are not changed since the last successful run");
+        return;
+      }
+      if (incremental) {
+        runIncrementally(requestFiles);
+      } else {
+        getRuns().run(requestFiles, getForkCount(), new ArrayList<>());
+      }
+      if (nonNull(upToDateFingerprint)) {
+        saveStateFile(UP_TO_DATE_FINGERPRINT, upToDateFingerprint);
+      }
     } catch (IOException exception) {
       var message = new StringBuilder("I/O Error");
 
@@ -151,9 +227,77 @@ public class RunMojo extends AbstractMojo {
       }
       getLog().warn(message);
       throw new MojoExecutionException(message.toString(), exception);
+    } finally {
+      saveTimeoutHistory();
+      saveCdsArchive();
     }
   }
 
+  /**
+   * Derives the {@link #setTimeout(Integer) timeout} of every command line from durations of its
+   * previous successful runs: the {@link #setTimeoutPercentile(Integer) percentile} of durations
+   * multiplied by the {@link #setTimeoutFactor(Double) safety factor}, but not more than the
+   * {@link #setMaxTimeout(Integer) hard cap}. A command line without history gets the timeout or
+   * the hard cap. The history is kept in the {@link #setStateDirectory(File) state directory}, a
+   * run that takes 80% of its timeout or more is reported as a warning. Defaults to
+   * <em>false</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.adaptive-timeout", defaultValue = "false")
+  public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+    this.adaptiveTimeout = adaptiveTimeout;
+  }
+
+  /**
+   * The application artifact under test, its content is a part of the
+   * {@link #setSkipIfUpToDate(boolean) up-to-date check}. Defaults to the artifact file of the
+   * project if it is already packaged, e.g. there is none for the {@code pom} packaging.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.application-artifact", defaultValue = "${project.artifact.file}")
+  public void setApplicationArtifact(File applicationArtifact) {
+    this.applicationArtifact = applicationArtifact;
+  }
+
+  /**
+   * The maximum length of a command line. HTTP files that do not fit one command line are run by
+   * several HTTP Client invocations one after another, the report of the batch <em>N</em> goes to
+   * the subdirectory {@code batch-N} of the report folder. Defaults to <em>32767</em> characters
+   * on Windows, on other systems to <em>128 KiB</em> minus the size of the environment.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.argument-limit")
+  public void setArgumentLimit(Integer argumentLimit) {
+    this.argumentLimit = argumentLimit;
+  }
+
+  /**
+   * The base directory of the project, paths of HTTP files are relative to it when they are
+   * {@link #setShardIndex(Integer) partitioned between CI nodes}.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(defaultValue = "${basedir}", readonly = true)
+  public void setBaseDirectory(File baseDirectory) {
+    this.baseDirectory = baseDirectory;
+  }
+
+  /**
+   * AppCDS archive of HTTP Client classes in the {@link #setDistribution(File) JVM launch mode}.
+   * If the archive exists it cuts the startup time of every HTTP Client process, otherwise it is
+   * created by the first run. The archive is tied to the JVM and the jars of the distribution:
+   * delete it after their update. Disabled by default.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.cds-archive")
+  public void setCdsArchive(File cdsArchive) {
+    this.cdsArchive = cdsArchive;
+  }
+
   /**
    * Number of milliseconds for connection. Defaults to <em>3000</em>.
    */
@@ -162,6 +306,36 @@ public class RunMojo extends AbstractMojo {
     this.connectTimeout = connectTimeout;
   }
 
+  /**
+   * Sends command lines to a long-lived daemon that keeps HTTP Client warm, instead of starting a
+   * new process for every run. Defaults to <em>false</em>.
+   * <p>
+   * The daemon runs HTTP Client in its own JVM: it needs the
+   * {@link #setDistribution(File) distribution}, runs requests one by one and does not apply the
+   * {@link #setTimeout(Integer) timeout}. It is started on demand, listens to a Unix domain socket
+   * in the temporary directory and is shared by all builds of the user with the same distribution.
+   * Java 24 and later are not supported.
+   *
+   * @see #setDaemonIdleTimeout(Integer)
+   * @see DaemonExecutor
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.daemon", defaultValue = "false")
+  public void setDaemon(boolean daemon) {
+    this.daemon = daemon;
+  }
+
+  /**
+   * The daemon stops when there are no requests for this time in milliseconds. Defaults to
+   * <em>3 hours</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.daemon-idle-timeout")
+  public void setDaemonIdleTimeout(Integer daemonIdleTimeout) {
+    this.daemonIdleTimeout = daemonIdleTimeout;
+  }
+
   /**
    * Directories to look up HTTP files. At least one {@code file} or {@code directory} is required.
    * <p>
@@ -181,6 +355,40 @@ public class RunMojo extends AbstractMojo {
     this.directories = directories;
   }
 
+  /**
+   * File of the persistent discovery index. Only changed directories are listed again on the next
+   * build, unchanged ones cost a single {@code stat} call. The index is a cache: it is safe to
+   * delete, a broken file is rebuilt. Disabled by default.
+   * <pre><code class="language-xml">
+   *   &lt;discoveryIndex&gt;
+   *     ${project.build.directory}/ijhttp/discovery.index
+   *   &lt;/discoveryIndex&gt;
+   * </code></pre>
+   *
+   * @see #setDirectories(List)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.discovery-index")
+  public void setDiscoveryIndex(File discoveryIndex) {
+    this.discoveryIndex = discoveryIndex;
+  }
+
+  /**
+   * Home of the HTTP Client distribution, the directory with the {@code ijhttp} script and the
+   * {@code lib} directory. With the distribution the JVM of HTTP Client is started directly with
+   * {@link #setJvmOptions(List) tuned options}, the {@link #setExecutable(String) executable} is
+   * not used.
+   *
+   * @see #setCdsArchive(File)
+   * @see #setJavaExecutable(String)
+   * @see #setMainClass(String)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.distribution")
+  public void setDistribution(File distribution) {
+    this.distribution = distribution;
+  }
+
   /**
    * Enables Docker mode. Treat {@code localhost} as {@code host.docker.internal}. Defaults to
    * <em>false</em>.
@@ -224,6 +432,25 @@ public class RunMojo extends AbstractMojo {
     this.environmentName = environmentName;
   }
 
+  /**
+   * Glob patterns of HTTP files to skip, relative to a directory. A directory that matches a
+   * pattern ending with {@code /**} is not traversed at all.
+   * <pre><code class="language-xml">
+   *   &lt;excludes&gt;
+   *     &lt;exclude&gt;**&#47;target/**&lt;/exclude&gt;
+   *     &lt;exclude&gt;**&#47;node_modules/**&lt;/exclude&gt;
+   *   &lt;/excludes&gt;
+   * </code></pre>
+   *
+   * @see #setDirectories(List)
+   * @see #setIncludes(List)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.excludes")
+  public void setExcludes(List<String> excludes) {
+    this.excludes = excludes;
+  }
+
   /**
    * The executable. Can be a full path or the name of the executable.
    */
@@ -232,6 +459,43 @@ public class RunMojo extends AbstractMojo {
     this.executable = executable;
   }
 
+  /**
+   * Fails the execution on the first failed request. Defaults to <em>false</em>.
+   * <p>
+   * The output of HTTP Client is watched for failed assertions and connection errors, the first
+   * one kills HTTP Client processes of all shards, remaining batches are skipped. The execution
+   * fails with the name of the failed request.
+   *
+   * @see #setFailFastPatterns(List)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.fail-fast", defaultValue = "false")
+  public void setFailFast(boolean failFast) {
+    this.failFast = failFast;
+  }
+
+  /**
+   * Regular expressions of output lines that fail the execution in the
+   * {@link #setFailFast(boolean) fail-fast mode}. A line fails the execution if a part of it
+   * matches a pattern. The named group {@code request} gives the name of the failed request,
+   * otherwise it is the last request that the output mentions as {@code Request 'name'}.
+   * <p>
+   * Defaults to lines like {@code Request 'name' ... failed} and connection errors:
+   * <em>connection refused</em>, <em>connect timed out</em>, <em>connection reset</em>,
+   * <em>no route to host</em> and <em>UnknownHostException</em>.
+   * <pre><code class="language-xml">
+   *   &lt;failFastPatterns&gt;
+   *     &lt;failFastPattern&gt;(?i)\bassertion failed\b&lt;/failFastPattern&gt;
+   *   &lt;/failFastPatterns&gt;
+   * </code></pre>
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.fail-fast-patterns")
+  public void setFailFastPatterns(List<String> failFastPatterns) {
+    this.failFastPatterns = failFastPatterns;
+  }
+
   /**
    * HTTP file paths. At least one {@code file} or {@code directory} is required.
    * <p>
@@ -249,6 +513,74 @@ public class RunMojo extends AbstractMojo {
     this.files = files;
   }
 
+  /**
+   * Runs all HTTP files in the {@link #setIncremental(boolean) incremental mode} and ignores the
+   * {@link #setSkipIfUpToDate(boolean) up-to-date check}. Defaults to <em>false</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.force-full-run", defaultValue = "false")
+  public void setForceFullRun(boolean forceFullRun) {
+    this.forceFullRun = forceFullRun;
+  }
+
+  /**
+   * Number of HTTP Client processes to run concurrently. Defaults to <em>1</em>.
+   * <p>
+   * HTTP files are distributed between processes, every process writes its report to the own
+   * subdirectory {@code shard-N} of the report path and its output to the own file
+   * {@code <output-file>-shard-N.<extension>}. The build fails if at least one process fails.
+   * <p>
+   * The longest files go first to the least loaded process. Durations of files are taken from the
+   * JUnit XML report of the previous run in the report path, without the report the size of a file
+   * is its weight.
+   * <p>
+   * The value is either an integer or a number with the {@code C} suffix that is multiplied by
+   * the number of processors available to the JVM, e.g. {@code 1C}. That number respects CPU
+   * quotas of containers, also it is limited by the container memory.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.fork-count", defaultValue = "1")
+  public void setForkCount(String forkCount) {
+    this.forkCount = forkCount;
+  }
+
+  /**
+   * Glob patterns of HTTP files to look up, relative to a directory. Defaults to all HTTP files.
+   * <pre><code class="language-xml">
+   *   &lt;includes&gt;
+   *     &lt;include&gt;**&#47;smoke/**&#47;*.http&lt;/include&gt;
+   *   &lt;/includes&gt;
+   * </code></pre>
+   *
+   * @see #setDirectories(List)
+   * @see #setExcludes(List)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.includes")
+  public void setIncludes(List<String> includes) {
+    this.includes = includes;
+  }
+
+  /**
+   * Runs only HTTP files that have been changed or have not passed since the last run. Defaults
+   * to <em>false</em>.
+   * <p>
+   * The manifest of content hashes of passed files is kept in the
+   * {@link #setStateDirectory(File) state directory}. All files are run again if the executable,
+   * environment files, environment variables or other options that change results are changed.
+   * Files that the HTTP files reference, e.g. request bodies, are not tracked. With
+   * {@code forkCount} or batches, files of a failed process are considered failed.
+   *
+   * @see #setForceFullRun(boolean)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.incremental", defaultValue = "false")
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
   /**
    * Allow insecure SSL connection. Defaults to <em>false</em>.
    */
@@ -257,6 +589,35 @@ public class RunMojo extends AbstractMojo {
     this.insecure = insecure;
   }
 
+  /**
+   * The Java executable of the {@link #setDistribution(File) JVM launch mode}. Defaults to
+   * {@code java} of the Maven runtime.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.java-executable")
+  public void setJavaExecutable(String javaExecutable) {
+    this.javaExecutable = javaExecutable;
+  }
+
+  /**
+   * JVM options of the {@link #setDistribution(File) JVM launch mode}, they replace the default
+   * options for short runs: {@code -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto}.
+   * <pre><code class="language-xml">
+   *   &lt;jvmOptions&gt;
+   *     &lt;jvmOption&gt;-XX:TieredStopAtLevel=1&lt;/jvmOption&gt;
+   *     &lt;jvmOption&gt;-XX:+UseSerialGC&lt;/jvmOption&gt;
+   *     &lt;jvmOption&gt;-Xmx256m&lt;/jvmOption&gt;
+   *   &lt;/jvmOptions&gt;
+   * </code></pre>
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.jvm-options")
+  public void setJvmOptions(List<String> jvmOptions) {
+    this.jvmOptions = jvmOptions;
+  }
+
   /**
    * Logging level: BASIC, HEADERS, VERBOSE. Defaults to <em>BASIC</em>.
    */
@@ -265,6 +626,72 @@ public class RunMojo extends AbstractMojo {
     this.logLevel = logLevel;
   }
 
+  /**
+   * The limit of a line in bytes that is forwarded to the
+   * {@link #setUseMavenLogger(boolean) Maven logger}, the rest of a longer line is truncated. It
+   * keeps huge response bodies of the {@code VERBOSE} logging level out of the build log and the
+   * Maven heap.
+   * <p>
+   * With a limit the whole output goes to the {@link #setLogSpillFile(File) spill file}.
+   *
+   * @see #setLogRequestLimit(Integer)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.log-line-limit")
+  public void setLogLineLimit(Integer logLineLimit) {
+    this.logLineLimit = logLineLimit;
+  }
+
+  /**
+   * The limit of output of a request in bytes that is forwarded to the
+   * {@link #setUseMavenLogger(boolean) Maven logger}, the rest of the request output is truncated.
+   * Lines that start a request or show a response code are forwarded anyway.
+   * <p>
+   * With a limit the whole output goes to the {@link #setLogSpillFile(File) spill file}.
+   *
+   * @see #setLogLineLimit(Integer)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.log-request-limit")
+  public void setLogRequestLimit(Integer logRequestLimit) {
+    this.logRequestLimit = logRequestLimit;
+  }
+
+  /**
+   * The file that gets the whole output when {@link #setLogLineLimit(Integer) log limits}
+   * truncate it in the Maven logger. Defaults to {@code target/ijhttp/output.log}.
+   * Forked processes and batches write own files with the suffix {@code -shard-N},
+   * reruns with the suffix {@code -rerun-N}.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.log-spill-file")
+  public void setLogSpillFile(File logSpillFile) {
+    this.logSpillFile = logSpillFile;
+  }
+
+  /**
+   * The main class of HTTP Client in the {@link #setDistribution(File) JVM launch mode}. Defaults
+   * to the main class of the {@code ijhttp} script.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.main-class")
+  public void setMainClass(String mainClass) {
+    this.mainClass = mainClass;
+  }
+
+  /**
+   * The hard cap of {@link #setAdaptiveTimeout(boolean) adaptive timeouts} in milliseconds.
+   * Defaults to <em>1 hour</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.max-timeout")
+  public void setMaxTimeout(Integer maxTimeout) {
+    this.maxTimeout = maxTimeout;
+  }
+
   /**
    * Program standard and error output will be redirected to the file specified by this optional
    * field. If not enabled the traditional behavior of program output being directed to standard
@@ -277,6 +704,44 @@ public class RunMojo extends AbstractMojo {
     this.outputFile = outputFile;
   }
 
+  /**
+   * Compress the {@link #setOutputFile(File) output file} by gzip on the fly, the file gets
+   * the suffix {@code .gz}. Defaults to <em>false</em>.
+   *
+   * @see #setOutputSegmentSize(Long)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.output-compression", defaultValue = "false")
+  public void setOutputCompression(boolean outputCompression) {
+    this.outputCompression = outputCompression;
+  }
+
+  /**
+   * Split the {@link #setOutputFile(File) output file} into segments of this size in bytes
+   * of uncompressed output. Segments are {@code <output-file>.1}, {@code <output-file>.2}
+   * and so on, the index {@code <output-file>.index} lists segments with offsets and lengths
+   * of their content. A segment ends at the first line end after this size.
+   *
+   * @see #setOutputCompression(boolean)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.output-segment-size")
+  public void setOutputSegmentSize(Long outputSegmentSize) {
+    this.outputSegmentSize = outputSegmentSize;
+  }
+
+  /**
+   * Scans directories concurrently. Found files are sorted to keep the command line stable.
+   * Defaults to <em>false</em>.
+   *
+   * @see #setDirectories(List)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.parallel-discovery", defaultValue = "false")
+  public void setParallelDiscovery(boolean parallelDiscovery) {
+    this.parallelDiscovery = parallelDiscovery;
+  }
+
   /**
    * Name of the private environment file, e.g. {@code http-client.private.env.json}.
    */
@@ -338,6 +803,66 @@ public class RunMojo extends AbstractMojo {
     this.reportPath = reportPath;
   }
 
+  /**
+   * How many times to rerun failed HTTP files. Defaults to <em>0</em>.
+   * <p>
+   * With the {@link #setReport(boolean) report} only failed HTTP files are run again, otherwise
+   * all HTTP files of failed processes. The report of the rerun <em>N</em> goes to the
+   * subdirectory {@code rerun-N} of the report path, the output to the file
+   * {@code <output-file>-rerun-N.<extension>}. Files that pass on a rerun are logged as flaky.
+   * There are no reruns in the {@link #setFailFast(boolean) fail-fast mode} after the failure.
+   *
+   * @see #setRerunLogLevel(LogLevel)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.rerun-failing-count")
+  public void setRerunFailingCount(Integer rerunFailingCount) {
+    this.rerunFailingCount = rerunFailingCount;
+  }
+
+  /**
+   * Logging level of reruns: BASIC, HEADERS, VERBOSE. Defaults to the
+   * {@link #setLogLevel(LogLevel) logging level} of the run. With <em>VERBOSE</em> failed requests
+   * get diagnostics without verbose output of the whole run.
+   *
+   * @see #setRerunFailingCount(Integer)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.rerun-log-level")
+  public void setRerunLogLevel(LogLevel rerunLogLevel) {
+    this.rerunLogLevel = rerunLogLevel;
+  }
+
+  /**
+   * Number of CI nodes to distribute HTTP files between.
+   *
+   * @see #setShardIndex(Integer)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.shard-count")
+  public void setShardCount(Integer shardCount) {
+    this.shardCount = shardCount;
+  }
+
+  /**
+   * Index of the current CI node, starting from <em>1</em>, e.g. {@code CI_NODE_INDEX} of GitLab
+   * CI. The node runs only its part of HTTP files.
+   * <p>
+   * Files are sorted by their paths relative to the project directory, then balanced by their
+   * sizes. Every node gets the same partition regardless of its file system order, checkout
+   * location and local reports, the union of all shards covers every file exactly once.
+   * <pre><code class="language-shell">
+   *   mvn verify -Dijhttp.shard-index=$CI_NODE_INDEX -Dijhttp.shard-count=$CI_NODE_TOTAL
+   * </code></pre>
+   *
+   * @see #setShardCount(Integer)
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.shard-index")
+  public void setShardIndex(Integer shardIndex) {
+    this.shardIndex = shardIndex;
+  }
+
   /**
    * Skip the execution. Defaults to <em>false</em>.
    */
@@ -346,6 +871,23 @@ public class RunMojo extends AbstractMojo {
     this.skip = skip;
   }
 
+  /**
+   * Skips the execution if inputs are not changed since the last successful run. Defaults to
+   * <em>false</em>.
+   * <p>
+   * Inputs are HTTP files, the executable, environment files and variables, the
+   * {@link #setApplicationArtifact(File) application artifact} and other options, including
+   * the ones that shape the run: the incremental mode, reruns, fail-fast and the timeout. Their
+   * fingerprint is kept in the {@link #setStateDirectory(File) state directory}. The
+   * {@link #setForceFullRun(boolean) full run} is never skipped.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.skip-if-up-to-date", defaultValue = "false")
+  public void setSkipIfUpToDate(boolean skipIfUpToDate) {
+    this.skipIfUpToDate = skipIfUpToDate;
+  }
+
   /**
    * Number of milliseconds for socket read. Defaults to <em>10000</em>.
    */
@@ -354,6 +896,31 @@ public class RunMojo extends AbstractMojo {
     this.socketTimeout = socketTimeout;
   }
 
+  /**
+   * Directory to keep the state between runs, e.g. the manifest of the
+   * {@link #setIncremental(boolean) incremental mode}.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.state-directory",
+      defaultValue = "${project.build.directory}/ijhttp")
+  public void setStateDirectory(File stateDirectory) {
+    this.stateDirectory = stateDirectory;
+  }
+
+  /**
+   * Captures thread dumps of the client JVM by {@code jcmd} before it is killed by the
+   * {@link #setTimeout(Integer) timeout}, they go to the report path as
+   * {@code thread-dump-<pid>.txt}. Dumps need the {@link #setReport(boolean) report} and delay
+   * the kill by up to 10 seconds. Defaults to <em>false</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.thread-dump", defaultValue = "false")
+  public void setThreadDump(boolean threadDump) {
+    this.threadDump = threadDump;
+  }
+
   /**
    * Number of milliseconds for execution.
    */
@@ -362,6 +929,29 @@ public class RunMojo extends AbstractMojo {
     this.timeout = timeout;
   }
 
+  /**
+   * The safety factor of {@link #setAdaptiveTimeout(boolean) adaptive timeouts}, not less than 1.
+   * Defaults to <em>2.0</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.timeout-factor")
+  public void setTimeoutFactor(Double timeoutFactor) {
+    this.timeoutFactor = timeoutFactor;
+  }
+
+  /**
+   * The percentile of observed durations for
+   * {@link #setAdaptiveTimeout(boolean) adaptive timeouts}, from 1 to 100. Defaults to
+   * <em>95</em>.
+   *
+   * @since 1.3.0
+   */
+  @Parameter(property = "ijhttp.timeout-percentile")
+  public void setTimeoutPercentile(Integer timeoutPercentile) {
+    this.timeoutPercentile = timeoutPercentile;
+  }
+
   /**
    * When enabled, program standard and error output will be redirected to the Maven logger as
    * <em>Info</em> and <em>Error</em> level logs, respectively. If not enabled the traditional
@@ -384,19 +974,159 @@ public class RunMojo extends AbstractMojo {
     this.workingDirectory = workingDirectory;
   }
 
+  private FailFast getFailFastWatcher() throws MojoExecutionException {
+    try {
+      return new FailFast((isNull(failFastPatterns) || failFastPatterns.isEmpty())
+          ? FailFast.DEFAULT_PATTERNS : failFastPatterns);
+    } catch (IllegalArgumentException exception) {
+      throw new MojoExecutionException(exception.getMessage(), exception);
+    }
+  }
+
+  private TimeoutHistory getTimeoutHistory() throws MojoExecutionException {
+    try {
+      return TimeoutHistory.load(getStateFile(TIMEOUT_HISTORY),
+          nonNull(timeoutPercentile) ? timeoutPercentile : TimeoutHistory.DEFAULT_PERCENTILE,
+          nonNull(timeoutFactor) ? timeoutFactor : TimeoutHistory.DEFAULT_FACTOR,
+          nonNull(maxTimeout) ? Duration.ofMillis(maxTimeout)
+              : TimeoutHistory.DEFAULT_MAX_TIMEOUT);
+    } catch (IllegalArgumentException exception) {
+      throw new MojoExecutionException(exception.getMessage(), exception);
+    }
+  }
+
+  private void saveTimeoutHistory() {
+    if (nonNull(timeoutHistory)) {
+      try {
+        timeoutHistory.save();
+      } catch (IOException exception) {
+        getLog().warn("Could not save the timeout history: " + exception.getMessage());
+      }
+    }
+  }
+
+  private void saveCdsArchive() {
+    if (nonNull(distribution) && nonNull(cdsArchive)) {
+      var httpClientCommandLine = new HttpClientCommandLine();
+
+      httpClientCommandLine.cdsArchive(cdsArchive.toPath());
+      try {
+        if (httpClientCommandLine.saveCdsArchive()) {
+          getLog().info("AppCDS archive is created: " + cdsArchive);
+        }
+      } catch (IOException exception) {
+        getLog().warn("Could not save the AppCDS archive: " + exception.getMessage());
+      }
+    }
+  }
+
+  private List<Path> selectShard(List<Path> requestFiles) throws MojoExecutionException {
+    if (isNull(shardIndex) || isNull(shardCount)) {
+      throw new MojoExecutionException("both shard index and shard count are required");
+    }
+    if (1 > shardCount || 1 > shardIndex || shardIndex > shardCount) {
+      throw new MojoExecutionException(
+          String.format("invalid shard: %d of %d", shardIndex, shardCount));
+    }
+
+    // local reports differ between nodes, only file sizes give the same partition everywhere
+    var selectedFiles = Shards.select(requestFiles, shardIndex, shardCount,
+        nonNull(baseDirectory) ? baseDirectory.toPath() : Path.of(""),
+        Shards.weights(requestFiles, null));
+
+    getLog().info(String.format("Shard %d of %d: %d of %d HTTP files", shardIndex, shardCount,
+        selectedFiles.size(), requestFiles.size()));
+
+    return selectedFiles;
+  }
+
+  private void runIncrementally(List<Path> requestFiles)
+      throws IOException, MojoExecutionException {
+    var forkCount = getForkCount();
+    var manifest = IncrementalManifest.load(getStateFile(INCREMENTAL_MANIFEST), getFingerprint());
+    var passedFiles = new ArrayList<Path>();
+    var selectedFiles = manifest.select(requestFiles);
+
+    if (!forceFullRun) {
+      getLog().info(String.format("Incremental mode: %d of %d HTTP files are changed",
+          selectedFiles.size(), requestFiles.size()));
+      if (selectedFiles.isEmpty()) {
+        return;
+      }
+      requestFiles = selectedFiles;
+    }
+    try {
+      getRuns().run(requestFiles, forkCount, passedFiles);
+    } finally {
+      saveManifest(manifest, passedFiles);
+    }
+  }
+
+  private Runs getRuns() {
+    return new Runs(getLog(), new Runs.Launcher() {
+
+      @Override
+      public List<CommandLine> getCommandLines(int rerun, List<Path> requestFiles,
+          File shardReportPath) throws IOException, MojoExecutionException {
+        return RunMojo.this.getCommandLines(rerun, requestFiles, shardReportPath);
+      }
+
+      @Override
+      public Executor getExecutor() throws IOException, MojoExecutionException {
+        return RunMojo.this.getExecutor();
+      }
+
+      @Override
+      public void runHttpClient(int rerun, CommandLine commandLine, Executor executor,
+          File logFile, boolean appendLogFile, String name) throws IOException {
+        RunMojo.this.runHttpClient(rerun, commandLine, executor, logFile, appendLogFile, name);
+      }
+
+      @Override
+      public String getTimeout(Executor executor) {
+        return RunMojo.this.getTimeout(executor);
+      }
+
+    }, failFastWatcher, rerunFailingCount, report, reportPath, outputFile);
+  }
+
   @VisibleForTesting
   CommandLine getCommandLine() throws IOException, MojoExecutionException {
+    return getHttpClientCommandLine(0).getCommandLine();
+  }
+
+  private List<CommandLine> getCommandLines(int rerun, List<Path> requestFiles,
+      File shardReportPath) throws IOException, MojoExecutionException {
+    var httpClientCommandLine = getHttpClientCommandLine(rerun);
+
+    httpClientCommandLine.directories();
+    httpClientCommandLine.files(requestFiles.toArray(Path[]::new));
+    if (nonNull(shardReportPath)) {
+      httpClientCommandLine.reportPath(shardReportPath.toPath());
+    }
+    if (nonNull(argumentLimit)) {
+      httpClientCommandLine.argumentLimit(argumentLimit);
+    }
+
+    return httpClientCommandLine.getCommandLines();
+  }
+
+  /**
+   * The command line of the run, reruns have own report paths and the log level.
+   */
+  private HttpClientCommandLine getHttpClientCommandLine(int rerun)
+      throws MojoExecutionException {
     var httpClientCommandLine = new HttpClientCommandLine();
 
     environment(httpClientCommandLine);
     executable(httpClientCommandLine);
     files(httpClientCommandLine);
-    flags(httpClientCommandLine);
-    logLevel(httpClientCommandLine);
+    flags(httpClientCommandLine, rerun);
+    logLevel(httpClientCommandLine, rerun);
     proxy(httpClientCommandLine);
     timeouts(httpClientCommandLine);
 
-    return httpClientCommandLine.getCommandLine();
+    return httpClientCommandLine;
   }
 
   private void environment(HttpClientCommandLine httpClientCommandLine) {
@@ -419,6 +1149,21 @@ public class RunMojo extends AbstractMojo {
 
   private void executable(HttpClientCommandLine httpClientCommandLine) {
     httpClientCommandLine.executable(executable);
+    if (nonNull(distribution)) {
+      httpClientCommandLine.distribution(distribution.toPath());
+      if (nonNull(cdsArchive)) {
+        httpClientCommandLine.cdsArchive(cdsArchive.toPath());
+      }
+      if (nonNull(javaExecutable)) {
+        httpClientCommandLine.javaExecutable(javaExecutable);
+      }
+      if (nonNull(jvmOptions) && !jvmOptions.isEmpty()) {
+        httpClientCommandLine.jvmOptions(jvmOptions.toArray(new String[0]));
+      }
+      if (nonNull(mainClass)) {
+        httpClientCommandLine.mainClass(mainClass);
+      }
+    }
   }
 
   private void files(HttpClientCommandLine httpClientCommandLine) throws MojoExecutionException {
@@ -428,23 +1173,36 @@ public class RunMojo extends AbstractMojo {
     if (nonNull(directories)) {
       httpClientCommandLine.directories(
           directories.stream().map(File::toPath).toArray(Path[]::new));
+      httpClientCommandLine.parallelDiscovery(parallelDiscovery);
+      if (nonNull(discoveryIndex)) {
+        httpClientCommandLine.discoveryIndex(discoveryIndex.toPath());
+      }
+      if (nonNull(includes)) {
+        httpClientCommandLine.includes(includes.toArray(new String[0]));
+      }
+      if (nonNull(excludes)) {
+        httpClientCommandLine.excludes(excludes.toArray(new String[0]));
+      }
     }
     if (nonNull(files)) {
       httpClientCommandLine.files(files.stream().map(File::toPath).toArray(Path[]::new));
     }
   }
 
-  private void flags(HttpClientCommandLine httpClientCommandLine) {
+  private void flags(HttpClientCommandLine httpClientCommandLine, int rerun) {
+    var runReportPath = Runs.getRerunReportPath(reportPath, rerun);
+
     httpClientCommandLine.dockerMode(dockerMode);
     httpClientCommandLine.insecure(insecure);
     httpClientCommandLine.report(report);
-    if (nonNull(reportPath)) {
-      httpClientCommandLine.reportPath(reportPath.toPath());
+    if (nonNull(runReportPath)) {
+      httpClientCommandLine.reportPath(runReportPath.toPath());
     }
   }
 
-  private void logLevel(HttpClientCommandLine httpClientCommandLine) {
-    httpClientCommandLine.logLevel(logLevel);
+  private void logLevel(HttpClientCommandLine httpClientCommandLine, int rerun) {
+    httpClientCommandLine.logLevel(
+        (0 < rerun && nonNull(rerunLogLevel)) ? rerunLogLevel : logLevel);
   }
 
   private void proxy(HttpClientCommandLine httpClientCommandLine) {
@@ -462,8 +1220,28 @@ public class RunMojo extends AbstractMojo {
     }
   }
 
+  private int getForkCount() throws MojoExecutionException {
+    if (isNull(forkCount)) {
+      return 1;
+    }
+    try {
+      return ForkCount.parse(forkCount);
+    } catch (IllegalArgumentException exception) {
+      throw new MojoExecutionException(exception.getMessage(), exception);
+    }
+  }
+
   @VisibleForTesting
   Executor getExecutor() throws IOException, MojoExecutionException {
+    if (daemon) {
+      if (isNull(distribution)) {
+        throw new MojoExecutionException("the daemon mode needs the distribution");
+      }
+
+      return new DaemonExecutor(distribution.toPath(), mainClass,
+          nonNull(daemonIdleTimeout) ? Duration.ofMillis(daemonIdleTimeout) : null);
+    }
+
     var builder = DefaultExecutor.builder();
 
     handleWorkingDirectory(builder);
@@ -476,16 +1254,44 @@ public class RunMojo extends AbstractMojo {
   }
 
   private void handleWatchdog(DefaultExecutor executor) {
-    if (nonNull(timeout)) {
-      var watchdog = ExecuteWatchdog.builder().setTimeout(Duration.ofMillis(timeout)).get();
-
-      executor.setWatchdog(watchdog);
+    if (nonNull(timeoutHistory)) {
+      // the adaptive watchdog is set right before the run, see execute(CommandLine, Executor)
+      return;
+    }
+    if (nonNull(failFastWatcher)) {
+      executor.setWatchdog(
+          newWatchdog(nonNull(timeout) ? timeout : ExecuteWatchdog.INFINITE_TIMEOUT));
+      if (getLog().isDebugEnabled()) {
+        getLog().debug(nonNull(timeout)
+            ? String.format("Set the fail-fast watchdog (%s) ms", timeout)
+            : "Set the fail-fast watchdog without timeout");
+      }
+    } else if (nonNull(timeout)) {
+      executor.setWatchdog(newWatchdog(timeout));
       if (getLog().isDebugEnabled()) {
         getLog().debug(String.format("Set the watchdog (%s) ms", timeout));
       }
     }
   }
 
+  private ExecuteWatchdog newWatchdog(long timeout) {
+    var watchdog = nonNull(failFastWatcher) ? failFastWatcher.newWatchdog(timeout)
+        : new ProcessTreeWatchdog(Duration.ofMillis(timeout));
+
+    if (threadDump && report) {
+      watchdog.setThreadDumpDirectory(
+          (nonNull(reportPath) ? reportPath : new File(Runs.DEFAULT_REPORT_PATH)).toPath());
+    }
+
+    return watchdog;
+  }
+
+  private String getTimeout(Executor executor) {
+    var executorTimeout = executorTimeouts.get(executor);
+
+    return String.valueOf(nonNull(executorTimeout) ? executorTimeout : timeout);
+  }
+
   @SuppressWarnings("rawtypes")
   private void handleWorkingDirectory(DefaultExecutor.Builder builder)
       throws IOException, MojoExecutionException {
@@ -503,59 +1309,242 @@ public class RunMojo extends AbstractMojo {
     }
   }
 
-  private void runHttpClient(CommandLine commandLine, Executor executor) throws IOException {
-    if (nonNull(outputFile)) {
-      if (!outputFile.getParentFile().exists() && !outputFile.getParentFile().mkdirs()) {
+  private void saveManifest(IncrementalManifest manifest, List<Path> passedFiles) {
+    try {
+      manifest.save(passedFiles);
+    } catch (IOException exception) {
+      getLog().warn("Could not save the incremental manifest: " + exception.getMessage());
+    }
+  }
+
+  private Path getStateFile(String name) {
+    return (nonNull(stateDirectory) ? stateDirectory : new File(DEFAULT_STATE_DIRECTORY)).toPath()
+        .resolve(name);
+  }
+
+  private String readUpToDateFingerprint() {
+    try {
+      return Files.readString(getStateFile(UP_TO_DATE_FINGERPRINT), StandardCharsets.UTF_8)
+          .strip();
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  private void saveStateFile(String name, String content) {
+    var stateFile = getStateFile(name);
+
+    try {
+      Files.createDirectories(stateFile.getParent());
+      Files.writeString(stateFile, content, StandardCharsets.UTF_8);
+    } catch (IOException exception) {
+      getLog().warn("Could not save the state file " + stateFile + ": " + exception.getMessage());
+    }
+  }
+
+  /**
+   * Fingerprint of all inputs: global ones, HTTP files, the application artifact, report options
+   * and options that shape the run.
+   */
+  private String getUpToDateFingerprint(List<Path> requestFiles) throws IOException {
+    var fingerprint = new Fingerprint().add(getFingerprint());
+
+    for (Path requestFile : requestFiles) {
+      fingerprint.add(requestFile.toAbsolutePath().normalize()).add(Fingerprint.hash(requestFile));
+    }
+    fingerprint.addFile(nonNull(applicationArtifact) ? applicationArtifact.toPath() : null)
+        .add(report).add(reportPath).add(outputFile).add(logLevel).add(forkCount)
+        .add(incremental).add(forceFullRun).add(rerunFailingCount).add(failFast)
+        .add(failFastPatterns).add(timeout).add(adaptiveTimeout);
+
+    return fingerprint.hex();
+  }
+
+  /**
+   * Fingerprint of global inputs that change results of all HTTP files.
+   */
+  private String getFingerprint() throws IOException {
+    var fingerprint = new Fingerprint();
+
+    addExecutable(fingerprint);
+    fingerprint.add(environmentName).add(environmentVariables).add(privateEnvironmentVariables)
+        .addFile(nonNull(environmentFile) ? environmentFile.toPath() : null)
+        .addFile(nonNull(privateEnvironmentFile) ? privateEnvironmentFile.toPath() : null)
+        .add(proxy).add(dockerMode).add(insecure).add(connectTimeout).add(socketTimeout)
+        .add(nonNull(distribution) ? distribution.getAbsolutePath() : null).add(mainClass);
+
+    return fingerprint.hex();
+  }
+
+  /**
+   * Identifies the executable by its real path, size and modification time: its content can be
+   * huge.
+   */
+  private void addExecutable(Fingerprint fingerprint) throws IOException {
+    var executablePath = findExecutable();
+
+    if (isNull(executablePath)) {
+      fingerprint.add(executable);
+    } else {
+      fingerprint.add(executablePath.toRealPath()).add(Files.size(executablePath))
+          .add(Files.getLastModifiedTime(executablePath).toMillis());
+    }
+  }
+
+  private Path findExecutable() {
+    var executableName = isNull(executable) ? "ijhttp" : executable;
+    var executablePath = Path.of(executableName);
+
+    if (1 < executablePath.getNameCount() || executablePath.isAbsolute()) {
+      if (!executablePath.isAbsolute() && nonNull(workingDirectory)) {
+        executablePath = workingDirectory.toPath().resolve(executablePath);
+      }
+      return Files.isRegularFile(executablePath) ? executablePath : null;
+    }
+
+    var path = System.getenv("PATH");
+
+    if (nonNull(path)) {
+      for (String directory : path.split(File.pathSeparator)) {
+        if (!directory.isEmpty()) {
+          var candidate = Path.of(directory, executableName);
+
+          if (Files.isRegularFile(candidate)) {
+            return candidate;
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * The spill file of a process when log limits are set, reruns and forked processes
+   * have own files.
+   */
+  private File getSpillFile(int rerun, String name) {
+    if (isNull(logLineLimit) && isNull(logRequestLimit)) {
+      return null;
+    }
+
+    var spillFile = Runs.getRerunFile(nonNull(logSpillFile) ? logSpillFile
+        : new File(DEFAULT_STATE_DIRECTORY, DEFAULT_SPILL_FILE), rerun);
+
+    return name.isEmpty() ? spillFile : Runs.getSuffixedFile(spillFile, name.replace('/', '-'));
+  }
+
+  private OutputStream newOutputFileStream(File logFile, boolean appendLogFile)
+      throws IOException {
+    if (outputCompression || nonNull(outputSegmentSize)) {
+      return new SegmentedOutputStream(logFile.toPath(), outputCompression,
+          nonNull(outputSegmentSize) ? outputSegmentSize : Long.MAX_VALUE, appendLogFile);
+    }
+
+    return new BufferedOutputStream(new FileOutputStream(logFile, appendLogFile));
+  }
+
+  private OutputStream newSpillStream(File spillFile) throws IOException {
+    Files.createDirectories(spillFile.getAbsoluteFile().getParentFile().toPath());
+
+    return new BufferedOutputStream(new FileOutputStream(spillFile));
+  }
+
+  private void runHttpClient(int rerun, CommandLine commandLine, Executor executor,
+      File logFile, boolean appendLogFile, String name) throws IOException {
+    var linePrefix = name.isEmpty() ? "" : "[" + name + "] ";
+
+    if (nonNull(logFile)) {
+      if (!logFile.getParentFile().exists() && !logFile.getParentFile().mkdirs()) {
         getLog().warn(
-            "Could not create non existing parent directories for the log file: " + outputFile);
+            "Could not create non existing parent directories for the log file: " + logFile);
       }
-      var outputStream = new FileOutputStream(outputFile);
-      executor.setStreamHandler(new PumpStreamHandler(new BufferedOutputStream(outputStream)));
+      var outputStream = newOutputFileStream(logFile, appendLogFile);
+      executor.setStreamHandler(
+          new VirtualThreadStreamHandler(watch(outputStream), watch(outputStream)));
       if (getLog().isDebugEnabled()) {
-        getLog().debug("Will redirect program output to the log file: " + outputFile);
+        getLog().debug("Will redirect program output to the log file: " + logFile);
       }
       try (outputStream) {
         executor.getStreamHandler().start();
-        executor.execute(commandLine);
+        execute(commandLine, executor);
       } finally {
         executor.getStreamHandler().stop();
       }
     } else if (useMavenLogger) {
-      var loggerErrStream = new LogOutputStream() {
-        @Override
-        protected void processLine(String line, int logLevel) {
-          getLog().error(line);
-        }
-      };
-      var loggerOutStream = new LogOutputStream() {
-        @Override
-        protected void processLine(String line, int logLevel) {
-          if (quietLogs) {
-            getLog().debug(line);
-          } else {
-            getLog().info(line);
-          }
-        }
-      };
-      executor.setStreamHandler(new PumpStreamHandler(loggerOutStream, loggerErrStream));
+      var spillFile = getSpillFile(rerun, name);
+      var spillStream = nonNull(spillFile) ? newSpillStream(spillFile)
+          : OutputStream.nullOutputStream();
+      var lineLimit = nonNull(logLineLimit) ? logLineLimit : Integer.MAX_VALUE;
+      var requestLimit = nonNull(logRequestLimit) ? logRequestLimit : Integer.MAX_VALUE;
+      var loggerErrStream = new BatchedLogStream(logLock, getLog()::error, linePrefix,
+          spillStream, lineLimit, requestLimit);
+      var loggerOutStream = new BatchedLogStream(logLock,
+          quietLogs ? getLog()::debug : getLog()::info, linePrefix, spillStream, lineLimit,
+          requestLimit);
+      executor.setStreamHandler(
+          new VirtualThreadStreamHandler(watch(loggerOutStream), watch(loggerErrStream)));
       if (getLog().isDebugEnabled()) {
         getLog().debug("Will redirect program output to Maven logger");
       }
-      try (loggerErrStream; loggerOutStream) {
+      if (nonNull(spillFile)) {
+        getLog().info(String.format("%sThe whole output goes to the spill file: %s", linePrefix,
+            spillFile));
+      }
+      try (spillStream; loggerErrStream; loggerOutStream) {
         executor.getStreamHandler().start();
-        executor.execute(commandLine);
+        execute(commandLine, executor);
       } finally {
         executor.getStreamHandler().stop();
       }
     } else {
-      executor.setStreamHandler(new PumpStreamHandler());
+      executor.setStreamHandler(
+          new VirtualThreadStreamHandler(watch(System.out), watch(System.err)));
       try {
         executor.getStreamHandler().start();
-        executor.execute(commandLine);
+        execute(commandLine, executor);
       } finally {
         executor.getStreamHandler().stop();
       }
     }
   }
 
+  /**
+   * Runs a command line, with {@link #setAdaptiveTimeout(boolean) adaptive timeouts} the watchdog
+   * is set by the history of the command line and the duration of a successful run is recorded.
+   */
+  private void execute(CommandLine commandLine, Executor executor) throws IOException {
+    if (isNull(timeoutHistory)) {
+      executor.execute(commandLine);
+      return;
+    }
+
+    var key = String.join(" ", commandLine.toStrings());
+    var adaptiveTimeout = timeoutHistory.getTimeout(key,
+        nonNull(timeout) ? Duration.ofMillis(timeout) : null);
+
+    executor.setWatchdog(newWatchdog(adaptiveTimeout.toMillis()));
+    executorTimeouts.put(executor, adaptiveTimeout.toMillis());
+    if (getLog().isDebugEnabled()) {
+      getLog().debug(
+          String.format("Set the adaptive watchdog (%d) ms", adaptiveTimeout.toMillis()));
+    }
+
+    var start = System.nanoTime();
+
+    executor.execute(commandLine);
+
+    var duration = Duration.ofNanos(System.nanoTime() - start);
+
+    if (TimeoutHistory.isCloseToLimit(duration, adaptiveTimeout)) {
+      getLog().warn(String.format("The run took %d ms, it is close to the timeout %d ms",
+          duration.toMillis(), adaptiveTimeout.toMillis()));
+    }
+    timeoutHistory.record(key, duration);
+  }
+
+  private OutputStream watch(OutputStream outputStream) {
+    return nonNull(failFastWatcher) ? failFastWatcher.watch(outputStream) : outputStream;
+  }
+
 }
@@ -0,0 +1,453 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs HTTP files: splits them into shards of parallel processes, runs batches of a process one
+ * after another, and reruns failed files.
+ * <p>
+ * Every rerun has its own number, the first run is <em>0</em>. The report of the rerun
+ * <em>N</em> goes to the subdirectory {@code rerun-N} of the report path, the output to the file
+ * {@code <output-file>-rerun-N.<extension>}.
+ */
+final class Runs {
+
+  static final String DEFAULT_REPORT_PATH = "reports";
+
+  private static final String RERUN_PREFIX = "rerun-";
+
+  private final FailFast failFast;
+  private final Launcher launcher;
+  private final Log log;
+  private final File outputFile;
+  private final boolean report;
+  private final File reportPath;
+  private final Integer rerunFailingCount;
+
+  /**
+   * Create runs.
+   *
+   * @param log               Maven logger
+   * @param launcher          starts HTTP Client processes
+   * @param failFast          fail-fast watcher, optional
+   * @param rerunFailingCount how many times to rerun failed files, optional
+   * @param report            whether HTTP Client writes the report
+   * @param reportPath        the report path, optional
+   * @param outputFile        the output file, optional
+   */
+  Runs(@NotNull Log log, @NotNull Launcher launcher, @Nullable FailFast failFast,
+      @Nullable Integer rerunFailingCount, boolean report, @Nullable File reportPath,
+      @Nullable File outputFile) {
+    this.failFast = failFast;
+    this.launcher = launcher;
+    this.log = log;
+    this.outputFile = outputFile;
+    this.report = report;
+    this.reportPath = reportPath;
+    this.rerunFailingCount = rerunFailingCount;
+  }
+
+  /**
+   * The file of the rerun: the same file for the first run, with the suffix {@code -rerun-N} for
+   * the rerun <em>N</em>.
+   *
+   * @param file  a file
+   * @param rerun number of the rerun
+   * @return the file of the rerun
+   */
+  static File getRerunFile(@NotNull File file, int rerun) {
+    return (0 < rerun) ? getSuffixedFile(file, RERUN_PREFIX + rerun) : file;
+  }
+
+  /**
+   * The report path of the rerun, reruns have own subdirectories.
+   *
+   * @param reportPath the report path, optional
+   * @param rerun      number of the rerun
+   * @return the report path of the rerun, {@code null} if the report path is not set for the first
+   * run
+   */
+  @Nullable
+  static File getRerunReportPath(@Nullable File reportPath, int rerun) {
+    return (0 < rerun) ? new File(nonNull(reportPath) ? reportPath : new File(DEFAULT_REPORT_PATH),
+        RERUN_PREFIX + rerun) : reportPath;
+  }
+
+  /**
+   * Adds the suffix to the file name before its extension.
+   *
+   * @param file   a file
+   * @param suffix the suffix
+   * @return the suffixed file
+   */
+  static File getSuffixedFile(@NotNull File file, @NotNull String suffix) {
+    var fileName = file.getName();
+    var extensionIndex = fileName.lastIndexOf('.');
+    var suffixedFileName = (0 < extensionIndex) ? fileName.substring(0, extensionIndex) + '-'
+        + suffix + fileName.substring(extensionIndex) : fileName + '-' + suffix;
+
+    return new File(file.getParentFile(), suffixedFileName);
+  }
+
+  /**
+   * Runs HTTP files and reruns failed ones.
+   *
+   * @param requestFiles HTTP files
+   * @param forkCount    maximum number of parallel processes
+   * @param passedFiles  collects files that passed, also when the run fails
+   * @throws IOException            if an I/O error happens
+   * @throws MojoExecutionException if files still fail after all reruns
+   */
+  void run(@NotNull List<Path> requestFiles, int forkCount, @NotNull List<Path> passedFiles)
+      throws IOException, MojoExecutionException {
+    var runFiles = requestFiles;
+
+    for (int rerun = 0; ; rerun++) {
+      var since = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+      var runPassedFiles = new ArrayList<Path>();
+
+      try {
+        runOnce(rerun, runFiles, forkCount, runPassedFiles);
+        if (0 < rerun) {
+          log.warn(String.format("HTTP files passed on the rerun %d: %s", rerun, runFiles));
+        }
+        return;
+      } catch (MojoExecutionException exception) {
+        if (isNull(rerunFailingCount) || rerun >= rerunFailingCount || (nonNull(failFast)
+            && failFast.isFailed())) {
+          throw exception;
+        }
+        runFiles = getFailedFiles(rerun, runFiles, runPassedFiles, since);
+        log.info(String.format("Rerun %d of failed HTTP files: %s", rerun + 1, runFiles));
+      } finally {
+        passedFiles.addAll(runPassedFiles);
+      }
+    }
+  }
+
+  /**
+   * Failed HTTP files of the run: files of failed processes, with the report only failed ones.
+   */
+  private List<Path> getFailedFiles(int rerun, List<Path> requestFiles, List<Path> passedFiles,
+      Instant since) throws IOException {
+    var failedFiles = requestFiles.stream()
+        .filter(requestFile -> !passedFiles.contains(requestFile)).toList();
+
+    if (!report) {
+      return failedFiles;
+    }
+
+    var runReportPath = getRerunReportPath(reportPath, rerun);
+    var runReport = HttpClientReport.read(
+        (nonNull(runReportPath) ? runReportPath : new File(DEFAULT_REPORT_PATH)).toPath(), since);
+    var reportFailedFiles = runReport.getFailedFiles(failedFiles);
+
+    return reportFailedFiles.isEmpty() ? failedFiles : reportFailedFiles;
+  }
+
+  private void runOnce(int rerun, List<Path> requestFiles, int forkCount, List<Path> passedFiles)
+      throws IOException, MojoExecutionException {
+    var shards = (1 < forkCount && 1 < requestFiles.size()) ? Shards.split(requestFiles,
+        forkCount, getWeights(requestFiles)) : List.of(requestFiles);
+
+    if (1 < shards.size()) {
+      runShards(rerun, shards, passedFiles);
+    } else {
+      runSingleProcess(rerun, requestFiles);
+      passedFiles.addAll(requestFiles);
+    }
+  }
+
+  private ToLongFunction<Path> getWeights(List<Path> requestFiles) {
+    HttpClientReport history = null;
+
+    try {
+      history = HttpClientReport.read(
+          (nonNull(reportPath) ? reportPath : new File(DEFAULT_REPORT_PATH)).toPath());
+    } catch (IOException exception) {
+      log.warn("Could not read the previous report: " + exception.getMessage());
+    }
+
+    return Shards.weights(requestFiles, history);
+  }
+
+  private void runSingleProcess(int rerun, List<Path> requestFiles)
+      throws IOException, MojoExecutionException {
+    var commandLines = launcher.getCommandLines(rerun, requestFiles, null);
+
+    if (1 < commandLines.size()) {
+      runBatches(rerun, commandLines);
+      return;
+    }
+
+    var commandLine = commandLines.get(0);
+    var executor = launcher.getExecutor();
+
+    if (log.isDebugEnabled()) {
+      log.debug("Executing command line: " + commandLine);
+    }
+    try {
+      launcher.runHttpClient(rerun, commandLine, executor, getRunOutputFile(rerun), false, "");
+    } catch (ExecuteException exception) {
+      reportKilledProcesses(executor, "");
+      checkFailFast();
+      if (nonNull(executor.getWatchdog()) && executor.getWatchdog().killedProcess()) {
+        var message = "Timeout. Process runs longer that " + launcher.getTimeout(executor)
+            + " ms.";
+
+        log.error(message);
+        throw new MojoExecutionException(message);
+      } else {
+        var message = "Execution failed: " + exception.getMessage();
+
+        log.error(message, exception);
+        throw new MojoExecutionException(message, exception);
+      }
+    }
+    checkFailFast();
+  }
+
+  private void runBatches(int rerun, List<CommandLine> commandLines)
+      throws IOException, MojoExecutionException {
+    var failures = runShard(rerun, "", commandLines, getExecutors(commandLines.size()),
+        getRunOutputFile(rerun));
+
+    checkFailFast();
+    if (!failures.isEmpty()) {
+      var message = String.format("Execution failed: %d of %d batches failed: %s",
+          failures.size(), commandLines.size(), String.join(", ", failures));
+
+      log.error(message);
+      throw new MojoExecutionException(message);
+    }
+  }
+
+  private void runShards(int rerun, List<List<Path>> shards, List<Path> passedFiles)
+      throws IOException, MojoExecutionException {
+    var tasks = new ArrayList<Callable<List<String>>>();
+
+    // prepare executors one by one because they can create the working directory
+    for (int i = 0; i < shards.size(); i++) {
+      var name = "shard-" + (i + 1);
+      var commandLines = launcher.getCommandLines(rerun, shards.get(i),
+          report ? getShardReportPath(rerun, name) : null);
+      var executors = getExecutors(commandLines.size());
+      var shardOutputFile = nonNull(outputFile) ? getSuffixedFile(getRunOutputFile(rerun), name)
+          : null;
+
+      tasks.add(() -> runShard(rerun, name, commandLines, executors, shardOutputFile));
+    }
+
+    var threadPool = Executors.newFixedThreadPool(tasks.size());
+    var failedShards = 0;
+    var failures = new ArrayList<String>();
+
+    try {
+      var results = threadPool.invokeAll(tasks);
+
+      for (int i = 0; i < results.size(); i++) {
+        var shardFailures = results.get(i).get();
+
+        if (shardFailures.isEmpty()) {
+          passedFiles.addAll(shards.get(i));
+        } else {
+          failedShards++;
+          failures.addAll(shardFailures);
+        }
+      }
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof IOException) {
+        throw (IOException) exception.getCause();
+      }
+      throw new MojoExecutionException("Execution failed: " + exception.getCause().getMessage(),
+          exception.getCause());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Execution interrupted", exception);
+    } finally {
+      threadPool.shutdownNow();
+    }
+    checkFailFast();
+    if (!failures.isEmpty()) {
+      var message = String.format("Execution failed: %d of %d shards failed: %s", failedShards,
+          shards.size(), String.join(", ", failures));
+
+      log.error(message);
+      throw new MojoExecutionException(message);
+    }
+  }
+
+  private List<Executor> getExecutors(int count) throws IOException, MojoExecutionException {
+    var executors = new ArrayList<Executor>();
+
+    for (int i = 0; i < count; i++) {
+      executors.add(launcher.getExecutor());
+    }
+
+    return executors;
+  }
+
+  /**
+   * Runs batches of a shard one after another, the output of all batches goes to the same log
+   * file.
+   *
+   * @return failures, empty if all batches succeed
+   */
+  private List<String> runShard(int rerun, String shardName, List<CommandLine> commandLines,
+      List<Executor> executors, File logFile) throws IOException {
+    var failures = new ArrayList<String>();
+
+    for (int i = 0; i < commandLines.size(); i++) {
+      var name = (1 == commandLines.size()) ? shardName
+          : (shardName.isEmpty() ? "" : shardName + '/') + "batch-" + (i + 1);
+      var executor = executors.get(i);
+
+      if (nonNull(failFast) && failFast.isFailed()) {
+        failures.add(name + " (skipped)");
+        continue;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("Executing command line (%s): %s", name, commandLines.get(i)));
+      }
+      try {
+        launcher.runHttpClient(rerun, commandLines.get(i), executor, logFile, 0 < i, name);
+      } catch (ExecuteException exception) {
+        reportKilledProcesses(executor, "[" + name + "] ");
+        if (nonNull(failFast) && failFast.isFailed()) {
+          failures.add(name + " (fail fast)");
+        } else if (nonNull(executor.getWatchdog()) && executor.getWatchdog().killedProcess()) {
+          failures.add(name + " (timeout " + launcher.getTimeout(executor) + " ms)");
+        } else {
+          failures.add(name + " (" + exception.getMessage() + ")");
+        }
+      }
+    }
+
+    return failures;
+  }
+
+  private void checkFailFast() throws MojoExecutionException {
+    if (nonNull(failFast) && failFast.getFailure().isPresent()) {
+      var message = "Fail fast: " + failFast.getFailure().get();
+
+      log.error(message);
+      throw new MojoExecutionException(message);
+    }
+  }
+
+  private void reportKilledProcesses(Executor executor, String linePrefix) {
+    if (executor.getWatchdog() instanceof ProcessTreeWatchdog watchdog) {
+      watchdog.getThreadDumps().forEach(threadDump -> log.warn(
+          String.format("%sThread dump of the timed-out HTTP Client: %s", linePrefix,
+              threadDump)));
+      if (0 < watchdog.getReapedCount()) {
+        log.warn(String.format("%sReaped %d processes of the killed HTTP Client", linePrefix,
+            watchdog.getReapedCount()));
+      }
+    }
+  }
+
+  @Nullable
+  private File getRunOutputFile(int rerun) {
+    return nonNull(outputFile) ? getRerunFile(outputFile, rerun) : null;
+  }
+
+  private File getShardReportPath(int rerun, String name) {
+    var runReportPath = getRerunReportPath(reportPath, rerun);
+
+    return new File(nonNull(runReportPath) ? runReportPath : new File(DEFAULT_REPORT_PATH), name);
+  }
+
+  /**
+   * Starts HTTP Client processes of runs.
+   */
+  interface Launcher {
+
+    /**
+     * Command lines of a process, there are several ones if arguments are split into batches.
+     *
+     * @param rerun           number of the rerun
+     * @param requestFiles    HTTP files of the process
+     * @param shardReportPath the report path of the shard, optional
+     * @return command lines
+     * @throws IOException            if an I/O error happens
+     * @throws MojoExecutionException if the configuration is wrong
+     */
+    List<CommandLine> getCommandLines(int rerun, @NotNull List<Path> requestFiles,
+        @Nullable File shardReportPath) throws IOException, MojoExecutionException;
+
+    /**
+     * A new executor, every process has its own one.
+     *
+     * @return the executor
+     * @throws IOException            if an I/O error happens
+     * @throws MojoExecutionException if the configuration is wrong
+     */
+    Executor getExecutor() throws IOException, MojoExecutionException;
+
+    /**
+     * Runs a command line.
+     *
+     * @param rerun         number of the rerun
+     * @param commandLine   the command line
+     * @param executor      the executor
+     * @param logFile       the output file, optional
+     * @param appendLogFile whether to append the output file
+     * @param name          name of the process, empty for the single one
+     * @throws IOException if the process fails
+     */
+    void runHttpClient(int rerun, @NotNull CommandLine commandLine, @NotNull Executor executor,
+        @Nullable File logFile, boolean appendLogFile, @NotNull String name) throws IOException;
+
+    /**
+     * The timeout of the executor in milliseconds, for messages.
+     *
+     * @param executor the executor
+     * @return the timeout
+     */
+    String getTimeout(@NotNull Executor executor);
+
+  }
+
+}
@@ -0,0 +1,266 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Output file that is compressed by gzip on the fly and split into segments by size.
+ * <p>
+ * Without the segment size the output goes to the single file {@code <name>.gz}. With the segment
+ * size the output goes to files {@code <name>.1}, {@code <name>.2} and so on, the suffix
+ * {@code .gz} is added if they are compressed. A segment is closed at the first line end after
+ * it holds the segment size, so lines are not split between segments. The index
+ * {@code <name>.index} lists segments with offsets and lengths of their uncompressed content.
+ * Appended output starts a new gzip member of the single file, or a new segment. Segments of the
+ * previous output are deleted if the output is not appended.
+ */
+final class SegmentedOutputStream extends OutputStream {
+
+  static final String GZIP_EXTENSION = ".gz";
+  static final String INDEX_EXTENSION = ".index";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte LINE_END = '\n';
+  private static final String HEADER = "# ijhttp output index 1";
+  private static final String SEGMENT = "S";
+  private static final String TAB = "\t";
+
+  private final boolean compress;
+  private final Path file;
+  private final Path indexFile;
+  private final long segmentSize;
+  private final List<Segment> segments = new ArrayList<>();
+
+  private boolean lineEnded;
+  private OutputStream segment;
+  private long segmentLength;
+
+  /**
+   * Create a stream.
+   *
+   * @param file        the output file
+   * @param compress    compress segments by gzip
+   * @param segmentSize the size of uncompressed content of a segment, {@link Long#MAX_VALUE} for
+   *                    the single file
+   * @param append      append the output to existing segments
+   * @throws IOException if the first segment cannot be opened
+   */
+  SegmentedOutputStream(@NotNull Path file, boolean compress, long segmentSize, boolean append)
+      throws IOException {
+    if (1 > segmentSize) {
+      throw new IllegalArgumentException("segment size must be positive");
+    }
+    this.compress = compress;
+    this.file = file;
+    this.indexFile = file.resolveSibling(file.getFileName() + INDEX_EXTENSION);
+    this.segmentSize = segmentSize;
+    if (isSegmented()) {
+      readIndex(append);
+    }
+    openSegment(append && !isSegmented());
+  }
+
+  private static List<Segment> readIndex(Path indexFile) throws IOException {
+    var lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+    var segments = new ArrayList<Segment>();
+
+    if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+      throw new IOException("broken index of the output file: " + indexFile);
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      var fields = line.split(TAB, 4);
+
+      if (4 != fields.length || !SEGMENT.equals(fields[0])) {
+        throw new IOException("broken index of the output file: " + indexFile);
+      }
+      try {
+        segments.add(new Segment(fields[1], Long.parseLong(fields[2]),
+            Long.parseLong(fields[3])));
+      } catch (NumberFormatException exception) {
+        throw new IOException("broken index of the output file: " + indexFile, exception);
+      }
+    }
+
+    return segments;
+  }
+
+  @Override
+  public synchronized void write(int b) throws IOException {
+    checkOpen();
+    rotate();
+    segment.write(b);
+    segmentLength++;
+    lineEnded = LINE_END == (byte) b;
+  }
+
+  /**
+   * Bytes up to the segment size go to the current segment as is, then up to the line end.
+   */
+  @Override
+  public synchronized void write(@NotNull byte[] bytes, int offset, int count)
+      throws IOException {
+    Objects.checkFromIndexSize(offset, count, bytes.length);
+    checkOpen();
+    while (0 < count) {
+      rotate();
+
+      var length = (segmentSize > segmentLength)
+          ? (int) Math.min(count, segmentSize - segmentLength)
+          : getLineLength(bytes, offset, count);
+
+      segment.write(bytes, offset, length);
+      segmentLength += length;
+      lineEnded = LINE_END == bytes[offset + length - 1];
+      offset += length;
+      count -= length;
+    }
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (nonNull(segment)) {
+      segment.flush();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closeSegment();
+  }
+
+  private static int getLineLength(byte[] bytes, int offset, int count) {
+    for (int i = offset; i < offset + count; i++) {
+      if (LINE_END == bytes[i]) {
+        return i - offset + 1;
+      }
+    }
+
+    return count;
+  }
+
+  private void checkOpen() throws IOException {
+    if (isNull(segment)) {
+      throw new IOException("stream closed");
+    }
+  }
+
+  private boolean isSegmented() {
+    return Long.MAX_VALUE != segmentSize;
+  }
+
+  /**
+   * Continues segments of the index, or deletes them if the output is not appended.
+   */
+  private void readIndex(boolean append) throws IOException {
+    List<Segment> existingSegments;
+
+    try {
+      existingSegments = readIndex(indexFile);
+    } catch (NoSuchFileException exception) {
+      // the first output
+      return;
+    } catch (IOException exception) {
+      if (append) {
+        throw exception;
+      }
+      // the broken index is overwritten
+      return;
+    }
+    if (append) {
+      segments.addAll(existingSegments);
+    } else {
+      for (Segment existingSegment : existingSegments) {
+        Files.deleteIfExists(file.resolveSibling(existingSegment.name()));
+      }
+    }
+  }
+
+  private void rotate() throws IOException {
+    if (segmentSize <= segmentLength && lineEnded) {
+      closeSegment();
+      openSegment(false);
+    }
+  }
+
+  private void openSegment(boolean append) throws IOException {
+    var offset = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).end();
+    var name = file.getFileName() + (isSegmented() ? "." + (segments.size() + 1) : "")
+        + (compress ? GZIP_EXTENSION : "");
+    var stream = Files.newOutputStream(file.resolveSibling(name), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+
+    segment = compress ? new GZIPOutputStream(stream, BUFFER_SIZE)
+        : new BufferedOutputStream(stream, BUFFER_SIZE);
+    segmentLength = 0;
+    segments.add(new Segment(name, offset, 0));
+  }
+
+  private void closeSegment() throws IOException {
+    if (nonNull(segment)) {
+      var last = segments.remove(segments.size() - 1);
+
+      segments.add(new Segment(last.name(), last.offset(), segmentLength));
+      try {
+        segment.close();
+      } finally {
+        segment = null;
+        if (isSegmented()) {
+          writeIndex();
+        }
+      }
+    }
+  }
+
+  private void writeIndex() throws IOException {
+    var lines = new ArrayList<String>();
+
+    lines.add(HEADER);
+    segments.forEach(segment -> lines.add(
+        String.join(TAB, SEGMENT, segment.name(), Long.toString(segment.offset()),
+            Long.toString(segment.length()))));
+    Files.write(indexFile, lines, StandardCharsets.UTF_8);
+  }
+
+  private record Segment(String name, long offset, long length) {
+
+    long end() {
+      return offset + length;
+    }
+
+  }
+
+}
@@ -0,0 +1,233 @@
+/*-
+ * ---------------LICENSE_START-----------------
+ * ijhttp tools
+ * ---------------------------------------------
+ * Copyright (C) 2023 - 2025 Vitalij Berdinskih
+ * ---------------------------------------------
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---------------LICENSE_END-------------------
+ */
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static java.util.Objects.nonNull;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Splits HTTP files into shards, every shard is run by its own HTTP Client process or by its own
+ * CI node.
+ */
+final class Shards {
+
+  private Shards() {
+  }
+
+  /**
+   * Weights of HTTP files for balancing.
+   * <p>
+   * Weights are durations from the previous report, in milliseconds. Files that the report does
+   * not have are estimated from their size by the average duration per byte. Without any
+   * history weights are file sizes.
+   *
+   * @param requestFiles HTTP files
+   * @param history      report of the previous run, optional
+   * @return weights
+   */
+  static ToLongFunction<Path> weights(@NotNull List<Path> requestFiles,
+      @Nullable HttpClientReport history) {
+    var weights = new HashMap<Path, Long>();
+    var sizes = new HashMap<Path, Long>();
+    var knownDuration = 0L;
+    var knownSize = 0L;
+
+    for (Path requestFile : requestFiles) {
+      var size = size(requestFile);
+      var duration = nonNull(history) ? history.getDuration(requestFile)
+          : Optional.<Duration>empty();
+
+      sizes.put(requestFile, size);
+      if (duration.isPresent()) {
+        weights.put(requestFile, duration.get().toMillis());
+        knownDuration += duration.get().toMillis();
+        knownSize += size;
+      }
+    }
+    if (weights.isEmpty() || 0 == knownSize) {
+      return requestFile -> sizes.getOrDefault(requestFile, 0L);
+    }
+
+    var durationPerByte = (double) knownDuration / knownSize;
+
+    for (Path requestFile : requestFiles) {
+      weights.computeIfAbsent(requestFile,
+          key -> Math.round(sizes.get(key) * durationPerByte));
+    }
+
+    return requestFile -> weights.getOrDefault(requestFile, 0L);
+  }
+
+  private static long size(Path requestFile) {
+    try {
+      return Files.size(requestFile);
+    } catch (IOException exception) {
+      return 0L;
+    }
+  }
+
+  /**
+   * Distributes files between shards in the round-robin manner.
+   *
+   * @param requestFiles HTTP files
+   * @param shardCount   maximum number of shards
+   * @return non-empty shards, there are no more shards than files
+   */
+  static List<List<Path>> split(@NotNull List<Path> requestFiles, int shardCount) {
+    return split(requestFiles, shardCount, requestFile -> 0L);
+  }
+
+  /**
+   * Distributes files between shards by the longest-processing-time-first rule: the heaviest file
+   * goes to the least loaded shard. Files of equal weight are distributed in the round-robin
+   * manner, every shard keeps the original order of files.
+   *
+   * @param requestFiles HTTP files
+   * @param shardCount   maximum number of shards
+   * @param weights      weights of files, e.g. durations
+   * @return non-empty shards, there are no more shards than files
+   */
+  static List<List<Path>> split(@NotNull List<Path> requestFiles, int shardCount,
+      @NotNull ToLongFunction<Path> weights) {
+    var count = Math.min(Math.max(1, shardCount), requestFiles.size());
+    var assignment = assign(requestFiles, count, weights);
+    var shards = new ArrayList<List<Path>>();
+
+    for (int i = 0; i < count; i++) {
+      shards.add(new ArrayList<>());
+    }
+    for (int i = 0; i < requestFiles.size(); i++) {
+      shards.get(assignment[i]).add(requestFiles.get(i));
+    }
+
+    return shards;
+  }
+
+  /**
+   * Assigns files to shards.
+   *
+   * @return shard indexes of files
+   */
+  private static int[] assign(List<Path> requestFiles, int count,
+      ToLongFunction<Path> weights) {
+    var assignment = new int[requestFiles.size()];
+    var loads = new long[count];
+    var order = new ArrayList<Integer>();
+
+    for (int i = 0; i < requestFiles.size(); i++) {
+      order.add(i);
+    }
+    order.sort(Comparator.<Integer>comparingLong(i -> weights.applyAsLong(requestFiles.get(i)))
+        .reversed().thenComparingInt(i -> i));
+    for (int i = 0; i < order.size(); i++) {
+      var lightest = i % count;
+
+      for (int shard = 0; shard < count; shard++) {
+        if (loads[shard] < loads[lightest]) {
+          lightest = shard;
+        }
+      }
+      assignment[order.get(i)] = lightest;
+      loads[lightest] += weights.applyAsLong(requestFiles.get(order.get(i)));
+    }
+
+    return assignment;
+  }
+
+  /**
+   * Selects HTTP files of a CI node.
+   * <p>
+   * Files are sorted by their paths relative to the base directory, with {@code /} as the
+   * separator, then distributed in the round-robin manner. So every node gets the same partition
+   * regardless of its file system order and checkout location, and the union of all shards
+   * covers every file exactly once.
+   *
+   * @param requestFiles  HTTP files
+   * @param shardIndex    index of the shard, starting from 1
+   * @param shardCount    number of shards
+   * @param baseDirectory the base directory
+   * @return HTTP files of the shard in the original order
+   */
+  static List<Path> select(@NotNull List<Path> requestFiles, int shardIndex, int shardCount,
+      @NotNull Path baseDirectory) {
+    return select(requestFiles, shardIndex, shardCount, baseDirectory, requestFile -> 0L);
+  }
+
+  /**
+   * Selects HTTP files of a CI node.
+   * <p>
+   * Files are sorted by their paths relative to the base directory, with {@code /} as the
+   * separator, then distributed by {@link #split(List, int, ToLongFunction) weights}. So every
+   * node gets the same partition regardless of its file system order and checkout location, and
+   * the union of all shards covers every file exactly once. All nodes must use the same weights,
+   * e.g. file sizes: reports of the previous run differ between nodes.
+   *
+   * @param requestFiles  HTTP files
+   * @param shardIndex    index of the shard, starting from 1
+   * @param shardCount    number of shards
+   * @param baseDirectory the base directory
+   * @param weights       weights of files, e.g. durations
+   * @return HTTP files of the shard in the original order
+   */
+  static List<Path> select(@NotNull List<Path> requestFiles, int shardIndex, int shardCount,
+      @NotNull Path baseDirectory, @NotNull ToLongFunction<Path> weights) {
+    var sortedFiles = new ArrayList<>(requestFiles);
+    var base = baseDirectory.toAbsolutePath().normalize();
+
+    sortedFiles.sort(Comparator.comparing(requestFile -> key(requestFile, base)));
+
+    var assignment = assign(sortedFiles, shardCount, weights);
+    var selectedFiles = new HashSet<Path>();
+
+    for (int i = 0; i < sortedFiles.size(); i++) {
+      if (shardIndex - 1 == assignment[i]) {
+        selectedFiles.add(sortedFiles.get(i));
+      }
+    }
+
+    return requestFiles.stream().filter(selectedFiles::contains).toList();
+  }
+
+  private static String key(Path requestFile, Path base) {
+    var path = requestFile.toAbsolutePath().normalize();
+
+    if (path.getRoot().equals(base.getRoot())) {
+      path = base.relativize(path);
+    }
+
+    return path.toString().replace(File.separatorChar, '/');
+  }
+
+}
@@ -0,0 +1,137 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("fast")
+class BatchedLogStreamTest {
+
+  private List<String> lines;
+  private Object lock;
+  private boolean locked;
+
+  @BeforeEach
+  void setUp() {
+    lines = new ArrayList<>();
+    lock = new Object();
+    locked = true;
+  }
+
+  @DisplayName("Lines of a chunk are forwarded at the end of the chunk with the prefix")
+  @Test
+  void chunk() throws IOException {
+    // given
+    List<String> firstChunk;
+    List<String> secondChunk;
+
+    // when
+    try (var stream = new BatchedLogStream(lock, this::log, "[shard-1] ")) {
+      stream.write("first\nsecond\nthi".getBytes(StandardCharsets.UTF_8));
+      firstChunk = List.copyOf(lines);
+      stream.write("rd\nlast".getBytes(StandardCharsets.UTF_8));
+      secondChunk = List.copyOf(lines);
+    }
+
+    // then
+    assertAll("Forwarded lines",
+        () -> assertThat(firstChunk, contains("[shard-1] first", "[shard-1] second")),
+        () -> assertThat(secondChunk,
+            contains("[shard-1] first", "[shard-1] second", "[shard-1] third")),
+        () -> assertThat(lines,
+            contains("[shard-1] first", "[shard-1] second", "[shard-1] third", "[shard-1] last")),
+        () -> assertTrue(locked, "lines are forwarded under the lock"));
+  }
+
+  @DisplayName("A long chunk is forwarded by limited batches")
+  @Test
+  void longChunk() throws IOException {
+    // when
+    try (var stream = new BatchedLogStream(lock, this::log, "")) {
+      stream.write("line\n".repeat(BatchedLogStream.MAX_BATCH_SIZE + 1)
+          .getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Forwarded lines",
+        () -> assertThat(lines, hasSize(BatchedLogStream.MAX_BATCH_SIZE + 1)),
+        () -> assertTrue(locked, "lines are forwarded under the lock"));
+  }
+
+  private void log(String line) {
+    locked &= Thread.holdsLock(lock);
+    lines.add(line);
+  }
+
+  @DisplayName("A long line is truncated, the whole output goes to the spill stream")
+  @Test
+  void lineLimit() throws IOException {
+    // given
+    var spill = new ByteArrayOutputStream();
+    var output = "Response code: 200\n{\"name\": \"xxxxxΩ\"}\n";
+
+    // when
+    try (var stream = new BatchedLogStream(lock, this::log, "", spill, 16, Integer.MAX_VALUE)) {
+      stream.write(output.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Line limit",
+        () -> assertThat(lines, contains("Response code: 2 [truncated 2 bytes]",
+            "{\"name\": \"xxxxx [truncated 4 bytes]")),
+        () -> assertEquals(output, spill.toString(StandardCharsets.UTF_8)));
+  }
+
+  @DisplayName("Output of a request is truncated, request and response lines are kept")
+  @Test
+  void requestLimit() throws IOException {
+    // given
+    var output = """
+        Request 'Get orders' (GET http://localhost:8080/orders)
+        Response code: 200
+        {"orders": [
+          1, 2, 3
+        ]}
+        Request 'Get users' (GET http://localhost:8080/users)
+        Response code: 404
+        """;
+
+    // when
+    try (var stream = new BatchedLogStream(lock, this::log, "", OutputStream.nullOutputStream(),
+        Integer.MAX_VALUE, 90)) {
+      stream.write(output.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertThat(lines, contains("Request 'Get orders' (GET http://localhost:8080/orders)",
+        "Response code: 200", "{\"orders\": [", "[the rest of the request output is truncated]",
+        "Request 'Get users' (GET http://localhost:8080/users)", "Response code: 404"));
+  }
+
+  @DisplayName("Limits must be positive")
+  @Test
+  void invalidLimit() {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> new BatchedLogStream(lock, this::log, "", OutputStream.nullOutputStream(), 0, 1));
+
+    // then
+    assertEquals("limits must be positive", exception.getMessage());
+  }
+
+}
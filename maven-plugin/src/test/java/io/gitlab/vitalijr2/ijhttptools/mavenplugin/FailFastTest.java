@@ -0,0 +1,112 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@Tag("fast")
+class FailFastTest {
+
+  @DisplayName("The first failure is kept, the output goes to the target as is")
+  @Test
+  void failedRequest() throws IOException {
+    // given
+    var failFast = new FailFast(FailFast.DEFAULT_PATTERNS);
+    var target = new ByteArrayOutputStream();
+    var output = """
+        Request 'Get orders' (GET http://localhost:8080/orders)
+        Request 'Get orders' failed
+        Request 'Get users' failed
+        """;
+
+    // when
+    try (var stream = failFast.watch(target)) {
+      stream.write(output.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Failed request",
+        () -> assertEquals(Optional.of("request 'Get orders' failed"), failFast.getFailure()),
+        () -> assertEquals(output, target.toString(StandardCharsets.UTF_8)));
+  }
+
+  @DisplayName("A connection error fails the last request of the same stream")
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', value = {
+      "Request 'Get users' (GET http://localhost:8080/users)|java.net.ConnectException: "
+          + "Connection refused|request 'Get users' failed",
+      "Files: 1|java.net.ConnectException: Connection refused|java.net.ConnectException: "
+          + "Connection refused"})
+  void connectionError(String firstLine, String secondLine, String expectedFailure)
+      throws IOException {
+    // given
+    var failFast = new FailFast(FailFast.DEFAULT_PATTERNS);
+
+    // when
+    try (var stream = failFast.watch(new ByteArrayOutputStream())) {
+      stream.write((firstLine + '\n' + secondLine).getBytes(StandardCharsets.UTF_8));
+      stream.flush();
+    }
+
+    // then
+    assertEquals(Optional.of(expectedFailure), failFast.getFailure());
+  }
+
+  @DisplayName("Passed requests")
+  @Test
+  void noFailure() throws IOException {
+    // given
+    var failFast = new FailFast(FailFast.DEFAULT_PATTERNS);
+
+    // when
+    try (var stream = failFast.watch(new ByteArrayOutputStream())) {
+      stream.write("""
+          Request 'Get orders' (GET http://localhost:8080/orders)
+          Response code: 200
+          Files: 1, requests: 1, failed: 0
+          """.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertFalse(failFast.isFailed());
+  }
+
+  @DisplayName("Custom pattern with the request group")
+  @Test
+  void customPattern() throws IOException {
+    // given
+    var failFast = new FailFast(List.of("^FAIL (?<request>.+)$"));
+
+    // when
+    try (var stream = failFast.watch(new ByteArrayOutputStream())) {
+      stream.write("ok orders\nFAIL users\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertEquals(Optional.of("request 'users' failed"), failFast.getFailure());
+  }
+
+  @DisplayName("Invalid pattern")
+  @Test
+  void invalidPattern() {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> new FailFast(List.of("(unclosed")));
+
+    // then
+    assertEquals("invalid fail-fast pattern: (unclosed", exception.getMessage());
+  }
+
+}
@@ -0,0 +1,48 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class FingerprintTest {
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("SHA-256 of a file")
+  @Test
+  void hash() throws IOException {
+    // given
+    var file = Files.writeString(directory.resolve("test.http"), "abc");
+
+    // when and then
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        Fingerprint.hash(file));
+  }
+
+  @DisplayName("Values are separated")
+  @Test
+  void separatedValues() {
+    // when and then
+    assertNotEquals(new Fingerprint().add("ab").add("c").hex(),
+        new Fingerprint().add("a").add("bc").hex());
+  }
+
+  @DisplayName("Null differs from any value and a missing file")
+  @Test
+  void nullValue() throws IOException {
+    // when and then
+    assertNotEquals(new Fingerprint().add(null).hex(), new Fingerprint().add("").hex());
+    assertNotEquals(new Fingerprint().add(null).hex(),
+        new Fingerprint().addFile(directory.resolve("empty.http")).add("").hex());
+  }
+
+}
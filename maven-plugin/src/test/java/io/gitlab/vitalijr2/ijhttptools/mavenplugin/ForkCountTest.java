@@ -0,0 +1,59 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Tag("fast")
+class ForkCountTest {
+
+  private static final long GIGABYTE = 1024L * 1024 * 1024;
+
+  @DisplayName("Fork count")
+  @ParameterizedTest
+  @CsvSource({"1, 1", "3, 3", " 2 , 2", "1C, 8", "0.5C, 4", "2c, 16", "0.1C, 1"})
+  void forkCount(String value, int expectedForkCount) {
+    // when and then
+    assertEquals(expectedForkCount, ForkCount.parse(value, 8, 64 * GIGABYTE));
+  }
+
+  @DisplayName("Fork count is limited by memory")
+  @Test
+  void memoryLimit() {
+    // when and then
+    assertEquals(4, ForkCount.parse("1C", 16, 2 * GIGABYTE));
+  }
+
+  @DisplayName("Unknown memory size")
+  @Test
+  void unknownMemory() {
+    // when and then
+    assertEquals(16, ForkCount.parse("1C", 16, -1));
+  }
+
+  @DisplayName("Explicit fork count is not limited by memory")
+  @Test
+  void explicitForkCount() {
+    // when and then
+    assertEquals(16, ForkCount.parse("16", 2, GIGABYTE));
+  }
+
+  @DisplayName("Invalid fork count")
+  @ParameterizedTest
+  @ValueSource(strings = {"", "0", "-1", "abc", "C", "0C"})
+  void invalidForkCount(String value) {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> ForkCount.parse(value, 8, 64 * GIGABYTE));
+
+    // then
+    assertEquals("invalid fork count: " + value, exception.getMessage());
+  }
+
+}
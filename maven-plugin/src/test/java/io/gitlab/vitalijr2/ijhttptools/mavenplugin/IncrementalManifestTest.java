@@ -0,0 +1,123 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class IncrementalManifestTest {
+
+  @TempDir
+  private Path directory;
+
+  private Path firstFile;
+  private Path manifestFile;
+  private Path secondFile;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    firstFile = Files.writeString(directory.resolve("first.http"), "GET https://example.com");
+    secondFile = Files.writeString(directory.resolve("second.http"), "GET https://example.org");
+    manifestFile = directory.resolve("state/incremental.manifest");
+  }
+
+  @DisplayName("The first run selects all files")
+  @Test
+  void firstRun() throws IOException {
+    // when
+    var selectedFiles = IncrementalManifest.load(manifestFile, "test")
+        .select(List.of(firstFile, secondFile));
+
+    // then
+    assertThat(selectedFiles, contains(firstFile, secondFile));
+  }
+
+  @DisplayName("Passed files are not selected until they are changed")
+  @Test
+  void passedFiles() throws IOException {
+    // given
+    var manifest = IncrementalManifest.load(manifestFile, "test");
+
+    manifest.select(List.of(firstFile, secondFile));
+    manifest.save(List.of(firstFile, secondFile));
+
+    // when
+    var unchangedFiles = IncrementalManifest.load(manifestFile, "test")
+        .select(List.of(firstFile, secondFile));
+
+    Files.writeString(secondFile, "GET https://example.net");
+
+    var changedFiles = IncrementalManifest.load(manifestFile, "test")
+        .select(List.of(firstFile, secondFile));
+
+    // then
+    assertThat(unchangedFiles, empty());
+    assertThat(changedFiles, contains(secondFile));
+  }
+
+  @DisplayName("Failed files are selected again, unchanged passed files are kept")
+  @Test
+  void failedFiles() throws IOException {
+    // given
+    var manifest = IncrementalManifest.load(manifestFile, "test");
+
+    manifest.select(List.of(firstFile, secondFile));
+    manifest.save(List.of(firstFile, secondFile));
+    Files.writeString(secondFile, "GET https://example.net");
+
+    var secondManifest = IncrementalManifest.load(manifestFile, "test");
+
+    secondManifest.select(List.of(firstFile, secondFile));
+    secondManifest.save(List.of());
+
+    // when
+    var selectedFiles = IncrementalManifest.load(manifestFile, "test")
+        .select(List.of(firstFile, secondFile));
+
+    // then
+    assertThat(selectedFiles, contains(secondFile));
+  }
+
+  @DisplayName("Another fingerprint selects all files")
+  @Test
+  void anotherFingerprint() throws IOException {
+    // given
+    var manifest = IncrementalManifest.load(manifestFile, "test");
+
+    manifest.select(List.of(firstFile, secondFile));
+    manifest.save(List.of(firstFile, secondFile));
+
+    // when
+    var selectedFiles = IncrementalManifest.load(manifestFile, "another")
+        .select(List.of(firstFile, secondFile));
+
+    // then
+    assertThat(selectedFiles, contains(firstFile, secondFile));
+  }
+
+  @DisplayName("Broken manifest selects all files")
+  @Test
+  void brokenManifest() throws IOException {
+    // given
+    Files.createDirectories(manifestFile.getParent());
+    Files.writeString(manifestFile, "garbage");
+
+    // when
+    var selectedFiles = IncrementalManifest.load(manifestFile, "test")
+        .select(List.of(firstFile, secondFile));
+
+    // then
+    assertThat(selectedFiles, contains(firstFile, secondFile));
+  }
+
+}
@@ -6,22 +6,32 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.ArrayMatching.arrayContaining;
 import static org.hamcrest.collection.ArrayMatching.arrayContainingInAnyOrder;
 import static org.hamcrest.collection.IsArrayWithSize.arrayWithSize;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringEndsWith.endsWith;
+import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
 import io.gitlab.vitalijr2.ijhttptools.cli.LogLevel;
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.ExecuteException;
@@ -37,6 +47,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.converter.ArgumentConversionException;
 import org.junit.jupiter.params.converter.ConvertWith;
@@ -240,6 +251,77 @@ class RunMojoFastTest {
     assertEquals("Timeout. Process runs longer that 1234567 ms.", exception.getMessage());
   }
 
+  @DisplayName("Executor: timeout, thread dumps and reaped processes of the tree are reported")
+  @Test
+  void reapedProcesses() throws IOException, MojoExecutionException {
+    // given
+    var logger = mock(Log.class);
+    var watchdog = mock(ProcessTreeWatchdog.class);
+
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLog(logger);
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setTimeout(1000);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 143));
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+    when(executor.getWatchdog()).thenReturn(watchdog);
+    when(watchdog.killedProcess()).thenReturn(true);
+    when(watchdog.getReapedCount()).thenReturn(3);
+    when(watchdog.getThreadDumps()).thenReturn(List.of(Path.of("reports/thread-dump-7.txt")));
+
+    // when
+    assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    verify(logger).warn("Thread dump of the timed-out HTTP Client: reports/thread-dump-7.txt");
+    verify(logger).warn("Reaped 3 processes of the killed HTTP Client");
+  }
+
+  @DisplayName("Thread dumps without the report are warned about")
+  @Test
+  void threadDumpWithoutReport()
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var logger = mock(Log.class);
+
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLog(logger);
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setReport(false);
+    mojo.setThreadDump(true);
+    mojo.setTimeout(1000);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(logger).warn("Thread dumps go to the report path, they need the report");
+  }
+
+  @DisplayName("Executor: the fail-fast watchdog without timeout")
+  @Test
+  void failFastWithoutTimeout() throws MojoExecutionException, MojoFailureException {
+    // given
+    var logger = mock(Log.class);
+
+    mojo.setExecutable("true");
+    mojo.setFailFast(true);
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLog(logger);
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(logger.isDebugEnabled()).thenReturn(true);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(logger).debug("Set the fail-fast watchdog without timeout");
+  }
+
   @DisplayName("Current directory")
   @Test
   void currentDirectory() throws MojoExecutionException, IOException {
@@ -250,6 +332,34 @@ class RunMojoFastTest {
     assertEquals(".", executor.getWorkingDirectory().getName(), "working directory");
   }
 
+  @DisplayName("Daemon mode")
+  @Test
+  void daemon() throws MojoExecutionException, IOException {
+    // given
+    mojo.setDaemon(true);
+    mojo.setDaemonIdleTimeout(60000);
+    mojo.setDistribution(new File("ijhttp"));
+
+    // when
+    var executor = mojo.getExecutor();
+
+    // then
+    assertInstanceOf(DaemonExecutor.class, executor);
+  }
+
+  @DisplayName("Daemon mode without the distribution")
+  @Test
+  void daemonWithoutDistribution() {
+    // given
+    mojo.setDaemon(true);
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class, mojo::getExecutor);
+
+    // then
+    assertEquals("the daemon mode needs the distribution", exception.getMessage());
+  }
+
   @DisplayName("Simple run without arguments")
   @Test
   void simpleRun() throws IOException, MojoExecutionException {
@@ -575,6 +685,370 @@ class RunMojoFastTest {
     assertThat("files", arguments, arrayContaining("*"));
   }
 
+  @DisplayName("Fork count: every shard is run by own process")
+  @Test
+  void shards() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    mojo.setFiles(List.of(new File("first"), new File("second")));
+    mojo.setForkCount("2");
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getAllValues().stream()
+        .map(commandLine -> String.join(" ", commandLine.getArguments())).toList();
+
+    assertThat("shards", arguments, containsInAnyOrder("first", "second"));
+  }
+
+  @DisplayName("Fork count: failed shards")
+  @Test
+  void failedShards() throws IOException, MojoExecutionException {
+    // given
+    mojo.setFiles(List.of(new File("first"), new File("second")));
+    mojo.setForkCount("2");
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 1));
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    Exception exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertEquals("Execution failed: 2 of 2 shards failed: "
+        + "shard-1 (test execute exception (Exit value: 1)), "
+        + "shard-2 (test execute exception (Exit value: 1))", exception.getMessage());
+  }
+
+  @DisplayName("Argument limit: files are run by batches one after another")
+  @Test
+  void batches() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var firstFile = mock(File.class);
+    var firstPath = mock(Path.class);
+    var secondFile = mock(File.class);
+    var secondPath = mock(Path.class);
+
+    mojo.setArgumentLimit(30);
+    mojo.setFiles(List.of(firstFile, secondFile));
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(firstFile.toPath()).thenReturn(firstPath);
+    when(firstPath.toString()).thenReturn("first");
+    when(secondFile.toPath()).thenReturn(secondPath);
+    when(secondPath.toString()).thenReturn("second");
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getAllValues().stream()
+        .map(commandLine -> String.join(" ", commandLine.getArguments())).toList();
+
+    assertThat("batches", arguments, contains("first", "second"));
+  }
+
+  @DisplayName("Argument limit: failed batches")
+  @Test
+  void failedBatches() throws IOException, MojoExecutionException {
+    // given
+    var firstFile = mock(File.class);
+    var firstPath = mock(Path.class);
+    var secondFile = mock(File.class);
+    var secondPath = mock(Path.class);
+
+    mojo.setArgumentLimit(30);
+    mojo.setFiles(List.of(firstFile, secondFile));
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(firstFile.toPath()).thenReturn(firstPath);
+    when(firstPath.toString()).thenReturn("first");
+    when(secondFile.toPath()).thenReturn(secondPath);
+    when(secondPath.toString()).thenReturn("second");
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 1)).thenReturn(0);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    Exception exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    verify(executor, times(2)).execute(isA(CommandLine.class));
+    assertEquals("Execution failed: 1 of 2 batches failed: "
+        + "batch-1 (test execute exception (Exit value: 1))", exception.getMessage());
+  }
+
+  @DisplayName("CI shard: the node runs its part of files")
+  @Test
+  void ciShard() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    mojo.setBaseDirectory(new File("/project"));
+    mojo.setFiles(List.of(new File("/project/b.http"), new File("/project/a.http"),
+        new File("/project/c.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setShardCount(2);
+    mojo.setShardIndex(2);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).execute(commandLineCaptor.capture());
+    assertThat(commandLineCaptor.getValue().getArguments(), arrayContaining(endsWith("b.http")));
+  }
+
+  @DisplayName("CI shard: nodes with different local reports agree on the partition")
+  @Test
+  void ciShardsWithLocalReports(@TempDir Path directory)
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var files = new ArrayList<File>();
+
+    for (String name : List.of("a", "b", "c", "d")) {
+      files.add(Files.writeString(directory.resolve(name + ".http"),
+          "GET https://example.com/" + name.repeat(name.charAt(0) - 'a' + 1)).toFile());
+    }
+    mojo.setBaseDirectory(directory.toFile());
+    mojo.setFiles(files);
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setShardCount(2);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    var arguments = new ArrayList<String>();
+
+    for (int shardIndex = 1; 2 >= shardIndex; shardIndex++) {
+      var reportPath = Files.createDirectories(directory.resolve("node-" + shardIndex));
+
+      // every node has the report of its own previous shard only
+      Files.writeString(reportPath.resolve("report.xml"), String.format("""
+          <testsuites>
+            <testsuite name="%s.http" time="60"><testcase name="slow" time="60"/></testsuite>
+            <testsuite name="%s.http" time="1"><testcase name="fast" time="1"/></testsuite>
+          </testsuites>
+          """, (1 == shardIndex) ? "a" : "c", (1 == shardIndex) ? "b" : "d"));
+      mojo.setReportPath(reportPath.toFile());
+      mojo.setShardIndex(shardIndex);
+      mojo.execute();
+    }
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+    commandLineCaptor.getAllValues()
+        .forEach(commandLine -> arguments.addAll(List.of(commandLine.getArguments())));
+    assertThat(arguments, containsInAnyOrder(endsWith("a.http"), endsWith("b.http"),
+        endsWith("c.http"), endsWith("d.http")));
+  }
+
+  @DisplayName("Rerun: only failed files are rerun with the rerun log level")
+  @Test
+  void rerunFailedFiles(@TempDir Path reportPath)
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    mojo.setFiles(List.of(new File("orders.http"), new File("checkout.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setReport(true);
+    mojo.setReportPath(reportPath.toFile());
+    mojo.setRerunFailingCount(1);
+    mojo.setRerunLogLevel(LogLevel.VERBOSE);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+    when(executor.execute(isA(CommandLine.class))).thenAnswer(invocationOnMock -> {
+      Files.writeString(reportPath.resolve("report.xml"), """
+          <testsuites>
+            <testsuite name="orders.http"><testcase name="Get orders"/></testsuite>
+            <testsuite name="checkout.http">
+              <testcase name="Checkout"><failure message="Connection reset"/></testcase>
+            </testsuite>
+          </testsuites>
+          """);
+      throw new ExecuteException("test execute exception", 1);
+    }).thenReturn(0);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor, times(2)).execute(commandLineCaptor.capture());
+    assertThat(commandLineCaptor.getAllValues().get(1).getArguments(),
+        arrayContaining(equalTo("--log-level"), equalTo("VERBOSE"), endsWith("checkout.http"),
+            equalTo("--report"), equalTo(reportPath.resolve("rerun-1").toString())));
+  }
+
+  @DisplayName("Rerun: files still fail")
+  @Test
+  void rerunFailure() throws IOException, MojoExecutionException {
+    // given
+    mojo.setFiles(List.of(new File("orders.http"), new File("checkout.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setRerunFailingCount(2);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 1));
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    verify(executor, times(3)).execute(commandLineCaptor.capture());
+    assertAll("Reruns",
+        () -> assertEquals("Execution failed: test execute exception (Exit value: 1)",
+            exception.getMessage()),
+        () -> assertThat(commandLineCaptor.getAllValues().get(2).getArguments(),
+            arrayContaining(endsWith("orders.http"), endsWith("checkout.http"))));
+  }
+
+  @DisplayName("JVM launch mode: java is started directly with JVM options and AppCDS")
+  @Test
+  void distribution(@TempDir Path distribution)
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    Files.createFile(Files.createDirectories(distribution.resolve("lib")).resolve("client.jar"));
+    mojo.setCdsArchive(distribution.resolve("ijhttp.jsa").toFile());
+    mojo.setDistribution(distribution.toFile());
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setJavaExecutable("java");
+    mojo.setJvmOptions(List.of("-Xmx64m"));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setMainClass("Client");
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).execute(commandLineCaptor.capture());
+
+    var commandLine = commandLineCaptor.getValue();
+
+    assertAll("JVM command line",
+        () -> assertEquals("java", commandLine.getExecutable()),
+        () -> assertThat(commandLine.getArguments(),
+            arrayContaining(equalTo("-Xmx64m"), startsWith("-XX:ArchiveClassesAtExit="),
+                equalTo("-cp"), endsWith("client.jar"), equalTo("Client"),
+                endsWith("orders.http"))));
+  }
+
+  @DisplayName("Adaptive timeout: the watchdog is set and the duration is saved")
+  @Test
+  void adaptiveTimeout(@TempDir Path stateDirectory)
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    mojo.setAdaptiveTimeout(true);
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setStateDirectory(stateDirectory.toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).setWatchdog(isA(ExecuteWatchdog.class));
+    verify(executor).execute(isA(CommandLine.class));
+    assertTrue(Files.exists(stateDirectory.resolve("timeouts.history")));
+  }
+
+  @DisplayName("Adaptive timeout: the timeout is capped, a failed run is not saved")
+  @Test
+  void adaptiveTimeoutKill(@TempDir Path stateDirectory)
+      throws IOException, MojoExecutionException {
+    // given
+    var watchdog = mock(ExecuteWatchdog.class);
+
+    mojo.setAdaptiveTimeout(true);
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setMaxTimeout(3000);
+    mojo.setStateDirectory(stateDirectory.toFile());
+    mojo.setTimeout(5000);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 3));
+    when(executor.getWatchdog()).thenReturn(watchdog);
+    when(watchdog.killedProcess()).thenReturn(true);
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertAll("Killed by the adaptive timeout",
+        () -> assertEquals("Timeout. Process runs longer that 3000 ms.", exception.getMessage()),
+        () -> assertTrue(Files.notExists(stateDirectory.resolve("timeouts.history"))));
+  }
+
+  @DisplayName("Adaptive timeout: invalid settings")
+  @Test
+  void invalidAdaptiveTimeout() {
+    // given
+    mojo.setAdaptiveTimeout(true);
+    mojo.setFiles(List.of(new File("orders.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setTimeoutPercentile(0);
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertEquals("percentile must be from 1 to 100: 0", exception.getMessage());
+  }
+
+  @DisplayName("CI shard: invalid values")
+  @ParameterizedTest
+  @CsvSource(value = {"1, N/A, both shard index and shard count are required",
+      "N/A, 2, both shard index and shard count are required", "0, 2, invalid shard: 0 of 2",
+      "3, 2, invalid shard: 3 of 2", "1, 0, invalid shard: 1 of 0"}, nullValues = "N/A")
+  void invalidCiShard(Integer shardIndex, Integer shardCount, String expectedMessage) {
+    // given
+    mojo.setFiles(List.of(new File("a.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setShardCount(shardCount);
+    mojo.setShardIndex(shardIndex);
+
+    // when
+    Exception exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertEquals(expectedMessage, exception.getMessage());
+  }
+
+  @DisplayName("Fork count: invalid value")
+  @Test
+  void invalidForkCount() {
+    // given
+    var file = mock(File.class);
+    var path = mock(Path.class);
+
+    mojo.setFiles(List.of(file));
+    mojo.setForkCount("many");
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(file.toPath()).thenReturn(path);
+
+    // when
+    Exception exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertEquals("invalid fork count: many", exception.getMessage());
+  }
+
   static class PipedStringToListConverter extends SimpleArgumentConverter {
 
     @Override
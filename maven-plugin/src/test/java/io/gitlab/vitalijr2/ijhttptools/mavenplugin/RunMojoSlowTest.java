@@ -2,14 +2,19 @@ package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsIterableContaining.hasItem;
 import static org.hamcrest.core.StringEndsWith.endsWith;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -18,10 +23,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.ExecuteStreamHandler;
 import org.apache.commons.exec.Executor;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -33,6 +41,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -86,6 +95,97 @@ class RunMojoSlowTest {
     assertThat("directories", arguments, arrayContaining(endsWith("bing.rest")));
   }
 
+  @DisplayName("Directories: parallel discovery")
+  @Test
+  void parallelDiscovery() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = new File("src/test/resources/directory");
+
+    mojo.setDirectories(List.of(directory));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setParallelDiscovery(true);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getValue().getArguments();
+
+    assertThat("directories", arguments, arrayContaining(endsWith("bing.rest")));
+  }
+
+  @DisplayName("Directories: discovery index")
+  @Test
+  void discoveryIndex() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = new File("src/test/resources/directory");
+    var discoveryIndex = Files.createTempDirectory("state-").resolve("discovery.index");
+
+    mojo.setDirectories(List.of(directory));
+    mojo.setDiscoveryIndex(discoveryIndex.toFile());
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getValue().getArguments();
+
+    assertThat("directories", arguments, arrayContaining(endsWith("bing.rest")));
+    assertTrue(Files.exists(discoveryIndex), "discovery index");
+  }
+
+  @DisplayName("Directories: includes and excludes")
+  @Test
+  void includesAndExcludes() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = new File("src/test/resources/directory");
+
+    mojo.setDirectories(List.of(directory));
+    mojo.setIncludes(List.of("**/*.rest"));
+    mojo.setExcludes(List.of("**/target/**"));
+    mojo.setLogLevel(LogLevel.BASIC);
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+
+    // then
+    verify(executor).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getValue().getArguments();
+
+    assertThat("directories", arguments, arrayContaining(endsWith("bing.rest")));
+  }
+
+  @DisplayName("Directories: all HTTP files are filtered out")
+  @ParameterizedTest
+  @CsvSource({"**/*.http, **/target/**", "**/*.rest, subdirectory/**"})
+  void nothingIncluded(String include, String exclude) {
+    // given
+    var directory = new File("src/test/resources/directory");
+
+    mojo.setDirectories(List.of(directory));
+    mojo.setIncludes(List.of(include));
+    mojo.setExcludes(List.of(exclude));
+    mojo.setLogLevel(LogLevel.BASIC);
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertEquals("HTTP files not found", exception.getMessage());
+  }
+
   @DisplayName("Working directory: existed directory, non-existed directory")
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
@@ -223,4 +323,300 @@ class RunMojoSlowTest {
     assertDoesNotThrow(mojo::execute);
   }
 
+  @DisplayName("Output files of shards")
+  @Test
+  void shardOutputFiles() throws IOException {
+    // given
+    var outputDirectory = Files.createTempDirectory("shards-");
+
+    mojo.setExecutable("./test-exit-code.sh");
+    mojo.setFiles(List.of(new File("0"), new File("0")));
+    mojo.setForkCount("2");
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setOutputFile(outputDirectory.resolve("http-client.log").toFile());
+
+    // when
+    assertDoesNotThrow(mojo::execute);
+
+    // then
+    assertAll("shard output files",
+        () -> assertTrue(Files.exists(outputDirectory.resolve("http-client-shard-1.log"))),
+        () -> assertTrue(Files.exists(outputDirectory.resolve("http-client-shard-2.log"))));
+  }
+
+  @DisplayName("Compressed segments of the output file")
+  @Test
+  void outputSegments() throws IOException {
+    // given
+    var outputDirectory = Files.createTempDirectory("segments-");
+
+    mojo.setExecutable("./test-exit-code.sh");
+    mojo.setFiles(List.of(new File("0")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setOutputCompression(true);
+    mojo.setOutputFile(outputDirectory.resolve("http-client.log").toFile());
+    mojo.setOutputSegmentSize(1024L);
+
+    // when
+    assertDoesNotThrow(mojo::execute);
+
+    // then
+    assertAll("output segments",
+        () -> assertTrue(Files.exists(outputDirectory.resolve("http-client.log.1.gz"))),
+        () -> assertTrue(Files.exists(outputDirectory.resolve("http-client.log.index"))));
+  }
+
+  @DisplayName("Log limits: the Maven log is truncated, the whole output goes to spill files")
+  @Test
+  void logLimits() throws IOException {
+    // given
+    var directory = Files.createTempDirectory("spill-");
+    var body = "x".repeat(1000);
+    var script = Files.writeString(directory.resolve("ijhttp.sh"), """
+        #!/bin/bash
+        echo "Request 'Get orders' (GET http://localhost:8080/orders)"
+        echo "%s"
+        """.formatted(body));
+    var lines = new CopyOnWriteArrayList<String>();
+
+    assertTrue(script.toFile().setExecutable(true));
+    mojo.setExecutable(script.toString());
+    mojo.setFiles(List.of(new File("orders.http"), new File("users.http")));
+    mojo.setForkCount("2");
+    mojo.setLog(new SystemStreamLog() {
+      @Override
+      public void info(CharSequence content) {
+        lines.add(content.toString());
+      }
+    });
+    mojo.setLogLevel(LogLevel.VERBOSE);
+    mojo.setLogLineLimit(100);
+    mojo.setLogSpillFile(directory.resolve("output.log").toFile());
+    mojo.setUseMavenLogger(true);
+
+    // when
+    assertDoesNotThrow(mojo::execute);
+
+    // then
+    assertAll("Log limits",
+        () -> assertThat(Files.readString(directory.resolve("output-shard-1.log")),
+            endsWith(body + "\n")),
+        () -> assertThat(Files.readString(directory.resolve("output-shard-2.log")),
+            endsWith(body + "\n")),
+        () -> assertThat(lines,
+            hasItem("[shard-1] " + "x".repeat(100) + " [truncated 900 bytes]")));
+  }
+
+  @DisplayName("Fail fast: the first failed request kills all shards")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void failFast(boolean useMavenLogger) throws IOException {
+    // given
+    var directory = Files.createTempDirectory("fail-fast-");
+    var script = Files.writeString(directory.resolve("ijhttp.sh"), """
+        #!/bin/bash
+        case "$*" in
+          *failed.http*) echo "Request 'Get orders' failed" ;;
+        esac
+        exec sleep 30
+        """);
+
+    assertTrue(script.toFile().setExecutable(true));
+    mojo.setExecutable(script.toString());
+    mojo.setFailFast(true);
+    mojo.setFiles(List.of(new File("failed.http"), new File("slow.http")));
+    mojo.setForkCount("2");
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setUseMavenLogger(useMavenLogger);
+
+    // when
+    var start = System.nanoTime();
+    var exception = assertThrows(MojoExecutionException.class, mojo::execute);
+
+    // then
+    assertAll("Fail fast",
+        () -> assertEquals("Fail fast: request 'Get orders' failed", exception.getMessage()),
+        () -> assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 20));
+  }
+
+  @DisplayName("Fail fast: batches and adaptive timeouts fail instead of hanging")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void failFastWithBatches(boolean adaptiveTimeout) throws IOException {
+    // given
+    var directory = Files.createTempDirectory("fail-fast-batches-");
+    var script = Files.writeString(directory.resolve("ijhttp.sh"), """
+        #!/bin/bash
+        case "$*" in
+          *failed.http*) echo "Request 'Get orders' failed" ;;
+        esac
+        exec sleep 30
+        """);
+
+    assertTrue(script.toFile().setExecutable(true));
+    mojo.setAdaptiveTimeout(adaptiveTimeout);
+    mojo.setArgumentLimit(script.toString().length() + 40);
+    mojo.setExecutable(script.toString());
+    mojo.setFailFast(true);
+    mojo.setFiles(List.of(new File("failed.http"), new File("slow.http")));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+
+    // when
+    var start = System.nanoTime();
+    var exception = assertTimeoutPreemptively(Duration.ofSeconds(20),
+        () -> assertThrows(MojoExecutionException.class, mojo::execute));
+
+    // then
+    assertAll("Fail fast",
+        () -> assertEquals("Fail fast: request 'Get orders' failed", exception.getMessage()),
+        () -> assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 20));
+  }
+
+  @DisplayName("Incremental mode: only changed files are run")
+  @Test
+  void incremental() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = Files.createTempDirectory("incremental-");
+    var firstFile = Files.writeString(directory.resolve("first.http"), "GET https://example.com");
+    var secondFile = Files.writeString(directory.resolve("second.http"), "GET https://example.org");
+
+    mojo.setFiles(List.of(firstFile.toFile(), secondFile.toFile()));
+    mojo.setIncremental(true);
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+    Files.writeString(secondFile, "GET https://example.net");
+    mojo.execute();
+    mojo.execute();
+    mojo.setForceFullRun(true);
+    mojo.execute();
+
+    // then
+    verify(executor, times(3)).execute(commandLineCaptor.capture());
+
+    var arguments = commandLineCaptor.getAllValues().stream()
+        .map(commandLine -> String.join(" ", commandLine.getArguments())).toList();
+
+    assertThat("incremental runs", arguments,
+        contains(firstFile + " " + secondFile, secondFile.toString(),
+            firstFile + " " + secondFile));
+  }
+
+  @DisplayName("Incremental mode: failed files are run again")
+  @Test
+  void incrementalFailure() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = Files.createTempDirectory("incremental-");
+    var requestFile = Files.writeString(directory.resolve("first.http"),
+        "GET https://example.com");
+
+    mojo.setFiles(List.of(requestFile.toFile()));
+    mojo.setIncremental(true);
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 1)).thenReturn(0);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    assertThrows(MojoExecutionException.class, mojo::execute);
+    mojo.execute();
+    mojo.execute();
+
+    // then
+    verify(executor, times(2)).execute(isA(CommandLine.class));
+  }
+
+  @DisplayName("Up-to-date check: skip if inputs are not changed since the last successful run")
+  @Test
+  void skipIfUpToDate() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = Files.createTempDirectory("up-to-date-");
+    var requestFile = Files.writeString(directory.resolve("first.http"),
+        "GET https://example.com");
+    var applicationArtifact = Files.writeString(directory.resolve("application.jar"), "1");
+
+    mojo.setApplicationArtifact(applicationArtifact.toFile());
+    mojo.setFiles(List.of(requestFile.toFile()));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setSkipIfUpToDate(true);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+    mojo.execute();
+    Files.writeString(applicationArtifact, "2");
+    mojo.execute();
+    mojo.setEnvironmentName("staging");
+    mojo.execute();
+    mojo.execute();
+
+    // then
+    verify(executor, times(3)).execute(isA(CommandLine.class));
+  }
+
+  @DisplayName("Up-to-date check: a full run is forced, options of the run are inputs")
+  @Test
+  void skipIfUpToDateForceFullRun()
+      throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = Files.createTempDirectory("up-to-date-");
+    var requestFile = Files.writeString(directory.resolve("first.http"),
+        "GET https://example.com");
+
+    mojo.setFiles(List.of(requestFile.toFile()));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setSkipIfUpToDate(true);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    mojo.execute();
+    mojo.setForceFullRun(true);
+    mojo.execute();
+    mojo.execute();
+    mojo.setForceFullRun(false);
+    mojo.setTimeout(60_000);
+    mojo.execute();
+    mojo.execute();
+
+    // then
+    verify(executor, times(4)).execute(isA(CommandLine.class));
+  }
+
+  @DisplayName("Up-to-date check: failed run is not remembered")
+  @Test
+  void skipIfUpToDateFailure() throws IOException, MojoExecutionException, MojoFailureException {
+    // given
+    var directory = Files.createTempDirectory("up-to-date-");
+    var requestFile = Files.writeString(directory.resolve("first.http"),
+        "GET https://example.com");
+
+    mojo.setFiles(List.of(requestFile.toFile()));
+    mojo.setLogLevel(LogLevel.BASIC);
+    mojo.setSkipIfUpToDate(true);
+    mojo.setStateDirectory(directory.resolve("state").toFile());
+    when(mojo.getExecutor()).thenReturn(executor);
+    when(executor.execute(isA(CommandLine.class))).thenThrow(
+        new ExecuteException("test execute exception", 1)).thenReturn(0);
+    when(executor.getStreamHandler()).thenReturn(streamHandler);
+
+    // when
+    assertThrows(MojoExecutionException.class, mojo::execute);
+    mojo.execute();
+    mojo.execute();
+
+    // then
+    verify(executor, times(2)).execute(isA(CommandLine.class));
+  }
+
 }
@@ -0,0 +1,116 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@Tag("fast")
+class RunsTest {
+
+  @Mock
+  private Executor executor;
+  @Mock
+  private Runs.Launcher launcher;
+  @Mock
+  private Log log;
+
+  @DisplayName("Rerun files")
+  @ParameterizedTest
+  @CsvSource({"target/output.log,0,target/output.log",
+      "target/output.log,2,target/output-rerun-2.log", "target/output,1,target/output-rerun-1"})
+  void rerunFile(String file, int rerun, String rerunFile) {
+    assertEquals(new File(rerunFile), Runs.getRerunFile(new File(file), rerun));
+  }
+
+  @DisplayName("Rerun report paths")
+  @Test
+  void rerunReportPath() {
+    assertAll("Report paths", () -> assertNull(Runs.getRerunReportPath(null, 0)),
+        () -> assertEquals(new File("target/reports"),
+            Runs.getRerunReportPath(new File("target/reports"), 0)),
+        () -> assertEquals(new File("reports/rerun-1"), Runs.getRerunReportPath(null, 1)),
+        () -> assertEquals(new File("target/reports/rerun-2"),
+            Runs.getRerunReportPath(new File("target/reports"), 2)));
+  }
+
+  @DisplayName("Failed files are rerun with the next rerun number")
+  @Test
+  void rerun() throws IOException, MojoExecutionException {
+    // given
+    var commandLine = new CommandLine("ijhttp");
+    var passedFiles = new ArrayList<Path>();
+    var requestFiles = List.of(Path.of("orders.http"));
+    var runs = new Runs(log, launcher, null, 1, false, null, new File("target/output.log"));
+
+    when(launcher.getCommandLines(anyInt(), anyList(), isNull())).thenReturn(List.of(commandLine));
+    when(launcher.getExecutor()).thenReturn(executor);
+    doThrow(new ExecuteException("test execute exception", 1)).when(launcher)
+        .runHttpClient(eq(0), any(), any(), any(), anyBoolean(), anyString());
+
+    // when
+    runs.run(requestFiles, 1, passedFiles);
+
+    // then
+    verify(launcher).runHttpClient(0, commandLine, executor, new File("target/output.log"), false,
+        "");
+    verify(launcher).runHttpClient(1, commandLine, executor,
+        new File("target/output-rerun-1.log"), false, "");
+    verify(log).warn("HTTP files passed on the rerun 1: [orders.http]");
+    assertThat(passedFiles, contains(Path.of("orders.http")));
+  }
+
+  @DisplayName("Without reruns the failure is thrown")
+  @Test
+  void withoutReruns() throws IOException, MojoExecutionException {
+    // given
+    var runs = new Runs(log, launcher, null, null, false, null, null);
+
+    when(launcher.getCommandLines(anyInt(), anyList(), isNull()))
+        .thenReturn(List.of(new CommandLine("ijhttp")));
+    when(launcher.getExecutor()).thenReturn(executor);
+    doThrow(new ExecuteException("test execute exception", 1)).when(launcher)
+        .runHttpClient(anyInt(), any(), any(), any(), anyBoolean(), anyString());
+
+    // when
+    var exception = assertThrows(MojoExecutionException.class,
+        () -> runs.run(List.of(Path.of("orders.http")), 1, new ArrayList<>()));
+
+    // then
+    assertEquals("Execution failed: test execute exception (Exit value: 1)",
+        exception.getMessage());
+  }
+
+}
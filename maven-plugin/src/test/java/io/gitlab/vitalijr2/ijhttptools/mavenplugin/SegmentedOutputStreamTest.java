@@ -0,0 +1,165 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class SegmentedOutputStreamTest {
+
+  @TempDir
+  private Path directory;
+
+  @DisplayName("The single compressed file, appended output is a new gzip member")
+  @Test
+  void singleFile() throws IOException {
+    // given
+    var file = directory.resolve("http-client.log");
+
+    // when
+    try (var stream = new SegmentedOutputStream(file, true, Long.MAX_VALUE, false)) {
+      stream.write("first\n".getBytes(StandardCharsets.UTF_8));
+    }
+    try (var stream = new SegmentedOutputStream(file, true, Long.MAX_VALUE, true)) {
+      stream.write("second\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Single file",
+        () -> assertEquals("first\nsecond\n", gunzip(directory.resolve("http-client.log.gz"))),
+        () -> assertFalse(Files.exists(directory.resolve("http-client.log.index")), "index"));
+  }
+
+  @DisplayName("Segments are rotated by size and listed by the index")
+  @Test
+  void segments() throws IOException {
+    // given
+    var file = directory.resolve("http-client.log");
+
+    // when
+    try (var stream = new SegmentedOutputStream(file, true, 10, false)) {
+      stream.write("012345678\n".getBytes(StandardCharsets.UTF_8));
+      stream.write("abc".getBytes(StandardCharsets.UTF_8));
+      stream.write('d');
+    }
+    try (var stream = new SegmentedOutputStream(file, true, 10, true)) {
+      stream.write("appended".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Segments",
+        () -> assertEquals("012345678\n", gunzip(directory.resolve("http-client.log.1.gz"))),
+        () -> assertEquals("abcd", gunzip(directory.resolve("http-client.log.2.gz"))),
+        () -> assertEquals("appended", gunzip(directory.resolve("http-client.log.3.gz"))),
+        () -> assertThat(Files.readAllLines(directory.resolve("http-client.log.index")),
+            contains("# ijhttp output index 1", "S\thttp-client.log.1.gz\t0\t10",
+                "S\thttp-client.log.2.gz\t10\t4", "S\thttp-client.log.3.gz\t14\t8")));
+  }
+
+  @DisplayName("A segment is closed at the first line end after the segment size")
+  @Test
+  void lineEnd() throws IOException {
+    // given
+    var file = directory.resolve("http-client.log");
+
+    // when
+    try (var stream = new SegmentedOutputStream(file, false, 4, false)) {
+      stream.write("GET /orders\nHTTP/1.1 200\nok\n".getBytes(StandardCharsets.UTF_8));
+      stream.write("POST ".getBytes(StandardCharsets.UTF_8));
+      stream.write("/checkout".getBytes(StandardCharsets.UTF_8));
+      stream.write('\n');
+      stream.write("done\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Line end",
+        () -> assertEquals("GET /orders\n",
+            Files.readString(directory.resolve("http-client.log.1"))),
+        () -> assertEquals("HTTP/1.1 200\n",
+            Files.readString(directory.resolve("http-client.log.2"))),
+        () -> assertEquals("ok\nPOST /checkout\n",
+            Files.readString(directory.resolve("http-client.log.3"))),
+        () -> assertEquals("done\n", Files.readString(directory.resolve("http-client.log.4"))),
+        () -> assertFalse(Files.exists(directory.resolve("http-client.log.5")), "empty segment"));
+  }
+
+  @DisplayName("A closed stream cannot be written")
+  @Test
+  void closedStream() throws IOException {
+    // given
+    var stream = new SegmentedOutputStream(directory.resolve("http-client.log"), true, 10, false);
+
+    stream.close();
+
+    // when
+    var exception = assertThrows(IOException.class,
+        () -> stream.write("late".getBytes(StandardCharsets.UTF_8)));
+
+    // then
+    assertEquals("stream closed", exception.getMessage());
+  }
+
+  @DisplayName("Segments of the previous output are deleted, uncompressed segments have no suffix")
+  @Test
+  void previousSegments() throws IOException {
+    // given
+    var file = directory.resolve("http-client.log");
+
+    try (var stream = new SegmentedOutputStream(file, false, 2, false)) {
+      stream.write("a\n".getBytes(StandardCharsets.UTF_8));
+      stream.write("c\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // when
+    try (var stream = new SegmentedOutputStream(file, false, 2, false)) {
+      stream.write("ef".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // then
+    assertAll("Previous segments",
+        () -> assertEquals("ef", Files.readString(directory.resolve("http-client.log.1"))),
+        () -> assertFalse(Files.exists(directory.resolve("http-client.log.2")), "old segment"));
+  }
+
+  @DisplayName("A broken index cannot be appended")
+  @Test
+  void brokenIndex() throws IOException {
+    // given
+    var file = directory.resolve("http-client.log");
+
+    Files.writeString(directory.resolve("http-client.log.index"), "segments");
+
+    // when
+    var exception = assertThrows(IOException.class,
+        () -> new SegmentedOutputStream(file, true, 10, true));
+
+    // then
+    assertEquals("broken index of the output file: " + directory.resolve("http-client.log.index"),
+        exception.getMessage());
+  }
+
+  private static String gunzip(Path file) throws IOException {
+    var output = new ByteArrayOutputStream();
+
+    try (var input = new GZIPInputStream(Files.newInputStream(file))) {
+      input.transferTo(output);
+    }
+
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+}
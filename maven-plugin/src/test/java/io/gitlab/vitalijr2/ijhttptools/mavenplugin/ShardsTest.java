@@ -0,0 +1,181 @@
+package io.gitlab.vitalijr2.ijhttptools.mavenplugin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientReport;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("fast")
+class ShardsTest {
+
+  @DisplayName("Round-robin distribution")
+  @Test
+  void roundRobin() {
+    // given
+    var files = List.of(Path.of("a.http"), Path.of("b.http"), Path.of("c.http"),
+        Path.of("d.http"), Path.of("e.http"));
+
+    // when
+    var shards = Shards.split(files, 2);
+
+    // then
+    assertAll("Shards", () -> assertThat(shards, hasSize(2)),
+        () -> assertThat(shards.get(0),
+            contains(Path.of("a.http"), Path.of("c.http"), Path.of("e.http"))),
+        () -> assertThat(shards.get(1), contains(Path.of("b.http"), Path.of("d.http"))));
+  }
+
+  @DisplayName("No more shards than files")
+  @Test
+  void moreShardsThanFiles() {
+    // given
+    var files = List.of(Path.of("a.http"), Path.of("b.http"));
+
+    // when
+    var shards = Shards.split(files, 8);
+
+    // then
+    assertThat(shards, contains(List.of(Path.of("a.http")), List.of(Path.of("b.http"))));
+  }
+
+  @DisplayName("No files")
+  @Test
+  void noFiles() {
+    // when and then
+    assertThat(Shards.split(List.of(), 4), empty());
+  }
+
+  @DisplayName("CI shard: files are sorted by relative paths, the original order is kept")
+  @Test
+  void select() {
+    // given
+    var base = Path.of("/checkout/project");
+    var files = List.of(base.resolve("e.http"), base.resolve("b.http"), base.resolve("d.http"),
+        base.resolve("a.http"), base.resolve("c.http"));
+
+    // when
+    var firstShard = Shards.select(files, 1, 2, base);
+    var secondShard = Shards.select(files, 2, 2, base);
+
+    // then
+    assertAll("CI shards",
+        () -> assertThat(firstShard,
+            contains(base.resolve("e.http"), base.resolve("a.http"), base.resolve("c.http"))),
+        () -> assertThat(secondShard, contains(base.resolve("b.http"), base.resolve("d.http"))));
+  }
+
+  @DisplayName("CI shard: the partition does not depend on the checkout location")
+  @Test
+  void checkoutLocation() {
+    // given
+    var firstBase = Path.of("/builds/first");
+    var secondBase = Path.of("/home/runner/second");
+    var names = List.of("orders/z.http", "catalog/a.http", "catalog/b.http", "users.http");
+
+    // when
+    var firstNode = Shards.select(names.stream().map(firstBase::resolve).toList(), 2, 3,
+        firstBase).stream().map(firstBase::relativize).toList();
+    var secondNode = Shards.select(names.stream().map(secondBase::resolve).toList(), 2, 3,
+        secondBase).stream().map(secondBase::relativize).toList();
+
+    // then
+    assertEquals(firstNode, secondNode);
+  }
+
+  @DisplayName("Longest processing time first")
+  @Test
+  void longestProcessingTimeFirst() {
+    // given
+    var files = List.of(Path.of("a.http"), Path.of("b.http"), Path.of("c.http"),
+        Path.of("d.http"), Path.of("e.http"));
+    var weights = Map.of(Path.of("a.http"), 1L, Path.of("b.http"), 7L, Path.of("c.http"), 3L,
+        Path.of("d.http"), 2L, Path.of("e.http"), 5L);
+
+    // when
+    var shards = Shards.split(files, 2, weights::get);
+
+    // then
+    assertAll("Shards", () -> assertThat(shards, hasSize(2)),
+        () -> assertThat(shards.get(0), contains(Path.of("b.http"), Path.of("d.http"))),
+        () -> assertThat(shards.get(1),
+            contains(Path.of("a.http"), Path.of("c.http"), Path.of("e.http"))));
+  }
+
+  @DisplayName("CI shard: longest processing time first")
+  @Test
+  void weightedSelect() {
+    // given
+    var base = Path.of("/checkout/project");
+    var files = List.of(base.resolve("c.http"), base.resolve("b.http"), base.resolve("a.http"));
+    var weights = Map.of(base.resolve("a.http"), 1L, base.resolve("b.http"), 1L,
+        base.resolve("c.http"), 5L);
+
+    // when
+    var firstShard = Shards.select(files, 1, 2, base, weights::get);
+    var secondShard = Shards.select(files, 2, 2, base, weights::get);
+
+    // then
+    assertAll("CI shards", () -> assertThat(firstShard, contains(base.resolve("c.http"))),
+        () -> assertThat(secondShard, contains(base.resolve("b.http"), base.resolve("a.http"))));
+  }
+
+  @DisplayName("Weights: durations of the previous run, estimations by size for new files")
+  @Test
+  void weights(@TempDir Path directory) throws IOException {
+    // given
+    var known = Files.writeString(directory.resolve("known.http"), "x".repeat(100));
+    var unknown = Files.writeString(directory.resolve("unknown.http"), "x".repeat(50));
+    var report = Files.writeString(directory.resolve("report.xml"), """
+        <testsuites>
+          <testsuite name="known.http" time="2.5"/>
+        </testsuites>
+        """);
+
+    // when
+    var weights = Shards.weights(List.of(known, unknown), HttpClientReport.read(report));
+
+    // then
+    assertAll("Weights", () -> assertEquals(2500L, weights.applyAsLong(known)),
+        () -> assertEquals(1250L, weights.applyAsLong(unknown)));
+  }
+
+  @DisplayName("Weights: file sizes without history")
+  @Test
+  void noHistory(@TempDir Path directory) throws IOException {
+    // given
+    var first = Files.writeString(directory.resolve("first.http"), "x".repeat(100));
+    var second = Files.writeString(directory.resolve("second.http"), "x".repeat(50));
+
+    // when
+    var weights = Shards.weights(List.of(first, second), null);
+
+    // then
+    assertAll("Weights", () -> assertEquals(100L, weights.applyAsLong(first)),
+        () -> assertEquals(50L, weights.applyAsLong(second)),
+        () -> assertEquals(0L, weights.applyAsLong(directory.resolve("missing.http"))));
+  }
+
+  @DisplayName("CI shard: more shards than files")
+  @Test
+  void emptyShard() {
+    // when
+    var shard = Shards.select(List.of(Path.of("a.http")), 2, 2, Path.of(""));
+
+    // then
+    assertThat(shard, empty());
+  }
+
+}
@@ -41,6 +41,28 @@ import org.springframework.boot.test.context.PropertyMapping;
 @PropertyMapping("ijhttp")
 public @interface AutoConfigureHttpClientCommandLine {
 
+  /**
+   * Derive the timeout of every command line from durations of its previous successful runs.
+   *
+   * @since 1.3.0
+   */
+  @PropertyMapping("adaptive-timeout") boolean adaptiveTimeout() default false;
+
+  /**
+   * Send command lines to a long-lived daemon that keeps HTTP Client warm, the timeout is not
+   * applied.
+   *
+   * @since 1.3.0
+   */
+  @PropertyMapping("daemon") boolean daemon() default false;
+
+  /**
+   * Home of the HTTP Client distribution, required by the {@link #daemon() daemon} mode.
+   *
+   * @since 1.3.0
+   */
+  @PropertyMapping("distribution") String distribution() default "";
+
   /**
    * The timeout for the process in milliseconds. If the timeout parameter is greater than 0 then a
    * watchdog will be added to an executor.
@@ -21,16 +21,21 @@ package io.gitlab.vitalijr2.ijhttptools.springboottest;
 
 import static java.util.Objects.nonNull;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.AdaptiveTimeoutExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
 import io.gitlab.vitalijr2.ijhttptools.cli.HttpClientCommandLine;
+import io.gitlab.vitalijr2.ijhttptools.cli.ProcessTreeWatchdog;
+import io.gitlab.vitalijr2.ijhttptools.cli.TimeoutHistory;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Optional;
 import org.apache.commons.exec.DefaultExecutor;
-import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -55,6 +60,10 @@ public class HttpClientCommandLineConfiguration {
     httpClientCommandLine.insecure(parameters.isInsecure());
     httpClientCommandLine.logLevel(parameters.getLogLevel());
     httpClientCommandLine.report(parameters.isReport());
+    httpClientCommandLine.rerunFailingCount(parameters.getRerunFailingCount());
+    if (nonNull(parameters.getRerunLogLevel())) {
+      httpClientCommandLine.rerunLogLevel(parameters.getRerunLogLevel());
+    }
   }
 
   private static void handleEnvironment(HttpClientCommandLineParameters parameters,
@@ -84,6 +93,13 @@ public class HttpClientCommandLineConfiguration {
     }
     if (nonNull(parameters.getDirectories())) {
       httpClientCommandLine.directories(parameters.getDirectories().toArray(new Path[0]));
+      httpClientCommandLine.parallelDiscovery(parameters.isParallelDiscovery());
+      if (nonNull(parameters.getIncludes())) {
+        httpClientCommandLine.includes(parameters.getIncludes().toArray(new String[0]));
+      }
+      if (nonNull(parameters.getExcludes())) {
+        httpClientCommandLine.excludes(parameters.getExcludes().toArray(new String[0]));
+      }
     }
     if (nonNull(parameters.getReportPath())) {
       httpClientCommandLine.reportPath(parameters.getReportPath());
@@ -111,17 +127,42 @@ public class HttpClientCommandLineConfiguration {
    * Provides an executor.
    * <p>
    * If the timeout parameter is greater than 0 then a watchdog will be added to an executor.
+   * With the timeout history every command line gets the adaptive timeout, see
+   * {@link #timeoutHistory(String, int, double, long)}. With the property {@code ijhttp.daemon}
+   * command lines are sent to a long-lived daemon that keeps HTTP Client warm, see
+   * {@link DaemonExecutor}, then the timeout is not applied.
    *
-   * @param timeout The timeout for the process in milliseconds.
+   * @param timeout        The timeout for the process in milliseconds.
+   * @param timeoutHistory The timeout history of adaptive timeouts.
+   * @param daemon         Run HTTP Client by the daemon.
+   * @param distribution   Home of the HTTP Client distribution, required by the daemon mode.
    * @return the configured executor
    */
   @Bean
   @ConditionalOnMissingBean
-  Executor executor(@Value("${ijhttp.timeout:-1}") int timeout) {
+  Executor executor(@Value("${ijhttp.timeout:-1}") int timeout,
+      Optional<TimeoutHistory> timeoutHistory,
+      @Value("${ijhttp.daemon:false}") boolean daemon,
+      @Value("${ijhttp.distribution:}") String distribution) {
+    if (daemon) {
+      if (distribution.isBlank()) {
+        throw new IllegalStateException("the daemon mode needs the distribution");
+      }
+      logger.debug("Run HTTP Client by the daemon");
+
+      return new DaemonExecutor(Path.of(distribution), null, null);
+    }
+    if (timeoutHistory.isPresent()) {
+      logger.debug("Set the adaptive watchdog");
+
+      return new AdaptiveTimeoutExecutor(timeoutHistory.get(),
+          (0 < timeout) ? Duration.ofMillis(timeout) : null);
+    }
+
     var executor = DefaultExecutor.builder().get();
 
     if (0 < timeout) {
-      executor.setWatchdog(ExecuteWatchdog.builder().setTimeout(Duration.ofMillis(timeout)).get());
+      executor.setWatchdog(new ProcessTreeWatchdog(Duration.ofMillis(timeout)));
       if (logger.isDebugEnabled()) {
         logger.debug(String.format("Set the watchdog (%s) ms", timeout));
       }
@@ -130,6 +171,33 @@ public class HttpClientCommandLineConfiguration {
     return executor;
   }
 
+  /**
+   * Provides observed durations of successful runs if adaptive timeouts are enabled by the
+   * property {@code ijhttp.adaptive-timeout}.
+   * <p>
+   * The adaptive timeout of a command line is the percentile of its durations multiplied by the
+   * safety factor, but not more than the hard cap. A command line without history gets the timeout
+   * or the hard cap.
+   *
+   * @param historyFile The file of observed durations.
+   * @param percentile  The percentile of durations, from 1 to 100.
+   * @param factor      The safety factor, not less than 1.
+   * @param maxTimeout  The hard cap of timeouts in milliseconds.
+   * @return the timeout history
+   * @since 1.3.0
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "ijhttp", name = "adaptive-timeout", havingValue = "true")
+  TimeoutHistory timeoutHistory(
+      @Value("${ijhttp.timeout-history:target/ijhttp/timeouts.history}") String historyFile,
+      @Value("${ijhttp.timeout-percentile:95}") int percentile,
+      @Value("${ijhttp.timeout-factor:2.0}") double factor,
+      @Value("${ijhttp.max-timeout:3600000}") long maxTimeout) {
+    return TimeoutHistory.load(Path.of(historyFile), percentile, factor,
+        Duration.ofMillis(maxTimeout));
+  }
+
   /**
    * The builder-style component to prepare command line.
    *
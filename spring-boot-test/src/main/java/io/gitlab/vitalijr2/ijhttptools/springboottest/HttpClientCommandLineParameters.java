@@ -59,6 +59,11 @@ public class HttpClientCommandLineParameters {
    * Name of the environment in a configuration file.
    */
   private String environmentName;
+  /**
+   * Glob patterns of HTTP files to skip, relative to a directory. A directory that matches a
+   * pattern ending with <em>/**</em> is not traversed at all.
+   */
+  private List<String> excludes;
   /**
    * The executable. Can be a full path or the name of the executable. Defaults to
    * <em>ijhttp</em>.
@@ -68,6 +73,10 @@ public class HttpClientCommandLineParameters {
    * HTTP file paths. At least one {@code file} or {@code directory} is required.
    */
   private List<Path> files;
+  /**
+   * Glob patterns of HTTP files to look up, relative to a directory. Defaults to all HTTP files.
+   */
+  private List<String> includes;
   /**
    * Allow insecure SSL connection. Defaults to <em>false</em>.
    */
@@ -76,6 +85,11 @@ public class HttpClientCommandLineParameters {
    * Logging level: BASIC, HEADERS, VERBOSE. Defaults to <em>BASIC</em>.
    */
   private LogLevel logLevel = LogLevel.BASIC;
+  /**
+   * Scans directories concurrently. Found files are sorted to keep the command line stable.
+   * Defaults to <em>false</em>.
+   */
+  private boolean parallelDiscovery;
   /**
    * Name of the private environment file, e.g. <em>http-client.private.env.json</em>.
    */
@@ -99,6 +113,15 @@ public class HttpClientCommandLineParameters {
    * Path to a report folder. Default value <em>reports</em> in the current directory.
    */
   private Path reportPath;
+  /**
+   * How many times to rerun failed HTTP files by {@code HttpClientCommandLine.execute(Executor)}.
+   * Defaults to <em>0</em>.
+   */
+  private int rerunFailingCount;
+  /**
+   * Logging level of reruns: BASIC, HEADERS, VERBOSE. Defaults to the logging level of the run.
+   */
+  private LogLevel rerunLogLevel;
   /**
    * Number of milliseconds for socket read. Defaults to <em>10000</em>.
    */
@@ -174,6 +197,21 @@ public class HttpClientCommandLineParameters {
     this.environmentName = environmentName;
   }
 
+  public List<String> getExcludes() {
+    return excludes;
+  }
+
+  /**
+   * Glob patterns of HTTP files to skip, relative to a directory. A directory that matches a
+   * pattern ending with <em>/**</em> is not traversed at all.
+   *
+   * @see #setDirectories(List)
+   * @since 1.3.0
+   */
+  public void setExcludes(List<String> excludes) {
+    this.excludes = excludes;
+  }
+
   public String getExecutable() {
     return executable;
   }
@@ -200,6 +238,20 @@ public class HttpClientCommandLineParameters {
     this.files = files;
   }
 
+  public List<String> getIncludes() {
+    return includes;
+  }
+
+  /**
+   * Glob patterns of HTTP files to look up, relative to a directory. Defaults to all HTTP files.
+   *
+   * @see #setDirectories(List)
+   * @since 1.3.0
+   */
+  public void setIncludes(List<String> includes) {
+    this.includes = includes;
+  }
+
   public boolean isInsecure() {
     return insecure;
   }
@@ -222,6 +274,20 @@ public class HttpClientCommandLineParameters {
     this.logLevel = logLevel;
   }
 
+  public boolean isParallelDiscovery() {
+    return parallelDiscovery;
+  }
+
+  /**
+   * Scans directories concurrently. Found files are sorted to keep the command line stable.
+   * Defaults to <em>false</em>.
+   *
+   * @since 1.3.0
+   */
+  public void setParallelDiscovery(boolean parallelDiscovery) {
+    this.parallelDiscovery = parallelDiscovery;
+  }
+
   public Path getPrivateEnvironmentFile() {
     return privateEnvironmentFile;
   }
@@ -280,6 +346,33 @@ public class HttpClientCommandLineParameters {
     this.reportPath = reportPath;
   }
 
+  public int getRerunFailingCount() {
+    return rerunFailingCount;
+  }
+
+  /**
+   * How many times to rerun failed HTTP files by {@code HttpClientCommandLine.execute(Executor)}.
+   * Defaults to <em>0</em>.
+   *
+   * @since 1.3.0
+   */
+  public void setRerunFailingCount(int rerunFailingCount) {
+    this.rerunFailingCount = rerunFailingCount;
+  }
+
+  public LogLevel getRerunLogLevel() {
+    return rerunLogLevel;
+  }
+
+  /**
+   * Logging level of reruns: BASIC, HEADERS, VERBOSE. Defaults to the logging level of the run.
+   *
+   * @since 1.3.0
+   */
+  public void setRerunLogLevel(LogLevel rerunLogLevel) {
+    this.rerunLogLevel = rerunLogLevel;
+  }
+
   public Integer getSocketTimeout() {
     return socketTimeout;
   }
@@ -297,11 +390,14 @@ public class HttpClientCommandLineParameters {
             "connectTimeout=" + connectTimeout).add("directories=" + directories)
         .add("dockerMode=" + dockerMode).add("environmentFile=" + environmentFile)
         .add("environmentVariables=" + environmentVariables)
-        .add("environmentName='" + environmentName + "'").add("executable='" + executable + "'")
-        .add("files=" + files).add("insecure=" + insecure).add("logLevel=" + logLevel)
+        .add("environmentName='" + environmentName + "'").add("excludes=" + excludes)
+        .add("executable='" + executable + "'").add("files=" + files)
+        .add("includes=" + includes).add("insecure=" + insecure).add("logLevel=" + logLevel)
+        .add("parallelDiscovery=" + parallelDiscovery)
         .add("privateEnvironmentFile=" + privateEnvironmentFile)
         .add("privateEnvironmentVariables=" + privateEnvironmentVariables)
         .add("proxy='" + proxy + "'").add("report=" + report).add("reportPath=" + reportPath)
+        .add("rerunFailingCount=" + rerunFailingCount).add("rerunLogLevel=" + rerunLogLevel)
         .add("socketTimeout=" + socketTimeout).toString();
   }
 }
@@ -3,14 +3,22 @@ package io.gitlab.vitalijr2.ijhttptools.springboottest;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.isA;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import io.gitlab.vitalijr2.ijhttptools.cli.AdaptiveTimeoutExecutor;
+import io.gitlab.vitalijr2.ijhttptools.cli.DaemonExecutor;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
 import org.apache.commons.exec.DefaultExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -29,7 +37,7 @@ class HttpClientCommandLineConfigurationFastTest {
   @ValueSource(ints = {-1, 0})
   void defaultExecutor(int timeout) {
     // when
-    var executor = configuration.executor(timeout);
+    var executor = configuration.executor(timeout, Optional.empty(), false, "");
 
     // then
     assertAll("Default executor without watchdog",
@@ -41,7 +49,7 @@ class HttpClientCommandLineConfigurationFastTest {
   @Test
   void watchdog() {
     // when
-    var executor = configuration.executor(1);
+    var executor = configuration.executor(1, Optional.empty(), false, "");
 
     // then
     assertAll("Default executor with watchdog",
@@ -49,4 +57,54 @@ class HttpClientCommandLineConfigurationFastTest {
         () -> assertNotNull(executor.getWatchdog(), "watchdog"));
   }
 
+  @DisplayName("Adaptive timeout")
+  @Test
+  void adaptiveTimeout(@TempDir Path directory) {
+    // given
+    var timeoutHistory = configuration.timeoutHistory(
+        directory.resolve("timeouts.history").toString(), 95, 2.0, 60000);
+
+    // when
+    var executor = configuration.executor(1, Optional.of(timeoutHistory), false, "");
+
+    // then
+    assertAll("Adaptive timeout",
+        () -> assertThat("class", executor, isA(AdaptiveTimeoutExecutor.class)),
+        () -> assertEquals(Duration.ofMinutes(1), timeoutHistory.getTimeout("ijhttp", null)));
+  }
+
+  @DisplayName("Daemon mode")
+  @Test
+  void daemon() {
+    // when
+    var executor = configuration.executor(1, Optional.empty(), true, "ijhttp");
+
+    // then
+    assertAll("Daemon executor without watchdog",
+        () -> assertThat("class", executor, isA(DaemonExecutor.class)),
+        () -> assertNull(executor.getWatchdog(), "watchdog"));
+  }
+
+  @DisplayName("Daemon mode without the distribution")
+  @Test
+  void daemonWithoutDistribution() {
+    // when
+    var exception = assertThrows(IllegalStateException.class,
+        () -> configuration.executor(1, Optional.empty(), true, ""));
+
+    // then
+    assertEquals("the daemon mode needs the distribution", exception.getMessage());
+  }
+
+  @DisplayName("Adaptive timeout: invalid settings")
+  @Test
+  void invalidAdaptiveTimeout() {
+    // when
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> configuration.timeoutHistory("timeouts.history", 95, 0.5, 60000));
+
+    // then
+    assertEquals("factor must not be less than 1: 0.5", exception.getMessage());
+  }
+
 }
@@ -19,6 +19,7 @@ import io.gitlab.vitalijr2.ijhttptools.cli.LogLevel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -48,7 +49,7 @@ class HttpClientCommandLineConfigurationSlowTest {
   @Test
   void defaultExecutor() {
     // when
-    configuration.executor(-1);
+    configuration.executor(-1, Optional.empty(), false, "");
 
     // then
     verifyNoInteractions(logger);
@@ -61,7 +62,7 @@ class HttpClientCommandLineConfigurationSlowTest {
     when(logger.isDebugEnabled()).thenReturn(true);
 
     // when
-    configuration.executor(1);
+    configuration.executor(1, Optional.empty(), false, "");
 
     // then
     verify(logger).isDebugEnabled();
@@ -96,6 +97,8 @@ class HttpClientCommandLineConfigurationSlowTest {
     verify(parameters).getPrivateEnvironmentVariables();
     verify(parameters).getProxy();
     verify(parameters).getReportPath();
+    verify(parameters).getRerunFailingCount();
+    verify(parameters).getRerunLogLevel();
     verify(parameters).getSocketTimeout();
 
     assertAll("Default HTTP Client Command Client", () -> assertNotNull(httpClientCommandLine),
@@ -116,17 +119,22 @@ class HttpClientCommandLineConfigurationSlowTest {
     parameters.setExecutable("test.sh");
     parameters.setInsecure(true);
     parameters.setLogLevel(LogLevel.VERBOSE);
+    parameters.setParallelDiscovery(true);
     parameters.setReport(true);
 
     parameters.setConnectTimeout(1);
     parameters.setEnvironmentFile(file);
     parameters.setEnvironmentName("name");
     parameters.setEnvironmentVariables(List.of("public"));
+    parameters.setExcludes(List.of("**/target/**"));
     parameters.setFiles(List.of(file));
+    parameters.setIncludes(List.of("**/*.http"));
     parameters.setPrivateEnvironmentFile(file);
     parameters.setPrivateEnvironmentVariables(List.of("private"));
     parameters.setProxy("proxy");
     parameters.setReportPath(file);
+    parameters.setRerunFailingCount(2);
+    parameters.setRerunLogLevel(LogLevel.HEADERS);
     parameters.setSocketTimeout(2);
 
     // when
@@ -141,6 +149,9 @@ class HttpClientCommandLineConfigurationSlowTest {
 
     verify(parameters, times(2)).getConnectTimeout();
     verify(parameters, times(2)).getDirectories();
+    verify(parameters).isParallelDiscovery();
+    verify(parameters, times(2)).getIncludes();
+    verify(parameters, times(2)).getExcludes();
     verify(parameters, times(2)).getEnvironmentFile();
     verify(parameters, times(2)).getEnvironmentName();
     verify(parameters, times(2)).getEnvironmentVariables();
@@ -149,6 +160,8 @@ class HttpClientCommandLineConfigurationSlowTest {
     verify(parameters, times(2)).getPrivateEnvironmentVariables();
     verify(parameters, times(2)).getProxy();
     verify(parameters, times(2)).getReportPath();
+    verify(parameters).getRerunFailingCount();
+    verify(parameters, times(2)).getRerunLogLevel();
     verify(parameters, times(2)).getSocketTimeout();
 
     assertAll("Configured HTTP Client Command Client", () -> assertNotNull(httpClientCommandLine),
@@ -24,9 +24,11 @@ class HttpClientCommandLineParametersTest {
     // when and then
     assertEquals("HttpClientCommandLineParameters[connectTimeout=null, directories=null, "
             + "dockerMode=false, environmentFile=null, environmentVariables=null, "
-            + "environmentName='null', executable='ijhttp', files=null, insecure=false, "
-            + "logLevel=BASIC, privateEnvironmentFile=null, privateEnvironmentVariables=null, "
-            + "proxy='null', report=false, reportPath=null, socketTimeout=null]",
+            + "environmentName='null', excludes=null, executable='ijhttp', files=null, "
+            + "includes=null, insecure=false, logLevel=BASIC, parallelDiscovery=false, "
+            + "privateEnvironmentFile=null, "
+            + "privateEnvironmentVariables=null, proxy='null', report=false, reportPath=null, "
+            + "rerunFailingCount=0, rerunLogLevel=null, socketTimeout=null]",
         parameters.toString());
   }
 
@@ -42,17 +44,22 @@ class HttpClientCommandLineParametersTest {
     parameters.setExecutable("test.sh");
     parameters.setInsecure(true);
     parameters.setLogLevel(LogLevel.VERBOSE);
+    parameters.setParallelDiscovery(true);
     parameters.setReport(true);
 
     parameters.setConnectTimeout(1);
     parameters.setEnvironmentFile(file);
     parameters.setEnvironmentName("name");
     parameters.setEnvironmentVariables(List.of("public"));
+    parameters.setExcludes(List.of("**/target/**"));
     parameters.setFiles(List.of(file));
+    parameters.setIncludes(List.of("**/*.http"));
     parameters.setPrivateEnvironmentFile(file);
     parameters.setPrivateEnvironmentVariables(List.of("private"));
     parameters.setProxy("proxy");
     parameters.setReportPath(file);
+    parameters.setRerunFailingCount(3);
+    parameters.setRerunLogLevel(LogLevel.HEADERS);
     parameters.setSocketTimeout(2);
 
     when(file.toString()).thenReturn("path");
@@ -60,9 +67,11 @@ class HttpClientCommandLineParametersTest {
     // when and then
     assertEquals("HttpClientCommandLineParameters[connectTimeout=1, "
         + "directories=[test-directory], dockerMode=true, environmentFile=path, "
-        + "environmentVariables=[public], environmentName='name', executable='test.sh', "
-        + "files=[path], insecure=true, logLevel=VERBOSE, privateEnvironmentFile=path, "
-        + "privateEnvironmentVariables=[private], proxy='proxy', report=true, reportPath=path, "
+        + "environmentVariables=[public], environmentName='name', excludes=[**/target/**], "
+        + "executable='test.sh', files=[path], includes=[**/*.http], insecure=true, "
+        + "logLevel=VERBOSE, parallelDiscovery=true, "
+        + "privateEnvironmentFile=path, privateEnvironmentVariables=[private], proxy='proxy', "
+        + "report=true, reportPath=path, rerunFailingCount=3, rerunLogLevel=HEADERS, "
         + "socketTimeout=2]", parameters.toString());
   }
 